@@ -18,6 +18,7 @@ import org.springframework.batch.item.ItemWriter;
 import org.springframework.batch.item.file.FlatFileItemReader;
 import org.springframework.batch.item.file.builder.FlatFileItemReaderBuilder;
 import org.springframework.batch.item.file.mapping.BeanWrapperFieldSetMapper;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -38,14 +39,16 @@ import org.springframework.transaction.PlatformTransactionManager;
 @RequiredArgsConstructor
 public class MediaItemBatchConfig {
 
+    public static final String JOB_NAME = "mediaItemImportJob";
+
     private final MediaItemBatchProperties batchProperties;
     private final JobRepository jobRepository;
     private final PlatformTransactionManager transactionManager;
 
     @Bean
-    public Job mediaItemImportJob(Step importMediaItemStep,
+    public Job mediaItemImportJob(@Qualifier("mediaItemImportStep") Step importMediaItemStep,
                                   JobCompletionListener listener) {
-        return new JobBuilder("mediaItemImportJob", jobRepository)
+        return new JobBuilder(JOB_NAME, jobRepository)
                 .incrementer(new RunIdIncrementer())
                 .listener(listener)
                 .start(importMediaItemStep)
@@ -53,7 +56,7 @@ public class MediaItemBatchConfig {
     }
 
     @Bean
-    public Step mediaItemImportStep(ItemReader<MediaItemCSV> reader,
+    public Step mediaItemImportStep(@Qualifier("reader") ItemReader<MediaItemCSV> reader,
                                     ItemProcessor<MediaItemCSV, MediaItem> processor,
                                     ItemWriter<MediaItem> writer) {
         return new StepBuilder("mediaItemImportStep", jobRepository)
@@ -0,0 +1,124 @@
+package com.amir.mediatracker.batch.config;
+
+import com.amir.mediatracker.batch.exception.SkippableItemException;
+import com.amir.mediatracker.batch.listener.JobCompletionListener;
+import com.amir.mediatracker.batch.model.UserMediaListCSV;
+import com.amir.mediatracker.batch.model.UserMediaListImportItem;
+import com.amir.mediatracker.batch.processor.UserMediaListProcessor;
+import com.amir.mediatracker.batch.writer.UserMediaListWriter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.Step;
+import org.springframework.batch.core.configuration.annotation.StepScope;
+import org.springframework.batch.core.job.builder.JobBuilder;
+import org.springframework.batch.core.launch.support.RunIdIncrementer;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.core.step.builder.StepBuilder;
+import org.springframework.batch.item.file.FlatFileItemReader;
+import org.springframework.batch.item.file.builder.FlatFileItemReaderBuilder;
+import org.springframework.batch.item.file.transform.DelimitedLineTokenizer;
+import org.springframework.batch.item.file.transform.FieldSet;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Spring Batch configuration for importing entries of a single user list from a CSV file.
+ *
+ * <p>The job reads rows of (name, category, experienced, rating, comment) from the
+ * file given by the {@code filePath} job parameter, into the list of the user given by
+ * the {@code userId} job parameter. Media items must already exist in the catalog.
+ * Columns are matched by the names in the header line, in any order, and other columns are ignored,
+ * so a CSV export of a list can be imported as is.
+ *
+ * <p>Like {@link MediaItemBatchConfig}, the job is chunk-oriented and fault-tolerant:
+ * invalid rows and rows of unknown media items are skipped, up to the configured limit.
+ */
+@Configuration
+@RequiredArgsConstructor
+public class UserMediaListBatchConfig {
+
+    public static final String JOB_NAME = "userMediaListImportJob";
+
+    private static final List<String> MANDATORY_COLUMNS = List.of("name", "category");
+
+    private final MediaItemBatchProperties batchProperties;
+    private final JobRepository jobRepository;
+    private final PlatformTransactionManager transactionManager;
+
+    @Bean
+    public Job userMediaListImportJob(@Qualifier("userMediaListImportStep") Step userMediaListImportStep,
+                                      JobCompletionListener listener) {
+        return new JobBuilder(JOB_NAME, jobRepository)
+                .incrementer(new RunIdIncrementer())
+                .listener(listener)
+                .start(userMediaListImportStep)
+                .build();
+    }
+
+    @Bean
+    public Step userMediaListImportStep(@Qualifier("userMediaListReader") FlatFileItemReader<UserMediaListCSV> reader,
+                                        UserMediaListProcessor processor,
+                                        UserMediaListWriter writer) {
+        return new StepBuilder("userMediaListImportStep", jobRepository)
+                .<UserMediaListCSV, UserMediaListImportItem>chunk(batchProperties.getChunkSize(), transactionManager)
+                .reader(reader)
+                .processor(processor)
+                .writer(writer)
+                .faultTolerant()
+                .skip(SkippableItemException.class)
+                .skipLimit(batchProperties.getSkipLimit())
+                .build();
+    }
+
+    @Bean
+    @StepScope
+    public FlatFileItemReader<UserMediaListCSV> userMediaListReader(
+            @Value("#{jobParameters['filePath']}") String filePath) {
+        DelimitedLineTokenizer tokenizer = new DelimitedLineTokenizer(); // strict: rows must have the header's columns
+
+        return new FlatFileItemReaderBuilder<UserMediaListCSV>()
+                .name("userMediaListCSVReader")
+                .resource(new FileSystemResource(filePath))
+                .lineTokenizer(tokenizer)
+                .linesToSkip(1)
+                .skippedLinesCallback(header -> tokenizer.setNames(columnNames(tokenizer, header)))
+                .fieldSetMapper(fieldSet -> new UserMediaListCSV(
+                        readColumn(fieldSet, "name"),
+                        readColumn(fieldSet, "category"),
+                        readColumn(fieldSet, "experienced"),
+                        readColumn(fieldSet, "rating"),
+                        readColumn(fieldSet, "comment")))
+                .recordSeparatorPolicy(new BlankLineRecordSeparatorPolicy())
+                .build();
+    }
+
+    /**
+     * The column names of the header line. Fails the job if a mandatory column is missing
+     */
+    private static String[] columnNames(DelimitedLineTokenizer tokenizer, String header) {
+        String[] names = Arrays.stream(tokenizer.tokenize(header).getValues())
+                .map(name -> name.trim().toLowerCase(Locale.ROOT))
+                .toArray(String[]::new);
+        for (String mandatory : MANDATORY_COLUMNS) {
+            if (!Arrays.asList(names).contains(mandatory)) {
+                throw new IllegalArgumentException("CSV header has no " + mandatory + " column: " + header);
+            }
+        }
+        return names;
+    }
+
+    /**
+     * The value of a column, or null if the file has no such column
+     */
+    private static String readColumn(FieldSet fieldSet, String name) {
+        return Arrays.asList(fieldSet.getNames()).contains(name) ? fieldSet.readString(name) : null;
+    }
+}
@@ -6,4 +6,5 @@ import lombok.experimental.UtilityClass;
 public class JobParameterNames {
 
     public static final String FILE_PATH = "filePath";
+    public static final String USER_ID = "userId";
 }
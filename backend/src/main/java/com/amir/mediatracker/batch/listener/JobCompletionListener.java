@@ -1,11 +1,15 @@
 package com.amir.mediatracker.batch.listener;
 
+import com.amir.mediatracker.batch.config.MediaItemBatchConfig;
 import com.amir.mediatracker.batch.dto.StepCount;
 import com.amir.mediatracker.batch.util.BatchUtil;
+import com.amir.mediatracker.event.CatalogChangedEvent;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.batch.core.BatchStatus;
 import org.springframework.batch.core.JobExecution;
 import org.springframework.batch.core.JobExecutionListener;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Component;
 
 /**
@@ -13,8 +17,11 @@ import org.springframework.stereotype.Component;
  */
 @Slf4j
 @Component
+@RequiredArgsConstructor
 public class JobCompletionListener implements JobExecutionListener {
 
+    private final ApplicationEventPublisher applicationEventPublisher;
+
     @Override
     public void beforeJob(JobExecution jobExecution) {
         log.info(
@@ -24,10 +31,21 @@ public class JobCompletionListener implements JobExecutionListener {
         );
     }
 
+    /**
+     * Logs the job result.
+     * If the media item import wrote any item (chunks are committed even if the job fails later on),
+     * the catalog is announced as changed.
+     * @param jobExecution The finished job execution
+     */
     @Override
     public void afterJob(JobExecution jobExecution) {
+        StepCount stepCount = BatchUtil.countStepProperties(jobExecution);
+        if (stepCount.getWriteCount() > 0
+                && MediaItemBatchConfig.JOB_NAME.equals(jobExecution.getJobInstance().getJobName())) {
+            applicationEventPublisher.publishEvent(new CatalogChangedEvent(MediaItemBatchConfig.JOB_NAME));
+        }
+
         if (jobExecution.getStatus() == BatchStatus.COMPLETED) {
-            StepCount stepCount = BatchUtil.countStepProperties(jobExecution);
             log.info("Job {} completed successfully! Read count: {}, Write count: {}, Skip count: {}",
                     jobExecution.getId(),
                     stepCount.getReadCount(),
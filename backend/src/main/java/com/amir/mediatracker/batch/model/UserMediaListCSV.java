@@ -0,0 +1,16 @@
+package com.amir.mediatracker.batch.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class UserMediaListCSV {
+    private String name;
+    private String category;
+    private String experienced;  // true/false. Empty means experienced if rated, else the current value is kept
+    private String rating;  // 0-10. Empty keeps the current value
+    private String comment;
+}
@@ -0,0 +1,15 @@
+package com.amir.mediatracker.batch.model;
+
+import com.amir.mediatracker.dto.Category;
+
+/**
+ * A validated row of a user list import, before its media item is resolved
+ * @param name The media item name, as written in the file
+ * @param category The media item category
+ * @param experienced The experienced flag, or null if not given. True if rated
+ * @param rating The rating, or null if not given
+ * @param comment The comment, or null if not given
+ */
+public record UserMediaListImportItem(String name, Category category, Boolean experienced, Short rating,
+                                      String comment) {
+}
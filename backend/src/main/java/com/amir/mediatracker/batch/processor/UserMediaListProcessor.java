@@ -0,0 +1,99 @@
+package com.amir.mediatracker.batch.processor;
+
+import com.amir.mediatracker.batch.exception.SkippableItemException;
+import com.amir.mediatracker.batch.model.UserMediaListCSV;
+import com.amir.mediatracker.batch.model.UserMediaListImportItem;
+import com.amir.mediatracker.dto.Category;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.item.ItemProcessor;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@Component
+public class UserMediaListProcessor implements ItemProcessor<UserMediaListCSV, UserMediaListImportItem> {
+
+    private final static int MIN_RATING = 0;
+    private final static int MAX_RATING = 10;
+    private final static int MAX_COMMENT_LENGTH = 100;
+
+    /**
+     * Validate a single CSV row of a user list import.
+     * Media items are resolved later, a chunk at a time, by the writer
+     @param csvItem a single CSV item
+     @return A UserMediaListImportItem
+     */
+    @Override
+    public UserMediaListImportItem process(@NonNull UserMediaListCSV csvItem) {
+        try {
+            Short rating = parseRating(csvItem.getRating());
+            Boolean experienced = parseExperienced(csvItem.getExperienced(), rating != null);
+            if (rating != null && !experienced) {
+                throw new SkippableItemException("Only experienced items can be rated");
+            }
+            return new UserMediaListImportItem(
+                    parseName(csvItem.getName()),
+                    parseCategory(csvItem.getCategory()),
+                    experienced,
+                    rating,
+                    parseComment(csvItem.getComment()));
+        } catch (SkippableItemException e) {
+            log.warn("item {} is invalid because: {}", csvItem, e.getMessage());
+            throw e;
+        } catch (Exception e) {
+            log.error("item {} threw an unexpected exception", csvItem, e);
+            throw new SkippableItemException("Unexpected exception " + e.getMessage());
+        }
+    }
+
+    private Category parseCategory(String value) {
+        try {
+            return Category.valueOf(value.trim().toUpperCase());
+        } catch (Exception e) {
+            throw new SkippableItemException("Invalid category: " + value);
+        }
+    }
+
+    private String parseName(String value) {
+        if (value == null || value.trim().isEmpty()) {
+            throw new SkippableItemException("Name is mandatory");
+        }
+        return value.trim();
+    }
+
+    private Boolean parseExperienced(String value, boolean rated) {
+        if (value == null || value.trim().isEmpty()) {
+            return rated ? Boolean.TRUE : null;
+        }
+        return switch (value.trim().toLowerCase()) {
+            case "true" -> true;
+            case "false" -> false;
+            default -> throw new SkippableItemException("Invalid experienced: " + value);
+        };
+    }
+
+    private Short parseRating(String value) {
+        if (value == null || value.trim().isEmpty()) {
+            return null;
+        }
+        try {
+            int rating = Integer.parseInt(value.trim());
+            if (rating < MIN_RATING || rating > MAX_RATING) {
+                throw new SkippableItemException("Rating out of range: " + rating);
+            }
+            return (short) rating;
+        } catch (NumberFormatException e) {
+            throw new SkippableItemException("Invalid rating: " + value);
+        }
+    }
+
+    private String parseComment(String value) {
+        if (value == null || value.trim().isEmpty()) {
+            return null;
+        }
+        if (value.trim().length() > MAX_COMMENT_LENGTH) {
+            throw new SkippableItemException("Comment is longer than " + MAX_COMMENT_LENGTH + " characters");
+        }
+        return value.trim();
+    }
+}
@@ -1,6 +1,7 @@
 package com.amir.mediatracker.batch.util;
 
 import com.amir.mediatracker.batch.dto.StepCount;
+import com.amir.mediatracker.dto.response.JobStatusResponse;
 import lombok.experimental.UtilityClass;
 import org.springframework.batch.core.JobExecution;
 import org.springframework.batch.core.StepExecution;
@@ -30,4 +31,27 @@ public class BatchUtil {
                 .skipCount(skipCount)
                 .build();
     }
+
+    /**
+     * Builds the status of a job, along with the amount of reads, writes and skips performed
+     * @param correlationId The key that maps to the jobExecutionId
+     * @param execution The job execution instance
+     * @return JobStatusResponse
+     */
+    public JobStatusResponse toJobStatusResponse(Long correlationId, JobExecution execution) {
+        StepCount stepCount = countStepProperties(execution);
+
+        return JobStatusResponse.builder()
+                .correlationId(correlationId)
+                .jobExecutionId(execution.getId())
+                .status(execution.getStatus().toString())
+                .startTime(execution.getStartTime())
+                .endTime(execution.getEndTime())
+                .readCount(stepCount.getReadCount())
+                .writeCount(stepCount.getWriteCount())
+                .skipCount(stepCount.getSkipCount())
+                .exitCode(execution.getExitStatus().getExitCode())
+                .exitMessage(execution.getExitStatus().getExitDescription())
+                .build();
+    }
 }
@@ -2,15 +2,19 @@ package com.amir.mediatracker.batch.writer;
 
 import com.amir.mediatracker.dto.Category;
 import com.amir.mediatracker.entity.MediaItem;
+import com.amir.mediatracker.event.MediaItemsChangedEvent;
 import com.amir.mediatracker.repository.MediaItemRepository;
+import com.amir.mediatracker.util.BitMaskUtil;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.batch.item.Chunk;
 import org.springframework.batch.item.ItemWriter;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -24,10 +28,12 @@ import java.util.stream.Collectors;
 public class MediaItemWriter implements ItemWriter<MediaItem> {
 
     private final MediaItemRepository mediaItemRepository;
+    private final ApplicationEventPublisher applicationEventPublisher;
 
     /**
      * Write a chunk of media items to the database.
      * If the item already exists, update it.
+     * The ids of all written items are published, so per-item indexes can follow the change
      *
      * @param items The chunk of media items to write
      */
@@ -54,6 +60,7 @@ public class MediaItemWriter implements ItemWriter<MediaItem> {
                         ));
 
         // 4. Upsert logic
+        List<Long> savedIds = new ArrayList<>(items.size());
         for (MediaItem incoming : items) {
             String key = key(incoming.getName(), incoming.getCategory());
             MediaItem existing = existingIndex.get(key);
@@ -61,16 +68,23 @@ public class MediaItemWriter implements ItemWriter<MediaItem> {
             if (existing != null) {
                 existing.setGenres(incoming.getGenres());
                 existing.setPlatforms(incoming.getPlatforms());
+                BitMaskUtil.updateMasks(existing);
                 existing.setYear(incoming.getYear());
                 existing.setUpdatedAt(LocalDateTime.now());
 
                 mediaItemRepository.save(existing);
+                savedIds.add(existing.getId());
                 log.debug("Updated media item: {}", existing);
             } else {
+                BitMaskUtil.updateMasks(incoming);
                 mediaItemRepository.save(incoming);
+                savedIds.add(incoming.getId());
                 log.debug("Inserted media item: {}", incoming);
             }
         }
+
+        // 5. Published on commit of the chunk transaction
+        applicationEventPublisher.publishEvent(new MediaItemsChangedEvent(savedIds, List.of()));
     }
 
     private String key(String name, Category category) {
@@ -0,0 +1,158 @@
+package com.amir.mediatracker.batch.writer;
+
+import com.amir.mediatracker.batch.exception.SkippableItemException;
+import com.amir.mediatracker.batch.model.UserMediaListImportItem;
+import com.amir.mediatracker.dto.Category;
+import com.amir.mediatracker.event.RatingEventBatch;
+import com.amir.mediatracker.event.UserListChangedEvent;
+import com.amir.mediatracker.event.UserListMembershipChangedEvent;
+import com.amir.mediatracker.exception.ResourceNotFoundException;
+import com.amir.mediatracker.kafka.event.RatingEvent;
+import com.amir.mediatracker.repository.MediaItemRepository;
+import com.amir.mediatracker.repository.UserMediaListBulkRepository;
+import com.amir.mediatracker.repository.UserMediaListViewRepository;
+import com.amir.mediatracker.repository.UserRepository;
+import com.amir.mediatracker.search.NameSuggestionEngine;
+import com.amir.mediatracker.search.NameSuggestionIndex;
+import com.amir.mediatracker.service.LastActiveTracker;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.core.configuration.annotation.StepScope;
+import org.springframework.batch.item.Chunk;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+@Slf4j
+@Component
+@StepScope
+@RequiredArgsConstructor
+public class UserMediaListWriter implements ItemWriter<UserMediaListImportItem> {
+
+    private final NameSuggestionEngine nameSuggestionEngine;
+    private final MediaItemRepository mediaItemRepository;
+    private final UserMediaListBulkRepository userMediaListBulkRepository;
+    private final UserMediaListViewRepository userMediaListViewRepository;
+    private final UserRepository userRepository;
+    private final LastActiveTracker lastActiveTracker;
+    private final ApplicationEventPublisher applicationEventPublisher;
+
+    @Value("#{jobParameters['userId']}")
+    private Long userId;
+
+    private String username; // loaded with the first chunk
+
+    /**
+     * Write a chunk of imported rows to the user list.
+     * Media items are resolved by name and category against the in-memory name index,
+     * and the names it does not know yet with a single query. Rows of the same media item are reduced to the last one.
+     * All rows are then written with one multi-row upsert.
+     *
+     * @param items The chunk of imported rows to write
+     */
+    @Override
+    @Transactional
+    public void write(Chunk<? extends UserMediaListImportItem> items) {
+
+        // 1. Resolve names against the in-memory index
+        Map<String, NameSuggestionIndex.Entry> resolved = new HashMap<>();
+        Set<String> missingNames = new HashSet<>();
+        for (UserMediaListImportItem item : items) {
+            String key = key(item.name(), item.category());
+            if (resolved.containsKey(key)) {
+                continue;
+            }
+            NameSuggestionIndex.Entry entry = nameSuggestionEngine.find(item.name(), item.category());
+            if (entry != null) {
+                resolved.put(key, entry);
+            } else {
+                missingNames.add(normalize(item.name()));
+            }
+        }
+
+        // 2. Items added since the index was last built (single query)
+        if (!missingNames.isEmpty()) {
+            for (NameSuggestionIndex.Entry entry : mediaItemRepository.findNameEntriesByNormalizedNameIn(missingNames)) {
+                resolved.putIfAbsent(key(entry.name(), entry.category()), entry);
+            }
+        }
+
+        // 3. Unknown rows are skipped. The chunk is then written again one row at a time, so only they are
+        Map<Long, UserMediaListBulkRepository.ImportedValues> values = new LinkedHashMap<>();
+        Map<Long, String> names = new HashMap<>();
+        for (UserMediaListImportItem item : items) {
+            NameSuggestionIndex.Entry entry = resolved.get(key(item.name(), item.category()));
+            if (entry == null) {
+                throw new SkippableItemException("Media item not found: " + item.category() + " " + item.name());
+            }
+            values.put(entry.id(), new UserMediaListBulkRepository.ImportedValues(
+                    entry.id(), item.experienced(), item.rating(), item.comment()));
+            names.put(entry.id(), entry.name());
+        }
+
+        // 4. Upsert (single statement)
+        List<UserMediaListBulkRepository.UpsertedItem> upserted =
+                userMediaListBulkRepository.upsertAll(userId, List.copyOf(values.values()));
+        lastActiveTracker.touch(userId);
+        if (upserted.isEmpty()) {
+            return;
+        }
+
+        List<Long> listItemIds = new ArrayList<>(upserted.size());
+        List<Long> addedMediaItemIds = new ArrayList<>();
+        List<RatingEvent> ratingEvents = new ArrayList<>();
+        for (UserMediaListBulkRepository.UpsertedItem item : upserted) {
+            listItemIds.add(item.id());
+            if (item.inserted()) {
+                addedMediaItemIds.add(item.mediaItemId());
+            }
+            if (!Objects.equals(item.rating(), item.previousRating())) {
+                ratingEvents.add(new RatingEvent(userId, username(), item.mediaItemId(),
+                        names.get(item.mediaItemId()), item.rating(), item.previousRating(), Instant.now()));
+            }
+        }
+        userMediaListViewRepository.upsertListItems(listItemIds);
+        log.debug("Imported {} items to the list of user {}, {} of them new", listItemIds.size(), userId,
+                addedMediaItemIds.size());
+
+        // 5. Published on commit of the chunk transaction
+        if (!ratingEvents.isEmpty()) {
+            applicationEventPublisher.publishEvent(new RatingEventBatch(ratingEvents));
+        }
+        applicationEventPublisher.publishEvent(new UserListChangedEvent(userId, listItemIds, List.of()));
+        if (!addedMediaItemIds.isEmpty()) {
+            applicationEventPublisher.publishEvent(
+                    new UserListMembershipChangedEvent(userId, addedMediaItemIds, List.of()));
+        }
+    }
+
+    private String username() {
+        if (username == null) {
+            username = userRepository.findById(userId)
+                    .orElseThrow(() -> new ResourceNotFoundException("User not found"))
+                    .getUsername();
+        }
+        return username;
+    }
+
+    private String key(String name, Category category) {
+        return normalize(name) + "::" + category.name();
+    }
+
+    private static String normalize(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+}
@@ -2,15 +2,33 @@ package com.amir.mediatracker.config;
 
 import lombok.RequiredArgsConstructor;
 import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.kafka.ConcurrentKafkaListenerContainerFactoryConfigurer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Profile;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.config.TopicBuilder;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.kafka.support.ExponentialBackOffWithMaxRetries;
 
 @Configuration
 @RequiredArgsConstructor
 public class KafkaConfig {
 
+    /**
+     * Suffix of the dead letter topic of the rating topic, the one @RetryableTopic of the single event consumer uses
+     */
+    public static final String DLT_SUFFIX = "-dlt";
+
     private final KafkaTopicProperties kafkaTopicProperties;
 
     @Bean
@@ -21,4 +39,83 @@ public class KafkaConfig {
                 .replicas(kafkaTopicProperties.getTopicReplicas())
                 .build();
     }
+
+    /**
+     * The dead letter topic of the batch and parallel consumers. In single mode it is left to
+     * the @RetryableTopic of {@link com.amir.mediatracker.kafka.RatingConsumer}, which creates it with its retry topics
+     */
+    @Bean
+    @Profile({"local", "docker"})
+    @ConditionalOnExpression("'${app.ratings.consumer.mode:single}' != 'single'")
+    public NewTopic ratingDltTopic() {
+        return TopicBuilder.name(kafkaTopicProperties.getMediaRatingTopic() + DLT_SUFFIX)
+                .partitions(kafkaTopicProperties.getTopicPartitions())
+                .replicas(kafkaTopicProperties.getTopicReplicas())
+                .build();
+    }
+
+    /**
+     * Publishes failed rating records of the batch and parallel consumers to the same dead letter topic
+     * as the single event consumer, so all modes share one dead letter path.
+     * The partition is left to the producer, by the record key
+     */
+    @Bean
+    public DeadLetterPublishingRecoverer ratingDeadLetterPublishingRecoverer(KafkaTemplate<Object, Object> kafkaTemplate) {
+        String dlt = kafkaTopicProperties.getMediaRatingTopic() + DLT_SUFFIX;
+        return new DeadLetterPublishingRecoverer(kafkaTemplate, (_, _) -> new TopicPartition(dlt, -1));
+    }
+
+    /**
+     * Listener container factory of {@link com.amir.mediatracker.kafka.RatingBatchConsumer}.
+     * Takes the consumer settings of spring.kafka, and hands each poll of up to
+     * app.ratings.consumer.max-batch-size records to the listener as one batch.
+     * A failed batch is retried as a whole 3 times with the backoff of the single event consumer,
+     * then its records are published to the dead letter topic, see {@link #ratingDeadLetterPublishingRecoverer}
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "app.ratings.consumer", name = "mode", havingValue = "batch")
+    public ConcurrentKafkaListenerContainerFactory<Object, Object> ratingBatchListenerContainerFactory(
+            ConcurrentKafkaListenerContainerFactoryConfigurer configurer,
+            ConsumerFactory<Object, Object> consumerFactory,
+            DeadLetterPublishingRecoverer ratingDeadLetterPublishingRecoverer,
+            @Value("${app.ratings.consumer.max-batch-size}") int maxBatchSize) {
+
+        ConcurrentKafkaListenerContainerFactory<Object, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        configurer.configure(factory, consumerFactory);
+        factory.setBatchListener(true);
+        factory.getContainerProperties().getKafkaConsumerProperties()
+                .setProperty(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, String.valueOf(maxBatchSize));
+
+        ExponentialBackOffWithMaxRetries backOff = new ExponentialBackOffWithMaxRetries(3);
+        backOff.setInitialInterval(1000);
+        backOff.setMultiplier(2.0);
+        factory.setCommonErrorHandler(new DefaultErrorHandler(ratingDeadLetterPublishingRecoverer, backOff));
+        return factory;
+    }
+
+    /**
+     * Listener container factory of {@link com.amir.mediatracker.kafka.RatingParallelConsumer}.
+     * Takes the consumer settings of spring.kafka, but commits offsets itself from manual acknowledgments,
+     * which may come out of order. The offset of a partition is committed only up to its lowest record
+     * not acknowledged yet, and the consumer is paused until every record of the previous poll is acknowledged,
+     * so up to app.ratings.consumer.max-batch-size records are in progress per poll
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "app.ratings.consumer", name = "mode", havingValue = "parallel")
+    public ConcurrentKafkaListenerContainerFactory<Object, Object> ratingParallelListenerContainerFactory(
+            ConcurrentKafkaListenerContainerFactoryConfigurer configurer,
+            ConsumerFactory<Object, Object> consumerFactory,
+            @Value("${app.ratings.consumer.max-batch-size}") int maxBatchSize) {
+
+        ConcurrentKafkaListenerContainerFactory<Object, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        configurer.configure(factory, consumerFactory);
+        ContainerProperties containerProperties = factory.getContainerProperties();
+        containerProperties.setAckMode(ContainerProperties.AckMode.MANUAL);
+        containerProperties.setAsyncAcks(true);
+        containerProperties.getKafkaConsumerProperties()
+                .setProperty(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, "false");
+        containerProperties.getKafkaConsumerProperties()
+                .setProperty(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, String.valueOf(maxBatchSize));
+        return factory;
+    }
 }
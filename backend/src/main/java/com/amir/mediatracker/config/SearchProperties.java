@@ -0,0 +1,114 @@
+package com.amir.mediatracker.config;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+
+@Data
+@Validated
+@Configuration
+@ConfigurationProperties(prefix = "app.search")
+public class SearchProperties {
+
+    private InMemory inMemory = new InMemory();
+    @Valid
+    private CountCache countCache = new CountCache();
+    @Valid
+    private ResultCache resultCache = new ResultCache();
+    @Valid
+    private Lucene lucene = new Lucene();
+    @Valid
+    private MembershipCache membershipCache = new MembershipCache();
+    @Valid
+    private ListSnapshot listSnapshot = new ListSnapshot();
+
+    /**
+     * In-process catalog search engine.
+     * When enabled, catalog searches are answered from an immutable snapshot of media_items
+     * instead of querying the database
+     */
+    @Data
+    public static class InMemory {
+        private boolean enabled = false;
+    }
+
+    /**
+     * Cache of totalCount for cursor searches, so scrolling to the next page does not recount.
+     * Entries are dropped when the catalog or the searched list changes. The ttl bounds staleness
+     * for changes made outside this instance
+     */
+    @Data
+    public static class CountCache {
+        private boolean enabled = true;
+        @Min(1)
+        private long maxSize = 10_000;
+        private Duration ttl = Duration.ofMinutes(10);
+        /**
+         * Answer catalog searches without a name query or genre/platform filters
+         * with an estimate based on the planner statistics instead of an exact count
+         */
+        private boolean estimateBroadSearches = false;
+    }
+
+    /**
+     * Cache of catalog search pages (searchMediaItems and searchMediaItemsSorted), without the per-user inUserList marks.
+     * Entries are dropped when the catalog changes. Average ratings may be stale for up to the ttl,
+     * except in searches sorted by them, which are dropped whenever a rating changes
+     */
+    @Data
+    public static class ResultCache {
+        private boolean enabled = true;
+        @Min(1)
+        private long maxSize = 1_000;
+        private Duration ttl = Duration.ofMinutes(1);
+    }
+
+    /**
+     * Embedded full-text index of the catalog on local disk, backing the RELEVANCE sort of searchMediaItemsSorted.
+     * Names are matched by whole word, prefix and edit distance, so misspelled queries still find results.
+     * The index is kept up to date incrementally, and rebuilt from the database when it is empty
+     */
+    @Data
+    public static class Lucene {
+        private boolean enabled = false;
+        @NotBlank
+        private String indexPath = "data/media-index";
+        /**
+         * Rebuild the index from the database on startup even if it already has documents,
+         * for example after changes were made to the catalog while this instance was down
+         */
+        private boolean rebuildOnStartup = false;
+    }
+
+    /**
+     * Cache of the media item ids in each user list, so marking inUserList on catalog search pages does not query the list.
+     * Lists are kept up to date by changes made through this instance. The ttl bounds staleness
+     * for changes made outside it
+     */
+    @Data
+    public static class MembershipCache {
+        private boolean enabled = true;
+        @Min(1)
+        private long maxUsers = 10_000;
+        private Duration ttl = Duration.ofMinutes(30);
+    }
+
+    /**
+     * Cache of whole user lists, so sorting, filtering and paging a list is done in memory.
+     * Bounded by the total number of list entries held. Lists are kept up to date by changes made
+     * through this instance, and dropped after the ttl without reads
+     */
+    @Data
+    public static class ListSnapshot {
+        private boolean enabled = false;
+        @Min(1)
+        private long maxEntries = 1_000_000;
+        private Duration ttl = Duration.ofMinutes(15);
+    }
+}
@@ -0,0 +1,107 @@
+package com.amir.mediatracker.controller;
+
+import com.amir.mediatracker.dto.ListExportFormat;
+import com.amir.mediatracker.dto.response.ImportStatusResponse;
+import com.amir.mediatracker.dto.response.JobStatusResponse;
+import com.amir.mediatracker.exception.BadRequestException;
+import com.amir.mediatracker.security.dto.UserPrincipal;
+import com.amir.mediatracker.service.UserListExportService;
+import com.amir.mediatracker.service.UserListImportService;
+import io.micrometer.common.util.StringUtils;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+@RestController
+@RequestMapping("/users/me/list")
+@PreAuthorize("hasAnyRole('USER', 'ADMIN')")
+@RequiredArgsConstructor
+public class UserListController {
+
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+
+    private final UserListExportService userListExportService;
+    private final UserListImportService userListImportService;
+
+    /**
+     * Download the user's whole list as an attachment, streamed to the response as it is read.
+     * Lists of any size are exported in a single request, in (name, media item id) order
+     * @param format CSV (default) or NDJSON
+     * @param userPrincipal The user principal
+     * @param response The response the list is written to
+     * @throws IOException if writing to the response fails
+     */
+    @GetMapping("/export")
+    public void exportList(
+            @RequestParam(defaultValue = "CSV") ListExportFormat format,
+            @AuthenticationPrincipal UserPrincipal userPrincipal,
+            HttpServletResponse response) throws IOException {
+
+        String extension = switch (format) {
+            case CSV -> "csv";
+            case NDJSON -> "ndjson";
+        };
+        response.setContentType(format == ListExportFormat.CSV ? "text/csv" : "application/x-ndjson");
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                .filename("media-list." + extension)
+                .build()
+                .toString());
+
+        Writer writer = new BufferedWriter(
+                new OutputStreamWriter(response.getOutputStream(), StandardCharsets.UTF_8), WRITE_BUFFER_SIZE);
+        userListExportService.export(userPrincipal.getId(), format, writer);
+        writer.flush();
+    }
+
+    /**
+     * Handles upload of a CSV file of list entries and imports them into the user's list with Spring Batch.
+     * Rows are (name, category, experienced, rating, comment), with the columns named by a header line.
+     * Other columns are ignored, so a CSV export of a list can be imported as is. Media items are matched
+     * by name (ignoring case) and category, and must already exist. Items already in the list are overwritten.
+     * Job is performed asynchronously for non-blocking behavior
+     * @param file The CSV file to parse
+     * @param userPrincipal The user principal
+     * @return correlationId and status
+     */
+    @PostMapping("/import")
+    public ImportStatusResponse importList(
+            @RequestParam("file") MultipartFile file,
+            @AuthenticationPrincipal UserPrincipal userPrincipal) {
+
+        if (file.isEmpty()) {
+            throw new BadRequestException("Uploaded file is empty");
+        }
+
+        if (StringUtils.isBlank(file.getOriginalFilename()) ||
+                !file.getOriginalFilename().toLowerCase().endsWith(".csv")) {
+            throw new BadRequestException("Only CSV files are supported");
+        }
+
+        return userListImportService.startImport(userPrincipal.getId(), file);
+    }
+
+    /**
+     * Checks the status of an import started by the user
+     * @param correlationId The key that was returned when the import was started
+     * @param userPrincipal The user principal
+     * @return The import current status, along with the amount of reads, writes and skips performed
+     */
+    @GetMapping("/import-status/{correlationId}")
+    public JobStatusResponse getImportStatus(
+            @PathVariable Long correlationId,
+            @AuthenticationPrincipal UserPrincipal userPrincipal) {
+        return userListImportService.getImportStatus(userPrincipal.getId(), correlationId);
+    }
+}
@@ -0,0 +1,6 @@
+package com.amir.mediatracker.dto;
+
+public enum ListExportFormat {
+    CSV,
+    NDJSON
+}
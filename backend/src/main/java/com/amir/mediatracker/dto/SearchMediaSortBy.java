@@ -3,5 +3,6 @@ package com.amir.mediatracker.dto;
 public enum SearchMediaSortBy {
     YEAR,
     AVG_RATING,
-    NAME
+    NAME,
+    RELEVANCE
 }
@@ -0,0 +1,7 @@
+package com.amir.mediatracker.dto.projection;
+
+/**
+ * Read-only projection of a genre or platform linked to a media item
+ */
+public record MediaItemLinkRow(Long mediaItemId, Long id, String name) {
+}
@@ -0,0 +1,38 @@
+package com.amir.mediatracker.dto.projection;
+
+import com.amir.mediatracker.dto.Category;
+import com.amir.mediatracker.dto.response.GenreResponse;
+import com.amir.mediatracker.dto.response.MediaItemResponse;
+import com.amir.mediatracker.dto.response.PlatformResponse;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Set;
+
+/**
+ * Read-only projection of a media_items row, without its genres and platforms
+ */
+public record MediaItemRow(
+        Long id,
+        Category category,
+        String name,
+        Integer year,
+        BigDecimal avgRating,
+        LocalDateTime createdAt,
+        LocalDateTime updatedAt
+) {
+
+    public MediaItemResponse toResponse(Set<GenreResponse> genres, Set<PlatformResponse> platforms) {
+        return MediaItemResponse.builder()
+                .id(id)
+                .category(category)
+                .name(name)
+                .year(year)
+                .avgRating(avgRating)
+                .genres(genres)
+                .platforms(platforms)
+                .createdAt(createdAt)
+                .updatedAt(updatedAt)
+                .build();
+    }
+}
@@ -0,0 +1,43 @@
+package com.amir.mediatracker.dto.projection;
+
+import com.amir.mediatracker.dto.Role;
+import com.amir.mediatracker.dto.response.MediaItemResponse;
+import com.amir.mediatracker.dto.response.NotificationResponse;
+import com.amir.mediatracker.dto.response.UserResponse;
+
+import java.time.LocalDateTime;
+
+/**
+ * Read-only projection of a notifications row, joined with the user who rated.
+ * The media item is referenced by id, and the rating user fields are null if that user was deleted
+ */
+public record NotificationRow(
+        Long id,
+        String message,
+        Long mediaItemId,
+        Short rating,
+        Long ratedByUserId,
+        String ratedByUsername,
+        String ratedByEmail,
+        Role ratedByRole,
+        Boolean isRead,
+        LocalDateTime createdAt
+) {
+
+    public NotificationResponse toResponse(MediaItemResponse mediaItem) {
+        return NotificationResponse.builder()
+                .id(id)
+                .message(message)
+                .mediaItem(mediaItem)
+                .rating(rating)
+                .ratedByUser(ratedByUserId == null ? null : UserResponse.builder()
+                        .id(ratedByUserId)
+                        .username(ratedByUsername)
+                        .email(ratedByEmail)
+                        .role(ratedByRole)
+                        .build())
+                .isRead(isRead)
+                .createdAt(createdAt)
+                .build();
+    }
+}
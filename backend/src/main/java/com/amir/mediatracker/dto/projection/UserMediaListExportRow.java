@@ -0,0 +1,25 @@
+package com.amir.mediatracker.dto.projection;
+
+import com.amir.mediatracker.dto.Category;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * One entry of an exported user list, with its media item fields and genre and platform names
+ */
+public record UserMediaListExportRow(
+        Long mediaItemId,
+        Category category,
+        String name,
+        Integer year,
+        List<String> genres,
+        List<String> platforms,
+        Boolean experienced,
+        Boolean wishToReexperience,
+        Short rating,
+        String comment,
+        LocalDateTime addedAt,
+        LocalDateTime updatedAt
+) {
+}
@@ -0,0 +1,34 @@
+package com.amir.mediatracker.dto.projection;
+
+import com.amir.mediatracker.dto.response.MediaItemResponse;
+import com.amir.mediatracker.dto.response.UserMediaListResponse;
+
+import java.time.LocalDateTime;
+
+/**
+ * Read-only projection of a user_media_list row, referencing its media item by id
+ */
+public record UserMediaListRow(
+        Long id,
+        Long mediaItemId,
+        Boolean experienced,
+        Boolean wishToReexperience,
+        Short rating,
+        String comment,
+        LocalDateTime addedAt,
+        LocalDateTime updatedAt
+) {
+
+    public UserMediaListResponse toResponse(MediaItemResponse mediaItem) {
+        return UserMediaListResponse.builder()
+                .id(id)
+                .mediaItem(mediaItem)
+                .experienced(experienced)
+                .wishToReexperience(wishToReexperience)
+                .rating(rating)
+                .comment(comment)
+                .addedAt(addedAt)
+                .updatedAt(updatedAt)
+                .build();
+    }
+}
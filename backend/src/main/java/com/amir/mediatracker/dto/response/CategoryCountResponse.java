@@ -0,0 +1,15 @@
+package com.amir.mediatracker.dto.response;
+
+import com.amir.mediatracker.dto.Category;
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * Number of search results in a given category
+ */
+@Data
+@Builder
+public class CategoryCountResponse {
+    private Category category;
+    private long count;
+}
@@ -0,0 +1,15 @@
+package com.amir.mediatracker.dto.response;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * Number of search results that have a given genre or platform
+ */
+@Data
+@Builder
+public class FacetCountResponse {
+    private Long id;
+    private String name;
+    private long count;
+}
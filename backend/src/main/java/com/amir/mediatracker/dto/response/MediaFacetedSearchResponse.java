@@ -0,0 +1,25 @@
+package com.amir.mediatracker.dto.response;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+public class MediaFacetedSearchResponse {
+
+    private List<MediaItemResponse> items;
+
+    private MediaSearchResponse.Cursor nextCursor;
+
+    private boolean hasMore;
+
+    private long totalCount;
+
+    private List<CategoryCountResponse> categories;
+
+    private List<FacetCountResponse> genres;
+
+    private List<FacetCountResponse> platforms;
+}
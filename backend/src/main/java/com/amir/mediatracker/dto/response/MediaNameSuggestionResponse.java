@@ -0,0 +1,13 @@
+package com.amir.mediatracker.dto.response;
+
+import com.amir.mediatracker.dto.Category;
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class MediaNameSuggestionResponse {
+    private Long id;
+    private String name;
+    private Category category;
+}
@@ -18,6 +18,8 @@ public class MediaSearchResponse {
 
     private long totalCount;
 
+    private boolean totalCountEstimated;
+
     @Data
     @AllArgsConstructor
     public static class Cursor {
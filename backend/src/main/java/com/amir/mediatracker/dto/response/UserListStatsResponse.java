@@ -0,0 +1,24 @@
+package com.amir.mediatracker.dto.response;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Statistics of a user list
+ */
+@Data
+@Builder
+public class UserListStatsResponse {
+    private Long userId;
+    private long itemCount;
+    private long experiencedCount;
+    private long wishToReexperienceCount;
+    private long ratedCount;
+    private long ratingSum;
+    private Double averageRating;
+    /** Number of items per rating, indexed by rating */
+    private List<Long> ratingHistogram;
+    private List<CategoryCountResponse> categories;
+}
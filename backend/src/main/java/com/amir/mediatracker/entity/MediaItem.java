@@ -1,11 +1,15 @@
 package com.amir.mediatracker.entity;
 
 import com.amir.mediatracker.dto.Category;
+import com.amir.mediatracker.util.BitMaskUtil;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.hibernate.Hibernate;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
@@ -34,13 +38,26 @@ public class MediaItem {
     @Column(nullable = false)
     private String name;
 
+    /**
+     * Lower-cased name, generated by the database and indexed with pg_trgm.
+     * All substring searches should filter on this column rather than LOWER(name)
+     */
+    @Column(name = "name_normalized", insertable = false, updatable = false)
+    private String nameNormalized;
+
     @Column(name = "year")
     private Integer year;
 
-    @Column(name = "avg_rating", precision = 3, scale = 1)
+    /**
+     * Average of rating_sum / rating_count, maintained by the database statements of the rating consumer
+     * and the rating reconciliation. Read-only here, so saving an entity never writes back a stale average
+     */
+    @Column(name = "avg_rating", precision = 3, scale = 1, insertable = false, updatable = false)
     private BigDecimal avgRating;
 
-    @ManyToMany(fetch = FetchType.EAGER, cascade = {CascadeType.MERGE})
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    @ManyToMany(fetch = FetchType.LAZY, cascade = {CascadeType.MERGE})
     @JoinTable(
             name = "media_item_genres",
             joinColumns = @JoinColumn(name = "media_item_id"),
@@ -48,7 +65,9 @@ public class MediaItem {
     )
     private Set<Genre> genres = new HashSet<>();
 
-    @ManyToMany(fetch = FetchType.EAGER, cascade = {CascadeType.MERGE})
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    @ManyToMany(fetch = FetchType.LAZY, cascade = {CascadeType.MERGE})
     @JoinTable(
             name = "media_item_platforms",
             joinColumns = @JoinColumn(name = "media_item_id"),
@@ -56,6 +75,18 @@ public class MediaItem {
     )
     private Set<Platform> platforms = new HashSet<>();
 
+    /**
+     * Bitmask of genre ids, kept in sync with genres. See BitMaskUtil
+     */
+    @Column(name = "genre_mask", nullable = false)
+    private long genreMask;
+
+    /**
+     * Bitmask of platform ids, kept in sync with platforms. See BitMaskUtil
+     */
+    @Column(name = "platform_mask", nullable = false)
+    private long platformMask;
+
     @CreatedDate
     private LocalDateTime createdAt;
 
@@ -64,4 +95,17 @@ public class MediaItem {
 
     @Transient
     private Boolean inUserList = false;
+
+    /**
+     * Keep the masks in sync for items saved directly through the repository.
+     * Collections that were never loaded were not replaced, so their masks are still in sync,
+     * and loading them here (while flushing) is not allowed
+     */
+    @PrePersist
+    @PreUpdate
+    void updateMasks() {
+        if (Hibernate.isInitialized(genres) && Hibernate.isInitialized(platforms)) {
+            BitMaskUtil.updateMasks(this);
+        }
+    }
 }
@@ -0,0 +1,11 @@
+package com.amir.mediatracker.event;
+
+import java.math.BigDecimal;
+
+/**
+ * Published after the average rating of a media item was recalculated
+ * @param mediaItemId The media item whose average changed
+ * @param avgRating The new average rating
+ */
+public record AverageRatingChangedEvent(Long mediaItemId, BigDecimal avgRating) {
+}
@@ -0,0 +1,9 @@
+package com.amir.mediatracker.event;
+
+/**
+ * Published whenever the media catalog (media items, genres or platforms) was changed,
+ * either by an admin or by the import job.
+ * @param source Short description of what changed the catalog, for logging
+ */
+public record CatalogChangedEvent(String source) {
+}
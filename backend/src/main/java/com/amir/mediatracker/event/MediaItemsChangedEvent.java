@@ -0,0 +1,13 @@
+package com.amir.mediatracker.event;
+
+import java.util.Collection;
+
+/**
+ * Published when specific media items were created, updated or deleted,
+ * either by an admin or by the import job. Complements {@link CatalogChangedEvent} for listeners
+ * that keep per-item state and can apply the change incrementally.
+ * @param savedIds Ids of items that were created or updated
+ * @param deletedIds Ids of items that were deleted
+ */
+public record MediaItemsChangedEvent(Collection<Long> savedIds, Collection<Long> deletedIds) {
+}
@@ -0,0 +1,13 @@
+package com.amir.mediatracker.event;
+
+import com.amir.mediatracker.kafka.event.RatingEvent;
+
+import java.util.List;
+
+/**
+ * Ratings made by one bulk list update, sent to Kafka together once its transaction committed.
+ * Holds at most one rating per media item
+ * @param events The rating events
+ */
+public record RatingEventBatch(List<RatingEvent> events) {
+}
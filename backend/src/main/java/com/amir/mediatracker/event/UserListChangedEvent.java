@@ -0,0 +1,20 @@
+package com.amir.mediatracker.event;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Published whenever items were added to, updated in or removed from a user list.
+ * @param userId The user whose list was changed
+ * @param savedListItemIds Ids of list items that were added or updated
+ * @param removedListItemIds Ids of list items that were removed
+ */
+public record UserListChangedEvent(Long userId, Collection<Long> savedListItemIds, Collection<Long> removedListItemIds) {
+
+    /**
+     * A change of unknown list items. Listeners that keep per-item state reload the whole list
+     */
+    public UserListChangedEvent(Long userId) {
+        this(userId, List.of(), List.of());
+    }
+}
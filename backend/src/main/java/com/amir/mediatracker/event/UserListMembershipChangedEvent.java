@@ -0,0 +1,14 @@
+package com.amir.mediatracker.event;
+
+import java.util.Collection;
+
+/**
+ * Published whenever media items were added to or removed from a user list
+ * @param userId The user whose list was changed
+ * @param addedMediaItemIds The media items that were added
+ * @param removedMediaItemIds The media items that were removed
+ */
+public record UserListMembershipChangedEvent(Long userId,
+                                             Collection<Long> addedMediaItemIds,
+                                             Collection<Long> removedMediaItemIds) {
+}
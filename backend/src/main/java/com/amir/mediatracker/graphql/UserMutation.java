@@ -18,6 +18,8 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.stereotype.Controller;
 
+import java.util.List;
+
 @LogAround
 @Controller
 @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
@@ -67,6 +69,43 @@ public class UserMutation {
         return true;
     }
 
+    /**
+     * Add many media items to user list in one transaction.
+     * Items already in the list are skipped
+     * @param mediaItemIds Ids of the added media items
+     * @param user UserPrincipal
+     * @return The added items
+     */
+    @MutationMapping
+    public List<UserMediaListResponse> addMediaToListBulk(@Argument List<Long> mediaItemIds,
+                                                          @AuthenticationPrincipal UserPrincipal user) {
+        return userMediaListService.addMediaToListBulk(user.getId(), mediaItemIds);
+    }
+
+    /**
+     * Update many media list items in one transaction, by the same rules as updateMediaListItem
+     * @param requests UpdateMediaListRequests, at most one per list item
+     * @param user UserPrincipal
+     * @return The updated items
+     */
+    @MutationMapping
+    public List<UserMediaListResponse> updateMediaListItemsBulk(@Argument List<UpdateMediaListRequest> requests,
+                                                                @AuthenticationPrincipal UserPrincipal user) {
+        return userMediaListService.updateMediaListItemsBulk(user.getId(), requests);
+    }
+
+    /**
+     * Remove many media items from user list in one transaction.
+     * Ids that are not in the list are skipped
+     * @param ids Ids of the userMediaList entities
+     * @param user UserPrincipal
+     * @return Number of removed items
+     */
+    @MutationMapping
+    public Integer removeMediaFromListBulk(@Argument List<Long> ids, @AuthenticationPrincipal UserPrincipal user) {
+        return userMediaListService.removeMediaFromListBulk(user.getId(), ids);
+    }
+
     /**
      * Assign the calling user to follow the requested user.
      * minimumRatingThreshold is defined to let the system know on which ratings should be notified
@@ -1,12 +1,14 @@
 package com.amir.mediatracker.graphql;
 
 import com.amir.mediatracker.aop.LogAround;
+import com.amir.mediatracker.dto.Category;
 import com.amir.mediatracker.dto.response.*;
 import com.amir.mediatracker.entity.Genre;
 import com.amir.mediatracker.entity.Platform;
 import com.amir.mediatracker.graphql.dto.input.*;
 import com.amir.mediatracker.graphql.dto.result.MediaPageResult;
 import com.amir.mediatracker.graphql.dto.result.UserMediaListPageResult;
+import com.amir.mediatracker.search.KeysetCursor;
 import com.amir.mediatracker.security.dto.UserPrincipal;
 import com.amir.mediatracker.service.FollowService;
 import com.amir.mediatracker.service.MediaItemService;
@@ -19,6 +21,7 @@ import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.stereotype.Controller;
 
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @LogAround
@@ -56,10 +59,53 @@ public class UserQuery  {
         );
     }
 
+    /**
+     * Search media items with cursor pagination, like searchMediaItems,
+     * along with the number of results per category, genre and platform.
+     * Replaces calling searchMediaItems, availableMediaGenres and availableMediaPlatforms separately
+     * @param input Defines search properties
+     * @param userPrincipal The user principal
+     * @return Cursor based media items search results with facet counts
+     */
+    @QueryMapping
+    public MediaFacetedSearchResponse searchMediaFaceted(
+            @Argument SearchMediaInput input,
+            @AuthenticationPrincipal UserPrincipal userPrincipal) {
+
+        return mediaItemService.searchMediaFaceted(
+                userPrincipal.getId(),
+                input.getQuery(),
+                input.getCategories(),
+                input.getGenreIds(),
+                input.getPlatformIds(),
+                input.getCursorName(),
+                input.getCursorId(),
+                input.getLimitOrDefault()
+        );
+    }
+
+    /**
+     * Type-ahead suggestions of media names, matching the start of the name or of any word in it.
+     * Answered from memory, so it is cheap enough to call on every keystroke
+     * @param prefix The text typed so far
+     * @param categories Optional filter for categories
+     * @param limit Maximum number of suggestions. Default is 10
+     * @return List of MediaNameSuggestionResponse
+     */
+    @QueryMapping
+    public List<MediaNameSuggestionResponse> suggestMediaNames(
+            @Argument String prefix,
+            @Argument Set<Category> categories,
+            @Argument Integer limit) {
+
+        return mediaItemService.suggestMediaNames(prefix, categories, limit == null ? 10 : limit);
+    }
+
     /**
      * Search media items, with sorting option: by YEAR, AVG_RATING, NAME
      * Default sorting is by NAME ASC
-     * Supports paging
+     * Supports paging. Every page returns a nextCursor, which should be passed as the after field
+     * to read the next page with keyset pagination instead of a page number
      * @param input SearchMediaSortedInput
      * @param userPrincipal The user principal
      * @return MediaPageResult
@@ -78,15 +124,23 @@ public class UserQuery  {
                 input.getPageOrDefault(),
                 input.getSizeOrDefault(),
                 input.getSortyByOrDefault(),
-                input.getSortyDirectionOrDefault()
+                input.getSortyDirectionOrDefault(),
+                input.getAfter()
         );
 
+        String nextCursor = page.hasNext() && page.hasContent()
+                ? KeysetCursor.after(input.getSortyByOrDefault(), input.getSortyDirectionOrDefault(),
+                        page.getNumber() + 1, page.getContent().getLast()).encode()
+                : null;
+
         return MediaPageResult.builder()
                 .content(page.getContent())
                 .totalPages(page.getTotalPages())
                 .totalElements(page.getTotalElements())
                 .number(page.getNumber())
                 .size(page.getSize())
+                .hasMore(page.hasNext())
+                .nextCursor(nextCursor)
                 .build();
     }
 
@@ -120,7 +174,8 @@ public class UserQuery  {
     /**
      * Retrieves user list, with sorting option: by NAME, YEAR, EXPERIENCED, REEXPERIENCE, RATING
      * Default sorting is by NAME ASC
-     * Supports paging
+     * Supports paging. Every page returns a nextCursor, which should be passed as the after field
+     * to read the next page with keyset pagination instead of a page number
      * If a user is not specified via displayUserId field, the calling user's list would return.
      * If the user specified under displayUserId is not the calling user, a check for user visibility is performed
      * @param input UserMediaListSortedInput
@@ -143,18 +198,43 @@ public class UserQuery  {
                 input.getPageOrDefault(),
                 input.getSizeOrDefault(),
                 input.getSortByOrDefault(),
-                input.getSortDirectionOrDefault()
+                input.getSortDirectionOrDefault(),
+                input.getAfter()
         );
 
+        String nextCursor = page.hasNext() && page.hasContent()
+                ? KeysetCursor.after(input.getSortByOrDefault(), input.getSortDirectionOrDefault(),
+                        page.getNumber() + 1, page.getContent().getLast()).encode()
+                : null;
+
         return UserMediaListPageResult.builder()
                 .content(page.getContent())
                 .totalPages(page.getTotalPages())
                 .totalElements(page.getTotalElements())
                 .number(page.getNumber())
                 .size(page.getSize())
+                .hasMore(page.hasNext())
+                .nextCursor(nextCursor)
                 .build();
     }
 
+    /**
+     * Statistics of a user list: items per category, experienced and re-experience counts,
+     * the ratings given and their distribution
+     * If a user is not specified via userId, the calling user's statistics would return.
+     * If the user specified under userId is not the calling user, a check for user visibility is performed
+     * @param userId The user whose list statistics are shown
+     * @param userPrincipal UserPrincipal
+     * @return UserListStatsResponse
+     */
+    @QueryMapping
+    public UserListStatsResponse userListStats(
+            @Argument Long userId,
+            @AuthenticationPrincipal UserPrincipal userPrincipal) {
+
+        return userMediaListService.getUserListStats(userId, userPrincipal.getId());
+    }
+
     /**
      * Retrieve all users who follow the calling user.
      * Invisible users are still shown here
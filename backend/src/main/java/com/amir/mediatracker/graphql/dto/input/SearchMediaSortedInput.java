@@ -17,6 +17,7 @@ public class SearchMediaSortedInput {
     private Integer size;
     private SearchMediaSortBy sortBy;
     private SortDirection sortDirection;
+    private String after;
 
     public Integer getPageOrDefault() {
         return page == null ? 0 : page;
@@ -19,6 +19,7 @@ public class UserMediaListSortedInput {
     private Integer size;
     private UserSearchMediaSortBy sortBy;
     private SortDirection sortDirection;
+    private String after;
 
     public Integer getPageOrDefault() {
         return page == null ? 0 : page;
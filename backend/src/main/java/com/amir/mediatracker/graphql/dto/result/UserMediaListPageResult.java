@@ -18,4 +18,6 @@ public class UserMediaListPageResult {
     private long totalElements;
     private int number;
     private int size;
+    private boolean hasMore;
+    private String nextCursor;
 }
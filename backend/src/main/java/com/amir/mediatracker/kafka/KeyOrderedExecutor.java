@@ -0,0 +1,69 @@
+package com.amir.mediatracker.kafka;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Runs tasks on virtual threads: one after another for the same key, in submission order,
+ * and in parallel across keys, with at most maxConcurrency tasks running at a time.
+ * A task runs after the previous task of its key completes, whether it succeeded or failed
+ * @param <K> The key type
+ */
+public class KeyOrderedExecutor<K> implements AutoCloseable {
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Map<K, CompletableFuture<Void>> tails = new ConcurrentHashMap<>();
+    private final Semaphore permits;
+
+    public KeyOrderedExecutor(int maxConcurrency) {
+        this.permits = new Semaphore(maxConcurrency);
+    }
+
+    /**
+     * Run a task after the tasks already submitted for its key
+     * @param key The ordering key
+     * @param task The task
+     * @return Completes when the task completes
+     */
+    public CompletableFuture<Void> submit(K key, Runnable task) {
+        CompletableFuture<Void> future = tails.compute(key, (_, tail) -> tail == null
+                ? CompletableFuture.runAsync(() -> runWithPermit(task), executor)
+                : tail.handle((_, _) -> null).thenRunAsync(() -> runWithPermit(task), executor));
+        // The last task of a key removes it, so the map only holds keys with pending tasks
+        future.whenComplete((_, _) -> tails.remove(key, future));
+        return future;
+    }
+
+    /**
+     * @return Number of keys with a pending or running task
+     */
+    public int pendingKeys() {
+        return tails.size();
+    }
+
+    /**
+     * Wait for the submitted tasks to complete, including the tasks still queued behind another task of their key,
+     * and stop accepting new ones
+     */
+    @Override
+    public void close() {
+        CompletableFuture.allOf(tails.values().stream()
+                        .map(tail -> tail.handle((_, _) -> null))
+                        .toArray(CompletableFuture[]::new))
+                .join();
+        executor.close();
+    }
+
+    private void runWithPermit(Runnable task) {
+        permits.acquireUninterruptibly();
+        try {
+            task.run();
+        } finally {
+            permits.release();
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.amir.mediatracker.kafka;
+
+import com.amir.mediatracker.aop.LogAround;
+import com.amir.mediatracker.config.KafkaConfig;
+import com.amir.mediatracker.kafka.event.RatingEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Consumer of the media-ratings topic that handles each polled batch of rating events in one transaction.
+ * Events of the same media item are summed into one average rating update, so a burst of ratings on one title
+ * updates its row once per batch instead of once per event.
+ * A failed batch is retried as a whole, then its events go to the dead letter topic,
+ * see {@link KafkaConfig#ratingBatchListenerContainerFactory}.
+ * Used when app.ratings.consumer.mode is batch. Reports events, batch sizes, average rating updates,
+ * commits and batch durations under the ratings.consumer metrics
+ */
+@Slf4j
+@Service
+@LogAround
+@ConditionalOnProperty(prefix = "app.ratings.consumer", name = "mode", havingValue = "batch")
+public class RatingBatchConsumer {
+
+    private final RatingEventProcessor ratingEventProcessor;
+    private final TransactionTemplate transactionTemplate;
+    private final Counter consumedEvents;
+    private final Counter avgRatingUpdates;
+    private final Counter commits;
+    private final DistributionSummary batchSize;
+    private final Timer batchDuration;
+
+    public RatingBatchConsumer(RatingEventProcessor ratingEventProcessor,
+                               TransactionTemplate transactionTemplate,
+                               MeterRegistry meterRegistry) {
+        this.ratingEventProcessor = ratingEventProcessor;
+        this.transactionTemplate = transactionTemplate;
+        this.consumedEvents = Counter.builder("ratings.consumer.events")
+                .description("Rating events consumed")
+                .register(meterRegistry);
+        this.avgRatingUpdates = Counter.builder("ratings.consumer.avg-rating.updates")
+                .description("Average rating updates, one per media item per batch")
+                .register(meterRegistry);
+        this.commits = Counter.builder("ratings.consumer.commits")
+                .description("Committed rating batch transactions")
+                .register(meterRegistry);
+        this.batchSize = DistributionSummary.builder("ratings.consumer.batch.size")
+                .description("Rating events per polled batch")
+                .register(meterRegistry);
+        this.batchDuration = Timer.builder("ratings.consumer.batch.duration")
+                .description("Time to process and commit a rating batch")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Handling a batch of rating events in one transaction by:
+     * 1. Apply the summed rating changes of each media item to its rating totals and average
+     * 2. Notify the followers of the raters, for every event whose rating meets their threshold
+     * @param events The polled RatingEvents, in partition order
+     */
+    @KafkaListener(
+            topics = "#{'${spring.kafka.topics.media-rating-topic}'}",
+            groupId = "rating-notification-group",
+            containerFactory = "ratingBatchListenerContainerFactory",
+            batch = "true"
+    )
+    public void consumeRatingEvents(List<RatingEvent> events) {
+        log.info("Consumed batch of {} rating events", events.size());
+        batchSize.record(events.size());
+
+        int updated = batchDuration.record(() -> transactionTemplate.execute(_ -> {
+            int updatedItems = ratingEventProcessor.applyRatingChanges(events);
+            ratingEventProcessor.notifyFollowers(events);
+            return updatedItems;
+        }));
+
+        commits.increment();
+        consumedEvents.increment(events.size());
+        avgRatingUpdates.increment(updated);
+        log.debug("Committed batch of {} rating events, {} average ratings updated", events.size(), updated);
+    }
+}
@@ -0,0 +1,32 @@
+package com.amir.mediatracker.kafka;
+
+import com.amir.mediatracker.config.KafkaConfig;
+import com.amir.mediatracker.kafka.event.RatingEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.messaging.handler.annotation.Header;
+import org.springframework.stereotype.Service;
+
+/**
+ * Consumer of the dead letter topic of rating events in the batch and parallel modes.
+ * They publish failed events to the same topic as the single event consumer,
+ * see {@link KafkaConfig#ratingDeadLetterPublishingRecoverer}, which handles it itself in single mode
+ */
+@Slf4j
+@Service
+@ConditionalOnExpression("'${app.ratings.consumer.mode:single}' != 'single'")
+public class RatingDltConsumer {
+
+    @KafkaListener(
+            topics = "#{'${spring.kafka.topics.media-rating-topic}' + T(com.amir.mediatracker.config.KafkaConfig).DLT_SUFFIX}",
+            groupId = "rating-notification-group"
+    )
+    public void handleDlt(
+            RatingEvent event,
+            @Header(name = KafkaHeaders.DLT_EXCEPTION_MESSAGE, required = false) String error
+    ) {
+        log.error("Message sent to DLT: {}, reason={}", event, error);
+    }
+}
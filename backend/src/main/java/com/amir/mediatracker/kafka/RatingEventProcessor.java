@@ -0,0 +1,125 @@
+package com.amir.mediatracker.kafka;
+
+import com.amir.mediatracker.event.AverageRatingChangedEvent;
+import com.amir.mediatracker.kafka.event.RatingEvent;
+import com.amir.mediatracker.repository.MediaItemRatingRepository;
+import com.amir.mediatracker.service.NotificationService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+/**
+ * The work of the rating consumers: applying rating changes to the averages of media items,
+ * and notifying the followers of the raters. Runs in the transaction of the calling consumer
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RatingEventProcessor {
+
+    /**
+     * The summed rating change of one media item
+     */
+    private record Delta(long sum, long count) {
+        Delta plus(RatingEvent event) {
+            return new Delta(sum + valueOf(event.getRating()) - valueOf(event.getPreviousRating()),
+                    count + countOf(event.getRating()) - countOf(event.getPreviousRating()));
+        }
+    }
+
+    private final NotificationService notificationService;
+    private final MediaItemRatingRepository mediaItemRatingRepository;
+    private final ApplicationEventPublisher applicationEventPublisher;
+
+    /**
+     * Apply the rating changes of the events to the rating totals and averages of their media items.
+     * Changes are summed per media item first, so each item is updated once, whatever the number of its events.
+     * Items are updated in id order, so consumers updating the same items lock them in the same order.
+     * Events from before the rating totals were last computed from the user lists, by the backfill
+     * or a reconciliation, are skipped, as the totals already count them.
+     * The cutoff is read and locked with each call, so a reconciliation cannot move it while the changes are applied
+     * @param events Rating events
+     * @return Number of media items whose average was updated
+     */
+    public int applyRatingChanges(Collection<RatingEvent> events) {
+        Instant countedUntil = mediaItemRatingRepository.findCountedUntil().orElse(Instant.MIN);
+        Map<Long, Delta> deltas = new TreeMap<>();
+        for (RatingEvent event : events) {
+            if (event.getTimestamp() != null && event.getTimestamp().isBefore(countedUntil)) {
+                log.debug("Skipping rating event already counted in the rating totals: {}", event);
+                continue;
+            }
+            deltas.merge(event.getMediaItemId(), new Delta(0, 0).plus(event),
+                    (current, _) -> current.plus(event));
+        }
+
+        int updated = 0;
+        for (Map.Entry<Long, Delta> entry : deltas.entrySet()) {
+            Long mediaItemId = entry.getKey();
+            Delta delta = entry.getValue();
+            if (delta.sum() == 0 && delta.count() == 0) {
+                log.debug("Rating of media item {} did not change", mediaItemId);
+                continue;
+            }
+
+            Optional<MediaItemRatingRepository.RatingTotals> totals =
+                    mediaItemRatingRepository.applyDelta(mediaItemId, delta.sum(), delta.count());
+            if (totals.isEmpty()) {
+                log.debug("Media item {} no longer exists", mediaItemId);
+                continue;
+            }
+            BigDecimal avgRating = totals.get().avgRating();
+            applicationEventPublisher.publishEvent(new AverageRatingChangedEvent(mediaItemId, avgRating));
+            updated++;
+
+            log.info("Updated average rating for media item {}: {} (from {} ratings)",
+                    mediaItemId, avgRating, totals.get().ratingCount());
+        }
+        return updated;
+    }
+
+    /**
+     * Notify the followers of each rater whose threshold the rating meets, with one fan-out statement
+     * per rating and chunk of followers, or one activity log entry if the rater is above the pull threshold.
+     * Withdrawn ratings notify no one
+     * @param events Rating events
+     */
+    public void notifyFollowers(Collection<RatingEvent> events) {
+        for (RatingEvent event : events) {
+            if (event.getRating() == null) {
+                continue;
+            }
+            String message = String.format(
+                    "%s rated '%s' with %d stars",
+                    event.getUsername(),
+                    event.getMediaItemName(),
+                    event.getRating()
+            );
+
+            int notified = notificationService.notifyFollowers(
+                    event.getUserId(),
+                    event.getMediaItemId(),
+                    event.getRating(),
+                    message
+            );
+
+            log.debug("Notification sent to {} followers of user {}", notified, event.getUserId());
+        }
+    }
+
+    private static long valueOf(Short rating) {
+        return rating == null ? 0 : rating;
+    }
+
+    private static long countOf(Short rating) {
+        return rating == null ? 0 : 1;
+    }
+}
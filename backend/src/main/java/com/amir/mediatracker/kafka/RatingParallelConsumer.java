@@ -0,0 +1,163 @@
+package com.amir.mediatracker.kafka;
+
+import com.amir.mediatracker.config.KafkaConfig;
+import com.amir.mediatracker.kafka.event.RatingEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.AbstractMessageListenerContainer;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.retry.support.RetryTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Consumer of the media-ratings topic that processes the records of a partition in parallel.
+ * Records are keyed by the id of the user who rated. Records of the same key are processed one after another,
+ * in offset order, and records of different keys in parallel on virtual threads, so throughput is not capped
+ * by the number of partitions.
+ * Each record is acknowledged once processed, in any order, and the container commits the offset of a partition
+ * only up to its lowest record not processed yet, see {@link KafkaConfig#ratingParallelListenerContainerFactory}.
+ * A failed record is retried 3 times with the backoff of the single event consumer, then sent to the dead letter topic
+ * of all modes, see {@link KafkaConfig#ratingDeadLetterPublishingRecoverer}.
+ * Used when app.ratings.consumer.mode is parallel. Reports events, dead lettered events and keys in progress
+ * under the ratings.consumer metrics.
+ * On shutdown, the records in progress are processed and acknowledged before the listener container stops,
+ * so their offsets are still committed
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(prefix = "app.ratings.consumer", name = "mode", havingValue = "parallel")
+public class RatingParallelConsumer implements SmartLifecycle {
+
+    private final RatingEventProcessor ratingEventProcessor;
+    private final TransactionTemplate transactionTemplate;
+    private final DeadLetterPublishingRecoverer deadLetterPublishingRecoverer;
+    private final KeyOrderedExecutor<Long> executor;
+    private final RetryTemplate retryTemplate = RetryTemplate.builder()
+            .maxAttempts(4) // initial + 3 retries
+            .exponentialBackoff(Duration.ofSeconds(1), 2.0, Duration.ofSeconds(8))
+            .build();
+    private final Counter consumedEvents;
+    private final Counter deadLetteredEvents;
+    private volatile boolean running;
+    private volatile boolean stopping;
+
+    public RatingParallelConsumer(RatingEventProcessor ratingEventProcessor,
+                                  TransactionTemplate transactionTemplate,
+                                  DeadLetterPublishingRecoverer ratingDeadLetterPublishingRecoverer,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${app.ratings.consumer.parallelism}") int parallelism) {
+        this.ratingEventProcessor = ratingEventProcessor;
+        this.transactionTemplate = transactionTemplate;
+        this.deadLetterPublishingRecoverer = ratingDeadLetterPublishingRecoverer;
+        this.executor = new KeyOrderedExecutor<>(parallelism);
+        this.consumedEvents = Counter.builder("ratings.consumer.events")
+                .description("Rating events consumed")
+                .register(meterRegistry);
+        this.deadLetteredEvents = Counter.builder("ratings.consumer.dead-lettered")
+                .description("Rating events sent to the dead letter topic after their retries")
+                .register(meterRegistry);
+        Gauge.builder("ratings.consumer.pending-keys", executor, KeyOrderedExecutor::pendingKeys)
+                .description("Raters with rating events in progress")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Hand a rating event to the worker of its key, and return without waiting for it.
+     * Once stopping, the record is left unacknowledged, and delivered again after the restart
+     * @param record The record of the RatingEvent
+     * @param acknowledgment Acknowledged when the event is processed
+     */
+    @KafkaListener(
+            topics = "#{'${spring.kafka.topics.media-rating-topic}'}",
+            groupId = "rating-notification-group",
+            containerFactory = "ratingParallelListenerContainerFactory"
+    )
+    public void consumeRatingEvent(ConsumerRecord<Long, RatingEvent> record, Acknowledgment acknowledgment) {
+        if (stopping) {
+            log.debug("Stopping, skipping rating event at {}-{}", record.partition(), record.offset());
+            return;
+        }
+        Long key = Objects.requireNonNullElse(record.key(), record.value().getUserId());
+        try {
+            executor.submit(key, () -> process(record, acknowledgment));
+        } catch (RejectedExecutionException e) {
+            log.debug("Stopped, skipping rating event at {}-{}", record.partition(), record.offset());
+        }
+    }
+
+    /**
+     * Handling a rating event in one transaction, like {@link RatingConsumer}.
+     * The record is acknowledged only once it was processed or sent to the dead letter topic.
+     * If neither succeeded, its offset is left uncommitted, holding back the commits of its partition,
+     * and the record is delivered again after a restart or rebalance
+     */
+    private void process(ConsumerRecord<Long, RatingEvent> record, Acknowledgment acknowledgment) {
+        RatingEvent event = record.value();
+        try {
+            retryTemplate.execute(_ -> {
+                transactionTemplate.executeWithoutResult(_ -> {
+                    ratingEventProcessor.applyRatingChanges(List.of(event));
+                    ratingEventProcessor.notifyFollowers(List.of(event));
+                });
+                return null;
+            });
+            log.debug("Processed rating event at {}-{}: userId={}, mediaItemId={}",
+                    record.partition(), record.offset(), event.getUserId(), event.getMediaItemId());
+        } catch (Exception e) {
+            log.error("Rating event failed after retries, sending to DLT: {}", event, e);
+            try {
+                deadLetterPublishingRecoverer.accept(record, e);
+                deadLetteredEvents.increment();
+            } catch (Exception dltException) {
+                log.error("Failed to send rating event at {}-{} to DLT, leaving its offset uncommitted: {}",
+                        record.partition(), record.offset(), event, dltException);
+                return;
+            }
+        }
+        acknowledgment.acknowledge();
+        consumedEvents.increment();
+    }
+
+    @Override
+    public void start() {
+        running = true;
+    }
+
+    /**
+     * Stop handing out records, and wait for the records in progress, while the listener container still runs
+     * and can commit their acknowledgments
+     */
+    @Override
+    public void stop() {
+        stopping = true;
+        executor.close();
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * A phase above the listener containers, so this stops before them
+     */
+    @Override
+    public int getPhase() {
+        return AbstractMessageListenerContainer.DEFAULT_PHASE + 1;
+    }
+}
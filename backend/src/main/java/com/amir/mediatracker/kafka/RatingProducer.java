@@ -8,6 +8,8 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Service;
 
+import java.util.Collection;
+
 @Slf4j
 @Service
 @RequiredArgsConstructor
@@ -29,4 +31,12 @@ public class RatingProducer {
                     }
                 });
     }
+
+    /**
+     * Send the given events back to back, so the producer can batch them into as few requests as it can
+     * @param events RatingEvents
+     */
+    public void sendRatingEvents(Collection<RatingEvent> events) {
+        events.forEach(this::sendRatingEvent);
+    }
 }
@@ -5,7 +5,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.math.BigDecimal;
-import java.time.LocalDateTime;
+import java.time.Instant;
 
 @Data
 @NoArgsConstructor
@@ -15,6 +15,9 @@ public class RatingEvent {
     private String username;
     private Long mediaItemId;
     private String mediaItemName;
+    /** The new rating, or null if the rating was withdrawn */
     private Short rating;
-    private LocalDateTime timestamp;
+    /** The rating it replaces, or null if the item was not rated */
+    private Short previousRating;
+    private Instant timestamp;
 }
@@ -0,0 +1,24 @@
+package com.amir.mediatracker.repository;
+
+import com.amir.mediatracker.search.CatalogSnapshot;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface CatalogSnapshotRepository {
+
+    /**
+     * Load the entire catalog (media items, their genres and platforms) into an immutable snapshot
+     * @return CatalogSnapshot
+     */
+    CatalogSnapshot loadSnapshot();
+
+    /**
+     * Load catalog entries (media items with their genre and platform ids)
+     * @param ids The media item ids to load, or null for the entire catalog
+     * @return The entries of the items that exist, in no particular order
+     */
+    List<CatalogSnapshot.Entry> loadEntries(Collection<Long> ids);
+}
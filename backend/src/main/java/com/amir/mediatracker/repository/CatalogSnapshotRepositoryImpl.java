@@ -0,0 +1,110 @@
+package com.amir.mediatracker.repository;
+
+import com.amir.mediatracker.dto.Category;
+import com.amir.mediatracker.search.CatalogSnapshot;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+
+@Repository
+@RequiredArgsConstructor
+public class CatalogSnapshotRepositoryImpl implements CatalogSnapshotRepository {
+
+    private static final int IDX_ID = 0;
+    private static final int IDX_CATEGORY = 1;
+    private static final int IDX_NAME = 2;
+    private static final int IDX_YEAR = 3;
+    private static final int IDX_AVG_RATING = 4;
+    private static final int IDX_CREATED_AT = 5;
+    private static final int IDX_UPDATED_AT = 6;
+
+    private final EntityManager em;
+
+    /**
+     * Reads media_items, media_item_genres, media_item_platforms, genres and platforms
+     * with one plain query each, inside a single read-only transaction.
+     * Entities are not used, to avoid hydrating EAGER collections for the whole catalog.
+     * @return CatalogSnapshot
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public CatalogSnapshot loadSnapshot() {
+        return CatalogSnapshot.of(
+                loadEntries(null),
+                loadNames("SELECT id, name FROM genres"),
+                loadNames("SELECT id, name FROM platforms")
+        );
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<CatalogSnapshot.Entry> loadEntries(Collection<Long> ids) {
+        if (ids != null && ids.isEmpty()) {
+            return List.of();
+        }
+        String linkFilter = ids == null ? "" : " WHERE media_item_id IN (:ids)";
+        Map<Long, Set<Long>> genresByItem = loadLinks(
+                "SELECT media_item_id, genre_id FROM media_item_genres" + linkFilter, ids);
+        Map<Long, Set<Long>> platformsByItem = loadLinks(
+                "SELECT media_item_id, platform_id FROM media_item_platforms" + linkFilter, ids);
+
+        @SuppressWarnings("unchecked")
+        List<Object[]> rows = withIds(em.createNativeQuery("""
+                SELECT id, category, name, year, avg_rating, created_at, updated_at
+                FROM media_items
+                """ + (ids == null ? "" : "WHERE id IN (:ids)")), ids).getResultList();
+
+        List<CatalogSnapshot.Entry> entries = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            Long id = ((Number) row[IDX_ID]).longValue();
+            entries.add(new CatalogSnapshot.Entry(
+                    id,
+                    Category.valueOf((String) row[IDX_CATEGORY]),
+                    (String) row[IDX_NAME],
+                    row[IDX_YEAR] != null ? ((Number) row[IDX_YEAR]).intValue() : null,
+                    (BigDecimal) row[IDX_AVG_RATING],
+                    toLocalDateTime(row[IDX_CREATED_AT]),
+                    toLocalDateTime(row[IDX_UPDATED_AT]),
+                    genresByItem.getOrDefault(id, Set.of()),
+                    platformsByItem.getOrDefault(id, Set.of())
+            ));
+        }
+        return entries;
+    }
+
+    private Map<Long, Set<Long>> loadLinks(String sql, Collection<Long> ids) {
+        @SuppressWarnings("unchecked")
+        List<Object[]> rows = withIds(em.createNativeQuery(sql), ids).getResultList();
+        Map<Long, Set<Long>> links = new HashMap<>();
+        for (Object[] row : rows) {
+            links.computeIfAbsent(((Number) row[0]).longValue(), _ -> new HashSet<>())
+                    .add(((Number) row[1]).longValue());
+        }
+        return links;
+    }
+
+    private Query withIds(Query query, Collection<Long> ids) {
+        return ids == null ? query : query.setParameter("ids", ids);
+    }
+
+    private Map<Long, String> loadNames(String sql) {
+        @SuppressWarnings("unchecked")
+        List<Object[]> rows = em.createNativeQuery(sql).getResultList();
+        Map<Long, String> names = new HashMap<>();
+        for (Object[] row : rows) {
+            names.put(((Number) row[0]).longValue(), (String) row[1]);
+        }
+        return names;
+    }
+
+    private LocalDateTime toLocalDateTime(Object value) {
+        return value != null ? ((Timestamp) value).toLocalDateTime() : null;
+    }
+}
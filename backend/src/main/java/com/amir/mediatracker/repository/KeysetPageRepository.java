@@ -0,0 +1,48 @@
+package com.amir.mediatracker.repository;
+
+import com.amir.mediatracker.dto.Category;
+import com.amir.mediatracker.dto.SearchMediaSortBy;
+import com.amir.mediatracker.dto.SortDirection;
+import com.amir.mediatracker.dto.UserSearchMediaSortBy;
+import com.amir.mediatracker.search.KeysetCursor;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Set;
+
+@Repository
+public interface KeysetPageRepository {
+
+    /**
+     * Ids of the catalog search page that follows the cursor, in (sortValue, id) order
+     * @param query name search criteria
+     * @param categories Optional filter for categories
+     * @param genreIds Optional filter for genres. Matching items must contain all of them
+     * @param platformIds Optional filter for platforms. Matching items must contain all of them
+     * @param sortBy YEAR, AVG_RATING or NAME
+     * @param direction ASC or DESC. Ties are broken by id in the same direction
+     * @param after The last row of the previous page
+     * @param limit Maximum number of ids to return
+     * @return Media item ids, in page order
+     */
+    List<Long> findCatalogIdsAfter(String query, Set<Category> categories, Set<Long> genreIds, Set<Long> platformIds,
+                                   SearchMediaSortBy sortBy, SortDirection direction, KeysetCursor after, int limit);
+
+    /**
+     * Ids of the user list page that follows the cursor, in (sortValue, id) order
+     * @param userId The user whose list to read
+     * @param searchQuery name search criteria, empty for all
+     * @param categories Optional filter for categories
+     * @param genreIds Optional filter for genres. Matching items must contain all of them
+     * @param platformIds Optional filter for platforms. Matching items must contain all of them
+     * @param wishToExperience Return only items that were not experienced or are marked for re-experience
+     * @param sortBy NAME, YEAR, EXPERIENCED, REEXPERIENCE or RATING
+     * @param direction ASC or DESC. Ties are broken by list item id in the same direction
+     * @param after The last row of the previous page
+     * @param limit Maximum number of ids to return
+     * @return User media list ids, in page order
+     */
+    List<Long> findUserListIdsAfter(Long userId, String searchQuery, Set<Category> categories, Set<Long> genreIds,
+                                    Set<Long> platformIds, boolean wishToExperience, UserSearchMediaSortBy sortBy,
+                                    SortDirection direction, KeysetCursor after, int limit);
+}
@@ -0,0 +1,169 @@
+package com.amir.mediatracker.repository;
+
+import com.amir.mediatracker.dto.Category;
+import com.amir.mediatracker.dto.SearchMediaSortBy;
+import com.amir.mediatracker.dto.SortDirection;
+import com.amir.mediatracker.dto.UserSearchMediaSortBy;
+import com.amir.mediatracker.search.KeysetCursor;
+import com.amir.mediatracker.util.BitMaskUtil;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+@Repository
+@RequiredArgsConstructor
+public class KeysetPageRepositoryImpl implements KeysetPageRepository {
+
+    /**
+     * A sortable column, and how to read its value from a cursor
+     */
+    private record SortColumn(String column, boolean nullable, Function<KeysetCursor, Object> cursorValue) {}
+
+    /**
+     * One index range to read: rows matching the predicate, in the given order
+     */
+    private record Segment(String predicate, String orderBy) {}
+
+    private final EntityManager em;
+
+    @Override
+    public List<Long> findCatalogIdsAfter(String query, Set<Category> categories, Set<Long> genreIds, Set<Long> platformIds,
+                                          SearchMediaSortBy sortBy, SortDirection direction, KeysetCursor after, int limit) {
+        SortColumn sortColumn = switch (sortBy) {
+            case YEAR -> new SortColumn("m.year", true, KeysetCursor::intValue);
+            case AVG_RATING -> new SortColumn("m.avg_rating", true, KeysetCursor::decimalValue);
+            case NAME, RELEVANCE -> new SortColumn("m.name", false, KeysetCursor::value);
+        };
+
+        Map<String, Object> params = new HashMap<>();
+        params.put("name", "%" + (query == null ? "" : query.toLowerCase(Locale.ROOT)) + "%");
+        String filters = "m.name_normalized LIKE :name" + maskFilters(categories, genreIds, platformIds, params);
+
+        return findIdsAfter("SELECT m.id FROM media_items m", filters, params,
+                sortColumn, "m.id", direction, after, limit);
+    }
+
+    @Override
+    public List<Long> findUserListIdsAfter(Long userId, String searchQuery, Set<Category> categories, Set<Long> genreIds,
+                                           Set<Long> platformIds, boolean wishToExperience, UserSearchMediaSortBy sortBy,
+                                           SortDirection direction, KeysetCursor after, int limit) {
+        String column = UserMediaListViewRepositoryImpl.sortColumn(sortBy);
+        SortColumn sortColumn = switch (sortBy) {
+            case NAME -> new SortColumn(column, false, KeysetCursor::value);
+            case YEAR -> new SortColumn(column, true, KeysetCursor::intValue);
+            case EXPERIENCED, REEXPERIENCE -> new SortColumn(column, true, KeysetCursor::booleanValue);
+            case RATING -> new SortColumn(column, true, cursor -> cursor.intValue() == null
+                    ? null : cursor.intValue().shortValue());
+        };
+
+        // User lists are read from their read model, see UserMediaListViewRepository
+        Map<String, Object> params = new HashMap<>();
+        String filters = UserMediaListViewRepositoryImpl.filters(new UserMediaListViewRepository.Filter(
+                userId, searchQuery, categories, genreIds, platformIds, wishToExperience), params);
+
+        return findIdsAfter("SELECT v.id FROM user_media_list_view v", filters, params,
+                sortColumn, "v.id", direction, after, limit);
+    }
+
+    /**
+     * Category, bitmask and overflow conditions on media_items m.
+     * Adds the parameters it uses
+     */
+    private String maskFilters(Set<Category> categories, Set<Long> genreIds, Set<Long> platformIds,
+                               Map<String, Object> params) {
+        Set<Long> overflowGenres = BitMaskUtil.overflowOf(genreIds);
+        Set<Long> overflowPlatforms = BitMaskUtil.overflowOf(platformIds);
+
+        StringBuilder filters = new StringBuilder("""
+                 AND (m.genre_mask & :genreMask) = :genreMask
+                 AND (m.platform_mask & :platformMask) = :platformMask""");
+        params.put("genreMask", BitMaskUtil.maskOf(genreIds));
+        params.put("platformMask", BitMaskUtil.maskOf(platformIds));
+        if (categories != null && !categories.isEmpty()) {
+            filters.append(" AND m.category IN (:categories)");
+            params.put("categories", categories.stream().map(Category::name).toList());
+        }
+        if (overflowGenres != null) {
+            filters.append("""
+                     AND (SELECT COUNT(*) FROM media_item_genres x
+                          WHERE x.media_item_id = m.id AND x.genre_id IN (:overflowGenreIds)) = :overflowGenreCount""");
+            params.put("overflowGenreIds", overflowGenres);
+            params.put("overflowGenreCount", overflowGenres.size());
+        }
+        if (overflowPlatforms != null) {
+            filters.append("""
+                     AND (SELECT COUNT(*) FROM media_item_platforms x
+                          WHERE x.media_item_id = m.id AND x.platform_id IN (:overflowPlatformIds)) = :overflowPlatformCount""");
+            params.put("overflowPlatformIds", overflowPlatforms);
+            params.put("overflowPlatformCount", overflowPlatforms.size());
+        }
+        return filters.toString();
+    }
+
+    /**
+     * Read the rows that follow the cursor, in (sortValue, id) order with nulls last on ASC and first on DESC,
+     * like PostgreSQL orders them. Rows with and without a sort value are read as separate segments,
+     * each a single range of the (sortValue, id) index, so no OR is needed across them.
+     * The next segment is only read if the previous one did not fill the page.
+     */
+    private List<Long> findIdsAfter(String select, String filters, Map<String, Object> params,
+                                    SortColumn sort, String idColumn, SortDirection direction,
+                                    KeysetCursor after, int limit) {
+        List<Long> ids = new ArrayList<>(limit);
+        for (Segment segment : segments(sort, idColumn, direction, after)) {
+            String sql = "%s WHERE %s AND %s ORDER BY %s LIMIT :limit"
+                    .formatted(select, filters, segment.predicate(), segment.orderBy());
+
+            Query nativeQuery = em.createNativeQuery(sql);
+            params.forEach(nativeQuery::setParameter);
+            if (segment.predicate().contains(":sortValue")) {
+                nativeQuery.setParameter("sortValue", sort.cursorValue().apply(after));
+            }
+            if (segment.predicate().contains(":cursorId")) {
+                nativeQuery.setParameter("cursorId", after.id());
+            }
+            nativeQuery.setParameter("limit", limit - ids.size());
+
+            for (Object id : nativeQuery.getResultList()) {
+                ids.add(((Number) id).longValue());
+            }
+            if (ids.size() >= limit) {
+                break;
+            }
+        }
+        return ids;
+    }
+
+    private List<Segment> segments(SortColumn sort, String idColumn, SortDirection direction, KeysetCursor after) {
+        String column = sort.column();
+        boolean nullCursor = after.value() == null;
+        if (SortDirection.DESC.equals(direction)) {
+            String valuesOrder = "%s DESC, %s DESC".formatted(column, idColumn);
+            if (!nullCursor) {
+                return List.of(new Segment("(%s, %s) < (:sortValue, :cursorId)".formatted(column, idColumn), valuesOrder));
+            }
+            return List.of(
+                    new Segment("%s IS NULL AND %s < :cursorId".formatted(column, idColumn), idColumn + " DESC"),
+                    new Segment(column + " IS NOT NULL", valuesOrder));
+        }
+
+        if (nullCursor) {
+            return List.of(new Segment("%s IS NULL AND %s > :cursorId".formatted(column, idColumn), idColumn + " ASC"));
+        }
+        Segment values = new Segment("(%s, %s) > (:sortValue, :cursorId)".formatted(column, idColumn),
+                "%s ASC, %s ASC".formatted(column, idColumn));
+        if (!sort.nullable()) {
+            return List.of(values);
+        }
+        return List.of(values, new Segment(column + " IS NULL", idColumn + " ASC"));
+    }
+}
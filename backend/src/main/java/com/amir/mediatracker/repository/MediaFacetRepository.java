@@ -0,0 +1,21 @@
+package com.amir.mediatracker.repository;
+
+import com.amir.mediatracker.dto.Category;
+import com.amir.mediatracker.search.MediaFacets;
+import org.springframework.stereotype.Repository;
+
+import java.util.Set;
+
+@Repository
+public interface MediaFacetRepository {
+
+    /**
+     * Count catalog search results in total and per category, genre and platform, with a single scan of media_items
+     * @param query name search criteria
+     * @param categories Optional filter for categories
+     * @param genreIds Optional filter for genres. Matching items must contain all of them
+     * @param platformIds Optional filter for platforms. Matching items must contain all of them
+     * @return MediaFacets
+     */
+    MediaFacets findFacets(String query, Set<Category> categories, Set<Long> genreIds, Set<Long> platformIds);
+}
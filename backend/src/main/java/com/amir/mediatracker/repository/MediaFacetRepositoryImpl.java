@@ -0,0 +1,135 @@
+package com.amir.mediatracker.repository;
+
+import com.amir.mediatracker.dto.Category;
+import com.amir.mediatracker.dto.response.CategoryCountResponse;
+import com.amir.mediatracker.dto.response.FacetCountResponse;
+import com.amir.mediatracker.search.MediaFacets;
+import com.amir.mediatracker.util.BitMaskUtil;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+@Repository
+@RequiredArgsConstructor
+public class MediaFacetRepositoryImpl implements MediaFacetRepository {
+
+    private static final int IDX_FACET = 0;
+    private static final int IDX_ID = 1;
+    private static final int IDX_NAME = 2;
+    private static final int IDX_COUNT = 3;
+
+    private static final String FACET_CATEGORY = "CATEGORY";
+    private static final String FACET_GENRE = "GENRE";
+
+    private final EntityManager em;
+
+    /**
+     * The filtered items are read once into the matched CTE, which PostgreSQL materializes
+     * since it is referenced more than once. Every facet is then grouped from it.
+     * The category filter is applied after matching, so category counts ignore it.
+     * Dynamically adds the link table conditions for genre and platform ids that do not fit the bitmasks.
+     */
+    @Override
+    public MediaFacets findFacets(String query, Set<Category> categories, Set<Long> genreIds, Set<Long> platformIds) {
+        Set<Long> overflowGenres = BitMaskUtil.overflowOf(genreIds);
+        Set<Long> overflowPlatforms = BitMaskUtil.overflowOf(platformIds);
+        boolean allCategories = categories == null || categories.isEmpty();
+
+        String overflowGenreFilter = overflowGenres == null ? "" : """
+                AND (SELECT COUNT(*) FROM media_item_genres x
+                     WHERE x.media_item_id = m.id AND x.genre_id IN (:overflowGenreIds)) = :overflowGenreCount
+                """;
+        String overflowPlatformFilter = overflowPlatforms == null ? "" : """
+                AND (SELECT COUNT(*) FROM media_item_platforms x
+                     WHERE x.media_item_id = m.id AND x.platform_id IN (:overflowPlatformIds)) = :overflowPlatformCount
+                """;
+        String categoryFilter = allCategories ? "" : "WHERE category IN (:categories)";
+
+        String sql = """
+                WITH matched AS (
+                    SELECT m.id, m.category
+                    FROM media_items m
+                    WHERE m.name_normalized LIKE :name
+                      AND (m.genre_mask & :genreMask) = :genreMask
+                      AND (m.platform_mask & :platformMask) = :platformMask
+                      %s
+                      %s
+                ), selected AS (
+                    SELECT id FROM matched %s
+                )
+                SELECT 'CATEGORY', CAST(NULL AS BIGINT), category, COUNT(*)
+                FROM matched
+                GROUP BY category
+                UNION ALL
+                SELECT 'GENRE', g.id, g.name, COUNT(*)
+                FROM selected s
+                JOIN media_item_genres mig ON mig.media_item_id = s.id
+                JOIN genres g ON g.id = mig.genre_id
+                GROUP BY g.id, g.name
+                UNION ALL
+                SELECT 'PLATFORM', p.id, p.name, COUNT(*)
+                FROM selected s
+                JOIN media_item_platforms mip ON mip.media_item_id = s.id
+                JOIN platforms p ON p.id = mip.platform_id
+                GROUP BY p.id, p.name
+                """.formatted(overflowGenreFilter, overflowPlatformFilter, categoryFilter);
+
+        Query nativeQuery = em.createNativeQuery(sql);
+        nativeQuery.setParameter("name", "%" + (query == null ? "" : query.toLowerCase(Locale.ROOT)) + "%");
+        nativeQuery.setParameter("genreMask", BitMaskUtil.maskOf(genreIds));
+        nativeQuery.setParameter("platformMask", BitMaskUtil.maskOf(platformIds));
+        if (overflowGenres != null) {
+            nativeQuery.setParameter("overflowGenreIds", overflowGenres);
+            nativeQuery.setParameter("overflowGenreCount", overflowGenres.size());
+        }
+        if (overflowPlatforms != null) {
+            nativeQuery.setParameter("overflowPlatformIds", overflowPlatforms);
+            nativeQuery.setParameter("overflowPlatformCount", overflowPlatforms.size());
+        }
+        if (!allCategories) {
+            nativeQuery.setParameter("categories", categories.stream().map(Category::name).toList());
+        }
+
+        @SuppressWarnings("unchecked")
+        List<Object[]> rows = nativeQuery.getResultList();
+
+        long total = 0;
+        List<CategoryCountResponse> categoryCounts = new ArrayList<>();
+        List<FacetCountResponse> genreCounts = new ArrayList<>();
+        List<FacetCountResponse> platformCounts = new ArrayList<>();
+        for (Object[] row : rows) {
+            long count = ((Number) row[IDX_COUNT]).longValue();
+            if (FACET_CATEGORY.equals(row[IDX_FACET])) {
+                Category category = Category.valueOf((String) row[IDX_NAME]);
+                categoryCounts.add(CategoryCountResponse.builder().category(category).count(count).build());
+                if (allCategories || categories.contains(category)) {
+                    total += count;
+                }
+                continue;
+            }
+
+            FacetCountResponse facet = FacetCountResponse.builder()
+                    .id(((Number) row[IDX_ID]).longValue())
+                    .name((String) row[IDX_NAME])
+                    .count(count)
+                    .build();
+            if (FACET_GENRE.equals(row[IDX_FACET])) {
+                genreCounts.add(facet);
+            } else {
+                platformCounts.add(facet);
+            }
+        }
+
+        categoryCounts.sort(Comparator.comparing(CategoryCountResponse::getCategory));
+        genreCounts.sort(MediaFacets.FACET_ORDER);
+        platformCounts.sort(MediaFacets.FACET_ORDER);
+        return new MediaFacets(total, categoryCounts, genreCounts, platformCounts);
+    }
+}
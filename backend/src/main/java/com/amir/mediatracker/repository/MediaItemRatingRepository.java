@@ -0,0 +1,48 @@
+package com.amir.mediatracker.repository;
+
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Running rating totals of media items, and the average rating derived from them
+ */
+@Repository
+public interface MediaItemRatingRepository {
+
+    /**
+     * The rating totals of a media item
+     * @param mediaItemId The media item id
+     * @param ratingSum Sum of its ratings
+     * @param ratingCount Number of its ratings
+     * @param avgRating Average rating rounded to 1 decimal place, or null if it has no ratings
+     */
+    record RatingTotals(Long mediaItemId, long ratingSum, long ratingCount, BigDecimal avgRating) {}
+
+    /**
+     * Adjust the totals of a media item and recompute its average, in one statement
+     * @param mediaItemId The media item id
+     * @param sumDelta Change of the rating sum
+     * @param countDelta Change of the rating count
+     * @return The new totals, or empty if the media item does not exist
+     */
+    Optional<RatingTotals> applyDelta(Long mediaItemId, long sumDelta, long countDelta);
+
+    /**
+     * Recompute the totals and average of every media item from the ratings in user lists.
+     * Moves the cutoff of {@link #findCountedUntil()} to the time of the recomputation first
+     * @return The corrected totals of the media items whose totals or average had drifted
+     */
+    List<RatingTotals> reconcileAll();
+
+    /**
+     * When the rating totals were last computed from the user lists, by the backfill or a reconciliation.
+     * Rating events from before it are counted in them. The cutoff stays locked until the transaction ends,
+     * so a reconciliation waits for the rating changes being applied, and they wait for it
+     * @return The cutoff time, or empty if the totals were never computed
+     */
+    Optional<Instant> findCountedUntil();
+}
@@ -0,0 +1,105 @@
+package com.amir.mediatracker.repository;
+
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+@Repository
+@RequiredArgsConstructor
+public class MediaItemRatingRepositoryImpl implements MediaItemRatingRepository {
+
+    private final EntityManager em;
+
+    /**
+     * The row stays locked until the transaction ends, so concurrent deltas of the same item are applied in turn
+     */
+    @Override
+    @Transactional
+    public Optional<RatingTotals> applyDelta(Long mediaItemId, long sumDelta, long countDelta) {
+        return totals(em.createNativeQuery("""
+                UPDATE media_items
+                SET rating_sum = rating_sum + :sumDelta,
+                    rating_count = rating_count + :countDelta,
+                    avg_rating = CASE WHEN rating_count + :countDelta > 0
+                        THEN ROUND(CAST(rating_sum + :sumDelta AS NUMERIC) / (rating_count + :countDelta), 1)
+                    END
+                WHERE id = :id
+                RETURNING id, rating_sum, rating_count, avg_rating
+                """)
+                .setParameter("sumDelta", sumDelta)
+                .setParameter("countDelta", countDelta)
+                .setParameter("id", mediaItemId)
+                .getResultList())
+                .stream()
+                .findFirst();
+    }
+
+    /**
+     * The cutoff is moved before the totals are recomputed, once the rating changes being applied are committed.
+     * A rating changed while the reconciliation starts can still be counted twice or not at all;
+     * the next reconciliation corrects it
+     */
+    @Override
+    @Transactional
+    public List<RatingTotals> reconcileAll() {
+        em.createNativeQuery("UPDATE rating_totals_cutoff SET counted_until = clock_timestamp()").executeUpdate();
+        return totals(em.createNativeQuery("""
+                UPDATE media_items m
+                SET rating_sum = r.rating_sum,
+                    rating_count = r.rating_count,
+                    avg_rating = r.avg_rating
+                FROM (
+                    SELECT t.id, t.rating_sum, t.rating_count,
+                           CASE WHEN t.rating_count > 0
+                               THEN ROUND(CAST(t.rating_sum AS NUMERIC) / t.rating_count, 1)
+                           END AS avg_rating
+                    FROM (
+                        SELECT mi.id, COALESCE(SUM(uml.rating), 0) AS rating_sum, COUNT(uml.rating) AS rating_count
+                        FROM media_items mi
+                        LEFT JOIN user_media_list uml ON uml.media_item_id = mi.id
+                        GROUP BY mi.id
+                    ) t
+                ) r
+                WHERE r.id = m.id
+                AND (m.rating_sum <> r.rating_sum OR m.rating_count <> r.rating_count
+                    OR m.avg_rating IS DISTINCT FROM r.avg_rating)
+                RETURNING m.id, m.rating_sum, m.rating_count, m.avg_rating
+                """)
+                .getResultList());
+    }
+
+    @Override
+    @Transactional
+    public Optional<Instant> findCountedUntil() {
+        return em.createNativeQuery("SELECT counted_until FROM rating_totals_cutoff FOR SHARE")
+                .getResultList()
+                .stream()
+                .filter(Objects::nonNull)
+                .findFirst()
+                .map(value -> switch (value) {
+                    case Timestamp timestamp -> timestamp.toInstant();
+                    case OffsetDateTime offsetDateTime -> offsetDateTime.toInstant();
+                    default -> (Instant) value;
+                });
+    }
+
+    private static List<RatingTotals> totals(List<?> rows) {
+        return rows.stream()
+                .map(Object[].class::cast)
+                .map(row -> new RatingTotals(
+                        ((Number) row[0]).longValue(),
+                        ((Number) row[1]).longValue(),
+                        ((Number) row[2]).longValue(),
+                        (BigDecimal) row[3]))
+                .toList();
+    }
+}
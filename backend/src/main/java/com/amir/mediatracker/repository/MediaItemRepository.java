@@ -4,6 +4,7 @@ import com.amir.mediatracker.dto.Category;
 import com.amir.mediatracker.entity.Genre;
 import com.amir.mediatracker.entity.MediaItem;
 import com.amir.mediatracker.entity.Platform;
+import com.amir.mediatracker.search.NameSuggestionIndex;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -22,27 +23,28 @@ public interface MediaItemRepository extends JpaRepository<MediaItem, Long> {
 
     Optional<MediaItem> findByNameAndCategory(String name, Category category);
 
+    long countByIdIn(Collection<Long> ids);
+
+    /**
+     * Ids of a cursor search page, in (name, id) order. Items are loaded by {@link ProjectionRepository}
+     */
     @Query("""
-        SELECT DISTINCT m FROM MediaItem m
-        LEFT JOIN m.genres g
-        LEFT JOIN m.platforms p
-        WHERE LOWER(m.name) LIKE LOWER(CONCAT('%', :name, '%'))
+        SELECT m.id FROM MediaItem m
+        WHERE m.nameNormalized LIKE CONCAT('%', LOWER(:name), '%')
         AND (:categories IS NULL OR m.category IN :categories)
-        AND (:genreIds IS NULL OR EXISTS (
-            SELECT 1 FROM MediaItem m2
+        AND bitand(m.genreMask, :genreMask) = :genreMask
+        AND bitand(m.platformMask, :platformMask) = :platformMask
+        AND (:genreIds IS NULL OR :genreCount = (
+            SELECT COUNT(g2) FROM MediaItem m2
             JOIN m2.genres g2
             WHERE m2.id = m.id
             AND g2.id IN :genreIds
-            GROUP BY m2.id
-            HAVING COUNT(DISTINCT g2.id) = :genreCount
         ))
-        AND (:platformIds IS NULL OR EXISTS (
-            SELECT 1 FROM MediaItem m3
+        AND (:platformIds IS NULL OR :platformCount = (
+            SELECT COUNT(p3) FROM MediaItem m3
             JOIN m3.platforms p3
             WHERE m3.id = m.id
             AND p3.id IN :platformIds
-            GROUP BY m3.id
-            HAVING COUNT(DISTINCT p3.id) = :platformCount
         ))
         AND (
             :cursorName IS NULL OR
@@ -50,9 +52,11 @@ public interface MediaItemRepository extends JpaRepository<MediaItem, Long> {
         )
         ORDER BY m.name ASC, m.id ASC
         """)
-    List<MediaItem> searchWithCursorAndFilters(
+    List<Long> searchIdsWithCursorAndFilters(
             @Param("name") String name,
             @Param("categories") Set<Category> categories,
+            @Param("genreMask") long genreMask,
+            @Param("platformMask") long platformMask,
             @Param("genreIds") Set<Long> genreIds,
             @Param("platformIds") Set<Long> platformIds,
             @Param("genreCount") long genreCount,
@@ -62,30 +66,33 @@ public interface MediaItemRepository extends JpaRepository<MediaItem, Long> {
             Pageable pageable
     );
 
+    /**
+     * Ids of a sorted search page. Items are loaded by {@link ProjectionRepository}
+     */
     @Query("""
-        SELECT DISTINCT m FROM MediaItem m
-        WHERE LOWER(m.name) LIKE LOWER(CONCAT('%', :name, '%'))
+        SELECT m.id FROM MediaItem m
+        WHERE m.nameNormalized LIKE CONCAT('%', LOWER(:name), '%')
         AND (:categories IS NULL OR m.category IN :categories)
-        AND (:genreIds IS NULL OR EXISTS (
-            SELECT 1 FROM MediaItem m2
+        AND bitand(m.genreMask, :genreMask) = :genreMask
+        AND bitand(m.platformMask, :platformMask) = :platformMask
+        AND (:genreIds IS NULL OR :genreCount = (
+            SELECT COUNT(g2) FROM MediaItem m2
             JOIN m2.genres g2
             WHERE m2.id = m.id
             AND g2.id IN :genreIds
-            GROUP BY m2.id
-            HAVING COUNT(DISTINCT g2.id) = :genreCount
         ))
-        AND (:platformIds IS NULL OR EXISTS (
-            SELECT 1 FROM MediaItem m3
+        AND (:platformIds IS NULL OR :platformCount = (
+            SELECT COUNT(p3) FROM MediaItem m3
             JOIN m3.platforms p3
             WHERE m3.id = m.id
             AND p3.id IN :platformIds
-            GROUP BY m3.id
-            HAVING COUNT(DISTINCT p3.id) = :platformCount
         ))
         """)
-    Page<MediaItem> searchWithOffsetAndFilters(
+    Page<Long> searchIdsWithOffsetAndFilters(
             @Param("name") String name,
             @Param("categories") Set<Category> categories,
+            @Param("genreMask") long genreMask,
+            @Param("platformMask") long platformMask,
             @Param("genreIds") Set<Long> genreIds,
             @Param("platformIds") Set<Long> platformIds,
             @Param("genreCount") long genreCount,
@@ -94,36 +101,30 @@ public interface MediaItemRepository extends JpaRepository<MediaItem, Long> {
     );
 
     @Query("""
-    SELECT COUNT(DISTINCT m.id)
+    SELECT COUNT(m)
     FROM MediaItem m
-    WHERE LOWER(m.name) LIKE LOWER(CONCAT('%', :name, '%'))
+    WHERE m.nameNormalized LIKE CONCAT('%', LOWER(:name), '%')
       AND (:categories IS NULL OR m.category IN :categories)
-      AND (
-        :genreIds IS NULL OR EXISTS (
-            SELECT 1
-            FROM MediaItem m2
+      AND bitand(m.genreMask, :genreMask) = :genreMask
+      AND bitand(m.platformMask, :platformMask) = :platformMask
+      AND (:genreIds IS NULL OR :genreCount = (
+            SELECT COUNT(g2) FROM MediaItem m2
             JOIN m2.genres g2
             WHERE m2.id = m.id
               AND g2.id IN :genreIds
-            GROUP BY m2.id
-            HAVING COUNT(DISTINCT g2.id) = :genreCount
-        )
-      )
-      AND (
-        :platformIds IS NULL OR EXISTS (
-            SELECT 1
-            FROM MediaItem m3
+      ))
+      AND (:platformIds IS NULL OR :platformCount = (
+            SELECT COUNT(p3) FROM MediaItem m3
             JOIN m3.platforms p3
             WHERE m3.id = m.id
               AND p3.id IN :platformIds
-            GROUP BY m3.id
-            HAVING COUNT(DISTINCT p3.id) = :platformCount
-        )
-      )
+      ))
     """)
     Long countWithFilters(
             @Param("name") String name,
             @Param("categories") Set<Category> categories,
+            @Param("genreMask") long genreMask,
+            @Param("platformMask") long platformMask,
             @Param("genreIds") Set<Long> genreIds,
             @Param("platformIds") Set<Long> platformIds,
             @Param("genreCount") long genreCount,
@@ -132,7 +133,7 @@ public interface MediaItemRepository extends JpaRepository<MediaItem, Long> {
 
     @Query("""
         SELECT COUNT(m) FROM MediaItem m
-        WHERE LOWER(m.name) LIKE LOWER(CONCAT('%', :name, '%'))
+        WHERE m.nameNormalized LIKE CONCAT('%', LOWER(:name), '%')
         AND (:categories IS NULL OR m.category IN :categories)
         """)
     Long countSimple(
@@ -143,7 +144,7 @@ public interface MediaItemRepository extends JpaRepository<MediaItem, Long> {
     @Query("""
         SELECT DISTINCT g FROM MediaItem m
         JOIN m.genres g
-        WHERE LOWER(m.name) LIKE LOWER(CONCAT('%', :name, '%'))
+        WHERE m.nameNormalized LIKE CONCAT('%', LOWER(:name), '%')
         AND (:categories IS NULL OR m.category IN :categories)
         ORDER BY g.name ASC
         """)
@@ -155,7 +156,7 @@ public interface MediaItemRepository extends JpaRepository<MediaItem, Long> {
     @Query("""
         SELECT DISTINCT p FROM MediaItem m
         JOIN m.platforms p
-        WHERE LOWER(m.name) LIKE LOWER(CONCAT('%', :name, '%'))
+        WHERE m.nameNormalized LIKE CONCAT('%', LOWER(:name), '%')
         AND (:categories IS NULL OR m.category IN :categories)
         ORDER BY p.name ASC
         """)
@@ -164,4 +165,54 @@ public interface MediaItemRepository extends JpaRepository<MediaItem, Long> {
             @Param("categories") Set<Category> categories
     );
 
+    /**
+     * Id, name and category of every media item, without loading the entities
+     */
+    @Query("""
+        SELECT new com.amir.mediatracker.search.NameSuggestionIndex$Entry(m.id, m.name, m.category)
+        FROM MediaItem m
+        """)
+    List<NameSuggestionIndex.Entry> findAllNameSuggestions();
+
+    /**
+     * Id, name and category of the media items with one of the given lower-cased names
+     */
+    @Query("""
+        SELECT new com.amir.mediatracker.search.NameSuggestionIndex$Entry(m.id, m.name, m.category)
+        FROM MediaItem m
+        WHERE m.nameNormalized IN :normalizedNames
+        """)
+    List<NameSuggestionIndex.Entry> findNameEntriesByNormalizedNameIn(
+            @Param("normalizedNames") Collection<String> normalizedNames);
+
+    /**
+     * Planner estimate of the number of rows in media_items, as of the last ANALYZE.
+     * Returns a negative number if the table was never analyzed
+     */
+    @Query(
+            value = """
+            SELECT CAST(reltuples AS BIGINT) FROM pg_class
+            WHERE oid = CAST('media_items' AS regclass)
+        """,
+            nativeQuery = true
+    )
+    Long estimateTotalRows();
+
+    /**
+     * Fraction of media_items rows in the given categories, according to the planner statistics.
+     * Returns null if there are no statistics for any of the categories
+     */
+    @Query(
+            value = """
+            SELECT CAST(SUM(f.freq) AS DOUBLE PRECISION)
+            FROM pg_stats s
+            CROSS JOIN LATERAL unnest(CAST(CAST(s.most_common_vals AS TEXT) AS TEXT[]), s.most_common_freqs) AS f(val, freq)
+            WHERE s.schemaname = current_schema()
+            AND s.tablename = 'media_items'
+            AND s.attname = 'category'
+            AND f.val IN (:categories)
+        """,
+            nativeQuery = true
+    )
+    Double estimateCategoryFraction(@Param("categories") Collection<String> categories);
 }
@@ -0,0 +1,40 @@
+package com.amir.mediatracker.repository;
+
+import org.springframework.stereotype.Repository;
+
+/**
+ * Set-based writes of rating notifications to the followers of a rater
+ */
+@Repository
+public interface NotificationFanOutRepository {
+
+    /**
+     * The result of notifying one chunk of followers
+     * @param followers Number of followers in the chunk
+     * @param lastFollowerId The highest follower id of the chunk, or null if it was empty
+     * @param inserted Number of notifications written. Followers already notified of this rating are skipped
+     */
+    record Chunk(int followers, Long lastFollowerId, int inserted) {}
+
+    /**
+     * Notify the next chunk of followers of a rater whose threshold the rating meets, in one statement.
+     * Followers are taken in follower id order, starting after afterFollowerId
+     * @param ratedByUserId The user who rated
+     * @param mediaItemId The rated media item
+     * @param rating The rating
+     * @param message The message of the notification
+     * @param afterFollowerId The last follower id of the previous chunk, or 0 for the first
+     * @param chunkSize Maximum number of followers in the chunk
+     * @return The chunk result
+     */
+    Chunk insertForFollowers(Long ratedByUserId, Long mediaItemId, Short rating, String message,
+                             long afterFollowerId, int chunkSize);
+
+    /**
+     * Count the followers of a user, stopping at limit, so the cost is bounded whatever the number of followers
+     * @param userId The followed user
+     * @param limit The most followers counted
+     * @return Number of followers, or limit if there are at least that many
+     */
+    int countFollowers(Long userId, int limit);
+}
@@ -0,0 +1,69 @@
+package com.amir.mediatracker.repository;
+
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+@RequiredArgsConstructor
+public class NotificationFanOutRepositoryImpl implements NotificationFanOutRepository {
+
+    private final EntityManager em;
+
+    /**
+     * The chunk is read by range from the (following_id, follower_id) index, and the thresholds are read from it too
+     */
+    @Override
+    @Transactional
+    public Chunk insertForFollowers(Long ratedByUserId, Long mediaItemId, Short rating, String message,
+                                    long afterFollowerId, int chunkSize) {
+        Object[] row = (Object[]) em.createNativeQuery("""
+                WITH chunk AS (
+                    SELECT uf.follower_id
+                    FROM user_follows uf
+                    WHERE uf.following_id = :ratedByUserId
+                    AND uf.minimum_rating_threshold <= :rating
+                    AND uf.follower_id > :afterFollowerId
+                    ORDER BY uf.follower_id
+                    LIMIT :chunkSize
+                ), inserted AS (
+                    INSERT INTO notifications (user_id, media_item_id, rating, message, rated_by_user_id, is_read, created_at)
+                    SELECT c.follower_id, :mediaItemId, :rating, :message, :ratedByUserId, FALSE, NOW()
+                    FROM chunk c
+                    ON CONFLICT (user_id, media_item_id, rating) DO NOTHING
+                    RETURNING 1
+                )
+                SELECT (SELECT COUNT(*) FROM chunk), (SELECT MAX(c.follower_id) FROM chunk c), (SELECT COUNT(*) FROM inserted)
+                """)
+                .setParameter("ratedByUserId", ratedByUserId)
+                .setParameter("mediaItemId", mediaItemId)
+                .setParameter("rating", rating)
+                .setParameter("message", message)
+                .setParameter("afterFollowerId", afterFollowerId)
+                .setParameter("chunkSize", chunkSize)
+                .getSingleResult();
+        return new Chunk(
+                ((Number) row[0]).intValue(),
+                row[1] == null ? null : ((Number) row[1]).longValue(),
+                ((Number) row[2]).intValue());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public int countFollowers(Long userId, int limit) {
+        Number count = (Number) em.createNativeQuery("""
+                SELECT COUNT(*)
+                FROM (
+                    SELECT 1
+                    FROM user_follows uf
+                    WHERE uf.following_id = :userId
+                    LIMIT :limit
+                ) f
+                """)
+                .setParameter("userId", userId)
+                .setParameter("limit", limit)
+                .getSingleResult();
+        return count.intValue();
+    }
+}
@@ -0,0 +1,41 @@
+package com.amir.mediatracker.repository;
+
+import com.amir.mediatracker.dto.response.MediaItemResponse;
+import com.amir.mediatracker.dto.response.NotificationResponse;
+import com.amir.mediatracker.dto.response.UserMediaListResponse;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Read paths that map query rows straight to response DTOs.
+ * Rows are selected into records instead of entities, so nothing enters the persistence context:
+ * no dirty-checking snapshots, no flush work and no lazy associations to initialize.
+ */
+@Repository
+public interface ProjectionRepository {
+
+    /**
+     * Load media items with their genres and platforms.
+     * Runs one query for the items, one for their genres and one for their platforms
+     * @param ids Media item ids
+     * @return The items that exist, in the order of the ids. inUserList is not set
+     */
+    List<MediaItemResponse> findMediaItems(Collection<Long> ids);
+
+    /**
+     * Load user list items with their media items
+     * @param ids User list item ids
+     * @return The list items that exist, in the order of the ids
+     */
+    List<UserMediaListResponse> findUserListItems(Collection<Long> ids);
+
+    /**
+     * Load the latest notifications of a user, with their media items and the users who rated
+     * @param userId The id of the user the notifications belong to
+     * @param limit Maximum number of notifications
+     * @return Notifications, newest first
+     */
+    List<NotificationResponse> findLatestNotifications(Long userId, int limit);
+}
@@ -0,0 +1,141 @@
+package com.amir.mediatracker.repository;
+
+import com.amir.mediatracker.dto.projection.MediaItemLinkRow;
+import com.amir.mediatracker.dto.projection.MediaItemRow;
+import com.amir.mediatracker.dto.projection.NotificationRow;
+import com.amir.mediatracker.dto.projection.UserMediaListRow;
+import com.amir.mediatracker.dto.response.GenreResponse;
+import com.amir.mediatracker.dto.response.MediaItemResponse;
+import com.amir.mediatracker.dto.response.NotificationResponse;
+import com.amir.mediatracker.dto.response.PlatformResponse;
+import com.amir.mediatracker.dto.response.UserMediaListResponse;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Repository
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class ProjectionRepositoryImpl implements ProjectionRepository {
+
+    private final EntityManager em;
+
+    @Override
+    public List<MediaItemResponse> findMediaItems(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Set<Long> distinctIds = Set.copyOf(ids);
+
+        Map<Long, MediaItemRow> rowsById = em.createQuery("""
+                SELECT new com.amir.mediatracker.dto.projection.MediaItemRow(
+                    m.id, m.category, m.name, m.year, m.avgRating, m.createdAt, m.updatedAt)
+                FROM MediaItem m
+                WHERE m.id IN :ids
+                """, MediaItemRow.class)
+                .setParameter("ids", distinctIds)
+                .getResultStream()
+                .collect(Collectors.toMap(MediaItemRow::id, Function.identity()));
+        if (rowsById.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Long, Set<GenreResponse>> genres = findLinks("genres", rowsById.keySet(), link ->
+                GenreResponse.builder().id(link.id()).name(link.name()).build());
+        Map<Long, Set<PlatformResponse>> platforms = findLinks("platforms", rowsById.keySet(), link ->
+                PlatformResponse.builder().id(link.id()).name(link.name()).build());
+
+        return ids.stream()
+                .map(rowsById::get)
+                .filter(Objects::nonNull)
+                .map(row -> row.toResponse(
+                        genres.getOrDefault(row.id(), new HashSet<>()),
+                        platforms.getOrDefault(row.id(), new HashSet<>())))
+                .toList();
+    }
+
+    /**
+     * Select the genres or platforms of the given media items, grouped by media item id
+     * @param association "genres" or "platforms"
+     */
+    private <T> Map<Long, Set<T>> findLinks(String association, Collection<Long> mediaItemIds,
+                                            Function<MediaItemLinkRow, T> mapper) {
+        return em.createQuery("""
+                SELECT new com.amir.mediatracker.dto.projection.MediaItemLinkRow(m.id, l.id, l.name)
+                FROM MediaItem m
+                JOIN m.%s l
+                WHERE m.id IN :ids
+                """.formatted(association), MediaItemLinkRow.class)
+                .setParameter("ids", mediaItemIds)
+                .getResultStream()
+                .collect(Collectors.groupingBy(MediaItemLinkRow::mediaItemId,
+                        Collectors.mapping(mapper, Collectors.toSet())));
+    }
+
+    @Override
+    public List<UserMediaListResponse> findUserListItems(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, UserMediaListRow> rowsById = em.createQuery("""
+                SELECT new com.amir.mediatracker.dto.projection.UserMediaListRow(
+                    uml.id, uml.mediaItem.id, uml.experienced, uml.wishToReexperience,
+                    uml.rating, uml.comment, uml.addedAt, uml.updatedAt)
+                FROM UserMediaList uml
+                WHERE uml.id IN :ids
+                """, UserMediaListRow.class)
+                .setParameter("ids", Set.copyOf(ids))
+                .getResultStream()
+                .collect(Collectors.toMap(UserMediaListRow::id, Function.identity()));
+
+        Map<Long, MediaItemResponse> mediaItems = mediaItemsById(rowsById.values().stream()
+                .map(UserMediaListRow::mediaItemId)
+                .distinct()
+                .toList());
+        return ids.stream()
+                .map(rowsById::get)
+                .filter(Objects::nonNull)
+                .map(row -> row.toResponse(mediaItems.get(row.mediaItemId())))
+                .toList();
+    }
+
+    @Override
+    public List<NotificationResponse> findLatestNotifications(Long userId, int limit) {
+        List<NotificationRow> rows = em.createQuery("""
+                SELECT new com.amir.mediatracker.dto.projection.NotificationRow(
+                    n.id, n.message, n.mediaItem.id, n.rating,
+                    u.id, u.username, u.email, u.role, n.isRead, n.createdAt)
+                FROM Notification n
+                LEFT JOIN n.ratedByUser u
+                WHERE n.user.id = :userId
+                ORDER BY n.createdAt DESC
+                """, NotificationRow.class)
+                .setParameter("userId", userId)
+                .setMaxResults(limit)
+                .getResultList();
+
+        Map<Long, MediaItemResponse> mediaItems = mediaItemsById(rows.stream()
+                .map(NotificationRow::mediaItemId)
+                .filter(Objects::nonNull)
+                .distinct()
+                .toList());
+        return rows.stream()
+                .map(row -> row.toResponse(row.mediaItemId() == null ? null : mediaItems.get(row.mediaItemId())))
+                .toList();
+    }
+
+    private Map<Long, MediaItemResponse> mediaItemsById(List<Long> mediaItemIds) {
+        return findMediaItems(mediaItemIds).stream()
+                .collect(Collectors.toMap(MediaItemResponse::getId, Function.identity()));
+    }
+}
@@ -0,0 +1,51 @@
+package com.amir.mediatracker.repository;
+
+import com.amir.mediatracker.dto.projection.NotificationRow;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * The activity log of raters with many followers, the rater_activity table.
+ * Their ratings are written to it once instead of to every follower, and pulled by the followers when their
+ * notifications are read. A follower sees an entry if it was logged after the follow started, meets the follow threshold,
+ * and no notification of the same media item and rating exists for them. Entries are listed with their own id,
+ * and marking one as read records it for the follower, so reading the notifications writes nothing
+ */
+@Repository
+public interface RaterActivityRepository {
+
+    /**
+     * Log a rating. A rating the rater already logged is skipped (probably a retry attempt)
+     * @param ratedByUserId The user who rated
+     * @param mediaItemId The rated media item
+     * @param rating The rating
+     * @param message The message shown to the followers
+     * @return Whether it was logged
+     */
+    boolean append(Long ratedByUserId, Long mediaItemId, Short rating, String message);
+
+    /**
+     * The latest entries a user pulls from the raters they follow. Read per followed rater from its latest entries,
+     * so the cost is bounded by the number of follows and the limit
+     * @param userId The follower
+     * @param limit Maximum number of entries
+     * @return Entries as notification rows, read if the user marked them, newest first. The media item is referenced by id
+     */
+    List<NotificationRow> findLatestPulled(Long userId, int limit);
+
+    /**
+     * Mark a pulled entry as read for a user. An entry already marked is skipped
+     * @param userId The follower
+     * @param activityId The id of the entry
+     */
+    void markAsRead(Long userId, Long activityId);
+
+    /**
+     * Mark the latest entries a user pulls as read, like {@link #markAsRead}
+     * @param userId The follower
+     * @param limit Maximum number of entries
+     * @return Number of entries marked
+     */
+    int markLatestAsRead(Long userId, int limit);
+}
@@ -0,0 +1,128 @@
+package com.amir.mediatracker.repository;
+
+import com.amir.mediatracker.dto.Role;
+import com.amir.mediatracker.dto.projection.NotificationRow;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+@RequiredArgsConstructor
+public class RaterActivityRepositoryImpl implements RaterActivityRepository {
+
+    /**
+     * The entries visible to :userId, newest first, up to :limit.
+     * Each followed rater is read from the (rated_by_user_id, created_at) index, for at most :limit entries
+     */
+    private static final String PULLED = """
+            SELECT a.id, a.message, a.media_item_id, a.rating, a.rated_by_user_id, a.created_at
+            FROM user_follows uf
+            CROSS JOIN LATERAL (
+                SELECT a.id, a.message, a.media_item_id, a.rating, a.rated_by_user_id, a.created_at
+                FROM rater_activity a
+                WHERE a.rated_by_user_id = uf.following_id
+                AND a.created_at >= uf.created_at
+                AND a.rating >= uf.minimum_rating_threshold
+                AND NOT EXISTS (
+                    SELECT 1
+                    FROM notifications n
+                    WHERE n.user_id = uf.follower_id
+                    AND n.media_item_id = a.media_item_id
+                    AND n.rating = a.rating
+                )
+                ORDER BY a.created_at DESC
+                LIMIT :limit
+            ) a
+            WHERE uf.follower_id = :userId
+            ORDER BY a.created_at DESC, a.id DESC
+            LIMIT :limit
+            """;
+
+    private final EntityManager em;
+
+    @Override
+    @Transactional
+    public boolean append(Long ratedByUserId, Long mediaItemId, Short rating, String message) {
+        int inserted = em.createNativeQuery("""
+                INSERT INTO rater_activity (rated_by_user_id, media_item_id, rating, message)
+                VALUES (:ratedByUserId, :mediaItemId, :rating, :message)
+                ON CONFLICT (rated_by_user_id, media_item_id, rating) DO NOTHING
+                """)
+                .setParameter("ratedByUserId", ratedByUserId)
+                .setParameter("mediaItemId", mediaItemId)
+                .setParameter("rating", rating)
+                .setParameter("message", message)
+                .executeUpdate();
+        return inserted > 0;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    @SuppressWarnings("unchecked")
+    public List<NotificationRow> findLatestPulled(Long userId, int limit) {
+        List<Object[]> rows = em.createNativeQuery("""
+                SELECT p.id, p.message, p.media_item_id, p.rating, u.id, u.username, u.email, u.role, p.created_at,
+                       EXISTS (
+                           SELECT 1
+                           FROM rater_activity_reads r
+                           WHERE r.user_id = :userId
+                           AND r.activity_id = p.id
+                       )
+                FROM (%s) p
+                JOIN users u ON u.id = p.rated_by_user_id
+                ORDER BY p.created_at DESC, p.id DESC
+                """.formatted(PULLED))
+                .setParameter("userId", userId)
+                .setParameter("limit", limit)
+                .getResultList();
+        return rows.stream()
+                .map(row -> new NotificationRow(
+                        ((Number) row[0]).longValue(),
+                        (String) row[1],
+                        ((Number) row[2]).longValue(),
+                        ((Number) row[3]).shortValue(),
+                        ((Number) row[4]).longValue(),
+                        (String) row[5],
+                        (String) row[6],
+                        Role.valueOf((String) row[7]),
+                        (Boolean) row[9],
+                        toLocalDateTime(row[8])))
+                .toList();
+    }
+
+    @Override
+    @Transactional
+    public void markAsRead(Long userId, Long activityId) {
+        em.createNativeQuery("""
+                INSERT INTO rater_activity_reads (user_id, activity_id)
+                VALUES (:userId, :activityId)
+                ON CONFLICT DO NOTHING
+                """)
+                .setParameter("userId", userId)
+                .setParameter("activityId", activityId)
+                .executeUpdate();
+    }
+
+    @Override
+    @Transactional
+    public int markLatestAsRead(Long userId, int limit) {
+        return em.createNativeQuery("""
+                INSERT INTO rater_activity_reads (user_id, activity_id)
+                SELECT :userId, p.id
+                FROM (%s) p
+                ON CONFLICT DO NOTHING
+                """.formatted(PULLED))
+                .setParameter("userId", userId)
+                .setParameter("limit", limit)
+                .executeUpdate();
+    }
+
+    private static LocalDateTime toLocalDateTime(Object value) {
+        return value instanceof Timestamp timestamp ? timestamp.toLocalDateTime() : (LocalDateTime) value;
+    }
+}
@@ -0,0 +1,21 @@
+package com.amir.mediatracker.repository;
+
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * Batched writes of user activity timestamps
+ */
+@Repository
+public interface UserActivityRepository {
+
+    /**
+     * Set last_active of many users in one statement per chunk.
+     * A timestamp older than the stored one is ignored, so flushes from several instances can not move it back
+     * @param lastActive Latest activity time by user id
+     * @return Number of updated users
+     */
+    int updateLastActive(Map<Long, LocalDateTime> lastActive);
+}
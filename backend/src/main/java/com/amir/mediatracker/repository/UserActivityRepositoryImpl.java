@@ -0,0 +1,55 @@
+package com.amir.mediatracker.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+
+@Repository
+@RequiredArgsConstructor
+public class UserActivityRepositoryImpl implements UserActivityRepository {
+
+    /**
+     * Rows per statement, keeping the number of bind parameters well below the driver limit
+     */
+    static final int CHUNK_SIZE = 1_000;
+
+    private final EntityManager em;
+
+    @Override
+    @Transactional
+    public int updateLastActive(Map<Long, LocalDateTime> lastActive) {
+        List<Map.Entry<Long, LocalDateTime>> entries = new ArrayList<>(lastActive.entrySet());
+        int updated = 0;
+        for (int from = 0; from < entries.size(); from += CHUNK_SIZE) {
+            updated += updateChunk(entries.subList(from, Math.min(from + CHUNK_SIZE, entries.size())));
+        }
+        return updated;
+    }
+
+    private int updateChunk(List<Map.Entry<Long, LocalDateTime>> chunk) {
+        StringJoiner values = new StringJoiner(", ");
+        for (int i = 0; i < chunk.size(); i++) {
+            values.add("(CAST(:id%d AS BIGINT), CAST(:at%d AS TIMESTAMP))".formatted(i, i));
+        }
+        Query query = em.createNativeQuery("""
+                UPDATE users u
+                SET last_active = v.last_active
+                FROM (VALUES %s) AS v(id, last_active)
+                WHERE u.id = v.id
+                AND (u.last_active IS NULL OR u.last_active < v.last_active)
+                """.formatted(values));
+        for (int i = 0; i < chunk.size(); i++) {
+            query.setParameter("id" + i, chunk.get(i).getKey());
+            query.setParameter("at" + i, chunk.get(i).getValue());
+        }
+        return query.executeUpdate();
+    }
+}
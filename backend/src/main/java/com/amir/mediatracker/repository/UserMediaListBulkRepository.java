@@ -0,0 +1,62 @@
+package com.amir.mediatracker.repository;
+
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Multi-row writes to user lists, each a single statement whatever the number of items
+ */
+@Repository
+public interface UserMediaListBulkRepository {
+
+    /**
+     * A list item, the media item it holds and its rating
+     */
+    record ListItemRef(Long id, Long mediaItemId, Short rating) {}
+
+    /**
+     * The user-owned values of an imported list item
+     * @param mediaItemId The media item
+     * @param experienced The experienced flag, or null to keep the current one (false for a new item)
+     * @param rating The rating, or null to keep the current one. Only kept if experienced
+     * @param comment The comment, or null to keep the current one
+     */
+    record ImportedValues(Long mediaItemId, Boolean experienced, Short rating, String comment) {}
+
+    /**
+     * A list item written by an import
+     * @param id The list item id
+     * @param mediaItemId The media item it holds
+     * @param inserted Whether it was added to the list, rather than updated
+     * @param previousRating Its rating before the import, or null
+     * @param rating Its rating after the import, or null
+     */
+    record UpsertedItem(Long id, Long mediaItemId, boolean inserted, Short previousRating, Short rating) {}
+
+    /**
+     * Add media items to a user list with default values. Media items already in the list, or missing, are skipped
+     * @param userId The user whose list is changed
+     * @param mediaItemIds Media item ids
+     * @return The list items that were added
+     */
+    List<ListItemRef> insertAll(Long userId, Collection<Long> mediaItemIds);
+
+    /**
+     * Add media items to a user list, or overwrite the values of those already in it. Null values keep the current ones.
+     * Un-experienced items lose their rating and re-experience flag. Missing media items are skipped
+     * @param userId The user whose list is changed
+     * @param values At most one per media item
+     * @return The list items that were written
+     */
+    List<UpsertedItem> upsertAll(Long userId, List<ImportedValues> values);
+
+    /**
+     * Remove list items from a user list. Ids of other lists, or missing, are skipped
+     * @param userId The user whose list is changed
+     * @param listItemIds User list item ids
+     * @return The list items that were removed
+     */
+    List<ListItemRef> deleteAll(Long userId, Collection<Long> listItemIds);
+}
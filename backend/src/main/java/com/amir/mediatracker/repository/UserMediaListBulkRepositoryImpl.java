@@ -0,0 +1,136 @@
+package com.amir.mediatracker.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.StringJoiner;
+
+@Repository
+@RequiredArgsConstructor
+public class UserMediaListBulkRepositoryImpl implements UserMediaListBulkRepository {
+
+    private final EntityManager em;
+
+    @Override
+    @Transactional
+    public List<ListItemRef> insertAll(Long userId, Collection<Long> mediaItemIds) {
+        if (mediaItemIds.isEmpty()) {
+            return List.of();
+        }
+        return refs(em.createNativeQuery("""
+                INSERT INTO user_media_list (user_id, media_item_id, experienced, wish_to_reexperience, added_at, updated_at)
+                SELECT :userId, m.id, FALSE, FALSE, NOW(), NOW()
+                FROM media_items m
+                WHERE m.id IN (:mediaItemIds)
+                ON CONFLICT (user_id, media_item_id) DO NOTHING
+                RETURNING id, media_item_id, rating
+                """)
+                .setParameter("userId", userId)
+                .setParameter("mediaItemIds", Set.copyOf(mediaItemIds))
+                .getResultList());
+    }
+
+    /**
+     * One statement for all values. The previous ratings are read from the snapshot the statement started with,
+     * so they are the values before the upsert, which null values fall back to. Null values are bound as sentinels,
+     * so every parameter has a known type
+     */
+    @Override
+    @Transactional
+    public List<UpsertedItem> upsertAll(Long userId, List<ImportedValues> values) {
+        if (values.isEmpty()) {
+            return List.of();
+        }
+        StringJoiner rows = new StringJoiner(", ");
+        for (int i = 0; i < values.size(); i++) {
+            rows.add(("(CAST(:m%d AS BIGINT), CAST(NULLIF(CAST(:e%d AS VARCHAR), '') AS BOOLEAN), "
+                    + "NULLIF(CAST(:r%d AS SMALLINT), -1), NULLIF(CAST(:c%d AS VARCHAR), ''))").formatted(i, i, i, i));
+        }
+        Query query = em.createNativeQuery("""
+                WITH incoming (media_item_id, experienced, rating, comment) AS (VALUES %s),
+                previous AS (
+                    SELECT uml.media_item_id, uml.experienced, uml.rating, uml.comment
+                    FROM user_media_list uml
+                    WHERE uml.user_id = :userId
+                    AND uml.media_item_id IN (SELECT i.media_item_id FROM incoming i)
+                ),
+                merged AS (
+                    SELECT i.media_item_id,
+                           COALESCE(i.experienced, p.experienced, FALSE) AS experienced,
+                           COALESCE(i.rating, p.rating) AS rating,
+                           COALESCE(i.comment, p.comment) AS comment
+                    FROM incoming i
+                    LEFT JOIN previous p ON p.media_item_id = i.media_item_id
+                )
+                INSERT INTO user_media_list (user_id, media_item_id, experienced, wish_to_reexperience, rating, comment,
+                                             added_at, updated_at)
+                SELECT :userId, v.media_item_id, v.experienced, FALSE, CASE WHEN v.experienced THEN v.rating END,
+                       v.comment, NOW(), NOW()
+                FROM merged v
+                JOIN media_items m ON m.id = v.media_item_id
+                ON CONFLICT (user_id, media_item_id) DO UPDATE SET
+                    experienced = EXCLUDED.experienced,
+                    wish_to_reexperience = EXCLUDED.experienced AND user_media_list.wish_to_reexperience,
+                    rating = EXCLUDED.rating,
+                    comment = EXCLUDED.comment,
+                    updated_at = NOW()
+                RETURNING id, media_item_id,
+                    NOT EXISTS (SELECT 1 FROM previous p WHERE p.media_item_id = user_media_list.media_item_id),
+                    (SELECT p.rating FROM previous p WHERE p.media_item_id = user_media_list.media_item_id),
+                    user_media_list.rating
+                """.formatted(rows))
+                .setParameter("userId", userId);
+        for (int i = 0; i < values.size(); i++) {
+            ImportedValues value = values.get(i);
+            query.setParameter("m" + i, value.mediaItemId());
+            query.setParameter("e" + i, value.experienced() == null ? "" : value.experienced().toString());
+            query.setParameter("r" + i, value.rating() == null ? -1 : value.rating().intValue());
+            query.setParameter("c" + i, value.comment() == null ? "" : value.comment());
+        }
+        return ((List<?>) query.getResultList()).stream()
+                .map(Object[].class::cast)
+                .map(row -> new UpsertedItem(
+                        ((Number) row[0]).longValue(),
+                        ((Number) row[1]).longValue(),
+                        (Boolean) row[2],
+                        row[3] == null ? null : ((Number) row[3]).shortValue(),
+                        row[4] == null ? null : ((Number) row[4]).shortValue()))
+                .toList();
+    }
+
+    /**
+     * Pending entity changes are flushed first, and removed rows are not detached from the persistence context,
+     * so this is meant for list items that were not loaded as entities
+     */
+    @Override
+    @Transactional
+    public List<ListItemRef> deleteAll(Long userId, Collection<Long> listItemIds) {
+        if (listItemIds.isEmpty()) {
+            return List.of();
+        }
+        em.flush();
+        return refs(em.createNativeQuery("""
+                DELETE FROM user_media_list
+                WHERE user_id = :userId
+                AND id IN (:ids)
+                RETURNING id, media_item_id, rating
+                """)
+                .setParameter("userId", userId)
+                .setParameter("ids", Set.copyOf(listItemIds))
+                .getResultList());
+    }
+
+    private List<ListItemRef> refs(List<?> rows) {
+        return rows.stream()
+                .map(Object[].class::cast)
+                .map(row -> new ListItemRef(((Number) row[0]).longValue(), ((Number) row[1]).longValue(),
+                        row[2] == null ? null : ((Number) row[2]).shortValue()))
+                .toList();
+    }
+}
@@ -0,0 +1,23 @@
+package com.amir.mediatracker.repository;
+
+import com.amir.mediatracker.dto.projection.UserMediaListExportRow;
+import org.springframework.stereotype.Repository;
+
+import java.util.stream.Stream;
+
+/**
+ * Forward-only reads of whole user lists, for exports
+ */
+@Repository
+public interface UserMediaListExportRepository {
+
+    /**
+     * Stream every entry of a user list, in (name, media item id) order.
+     * Rows are read through a server-side cursor, fetchSize rows at a time, so memory does not grow with the list.
+     * Must be called, and the stream consumed and closed, within a transaction
+     * @param userId The user whose list is read
+     * @param fetchSize Rows per round trip
+     * @return Stream of rows
+     */
+    Stream<UserMediaListExportRow> streamByUserId(Long userId, int fetchSize);
+}
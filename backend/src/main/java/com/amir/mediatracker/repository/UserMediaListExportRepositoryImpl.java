@@ -0,0 +1,81 @@
+package com.amir.mediatracker.repository;
+
+import com.amir.mediatracker.dto.Category;
+import com.amir.mediatracker.dto.projection.UserMediaListExportRow;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Array;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+@Repository
+@RequiredArgsConstructor
+public class UserMediaListExportRepositoryImpl implements UserMediaListExportRepository {
+
+    private final EntityManager em;
+
+    /**
+     * Reads the read model, so genre and platform names are resolved from their id arrays without the link tables.
+     * The rows are scalars, so nothing is added to the persistence context as the stream advances
+     */
+    @Override
+    public Stream<UserMediaListExportRow> streamByUserId(Long userId, int fetchSize) {
+        Stream<?> rows = em.createNativeQuery("""
+                SELECT v.media_item_id, v.category, v.name, v.year,
+                       ARRAY(SELECT g.name FROM genres g WHERE g.id = ANY(v.genre_ids) ORDER BY g.name),
+                       ARRAY(SELECT p.name FROM platforms p WHERE p.id = ANY(v.platform_ids) ORDER BY p.name),
+                       v.experienced, v.wish_to_reexperience, v.rating, uml.comment, uml.added_at, uml.updated_at
+                FROM user_media_list_view v
+                JOIN user_media_list uml ON uml.id = v.id
+                WHERE v.user_id = :userId
+                ORDER BY v.name ASC, v.media_item_id ASC
+                """)
+                .setParameter("userId", userId)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream();
+        return rows
+                .map(Object[].class::cast)
+                .map(row -> new UserMediaListExportRow(
+                        ((Number) row[0]).longValue(),
+                        Category.valueOf((String) row[1]),
+                        (String) row[2],
+                        row[3] == null ? null : ((Number) row[3]).intValue(),
+                        strings(row[4]),
+                        strings(row[5]),
+                        (Boolean) row[6],
+                        (Boolean) row[7],
+                        row[8] == null ? null : ((Number) row[8]).shortValue(),
+                        (String) row[9],
+                        dateTime(row[10]),
+                        dateTime(row[11])));
+    }
+
+    /**
+     * A TEXT[] column, as returned by the driver or by Hibernate
+     */
+    private static List<String> strings(Object array) {
+        try {
+            Object elements = array instanceof Array sqlArray ? sqlArray.getArray() : array;
+            return Arrays.stream((Object[]) elements)
+                    .map(String.class::cast)
+                    .toList();
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not read array column", e);
+        }
+    }
+
+    private static LocalDateTime dateTime(Object value) {
+        if (value instanceof Timestamp timestamp) {
+            return timestamp.toLocalDateTime();
+        }
+        return (LocalDateTime) value;
+    }
+}
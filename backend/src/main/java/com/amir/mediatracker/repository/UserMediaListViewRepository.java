@@ -0,0 +1,158 @@
+package com.amir.mediatracker.repository;
+
+import com.amir.mediatracker.dto.Category;
+import com.amir.mediatracker.dto.SortDirection;
+import com.amir.mediatracker.dto.UserSearchMediaSortBy;
+import com.amir.mediatracker.dto.response.GenreResponse;
+import com.amir.mediatracker.dto.response.PlatformResponse;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Read model of user lists, the user_media_list_view table: one row per list entry, with the media item
+ * fields lists are filtered and sorted by, and its genre and platform ids as arrays.
+ * Pages and counts are read from it without joins. The write methods keep it in step with user_media_list
+ * and media_items, and are meant to run in the same transaction as the change they reflect.
+ * They also keep the per-user genre and platform counts of each list category, which the list facets are read from,
+ * and the per-user list statistics.
+ */
+@Repository
+public interface UserMediaListViewRepository {
+
+    /**
+     * Filters of a user list search
+     * @param userId The user whose list is searched
+     * @param searchQuery Name search criteria. Empty for all names
+     * @param categories Optional filter for categories
+     * @param genreIds Optional filter for genres. Matching items must contain all of them
+     * @param platformIds Optional filter for platforms. Matching items must contain all of them
+     * @param wishToExperience Whether only items not experienced, or wished to be re-experienced, match
+     */
+    record Filter(Long userId, String searchQuery, Set<Category> categories, Set<Long> genreIds,
+                  Set<Long> platformIds, boolean wishToExperience) {}
+
+    /**
+     * The fields of a read model row that a user list is filtered and sorted by
+     */
+    record Entry(Long id, Long mediaItemId, String name, Category category, Integer year, long[] genreIds,
+                 long[] platformIds, Boolean experienced, Boolean wishToReexperience, Short rating) {}
+
+    /**
+     * Statistics of a user list
+     * @param itemCount Number of items in the list
+     * @param experiencedCount Number of experienced items
+     * @param wishToReexperienceCount Number of items wished to be re-experienced
+     * @param ratedCount Number of rated items
+     * @param ratingSum Sum of the ratings given
+     * @param ratingHistogram Number of items per rating, indexed by rating
+     * @param categoryCounts Number of items per category
+     */
+    record Stats(long itemCount, long experiencedCount, long wishToReexperienceCount, long ratedCount, long ratingSum,
+                 long[] ratingHistogram, Map<Category, Long> categoryCounts) {}
+
+    /**
+     * Ids of a cursor list page, in (name, media item id) order
+     * @param filter Filter
+     * @param cursorName Name of the media item the previous page ended with, or empty for the first page
+     * @param cursorId Id of the media item the previous page ended with
+     * @param limit Maximum number of ids
+     * @return User list item ids
+     */
+    List<Long> findIdsAfterName(Filter filter, String cursorName, Long cursorId, int limit);
+
+    /**
+     * Ids of a sorted list page. Ties are broken by id, and nulls come last on ASC and first on DESC
+     * @param filter Filter
+     * @param sortBy The column to sort by
+     * @param direction ASC or DESC
+     * @param offset Number of rows to skip
+     * @param limit Maximum number of ids
+     * @return User list item ids
+     */
+    List<Long> findIdsSorted(Filter filter, UserSearchMediaSortBy sortBy, SortDirection direction, long offset, int limit);
+
+    /**
+     * Count the list items that match the filter
+     * @param filter Filter
+     * @return Count
+     */
+    long count(Filter filter);
+
+    /**
+     * All entries of a user list
+     * @param userId The user whose list is read
+     * @return Entries, in no particular order
+     */
+    List<Entry> findEntriesByUserId(Long userId);
+
+    /**
+     * The entries of the given list items. Ids without a row are skipped
+     * @param listItemIds User list item ids
+     * @return Entries, in no particular order
+     */
+    List<Entry> findEntriesByIds(Collection<Long> listItemIds);
+
+    /**
+     * Write the read model rows of the given list items from user_media_list and media_items, replacing existing rows
+     * @param listItemIds User list item ids
+     */
+    void upsertListItems(Collection<Long> listItemIds);
+
+    /**
+     * Apply the user-owned fields of a list item that was updated
+     * @param listItemId The list item id
+     * @param experienced The experienced flag
+     * @param wishToReexperience The re-experience flag
+     * @param rating The rating, or null
+     */
+    void updateListItem(Long listItemId, Boolean experienced, Boolean wishToReexperience, Short rating);
+
+    /**
+     * Copy the current fields, genres and platforms of the given media items to every list entry of them
+     * @param mediaItemIds Media item ids
+     */
+    void refreshMediaItems(Collection<Long> mediaItemIds);
+
+    /**
+     * Remove the read model rows of list items that are about to be deleted.
+     * Must be called before they are deleted, as their rows would otherwise leave by the foreign key cascade
+     * without being taken out of the facet counts
+     * @param userId The user whose list items are deleted. Ids of other lists are skipped
+     * @param listItemIds User list item ids
+     */
+    void deleteListItems(Long userId, Collection<Long> listItemIds);
+
+    /**
+     * Remove the read model rows of every list entry of media items that are about to be deleted.
+     * Must be called before they are deleted, like {@link #deleteListItems}
+     * @param mediaItemIds Media item ids
+     */
+    void deleteMediaItems(Collection<Long> mediaItemIds);
+
+    /**
+     * Genres of the items in a user list, read from the facet counts
+     * @param userId The user whose list is read
+     * @param categories Optional filter for categories
+     * @return Genres, by name
+     */
+    List<GenreResponse> findGenreFacets(Long userId, Set<Category> categories);
+
+    /**
+     * Platforms of the items in a user list, read from the facet counts
+     * @param userId The user whose list is read
+     * @param categories Optional filter for categories
+     * @return Platforms, by name
+     */
+    List<PlatformResponse> findPlatformFacets(Long userId, Set<Category> categories);
+
+    /**
+     * Statistics of a user list, read by primary key
+     * @param userId The user whose list is read
+     * @return Stats. All zero if nothing was ever added to the list
+     */
+    Stats findStats(Long userId);
+}
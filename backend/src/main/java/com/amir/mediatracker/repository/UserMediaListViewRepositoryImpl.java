@@ -0,0 +1,455 @@
+package com.amir.mediatracker.repository;
+
+import com.amir.mediatracker.dto.Category;
+import com.amir.mediatracker.dto.SortDirection;
+import com.amir.mediatracker.dto.UserSearchMediaSortBy;
+import com.amir.mediatracker.dto.response.GenreResponse;
+import com.amir.mediatracker.dto.response.PlatformResponse;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Array;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+@Repository
+@RequiredArgsConstructor
+public class UserMediaListViewRepositoryImpl implements UserMediaListViewRepository {
+
+    /**
+     * Columns of a read model row, computed from user_media_list uml and media_items m
+     */
+    private static final String ROW_COLUMNS = """
+            id, user_id, media_item_id, name, category, year,
+            genre_ids, platform_ids, experienced, wish_to_reexperience, rating""";
+
+    private static final String MEDIA_ITEM_VALUES = """
+            m.name, m.category, m.year,
+            ARRAY(SELECT mig.genre_id FROM media_item_genres mig WHERE mig.media_item_id = m.id),
+            ARRAY(SELECT mip.platform_id FROM media_item_platforms mip WHERE mip.media_item_id = m.id)""";
+
+    /**
+     * A facet counted per user and category: the counts table, its id column,
+     * the read model array it is counted from and the catalog table of its ids
+     */
+    private record Facet(String countsTable, String idColumn, String arrayColumn, String catalogTable) {}
+
+    private static final Facet GENRES = new Facet("user_list_genre_counts", "genre_id", "genre_ids", "genres");
+    private static final Facet PLATFORMS = new Facet("user_list_platform_counts", "platform_id", "platform_ids", "platforms");
+
+    /**
+     * Columns of a read model row v that the facet counts and list statistics are counted from
+     */
+    private static final String COUNTED_COLUMNS =
+            "v.user_id, v.category, v.genre_ids, v.platform_ids, v.experienced, v.wish_to_reexperience, v.rating";
+
+    /**
+     * Additive columns of user_list_stats, and how the change of each is aggregated over the signed row changes c of a user
+     */
+    private static final Map<String, String> STATS_AGGREGATES = statsAggregates();
+
+    private static final int MAX_RATING = 10;
+
+    private final EntityManager em;
+
+    @Override
+    public List<Long> findIdsAfterName(Filter filter, String cursorName, Long cursorId, int limit) {
+        Map<String, Object> params = new HashMap<>();
+        StringBuilder sql = new StringBuilder("SELECT v.id FROM user_media_list_view v WHERE ")
+                .append(filters(filter, params));
+        if (cursorName != null && !cursorName.isEmpty()) {
+            sql.append(" AND (v.name, v.media_item_id) > (:cursorName, :cursorId)");
+            params.put("cursorName", cursorName);
+            params.put("cursorId", cursorId == null ? 0L : cursorId);
+        }
+        sql.append(" ORDER BY v.name ASC, v.media_item_id ASC LIMIT :limit");
+        params.put("limit", limit);
+        return ids(sql.toString(), params);
+    }
+
+    @Override
+    public List<Long> findIdsSorted(Filter filter, UserSearchMediaSortBy sortBy, SortDirection direction,
+                                    long offset, int limit) {
+        String order = SortDirection.DESC.equals(direction) ? "DESC" : "ASC";
+        Map<String, Object> params = new HashMap<>();
+        String sql = "SELECT v.id FROM user_media_list_view v WHERE %s ORDER BY %s %s, v.id %s LIMIT :limit OFFSET :offset"
+                .formatted(filters(filter, params), sortColumn(sortBy), order, order);
+        params.put("limit", limit);
+        params.put("offset", offset);
+        return ids(sql, params);
+    }
+
+    @Override
+    public long count(Filter filter) {
+        Map<String, Object> params = new HashMap<>();
+        Query query = em.createNativeQuery("SELECT COUNT(*) FROM user_media_list_view v WHERE " + filters(filter, params));
+        params.forEach(query::setParameter);
+        return ((Number) query.getSingleResult()).longValue();
+    }
+
+    @Override
+    public List<Entry> findEntriesByUserId(Long userId) {
+        return entries("v.user_id = :userId", Map.of("userId", userId));
+    }
+
+    @Override
+    public List<Entry> findEntriesByIds(Collection<Long> listItemIds) {
+        if (listItemIds.isEmpty()) {
+            return List.of();
+        }
+        return entries("v.id IN (:ids)", Map.of("ids", Set.copyOf(listItemIds)));
+    }
+
+    private List<Entry> entries(String condition, Map<String, Object> params) {
+        Query query = em.createNativeQuery("""
+                SELECT v.id, v.media_item_id, v.name, v.category, v.year, v.genre_ids, v.platform_ids,
+                       v.experienced, v.wish_to_reexperience, v.rating
+                FROM user_media_list_view v
+                WHERE\s""" + condition);
+        params.forEach(query::setParameter);
+        return ((List<?>) query.getResultList()).stream()
+                .map(Object[].class::cast)
+                .map(row -> new Entry(
+                        ((Number) row[0]).longValue(),
+                        ((Number) row[1]).longValue(),
+                        (String) row[2],
+                        Category.valueOf((String) row[3]),
+                        row[4] == null ? null : ((Number) row[4]).intValue(),
+                        longs(row[5]),
+                        longs(row[6]),
+                        (Boolean) row[7],
+                        (Boolean) row[8],
+                        row[9] == null ? null : ((Number) row[9]).shortValue()))
+                .toList();
+    }
+
+    /**
+     * A BIGINT[] column, as returned by the driver or by Hibernate
+     */
+    private static long[] longs(Object array) {
+        try {
+            Object elements = array instanceof Array sqlArray ? sqlArray.getArray() : array;
+            if (elements instanceof long[] longs) {
+                return longs;
+            }
+            return Arrays.stream((Object[]) elements)
+                    .mapToLong(element -> ((Number) element).longValue())
+                    .toArray();
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not read array column", e);
+        }
+    }
+
+    /**
+     * The column of the read model v a user list sort reads
+     */
+    static String sortColumn(UserSearchMediaSortBy sortBy) {
+        return switch (sortBy) {
+            case NAME -> "v.name";
+            case YEAR -> "v.year";
+            case EXPERIENCED -> "v.experienced";
+            case REEXPERIENCE -> "v.wish_to_reexperience";
+            case RATING -> "v.rating";
+        };
+    }
+
+    /**
+     * Conditions of a user list search on the read model v. Adds the parameters it uses.
+     * Genres and platforms are matched by array containment, served by the GIN indexes
+     */
+    static String filters(Filter filter, Map<String, Object> params) {
+        StringBuilder filters = new StringBuilder("v.user_id = :userId");
+        params.put("userId", filter.userId());
+        if (filter.searchQuery() != null && !filter.searchQuery().isEmpty()) {
+            filters.append(" AND v.name_normalized LIKE :name");
+            params.put("name", "%" + filter.searchQuery().toLowerCase(Locale.ROOT) + "%");
+        }
+        if (filter.categories() != null && !filter.categories().isEmpty()) {
+            filters.append(" AND v.category IN (:categories)");
+            params.put("categories", filter.categories().stream().map(Category::name).toList());
+        }
+        if (filter.genreIds() != null && !filter.genreIds().isEmpty()) {
+            filters.append(" AND v.genre_ids @> CAST(ARRAY[:genreIds] AS BIGINT[])");
+            params.put("genreIds", List.copyOf(filter.genreIds()));
+        }
+        if (filter.platformIds() != null && !filter.platformIds().isEmpty()) {
+            filters.append(" AND v.platform_ids @> CAST(ARRAY[:platformIds] AS BIGINT[])");
+            params.put("platformIds", List.copyOf(filter.platformIds()));
+        }
+        if (filter.wishToExperience()) {
+            filters.append(" AND (v.experienced = FALSE OR v.wish_to_reexperience = TRUE)");
+        }
+        return filters.toString();
+    }
+
+    private List<Long> ids(String sql, Map<String, Object> params) {
+        Query query = em.createNativeQuery(sql);
+        params.forEach(query::setParameter);
+        return ((List<?>) query.getResultList()).stream()
+                .map(id -> ((Number) id).longValue())
+                .toList();
+    }
+
+    /**
+     * Pending entity changes are flushed first, so the rows are computed from the current state of the transaction
+     */
+    @Override
+    @Transactional
+    public void upsertListItems(Collection<Long> listItemIds) {
+        if (listItemIds.isEmpty()) {
+            return;
+        }
+        em.flush();
+        writeCounted("""
+                SELECT %s FROM user_media_list_view v WHERE v.id IN (:ids)
+                """.formatted(COUNTED_COLUMNS), """
+                INSERT INTO user_media_list_view AS v (%s)
+                SELECT uml.id, uml.user_id, m.id, %s,
+                       uml.experienced, uml.wish_to_reexperience, uml.rating
+                FROM user_media_list uml
+                JOIN media_items m ON m.id = uml.media_item_id
+                WHERE uml.id IN (:ids)
+                ON CONFLICT (id) DO UPDATE SET
+                    name = EXCLUDED.name,
+                    category = EXCLUDED.category,
+                    year = EXCLUDED.year,
+                    genre_ids = EXCLUDED.genre_ids,
+                    platform_ids = EXCLUDED.platform_ids,
+                    experienced = EXCLUDED.experienced,
+                    wish_to_reexperience = EXCLUDED.wish_to_reexperience,
+                    rating = EXCLUDED.rating
+                RETURNING %s
+                """.formatted(ROW_COLUMNS, MEDIA_ITEM_VALUES, COUNTED_COLUMNS),
+                Map.of("ids", Set.copyOf(listItemIds)));
+    }
+
+    @Override
+    @Transactional
+    public void updateListItem(Long listItemId, Boolean experienced, Boolean wishToReexperience, Short rating) {
+        Map<String, Object> params = new HashMap<>();
+        params.put("id", listItemId);
+        params.put("experienced", experienced);
+        params.put("wishToReexperience", wishToReexperience);
+        params.put("rating", rating);
+        writeCounted("""
+                SELECT %s FROM user_media_list_view v WHERE v.id = :id
+                """.formatted(COUNTED_COLUMNS), """
+                UPDATE user_media_list_view v
+                SET experienced = :experienced, wish_to_reexperience = :wishToReexperience, rating = :rating
+                WHERE v.id = :id
+                RETURNING %s
+                """.formatted(COUNTED_COLUMNS), params);
+    }
+
+    /**
+     * Pending entity changes are flushed first, so the rows are computed from the current state of the transaction
+     */
+    @Override
+    @Transactional
+    public void refreshMediaItems(Collection<Long> mediaItemIds) {
+        if (mediaItemIds.isEmpty()) {
+            return;
+        }
+        em.flush();
+        writeCounted("""
+                SELECT %s FROM user_media_list_view v WHERE v.media_item_id IN (:ids)
+                """.formatted(COUNTED_COLUMNS), """
+                UPDATE user_media_list_view v
+                SET (name, category, year, genre_ids, platform_ids) = (SELECT %s)
+                FROM media_items m
+                WHERE m.id = v.media_item_id
+                AND m.id IN (:ids)
+                RETURNING %s
+                """.formatted(MEDIA_ITEM_VALUES, COUNTED_COLUMNS),
+                Map.of("ids", Set.copyOf(mediaItemIds)));
+    }
+
+    @Override
+    @Transactional
+    public void deleteListItems(Long userId, Collection<Long> listItemIds) {
+        if (listItemIds.isEmpty()) {
+            return;
+        }
+        deleteRows("v.user_id = :userId AND v.id IN (:ids)", Map.of("userId", userId, "ids", Set.copyOf(listItemIds)));
+    }
+
+    @Override
+    @Transactional
+    public void deleteMediaItems(Collection<Long> mediaItemIds) {
+        if (mediaItemIds.isEmpty()) {
+            return;
+        }
+        deleteRows("v.media_item_id IN (:ids)", Map.of("ids", Set.copyOf(mediaItemIds)));
+    }
+
+    private void deleteRows(String condition, Map<String, Object> params) {
+        writeCounted("""
+                DELETE FROM user_media_list_view v WHERE %s RETURNING %s
+                """.formatted(condition, COUNTED_COLUMNS), """
+                SELECT %s FROM user_media_list_view v WHERE FALSE
+                """.formatted(COUNTED_COLUMNS), params);
+    }
+
+    /**
+     * Write read model rows, and apply the change to the facet counts and list statistics of their users,
+     * all in one statement. The whole statement reads one snapshot, so a select of the rows returns them as they were
+     * before the write. The rows before are counted out and the rows after are counted in, and each counts table gets
+     * the net change with a single upsert. Counts that reach zero are kept, and skipped by the reads
+     * @param before The rows before the write, selected or deleted, returning {@link #COUNTED_COLUMNS}
+     * @param after The rows after the write, inserted or updated, returning {@link #COUNTED_COLUMNS}
+     * @param params The parameters of both
+     */
+    private void writeCounted(String before, String after, Map<String, Object> params) {
+        Query query = em.createNativeQuery("""
+                WITH before AS (
+                    %s
+                ), after AS (
+                    %s
+                ), changes AS (
+                    SELECT a.*, 1 AS sign FROM after a
+                    UNION ALL
+                    SELECT b.*, -1 AS sign FROM before b
+                ), genre_counts AS (
+                    %s
+                ), platform_counts AS (
+                    %s
+                )
+                %s
+                """.formatted(before, after, facetDelta(GENRES), facetDelta(PLATFORMS), statsDelta()));
+        params.forEach(query::setParameter);
+        query.executeUpdate();
+    }
+
+    /**
+     * Upsert of the net change of the facet counts over the row changes c. Ids no longer in the catalog are skipped,
+     * as their counts left with them
+     */
+    private static String facetDelta(Facet facet) {
+        return """
+                INSERT INTO %1$s AS t (user_id, category, %2$s, item_count)
+                SELECT c.user_id, c.category, f.facet_id, SUM(c.sign)
+                FROM changes c
+                CROSS JOIN LATERAL UNNEST(c.%3$s) AS f(facet_id)
+                JOIN %4$s catalog ON catalog.id = f.facet_id
+                GROUP BY c.user_id, c.category, f.facet_id
+                HAVING SUM(c.sign) <> 0
+                ON CONFLICT (user_id, category, %2$s) DO UPDATE SET item_count = t.item_count + EXCLUDED.item_count
+                """.formatted(facet.countsTable(), facet.idColumn(), facet.arrayColumn(), facet.catalogTable());
+    }
+
+    /**
+     * Upsert of the net change of the list statistics over the row changes c. The rating histogram is added
+     * element by element
+     */
+    private static String statsDelta() {
+        String columns = String.join(", ", STATS_AGGREGATES.keySet());
+        String values = String.join(", ", STATS_AGGREGATES.values());
+        String histogram = IntStream.rangeClosed(0, MAX_RATING)
+                .mapToObj(rating -> "COALESCE(SUM(c.sign) FILTER (WHERE c.rating = " + rating + "), 0)")
+                .collect(Collectors.joining(", "));
+        String updates = STATS_AGGREGATES.keySet().stream()
+                .map(column -> column + " = s." + column + " + EXCLUDED." + column)
+                .collect(Collectors.joining(", "));
+        return """
+                INSERT INTO user_list_stats AS s (user_id, %s, rating_histogram)
+                SELECT c.user_id, %s, CAST(ARRAY[%s] AS BIGINT[])
+                FROM changes c
+                GROUP BY c.user_id
+                ON CONFLICT (user_id) DO UPDATE SET %s,
+                    rating_histogram = ARRAY(
+                        SELECT h.total + h.delta
+                        FROM UNNEST(s.rating_histogram, EXCLUDED.rating_histogram) WITH ORDINALITY AS h(total, delta, i)
+                        ORDER BY h.i)
+                """.formatted(columns, values, histogram, updates);
+    }
+
+    @Override
+    public List<GenreResponse> findGenreFacets(Long userId, Set<Category> categories) {
+        return facets(GENRES, userId, categories).stream()
+                .map(row -> GenreResponse.builder().id(((Number) row[0]).longValue()).name((String) row[1]).build())
+                .toList();
+    }
+
+    @Override
+    public List<PlatformResponse> findPlatformFacets(Long userId, Set<Category> categories) {
+        return facets(PLATFORMS, userId, categories).stream()
+                .map(row -> PlatformResponse.builder().id(((Number) row[0]).longValue()).name((String) row[1]).build())
+                .toList();
+    }
+
+    /**
+     * Id and name of the facets of a user list, by name. Reads the counts by primary key prefix,
+     * skipping those that went down to zero
+     */
+    private List<Object[]> facets(Facet facet, Long userId, Set<Category> categories) {
+        boolean allCategories = categories == null || categories.isEmpty();
+        Query query = em.createNativeQuery("""
+                SELECT f.id, f.name
+                FROM %s f
+                WHERE f.id IN (SELECT c.%s FROM %s c WHERE c.user_id = :userId AND c.item_count > 0%s)
+                ORDER BY f.name ASC
+                """.formatted(facet.catalogTable(), facet.idColumn(), facet.countsTable(),
+                        allCategories ? "" : " AND c.category IN (:categories)"))
+                .setParameter("userId", userId);
+        if (!allCategories) {
+            query.setParameter("categories", categories.stream().map(Category::name).toList());
+        }
+        return ((List<?>) query.getResultList()).stream()
+                .map(Object[].class::cast)
+                .toList();
+    }
+
+    @Override
+    public Stats findStats(Long userId) {
+        List<?> rows = em.createNativeQuery("""
+                SELECT %s, rating_histogram
+                FROM user_list_stats
+                WHERE user_id = :userId
+                """.formatted(String.join(", ", STATS_AGGREGATES.keySet())))
+                .setParameter("userId", userId)
+                .getResultList();
+        if (rows.isEmpty()) {
+            return new Stats(0, 0, 0, 0, 0, new long[MAX_RATING + 1], Map.of());
+        }
+        Object[] row = (Object[]) rows.getFirst();
+        Map<Category, Long> categoryCounts = new EnumMap<>(Category.class);
+        for (Category category : Category.values()) {
+            categoryCounts.put(category, ((Number) row[5 + category.ordinal()]).longValue());
+        }
+        return new Stats(
+                ((Number) row[0]).longValue(),
+                ((Number) row[1]).longValue(),
+                ((Number) row[2]).longValue(),
+                ((Number) row[3]).longValue(),
+                ((Number) row[4]).longValue(),
+                longs(row[row.length - 1]),
+                categoryCounts);
+    }
+
+    private static Map<String, String> statsAggregates() {
+        Map<String, String> aggregates = new LinkedHashMap<>();
+        aggregates.put("item_count", "SUM(c.sign)");
+        aggregates.put("experienced_count", "COALESCE(SUM(c.sign) FILTER (WHERE c.experienced), 0)");
+        aggregates.put("wish_to_reexperience_count", "COALESCE(SUM(c.sign) FILTER (WHERE c.wish_to_reexperience), 0)");
+        aggregates.put("rated_count", "COALESCE(SUM(c.sign) FILTER (WHERE c.rating IS NOT NULL), 0)");
+        aggregates.put("rating_sum", "COALESCE(SUM(c.sign * c.rating), 0)");
+        for (Category category : Category.values()) {
+            aggregates.put(category.name().toLowerCase(Locale.ROOT) + "_count",
+                    "COALESCE(SUM(c.sign) FILTER (WHERE c.category = '" + category.name() + "'), 0)");
+        }
+        return aggregates;
+    }
+}
@@ -0,0 +1,52 @@
+package com.amir.mediatracker.search;
+
+import com.amir.mediatracker.event.AverageRatingChangedEvent;
+import com.amir.mediatracker.event.CatalogChangedEvent;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generation counters of the media catalog, used to tag cached search results.
+ * Cached entries hold the generation they were computed at, so bumping a counter
+ * makes all older entries unreachable without scanning the caches.
+ */
+@Component
+public class CatalogGeneration {
+
+    private final AtomicLong catalog = new AtomicLong();
+    private final AtomicLong ratings = new AtomicLong();
+
+    /**
+     * @return Generation of the catalog content: media items, genres and platforms
+     */
+    public long catalog() {
+        return catalog.get();
+    }
+
+    /**
+     * @return Generation of the average ratings. Changes much more often than the catalog
+     */
+    public long ratings() {
+        return ratings.get();
+    }
+
+    /**
+     * Bumped by admin changes and the import job, once their transaction was committed
+     * @param event CatalogChangedEvent
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        catalog.incrementAndGet();
+    }
+
+    /**
+     * Bumped whenever an average rating was recalculated
+     * @param event AverageRatingChangedEvent
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAverageRatingChanged(AverageRatingChangedEvent event) {
+        ratings.incrementAndGet();
+    }
+}
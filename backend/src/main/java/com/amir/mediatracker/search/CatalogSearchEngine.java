@@ -0,0 +1,105 @@
+package com.amir.mediatracker.search;
+
+import com.amir.mediatracker.config.SearchProperties;
+import com.amir.mediatracker.event.AverageRatingChangedEvent;
+import com.amir.mediatracker.event.CatalogChangedEvent;
+import com.amir.mediatracker.repository.CatalogSnapshotRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Optional in-process catalog search.
+ * Holds the current {@link CatalogSnapshot} and swaps it atomically whenever the catalog changes.
+ * Disabled by default (app.search.in-memory.enabled), in which case no snapshot is ever loaded
+ * and callers fall back to the database.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CatalogSearchEngine {
+
+    private final SearchProperties searchProperties;
+    private final CatalogSnapshotRepository catalogSnapshotRepository;
+
+    private final AtomicReference<CatalogSnapshot> snapshot = new AtomicReference<>();
+    private final AtomicLong requestedVersion = new AtomicLong();
+    private long builtVersion = -1; // guarded by this
+
+    /**
+     * @return The current snapshot, or empty if the engine is disabled or was not loaded yet
+     */
+    public Optional<CatalogSnapshot> currentSnapshot() {
+        if (!searchProperties.getInMemory().isEnabled()) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(snapshot.get());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (searchProperties.getInMemory().isEnabled()) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Rebuild the snapshot once the change that triggered it was committed.
+     * Runs asynchronously so admin requests and the import job are not blocked by the reload
+     * @param event CatalogChangedEvent
+     */
+    @Async
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        if (!searchProperties.getInMemory().isEnabled()) {
+            return;
+        }
+        log.debug("Catalog changed by {}, rebuilding in-memory snapshot", event.source());
+        requestedVersion.incrementAndGet();
+        rebuild();
+    }
+
+    /**
+     * Average ratings change on every rating event, so they are patched in place instead of rebuilding
+     * @param event AverageRatingChangedEvent
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAverageRatingChanged(AverageRatingChangedEvent event) {
+        CatalogSnapshot current = snapshot.get();
+        if (current != null) {
+            current.updateAverageRating(event.mediaItemId(), event.avgRating());
+        }
+    }
+
+    /**
+     * Load a fresh snapshot and swap it in.
+     * Consecutive change events are coalesced: if a rebuild that started after the latest change
+     * already finished, this call does nothing.
+     * On failure, the previous snapshot is kept.
+     */
+    public synchronized void rebuild() {
+        long target = requestedVersion.get();
+        if (snapshot.get() != null && builtVersion >= target) {
+            return;
+        }
+
+        long start = System.currentTimeMillis();
+        try {
+            CatalogSnapshot loaded = catalogSnapshotRepository.loadSnapshot();
+            snapshot.set(loaded);
+            builtVersion = target;
+            log.info("In-memory catalog snapshot loaded with {} items in {} ms",
+                    loaded.size(), System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            log.error("Failed to load in-memory catalog snapshot, keeping the previous one", e);
+        }
+    }
+}
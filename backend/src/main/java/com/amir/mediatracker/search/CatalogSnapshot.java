@@ -0,0 +1,415 @@
+package com.amir.mediatracker.search;
+
+import com.amir.mediatracker.dto.Category;
+import com.amir.mediatracker.dto.SearchMediaSortBy;
+import com.amir.mediatracker.dto.SortDirection;
+import com.amir.mediatracker.dto.response.CategoryCountResponse;
+import com.amir.mediatracker.dto.response.FacetCountResponse;
+import com.amir.mediatracker.dto.response.GenreResponse;
+import com.amir.mediatracker.dto.response.MediaItemResponse;
+import com.amir.mediatracker.dto.response.PlatformResponse;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Immutable, in-memory copy of the media catalog.
+ * Items are stored by position, ordered by (name, id) - the same order used by cursor search.
+ * Every genre, platform and category maps to a BitSet of positions (a posting list),
+ * so "must contain all these genres" filtering is a bitmap intersection instead of a GROUP BY.
+ * Only the average rating may change in place, since it is recalculated on every rating event.
+ * Names are ordered by code point, see {@link #NAME_ORDER}, as the database orders the name column (collation C),
+ * so a keyset cursor from either path continues on the other.
+ */
+public final class CatalogSnapshot {
+
+    /**
+     * A single catalog item, as loaded from the database
+     */
+    public record Entry(
+            Long id,
+            Category category,
+            String name,
+            Integer year,
+            BigDecimal avgRating,
+            LocalDateTime createdAt,
+            LocalDateTime updatedAt,
+            Set<Long> genreIds,
+            Set<Long> platformIds
+    ) {}
+
+    /**
+     * Names by code point. String.compareTo compares UTF-16 code units instead,
+     * which puts characters beyond U+FFFF before U+E000-U+FFFF
+     */
+    static final Comparator<String> NAME_ORDER = CatalogSnapshot::compareNames;
+
+    private static final BitSet EMPTY = new BitSet(0);
+
+    private final int size;
+    private final long[] ids;
+    private final String[] names;
+    private final String[] normalizedNames;
+    private final Category[] categories;
+    private final Integer[] years;
+    private final AtomicReferenceArray<BigDecimal> avgRatings;
+    private final LocalDateTime[] createdAt;
+    private final LocalDateTime[] updatedAt;
+    private final long[][] genreIds;
+    private final long[][] platformIds;
+
+    private final Map<Long, Integer> positionById;
+    private final Map<Long, BitSet> genrePostings;
+    private final Map<Long, BitSet> platformPostings;
+    private final Map<Category, BitSet> categoryPostings;
+    private final Map<Long, String> genreNames;
+    private final Map<Long, String> platformNames;
+
+    private CatalogSnapshot(List<Entry> sortedEntries, Map<Long, String> genreNames, Map<Long, String> platformNames) {
+        this.size = sortedEntries.size();
+        this.ids = new long[size];
+        this.names = new String[size];
+        this.normalizedNames = new String[size];
+        this.categories = new Category[size];
+        this.years = new Integer[size];
+        this.avgRatings = new AtomicReferenceArray<>(size);
+        this.createdAt = new LocalDateTime[size];
+        this.updatedAt = new LocalDateTime[size];
+        this.genreIds = new long[size][];
+        this.platformIds = new long[size][];
+        this.positionById = new HashMap<>(size * 2);
+        this.genrePostings = new HashMap<>();
+        this.platformPostings = new HashMap<>();
+        this.categoryPostings = new EnumMap<>(Category.class);
+        this.genreNames = Map.copyOf(genreNames);
+        this.platformNames = Map.copyOf(platformNames);
+
+        for (int i = 0; i < size; i++) {
+            Entry entry = sortedEntries.get(i);
+            ids[i] = entry.id();
+            names[i] = entry.name();
+            normalizedNames[i] = normalize(entry.name());
+            categories[i] = entry.category();
+            years[i] = entry.year();
+            avgRatings.set(i, entry.avgRating());
+            createdAt[i] = entry.createdAt();
+            updatedAt[i] = entry.updatedAt();
+            genreIds[i] = toSortedArray(entry.genreIds());
+            platformIds[i] = toSortedArray(entry.platformIds());
+
+            positionById.put(entry.id(), i);
+            categoryPostings.computeIfAbsent(entry.category(), _ -> new BitSet(size)).set(i);
+            for (long genreId : genreIds[i]) {
+                genrePostings.computeIfAbsent(genreId, _ -> new BitSet(size)).set(i);
+            }
+            for (long platformId : platformIds[i]) {
+                platformPostings.computeIfAbsent(platformId, _ -> new BitSet(size)).set(i);
+            }
+        }
+    }
+
+    /**
+     * Build a snapshot from catalog entries
+     * @param entries All media items. Order does not matter
+     * @param genreNames Genre id to genre name
+     * @param platformNames Platform id to platform name
+     * @return CatalogSnapshot
+     */
+    public static CatalogSnapshot of(Collection<Entry> entries,
+                                     Map<Long, String> genreNames,
+                                     Map<Long, String> platformNames) {
+        List<Entry> sorted = new ArrayList<>(entries);
+        sorted.sort(Comparator.comparing(Entry::name, NAME_ORDER).thenComparing(Entry::id));
+        return new CatalogSnapshot(sorted, genreNames, platformNames);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Find all positions matching the given filters, with the same semantics as the database search:
+     * name is a case-insensitive substring, categories are OR, genres and platforms are AND.
+     * @param query name search criteria. A null or empty query matches every name
+     * @param categories Optional filter for categories
+     * @param genreIds Optional filter for genres. Matching items must contain all of them
+     * @param platformIds Optional filter for platforms. Matching items must contain all of them
+     * @return BitSet of matching positions
+     */
+    public BitSet match(String query, Set<Category> categories, Set<Long> genreIds, Set<Long> platformIds) {
+        BitSet result = new BitSet(size);
+        if (categories == null || categories.isEmpty()) {
+            result.set(0, size);
+        } else {
+            for (Category category : categories) {
+                result.or(categoryPostings.getOrDefault(category, EMPTY));
+            }
+        }
+
+        if (genreIds != null) {
+            for (Long genreId : genreIds) {
+                result.and(genrePostings.getOrDefault(genreId, EMPTY));
+            }
+        }
+        if (platformIds != null) {
+            for (Long platformId : platformIds) {
+                result.and(platformPostings.getOrDefault(platformId, EMPTY));
+            }
+        }
+
+        if (query != null && !query.isEmpty()) {
+            String normalizedQuery = normalize(query);
+            for (int i = result.nextSetBit(0); i >= 0; i = result.nextSetBit(i + 1)) {
+                if (!normalizedNames[i].contains(normalizedQuery)) {
+                    result.clear(i);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Count the matches of a search per category, genre and platform, in a single pass over the matching positions.
+     * Category counts ignore the category filter, see {@link MediaFacets}
+     * @param query name search criteria. A null or empty query matches every name
+     * @param categories Optional filter for categories
+     * @param genreIds Optional filter for genres
+     * @param platformIds Optional filter for platforms
+     * @return MediaFacets
+     */
+    public MediaFacets facets(String query, Set<Category> categories, Set<Long> genreIds, Set<Long> platformIds) {
+        BitSet anyCategory = match(query, null, genreIds, platformIds);
+        boolean allCategories = categories == null || categories.isEmpty();
+
+        Map<Category, Long> categoryCounts = new EnumMap<>(Category.class);
+        Map<Long, Long> genreCounts = new HashMap<>();
+        Map<Long, Long> platformCounts = new HashMap<>();
+        long total = 0;
+        for (int i = anyCategory.nextSetBit(0); i >= 0; i = anyCategory.nextSetBit(i + 1)) {
+            categoryCounts.merge(this.categories[i], 1L, Long::sum);
+            if (!allCategories && !categories.contains(this.categories[i])) {
+                continue;
+            }
+            total++;
+            for (long genreId : this.genreIds[i]) {
+                genreCounts.merge(genreId, 1L, Long::sum);
+            }
+            for (long platformId : this.platformIds[i]) {
+                platformCounts.merge(platformId, 1L, Long::sum);
+            }
+        }
+
+        List<CategoryCountResponse> categoryFacets = categoryCounts.entrySet().stream()
+                .map(e -> CategoryCountResponse.builder()
+                        .category(e.getKey())
+                        .count(e.getValue())
+                        .build())
+                .toList();
+        return new MediaFacets(total, categoryFacets,
+                toFacetCounts(genreCounts, genreNames), toFacetCounts(platformCounts, platformNames));
+    }
+
+    /**
+     * Returns the next page of matching positions in (name, id) order, starting after the cursor
+     * @param matches Result of {@link #match}
+     * @param cursorName Name of the last item of the previous page, or null for the first page
+     * @param cursorId Id of the last item of the previous page
+     * @param limit Maximum number of positions to return
+     * @return Positions, in name order
+     */
+    public List<Integer> pageAfter(BitSet matches, String cursorName, Long cursorId, int limit) {
+        int start = cursorName == null ? 0 : firstPositionAfter(cursorName, cursorId);
+        List<Integer> page = new ArrayList<>(Math.min(limit, size));
+        for (int i = matches.nextSetBit(start); i >= 0 && page.size() < limit; i = matches.nextSetBit(i + 1)) {
+            page.add(i);
+        }
+        return page;
+    }
+
+    /**
+     * Sort all matching positions. Nulls are ordered last on ASC and first on DESC, like PostgreSQL.
+     * Ties are broken by id in the same direction.
+     * @param matches Result of {@link #match}
+     * @param sortBy YEAR, AVG_RATING or NAME
+     * @param direction ASC or DESC
+     * @return All matching positions, sorted
+     */
+    public List<Integer> sort(BitSet matches, SearchMediaSortBy sortBy, SortDirection direction) {
+        return sort(matches, sortBy, direction, null);
+    }
+
+    /**
+     * Sort the matching positions that follow a keyset cursor, in the same order as {@link #sort(BitSet, SearchMediaSortBy, SortDirection)}.
+     * Positions up to and including the cursor are dropped before sorting
+     * @param matches Result of {@link #match}
+     * @param sortBy YEAR, AVG_RATING or NAME
+     * @param direction ASC or DESC
+     * @param after The last item of the previous page, or null for the first page
+     * @return Matching positions after the cursor, sorted
+     */
+    public List<Integer> sort(BitSet matches, SearchMediaSortBy sortBy, SortDirection direction, KeysetCursor after) {
+        boolean descending = SortDirection.DESC.equals(direction);
+        Comparable<?> cursorValue = after == null ? null : switch (sortBy) {
+            case YEAR -> after.intValue();
+            case AVG_RATING -> after.decimalValue();
+            case NAME, RELEVANCE -> after.value();
+        };
+
+        // Sort values are read once, as average ratings may change while sorting.
+        // The cursor filter and the sort then see the same values, and the comparator stays consistent
+        int[] matching = matches.stream().toArray();
+        Comparable<?>[] values = new Comparable<?>[matching.length];
+        List<Integer> candidates = new ArrayList<>(matching.length);
+        for (int k = 0; k < matching.length; k++) {
+            values[k] = sortValueAt(matching[k], sortBy);
+            if (after == null || compareKeys(values[k], ids[matching[k]], cursorValue, after.id(), descending) > 0) {
+                candidates.add(k);
+            }
+        }
+        candidates.sort((a, b) -> compareKeys(values[a], ids[matching[a]], values[b], ids[matching[b]], descending));
+
+        List<Integer> positions = new ArrayList<>(candidates.size());
+        for (int k : candidates) {
+            positions.add(matching[k]);
+        }
+        return positions;
+    }
+
+    public long idAt(int position) {
+        return ids[position];
+    }
+
+    public String nameAt(int position) {
+        return names[position];
+    }
+
+    /**
+     * Update the average rating of a single item, if it is part of this snapshot
+     * @param mediaItemId The media item id
+     * @param avgRating The new average rating
+     */
+    public void updateAverageRating(Long mediaItemId, BigDecimal avgRating) {
+        Integer position = positionById.get(mediaItemId);
+        if (position != null) {
+            avgRatings.set(position, avgRating);
+        }
+    }
+
+    public MediaItemResponse toResponse(int position) {
+        Set<GenreResponse> genres = new HashSet<>();
+        for (long genreId : genreIds[position]) {
+            genres.add(GenreResponse.builder()
+                    .id(genreId)
+                    .name(genreNames.get(genreId))
+                    .build());
+        }
+        Set<PlatformResponse> platforms = new HashSet<>();
+        for (long platformId : platformIds[position]) {
+            platforms.add(PlatformResponse.builder()
+                    .id(platformId)
+                    .name(platformNames.get(platformId))
+                    .build());
+        }
+
+        return MediaItemResponse.builder()
+                .id(ids[position])
+                .category(categories[position])
+                .name(names[position])
+                .year(years[position])
+                .avgRating(avgRatings.get(position))
+                .inUserList(false)
+                .genres(genres)
+                .platforms(platforms)
+                .createdAt(createdAt[position])
+                .updatedAt(updatedAt[position])
+                .build();
+    }
+
+    /**
+     * The value of the sort column at a position
+     */
+    private Comparable<?> sortValueAt(int position, SearchMediaSortBy sortBy) {
+        return switch (sortBy) {
+            case YEAR -> years[position];
+            case AVG_RATING -> avgRatings.get(position);
+            case NAME, RELEVANCE -> names[position];
+        };
+    }
+
+    /**
+     * Compare two (value, id) sort keys, with null values last on ASC and first on DESC
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static int compareKeys(Comparable a, long aId, Comparable b, long bId, boolean descending) {
+        int cmp;
+        if (a == null || b == null) {
+            cmp = a == b ? 0 : (a == null ? 1 : -1);
+        } else if (a instanceof String aName && b instanceof String bName) {
+            cmp = compareNames(aName, bName);
+        } else {
+            cmp = a.compareTo(b);
+        }
+        if (cmp == 0) {
+            cmp = Long.compare(aId, bId);
+        }
+        return descending ? -cmp : cmp;
+    }
+
+    /**
+     * Binary search for the first position whose (name, id) is strictly greater than the cursor
+     */
+    private int firstPositionAfter(String cursorName, Long cursorId) {
+        long safeCursorId = cursorId == null ? Long.MAX_VALUE : cursorId;
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            int cmp = compareNames(names[mid], cursorName);
+            if (cmp < 0 || (cmp == 0 && ids[mid] <= safeCursorId)) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static int compareNames(String a, String b) {
+        int i = 0;
+        int j = 0;
+        while (i < a.length() && j < b.length()) {
+            int aCodePoint = a.codePointAt(i);
+            int bCodePoint = b.codePointAt(j);
+            if (aCodePoint != bCodePoint) {
+                return Integer.compare(aCodePoint, bCodePoint);
+            }
+            i += Character.charCount(aCodePoint);
+            j += Character.charCount(bCodePoint);
+        }
+        return Integer.compare(a.length() - i, b.length() - j);
+    }
+
+    private static List<FacetCountResponse> toFacetCounts(Map<Long, Long> counts, Map<Long, String> names) {
+        return counts.entrySet().stream()
+                .map(e -> FacetCountResponse.builder()
+                        .id(e.getKey())
+                        .name(names.get(e.getKey()))
+                        .count(e.getValue())
+                        .build())
+                .sorted(MediaFacets.FACET_ORDER)
+                .toList();
+    }
+
+    private static long[] toSortedArray(Set<Long> ids) {
+        if (ids == null) {
+            return new long[0];
+        }
+        return ids.stream().mapToLong(Long::longValue).sorted().toArray();
+    }
+
+    static String normalize(String value) {
+        return value.toLowerCase(Locale.ROOT);
+    }
+}
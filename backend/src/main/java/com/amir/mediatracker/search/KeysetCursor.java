@@ -0,0 +1,107 @@
+package com.amir.mediatracker.search;
+
+import com.amir.mediatracker.dto.SearchMediaSortBy;
+import com.amir.mediatracker.dto.SortDirection;
+import com.amir.mediatracker.dto.UserSearchMediaSortBy;
+import com.amir.mediatracker.dto.response.MediaItemResponse;
+import com.amir.mediatracker.dto.response.UserMediaListResponse;
+import com.amir.mediatracker.exception.BadRequestException;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque keyset cursor of sorted searches: the sort value and id of the last row of the previous page.
+ * The next page is then read with (sortValue, id) > (cursorValue, cursorId) instead of an OFFSET,
+ * so deep pages cost the same as the first one, and rows do not shift between pages when values change.
+ * The cursor also carries the sort it was created for, which must match the request,
+ * and the number of the page it leads to, so it can still be returned as a numbered page.
+ * @param sortBy Name of the SearchMediaSortBy or UserSearchMediaSortBy value
+ * @param direction Sort direction
+ * @param page Number of the page this cursor leads to
+ * @param id Id of the last row of the previous page
+ * @param value Sort value of the last row of the previous page, null if the row has no value
+ */
+public record KeysetCursor(String sortBy, SortDirection direction, int page, long id, String value) {
+
+    private static final String SEPARATOR = "\u001F";
+    private static final String NULL_VALUE = "-";
+    private static final String VALUE_PREFIX = "=";
+
+    /**
+     * Cursor that continues a catalog search after the given item
+     */
+    public static KeysetCursor after(SearchMediaSortBy sortBy, SortDirection direction, int page, MediaItemResponse last) {
+        Object value = switch (sortBy) {
+            case YEAR -> last.getYear();
+            case AVG_RATING -> last.getAvgRating() == null ? null : last.getAvgRating().toPlainString();
+            case NAME -> last.getName();
+            case RELEVANCE -> null; // ranked pages are read by page number only
+        };
+        return new KeysetCursor(sortBy.name(), direction, page, last.getId(),
+                value == null ? null : value.toString());
+    }
+
+    /**
+     * Cursor that continues a user list after the given list item
+     */
+    public static KeysetCursor after(UserSearchMediaSortBy sortBy, SortDirection direction, int page, UserMediaListResponse last) {
+        Object value = switch (sortBy) {
+            case NAME -> last.getMediaItem().getName();
+            case YEAR -> last.getMediaItem().getYear();
+            case EXPERIENCED -> last.getExperienced();
+            case REEXPERIENCE -> last.getWishToReexperience();
+            case RATING -> last.getRating();
+        };
+        return new KeysetCursor(sortBy.name(), direction, page, last.getId(),
+                value == null ? null : value.toString());
+    }
+
+    /**
+     * @return URL safe token, to be passed back as is
+     */
+    public String encode() {
+        String raw = String.join(SEPARATOR, sortBy, direction.name(), String.valueOf(page), String.valueOf(id),
+                value == null ? NULL_VALUE : VALUE_PREFIX + value);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decode a token created by {@link #encode()}
+     * @param token The token
+     * @param sortBy The sort of the current request
+     * @param direction The sort direction of the current request
+     * @return KeysetCursor
+     * @throws BadRequestException if the token is malformed or was created for a different sort
+     */
+    public static KeysetCursor decode(String token, Enum<?> sortBy, SortDirection direction) {
+        KeysetCursor cursor;
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split(SEPARATOR, 5);
+            String value = parts[4].startsWith(VALUE_PREFIX) ? parts[4].substring(VALUE_PREFIX.length()) : null;
+            cursor = new KeysetCursor(parts[0], SortDirection.valueOf(parts[1]),
+                    Integer.parseInt(parts[2]), Long.parseLong(parts[3]), value);
+        } catch (RuntimeException e) {
+            throw new BadRequestException("Invalid cursor");
+        }
+
+        if (!cursor.sortBy().equals(sortBy.name()) || cursor.direction() != direction || cursor.page() < 0) {
+            throw new BadRequestException("Cursor does not match the requested sort");
+        }
+        return cursor;
+    }
+
+    public Integer intValue() {
+        return value == null ? null : Integer.valueOf(value);
+    }
+
+    public BigDecimal decimalValue() {
+        return value == null ? null : new BigDecimal(value);
+    }
+
+    public Boolean booleanValue() {
+        return value == null ? null : Boolean.valueOf(value);
+    }
+}
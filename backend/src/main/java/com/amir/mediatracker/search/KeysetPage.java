@@ -0,0 +1,47 @@
+package com.amir.mediatracker.search;
+
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+
+/**
+ * A page read after a {@link KeysetCursor}. Whether another page follows is known from reading one row
+ * past the page, not derived from the page number and the total: rows added or removed before the cursor
+ * shift the total, but not the rows that follow it. The total is only informational
+ * @param <T> Type of the page content
+ */
+public class KeysetPage<T> extends PageImpl<T> {
+
+    private final long total;
+    private final boolean hasNext;
+
+    public KeysetPage(List<T> content, Pageable pageable, long total, boolean hasNext) {
+        super(content, pageable, total);
+        this.total = total;
+        this.hasNext = hasNext;
+    }
+
+    /**
+     * The number of matching rows as counted, which PageImpl would otherwise correct from the page number
+     */
+    @Override
+    public long getTotalElements() {
+        return total;
+    }
+
+    @Override
+    public int getTotalPages() {
+        return getSize() == 0 ? 1 : (int) Math.ceil((double) total / (double) getSize());
+    }
+
+    @Override
+    public boolean hasNext() {
+        return hasNext;
+    }
+
+    @Override
+    public boolean isLast() {
+        return !hasNext;
+    }
+}
@@ -0,0 +1,28 @@
+package com.amir.mediatracker.search;
+
+import com.amir.mediatracker.dto.response.CategoryCountResponse;
+import com.amir.mediatracker.dto.response.FacetCountResponse;
+
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Total and facet counts of a catalog search.
+ * Genre and platform counts are over the items matching all filters, since selecting another genre or platform narrows the result.
+ * Category counts ignore the category filter, since selecting another category widens the result.
+ * @param totalCount Number of items matching all filters
+ * @param categories Count per category, ignoring the category filter
+ * @param genres Count per genre, ordered by count descending and then by name
+ * @param platforms Count per platform, ordered by count descending and then by name
+ */
+public record MediaFacets(
+        long totalCount,
+        List<CategoryCountResponse> categories,
+        List<FacetCountResponse> genres,
+        List<FacetCountResponse> platforms
+) {
+
+    public static final Comparator<FacetCountResponse> FACET_ORDER =
+            Comparator.comparingLong(FacetCountResponse::getCount).reversed()
+                    .thenComparing(FacetCountResponse::getName, Comparator.nullsLast(Comparator.naturalOrder()));
+}
@@ -0,0 +1,376 @@
+package com.amir.mediatracker.search;
+
+import com.amir.mediatracker.config.SearchProperties;
+import com.amir.mediatracker.dto.Category;
+import com.amir.mediatracker.event.MediaItemsChangedEvent;
+import com.amir.mediatracker.repository.CatalogSnapshotRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.SortedDocValuesField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.StoredFields;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause.Occur;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.BoostQuery;
+import org.apache.lucene.search.FuzzyQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.PrefixQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopFieldDocs;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.MMapDirectory;
+import org.apache.lucene.util.BytesRef;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Optional embedded full-text index of the catalog, memory-mapped from local disk.
+ * Backs the RELEVANCE sort: every word of the query must match a word of the name (or the year)
+ * exactly, as a prefix or within a small edit distance, and results are ranked by score.
+ * Documents are updated incrementally on {@link MediaItemsChangedEvent}, and the index is rebuilt
+ * from the database when it is empty.
+ * Disabled by default (app.search.lucene.enabled), in which case nothing is opened
+ * and callers fall back to the database.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MediaSearchIndex {
+
+    private static final String FIELD_ID = "id";
+    private static final String FIELD_ID_SORT = "id_sort";
+    private static final String FIELD_NAME = "name";
+    private static final String FIELD_NAME_EXACT = "name_exact";
+    private static final String FIELD_NAME_SORT = "name_sort";
+    private static final String FIELD_CATEGORY = "category";
+    private static final String FIELD_YEAR = "year";
+    private static final String FIELD_GENRE = "genre";
+    private static final String FIELD_PLATFORM = "platform";
+
+    private static final float EXACT_NAME_BOOST = 8f;
+    private static final float TERM_BOOST = 4f;
+    private static final float PREFIX_BOOST = 2f;
+    private static final int FUZZY_PREFIX_LENGTH = 1;
+
+    // Best match first, equal scores (for example, an empty query) by name and id
+    private static final Sort RANKING = new Sort(
+            SortField.FIELD_SCORE,
+            new SortField(FIELD_NAME_SORT, SortField.Type.STRING),
+            new SortField(FIELD_ID_SORT, SortField.Type.LONG));
+
+    private final SearchProperties searchProperties;
+    private final CatalogSnapshotRepository catalogSnapshotRepository;
+
+    private final Analyzer analyzer = new StandardAnalyzer();
+    private Directory directory; // guarded by this
+    private IndexWriter writer; // guarded by this
+    private volatile SearcherManager searcherManager;
+
+    /**
+     * A page of ranked results
+     * @param ids Media item ids, best match first
+     * @param totalHits Number of matching items in the whole index
+     */
+    public record Hits(List<Long> ids, long totalHits) {}
+
+    /**
+     * @return True if the index is enabled and open
+     */
+    public boolean isAvailable() {
+        return searchProperties.getLucene().isEnabled() && searcherManager != null;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (searchProperties.getLucene().isEnabled()) {
+            open();
+        }
+    }
+
+    /**
+     * Open the index at app.search.lucene.index-path, creating it if needed.
+     * The index is rebuilt from the database if it has no documents or app.search.lucene.rebuild-on-startup is set.
+     * On failure, the index stays closed and the RELEVANCE sort falls back to NAME
+     */
+    public synchronized void open() {
+        if (writer != null) {
+            return;
+        }
+
+        Path path = Path.of(searchProperties.getLucene().getIndexPath());
+        long start = System.currentTimeMillis();
+        try {
+            Files.createDirectories(path);
+            directory = new MMapDirectory(path);
+            writer = new IndexWriter(directory, new IndexWriterConfig(analyzer)
+                    .setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND));
+
+            if (searchProperties.getLucene().isRebuildOnStartup() || writer.getDocStats().numDocs == 0) {
+                rebuild();
+            }
+            searcherManager = new SearcherManager(writer, null);
+            log.info("Media search index opened at {} with {} items in {} ms",
+                    path, writer.getDocStats().numDocs, System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            log.error("Failed to open media search index at {}, RELEVANCE sort falls back to NAME", path, e);
+            close();
+        }
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        try {
+            if (searcherManager != null) {
+                searcherManager.close();
+            }
+            if (writer != null) {
+                writer.close();
+            }
+            if (directory != null) {
+                directory.close();
+            }
+        } catch (IOException e) {
+            log.warn("Failed to close media search index", e);
+        } finally {
+            searcherManager = null;
+            writer = null;
+            directory = null;
+        }
+    }
+
+    /**
+     * Apply created, updated and deleted items once the change was committed.
+     * Runs asynchronously so admin requests and the import job are not blocked by indexing
+     * @param event MediaItemsChangedEvent
+     */
+    @Async
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMediaItemsChanged(MediaItemsChangedEvent event) {
+        if (!isAvailable()) {
+            return;
+        }
+        try {
+            update(catalogSnapshotRepository.loadEntries(event.savedIds()), event.deletedIds());
+        } catch (Exception e) {
+            log.error("Failed to load changed media items into the search index", e);
+        }
+    }
+
+    /**
+     * Add or replace the documents of the saved items and remove the deleted ones
+     * @param saved Entries of created or updated items
+     * @param deletedIds Ids of deleted items
+     */
+    public synchronized void update(Collection<CatalogSnapshot.Entry> saved, Collection<Long> deletedIds) {
+        if (writer == null) {
+            return;
+        }
+        try {
+            for (CatalogSnapshot.Entry entry : saved) {
+                writer.updateDocument(new Term(FIELD_ID, entry.id().toString()), toDocument(entry));
+            }
+            for (Long id : deletedIds) {
+                writer.deleteDocuments(new Term(FIELD_ID, id.toString()));
+            }
+            writer.commit();
+            searcherManager.maybeRefresh();
+            log.debug("Media search index updated with {} saved and {} deleted items", saved.size(), deletedIds.size());
+        } catch (IOException e) {
+            log.error("Failed to update media search index", e);
+        }
+    }
+
+    /**
+     * Rank the catalog items matching the given query and filters
+     * @param query Free text. Blank matches all items, ordered by name
+     * @param categories Optional filter for categories. Matching items must be in one of them
+     * @param genreIds Optional filter for genres. Matching items must contain all of them
+     * @param platformIds Optional filter for platforms. Matching items must contain all of them
+     * @param offset Number of ranked results to skip
+     * @param limit Maximum number of ids to return
+     * @return Hits
+     */
+    public Hits search(String query, Set<Category> categories, Set<Long> genreIds, Set<Long> platformIds,
+                       int offset, int limit) {
+        SearcherManager manager = searcherManager;
+        if (manager == null) {
+            throw new IllegalStateException("Media search index is not open");
+        }
+
+        Query luceneQuery = buildQuery(query, categories, genreIds, platformIds);
+        try {
+            IndexSearcher searcher = manager.acquire();
+            try {
+                int totalHits = searcher.count(luceneQuery);
+                if (offset >= totalHits) {
+                    return new Hits(List.of(), totalHits);
+                }
+
+                TopFieldDocs top = searcher.search(luceneQuery, Math.min(offset + limit, totalHits), RANKING, false);
+                StoredFields storedFields = searcher.storedFields();
+                List<Long> ids = new ArrayList<>(limit);
+                for (int i = offset; i < top.scoreDocs.length; i++) {
+                    ScoreDoc scoreDoc = top.scoreDocs[i];
+                    ids.add(Long.parseLong(storedFields.document(scoreDoc.doc).get(FIELD_ID)));
+                }
+                return new Hits(ids, totalHits);
+            } finally {
+                manager.release(searcher);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to search media index", e);
+        }
+    }
+
+    /**
+     * Replace all documents with the current catalog. Called with the lock held, before the index is searchable
+     */
+    private void rebuild() throws IOException {
+        List<CatalogSnapshot.Entry> entries = catalogSnapshotRepository.loadEntries(null);
+        writer.deleteAll();
+        for (CatalogSnapshot.Entry entry : entries) {
+            writer.addDocument(toDocument(entry));
+        }
+        writer.commit();
+        log.info("Media search index rebuilt with {} items", entries.size());
+    }
+
+    private Document toDocument(CatalogSnapshot.Entry entry) {
+        String normalizedName = normalize(entry.name());
+
+        Document document = new Document();
+        document.add(new StringField(FIELD_ID, entry.id().toString(), Field.Store.YES));
+        document.add(new NumericDocValuesField(FIELD_ID_SORT, entry.id()));
+        document.add(new TextField(FIELD_NAME, entry.name(), Field.Store.NO));
+        document.add(new StringField(FIELD_NAME_EXACT, normalizedName, Field.Store.NO));
+        document.add(new SortedDocValuesField(FIELD_NAME_SORT, new BytesRef(normalizedName)));
+        document.add(new StringField(FIELD_CATEGORY, entry.category().name(), Field.Store.NO));
+        if (entry.year() != null) {
+            document.add(new StringField(FIELD_YEAR, entry.year().toString(), Field.Store.NO));
+        }
+        for (Long genreId : entry.genreIds()) {
+            document.add(new StringField(FIELD_GENRE, genreId.toString(), Field.Store.NO));
+        }
+        for (Long platformId : entry.platformIds()) {
+            document.add(new StringField(FIELD_PLATFORM, platformId.toString(), Field.Store.NO));
+        }
+        return document;
+    }
+
+    private Query buildQuery(String query, Set<Category> categories, Set<Long> genreIds, Set<Long> platformIds) {
+        BooleanQuery.Builder builder = new BooleanQuery.Builder();
+
+        List<String> words = analyze(query);
+        if (words.isEmpty()) {
+            builder.add(new MatchAllDocsQuery(), Occur.MUST);
+        } else {
+            for (String word : words) {
+                builder.add(wordQuery(word), Occur.MUST);
+            }
+            builder.add(new BoostQuery(new TermQuery(new Term(FIELD_NAME_EXACT, normalize(query))), EXACT_NAME_BOOST),
+                    Occur.SHOULD);
+        }
+
+        if (categories != null && !categories.isEmpty()) {
+            BooleanQuery.Builder anyCategory = new BooleanQuery.Builder();
+            for (Category category : categories) {
+                anyCategory.add(new TermQuery(new Term(FIELD_CATEGORY, category.name())), Occur.SHOULD);
+            }
+            builder.add(anyCategory.build(), Occur.FILTER);
+        }
+        if (genreIds != null) {
+            for (Long genreId : genreIds) {
+                builder.add(new TermQuery(new Term(FIELD_GENRE, genreId.toString())), Occur.FILTER);
+            }
+        }
+        if (platformIds != null) {
+            for (Long platformId : platformIds) {
+                builder.add(new TermQuery(new Term(FIELD_PLATFORM, platformId.toString())), Occur.FILTER);
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * A single query word matches a name word exactly, as a prefix or within the allowed edit distance,
+     * scored in that order. A four digit word also matches the year
+     */
+    private Query wordQuery(String word) {
+        Term nameTerm = new Term(FIELD_NAME, word);
+
+        BooleanQuery.Builder anyForm = new BooleanQuery.Builder();
+        anyForm.add(new BoostQuery(new TermQuery(nameTerm), TERM_BOOST), Occur.SHOULD);
+        anyForm.add(new BoostQuery(new PrefixQuery(nameTerm), PREFIX_BOOST), Occur.SHOULD);
+        int maxEdits = maxEdits(word);
+        if (maxEdits > 0) {
+            anyForm.add(new FuzzyQuery(nameTerm, maxEdits, FUZZY_PREFIX_LENGTH), Occur.SHOULD);
+        }
+        if (word.length() == 4 && word.chars().allMatch(Character::isDigit)) {
+            anyForm.add(new BoostQuery(new TermQuery(new Term(FIELD_YEAR, word)), TERM_BOOST), Occur.SHOULD);
+        }
+        return anyForm.build();
+    }
+
+    /**
+     * Allowed typos per word: none for short words, where almost anything would match, up to two for long words
+     */
+    private static int maxEdits(String word) {
+        if (word.length() < 3) {
+            return 0;
+        }
+        return word.length() < 6 ? 1 : 2;
+    }
+
+    private List<String> analyze(String text) {
+        List<String> words = new ArrayList<>();
+        if (text == null || text.isBlank()) {
+            return words;
+        }
+        try (TokenStream stream = analyzer.tokenStream(FIELD_NAME, text)) {
+            CharTermAttribute term = stream.addAttribute(CharTermAttribute.class);
+            stream.reset();
+            while (stream.incrementToken()) {
+                words.add(term.toString());
+            }
+            stream.end();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return words;
+    }
+
+    private static String normalize(String text) {
+        return text.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,98 @@
+package com.amir.mediatracker.search;
+
+import com.amir.mediatracker.dto.Category;
+import com.amir.mediatracker.event.CatalogChangedEvent;
+import com.amir.mediatracker.repository.MediaItemRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Serves media name suggestions from an in-memory {@link NameSuggestionIndex},
+ * so type-ahead never queries the database.
+ * The index is loaded on startup and swapped atomically whenever the catalog changes.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class NameSuggestionEngine {
+
+    private final MediaItemRepository mediaItemRepository;
+
+    private final AtomicReference<NameSuggestionIndex> index = new AtomicReference<>();
+    private final AtomicLong requestedVersion = new AtomicLong();
+    private long builtVersion = -1; // guarded by this
+
+    /**
+     * @param prefix Case-insensitive prefix of the name or of any word in it
+     * @param categories Optional filter for categories
+     * @param limit Maximum number of suggestions
+     * @return Suggestions, or an empty list if the index was not loaded yet
+     */
+    public List<NameSuggestionIndex.Entry> suggest(String prefix, Set<Category> categories, int limit) {
+        NameSuggestionIndex current = index.get();
+        if (current == null) {
+            return List.of();
+        }
+        return current.suggest(prefix, categories, limit);
+    }
+
+    /**
+     * @param name The full name, case-insensitive
+     * @param category The category
+     * @return The media item with this name and category, or null if there is none
+     * or the index was not loaded yet. Items added since the last rebuild are not found
+     */
+    public NameSuggestionIndex.Entry find(String name, Category category) {
+        NameSuggestionIndex current = index.get();
+        return current == null ? null : current.find(name, category);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    /**
+     * Rebuild the index once the change that triggered it was committed
+     * @param event CatalogChangedEvent
+     */
+    @Async
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        log.debug("Catalog changed by {}, rebuilding name suggestions", event.source());
+        requestedVersion.incrementAndGet();
+        rebuild();
+    }
+
+    /**
+     * Load all names and swap in a new index.
+     * Consecutive change events are coalesced, and on failure the previous index is kept.
+     */
+    public synchronized void rebuild() {
+        long target = requestedVersion.get();
+        if (index.get() != null && builtVersion >= target) {
+            return;
+        }
+
+        long start = System.currentTimeMillis();
+        try {
+            NameSuggestionIndex loaded = NameSuggestionIndex.of(mediaItemRepository.findAllNameSuggestions());
+            index.set(loaded);
+            builtVersion = target;
+            log.info("Name suggestion index loaded with {} items in {} ms",
+                    loaded.size(), System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            log.error("Failed to load name suggestion index, keeping the previous one", e);
+        }
+    }
+}
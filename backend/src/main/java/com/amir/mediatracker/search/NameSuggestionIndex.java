@@ -0,0 +1,176 @@
+package com.amir.mediatracker.search;
+
+import com.amir.mediatracker.dto.Category;
+
+import java.util.*;
+
+/**
+ * Immutable prefix index over media item names, for type-ahead suggestions.
+ * Names are kept lower-cased in a sorted array, so a prefix is found with a binary search
+ * followed by a short scan. A second sorted array holds every other word start of every name
+ * (as name position and offset, without copying the strings), so "matr" also suggests "The Matrix".
+ */
+public final class NameSuggestionIndex {
+
+    /**
+     * A single media item, as loaded from the database
+     */
+    public record Entry(Long id, String name, Category category) {}
+
+    private final Entry[] items;
+    private final String[] normalizedNames;
+
+    // Word starts after the first one, sorted by the name suffix that starts there
+    private final int[] wordItems;
+    private final int[] wordOffsets;
+
+    private NameSuggestionIndex(List<Entry> entries) {
+        int size = entries.size();
+        this.normalizedNames = new String[size];
+        List<Entry> sorted = new ArrayList<>(entries);
+        sorted.sort(Comparator.comparing((Entry e) -> CatalogSnapshot.normalize(e.name())).thenComparing(Entry::id));
+        this.items = sorted.toArray(new Entry[0]);
+        for (int i = 0; i < size; i++) {
+            normalizedNames[i] = CatalogSnapshot.normalize(items[i].name());
+        }
+
+        List<int[]> words = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            String name = normalizedNames[i];
+            for (int offset = 1; offset < name.length(); offset++) {
+                if (!Character.isLetterOrDigit(name.charAt(offset - 1)) && Character.isLetterOrDigit(name.charAt(offset))) {
+                    words.add(new int[]{i, offset});
+                }
+            }
+        }
+        words.sort((a, b) -> {
+            int cmp = compareSuffix(normalizedNames[a[0]], a[1], normalizedNames[b[0]], b[1]);
+            return cmp != 0 ? cmp : Integer.compare(a[0], b[0]);
+        });
+        this.wordItems = new int[words.size()];
+        this.wordOffsets = new int[words.size()];
+        for (int i = 0; i < words.size(); i++) {
+            wordItems[i] = words.get(i)[0];
+            wordOffsets[i] = words.get(i)[1];
+        }
+    }
+
+    /**
+     * Build an index from media items
+     * @param entries All media items. Order does not matter
+     * @return NameSuggestionIndex
+     */
+    public static NameSuggestionIndex of(Collection<Entry> entries) {
+        return new NameSuggestionIndex(new ArrayList<>(entries));
+    }
+
+    public int size() {
+        return items.length;
+    }
+
+    /**
+     * Find media items with a name that starts with the prefix, followed by items with
+     * any other word that starts with it. Each group is ordered by the matched text
+     * @param prefix Case-insensitive prefix. An empty prefix returns nothing
+     * @param categories Optional filter for categories
+     * @param limit Maximum number of suggestions
+     * @return Matching entries, without duplicates
+     */
+    public List<Entry> suggest(String prefix, Set<Category> categories, int limit) {
+        if (prefix == null || prefix.isBlank() || limit <= 0) {
+            return List.of();
+        }
+        String normalizedPrefix = CatalogSnapshot.normalize(prefix.stripLeading());
+        boolean allCategories = categories == null || categories.isEmpty();
+
+        List<Entry> result = new ArrayList<>(limit);
+        Set<Integer> added = new HashSet<>();
+
+        for (int i = lowerBound(normalizedPrefix); i < items.length && result.size() < limit
+                && normalizedNames[i].startsWith(normalizedPrefix); i++) {
+            if (allCategories || categories.contains(items[i].category())) {
+                result.add(items[i]);
+                added.add(i);
+            }
+        }
+
+        for (int w = wordLowerBound(normalizedPrefix); w < wordItems.length && result.size() < limit
+                && normalizedNames[wordItems[w]].startsWith(normalizedPrefix, wordOffsets[w]); w++) {
+            int item = wordItems[w];
+            if ((allCategories || categories.contains(items[item].category())) && added.add(item)) {
+                result.add(items[item]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Find the media item with exactly this name, ignoring case, in the given category
+     * @param name The full name
+     * @param category The category
+     * @return The entry, or null if there is none
+     */
+    public Entry find(String name, Category category) {
+        if (name == null || category == null) {
+            return null;
+        }
+        String normalizedName = CatalogSnapshot.normalize(name);
+        for (int i = lowerBound(normalizedName); i < items.length && normalizedNames[i].equals(normalizedName); i++) {
+            if (items[i].category() == category) {
+                return items[i];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * First name position whose name is not smaller than the prefix
+     */
+    private int lowerBound(String prefix) {
+        int low = 0;
+        int high = normalizedNames.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (normalizedNames[mid].compareTo(prefix) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * First word position whose suffix is not smaller than the prefix
+     */
+    private int wordLowerBound(String prefix) {
+        int low = 0;
+        int high = wordItems.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (compareSuffix(normalizedNames[wordItems[mid]], wordOffsets[mid], prefix, 0) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Compare a.substring(aOffset) to b.substring(bOffset), without creating the substrings
+     */
+    private static int compareSuffix(String a, int aOffset, String b, int bOffset) {
+        int aLength = a.length() - aOffset;
+        int bLength = b.length() - bOffset;
+        int length = Math.min(aLength, bLength);
+        for (int i = 0; i < length; i++) {
+            char aChar = a.charAt(aOffset + i);
+            char bChar = b.charAt(bOffset + i);
+            if (aChar != bChar) {
+                return aChar - bChar;
+            }
+        }
+        return aLength - bLength;
+    }
+}
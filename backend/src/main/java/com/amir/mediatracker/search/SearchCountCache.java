@@ -0,0 +1,122 @@
+package com.amir.mediatracker.search;
+
+import com.amir.mediatracker.config.SearchProperties;
+import com.amir.mediatracker.dto.Category;
+import com.amir.mediatracker.event.UserListChangedEvent;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Caches the totalCount of cursor searches, so only the first page of a search pays for the count.
+ * Keys are the normalized filters together with the catalog generation and, for user lists, the list version.
+ * A change bumps the relevant version, which makes all older entries unreachable until they are evicted.
+ * List versions are kept for the recently searched lists only. A list whose version was evicted gets a new one,
+ * so its older entries stay unreachable.
+ */
+@Component
+public class SearchCountCache {
+
+    /**
+     * Normalized search filters. A null userId means a catalog search
+     */
+    record CountKey(
+            Long userId,
+            String query,
+            Set<Category> categories,
+            Set<Long> genreIds,
+            Set<Long> platformIds,
+            boolean wishToExperience,
+            long catalogGeneration,
+            long listVersion
+    ) {}
+
+    private final SearchProperties searchProperties;
+    private final CatalogGeneration catalogGeneration;
+    private final Cache<CountKey, Long> counts;
+
+    private final AtomicLong listChangeSequence = new AtomicLong();
+    private final Cache<Long, Long> userListVersions;
+
+    public SearchCountCache(SearchProperties searchProperties, CatalogGeneration catalogGeneration) {
+        this.searchProperties = searchProperties;
+        this.catalogGeneration = catalogGeneration;
+        SearchProperties.CountCache config = searchProperties.getCountCache();
+        this.counts = Caffeine.newBuilder()
+                .maximumSize(config.getMaxSize())
+                .expireAfterWrite(config.getTtl())
+                .build();
+        this.userListVersions = Caffeine.newBuilder()
+                .maximumSize(config.getMaxSize())
+                .expireAfterAccess(config.getTtl())
+                .build();
+    }
+
+    /**
+     * Count of a catalog search, computed by the given counter only if not cached for the current catalog
+     * @param query name search criteria
+     * @param categories Optional filter for categories
+     * @param genreIds Optional filter for genres
+     * @param platformIds Optional filter for platforms
+     * @param counter Runs the count query
+     * @return Total number of matching media items
+     */
+    public long catalogCount(String query, Set<Category> categories, Set<Long> genreIds,
+                             Set<Long> platformIds, LongSupplier counter) {
+        return count(null, query, categories, genreIds, platformIds, false, counter);
+    }
+
+    /**
+     * Count of a user list search, computed by the given counter only if not cached for the current list
+     * @param userId The user whose list is searched
+     * @param query name search criteria
+     * @param categories Optional filter for categories
+     * @param genreIds Optional filter for genres
+     * @param platformIds Optional filter for platforms
+     * @param wishToExperience Whether only items the user wishes to experience are counted
+     * @param counter Runs the count query
+     * @return Total number of matching list items
+     */
+    public long userListCount(Long userId, String query, Set<Category> categories, Set<Long> genreIds,
+                              Set<Long> platformIds, boolean wishToExperience, LongSupplier counter) {
+        return count(userId, query, categories, genreIds, platformIds, wishToExperience, counter);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserListChanged(UserListChangedEvent event) {
+        userListVersions.put(event.userId(), listChangeSequence.incrementAndGet());
+    }
+
+    private long count(Long userId, String query, Set<Category> categories, Set<Long> genreIds,
+                       Set<Long> platformIds, boolean wishToExperience, LongSupplier counter) {
+        if (!searchProperties.getCountCache().isEnabled()) {
+            return counter.getAsLong();
+        }
+
+        CountKey key = new CountKey(
+                userId,
+                query == null ? "" : query.toLowerCase(Locale.ROOT),
+                categories == null ? Set.of() : Set.copyOf(categories),
+                genreIds == null ? Set.of() : Set.copyOf(genreIds),
+                platformIds == null ? Set.of() : Set.copyOf(platformIds),
+                wishToExperience,
+                catalogGeneration.catalog(), // catalog changes affect user lists too, which filter by media item fields
+                userId == null ? 0L : userListVersions.get(userId, _ -> listChangeSequence.incrementAndGet())
+        );
+
+        // Not using Cache.get(key, loader), to avoid holding a cache lock while the count query runs
+        Long cached = counts.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+        long count = counter.getAsLong();
+        counts.put(key, count);
+        return count;
+    }
+}
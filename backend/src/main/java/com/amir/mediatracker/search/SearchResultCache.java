@@ -0,0 +1,168 @@
+package com.amir.mediatracker.search;
+
+import com.amir.mediatracker.config.SearchProperties;
+import com.amir.mediatracker.dto.Category;
+import com.amir.mediatracker.dto.SearchMediaSortBy;
+import com.amir.mediatracker.dto.SortDirection;
+import com.amir.mediatracker.dto.response.MediaItemResponse;
+import com.amir.mediatracker.dto.response.MediaSearchResponse;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Bounded cache of catalog search pages, keyed by the full normalized input.
+ * Entries are tagged with the {@link CatalogGeneration}, so any catalog change makes them unreachable,
+ * and so does any rating change, as every cached item carries its average rating.
+ * Cached pages are shared between users, so they never hold inUserList marks,
+ * and callers always get a copy they are free to mark.
+ * Hit, miss and eviction metrics are published as cache.* meters with cache=mediaSearchResults.
+ */
+@Component
+public class SearchResultCache {
+
+    public static final String CACHE_NAME = "mediaSearchResults";
+
+    /**
+     * Normalized search input. Cursor searches leave the page, sort and direction empty,
+     * and sorted searches keep their opaque keyset cursor as the cursor name
+     */
+    record ResultKey(
+            String query,
+            Set<Category> categories,
+            Set<Long> genreIds,
+            Set<Long> platformIds,
+            String cursorName,
+            Long cursorId,
+            int page,
+            int size,
+            SearchMediaSortBy sortBy,
+            SortDirection sortDirection,
+            long catalogGeneration,
+            long ratingsGeneration
+    ) {}
+
+    private final SearchProperties searchProperties;
+    private final CatalogGeneration catalogGeneration;
+    private final Cache<ResultKey, Object> results;
+
+    public SearchResultCache(SearchProperties searchProperties,
+                             CatalogGeneration catalogGeneration,
+                             MeterRegistry meterRegistry) {
+        this.searchProperties = searchProperties;
+        this.catalogGeneration = catalogGeneration;
+        SearchProperties.ResultCache config = searchProperties.getResultCache();
+        this.results = Caffeine.newBuilder()
+                .maximumSize(config.getMaxSize())
+                .expireAfterWrite(config.getTtl())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, results, CACHE_NAME);
+    }
+
+    /**
+     * A page of a cursor search, loaded only if not cached for the current catalog
+     * @param loader Runs the search, without inUserList marks
+     * @return A copy of the cached page
+     */
+    public MediaSearchResponse cursorPage(String query, Set<Category> categories, Set<Long> genreIds,
+                                          Set<Long> platformIds, String cursorName, Long cursorId, int limit,
+                                          Supplier<MediaSearchResponse> loader) {
+        if (!searchProperties.getResultCache().isEnabled()) {
+            return loader.get();
+        }
+        ResultKey key = key(query, categories, genreIds, platformIds, cursorName, cursorId,
+                0, limit, null, null);
+        MediaSearchResponse cached = load(key, loader);
+        return MediaSearchResponse.builder()
+                .items(copy(cached.getItems()))
+                .nextCursor(cached.getNextCursor())
+                .hasMore(cached.isHasMore())
+                .totalCount(cached.getTotalCount())
+                .totalCountEstimated(cached.isTotalCountEstimated())
+                .build();
+    }
+
+    /**
+     * A page of a sorted search, loaded only if not cached for the current catalog
+     * @param after Keyset cursor of the previous page, or null if the page was requested by number
+     * @param loader Runs the search, without inUserList marks
+     * @return A copy of the cached page
+     */
+    public Page<MediaItemResponse> sortedPage(String query, Set<Category> categories, Set<Long> genreIds,
+                                              Set<Long> platformIds, int page, int size,
+                                              SearchMediaSortBy sortBy, SortDirection sortDirection, String after,
+                                              Supplier<Page<MediaItemResponse>> loader) {
+        if (!searchProperties.getResultCache().isEnabled()) {
+            return loader.get();
+        }
+        ResultKey key = key(query, categories, genreIds, platformIds, after, null,
+                page, size, sortBy, sortDirection);
+        Page<MediaItemResponse> cached = load(key, loader);
+        if (cached instanceof KeysetPage<MediaItemResponse> keysetPage) {
+            return new KeysetPage<>(copy(keysetPage.getContent()), keysetPage.getPageable(),
+                    keysetPage.getTotalElements(), keysetPage.hasNext());
+        }
+        return new PageImpl<>(copy(cached.getContent()), cached.getPageable(), cached.getTotalElements());
+    }
+
+    /**
+     * Not using Cache.get(key, loader), to avoid holding a cache lock while the search runs.
+     * Concurrent misses of the same key may each run it, and the last one is kept
+     */
+    @SuppressWarnings("unchecked")
+    private <T> T load(ResultKey key, Supplier<T> loader) {
+        Object cached = results.getIfPresent(key);
+        if (cached != null) {
+            return (T) cached;
+        }
+        T loaded = loader.get();
+        results.put(key, loaded);
+        return loaded;
+    }
+
+    private ResultKey key(String query, Set<Category> categories, Set<Long> genreIds, Set<Long> platformIds,
+                          String cursorName, Long cursorId, int page, int size,
+                          SearchMediaSortBy sortBy, SortDirection sortDirection) {
+        return new ResultKey(
+                query == null ? "" : query.toLowerCase(Locale.ROOT),
+                categories == null ? Set.of() : Set.copyOf(categories),
+                genreIds == null ? Set.of() : Set.copyOf(genreIds),
+                platformIds == null ? Set.of() : Set.copyOf(platformIds),
+                cursorName,
+                cursorId,
+                page,
+                size,
+                sortBy,
+                sortDirection,
+                catalogGeneration.catalog(),
+                catalogGeneration.ratings()
+        );
+    }
+
+    private List<MediaItemResponse> copy(List<MediaItemResponse> items) {
+        return items.stream()
+                .map(item -> MediaItemResponse.builder()
+                        .id(item.getId())
+                        .category(item.getCategory())
+                        .name(item.getName())
+                        .year(item.getYear())
+                        .avgRating(item.getAvgRating())
+                        .genres(item.getGenres())
+                        .platforms(item.getPlatforms())
+                        .createdAt(item.getCreatedAt())
+                        .updatedAt(item.getUpdatedAt())
+                        .inUserList(false)
+                        .build())
+                .toList();
+    }
+}
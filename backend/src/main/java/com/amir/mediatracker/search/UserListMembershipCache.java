@@ -0,0 +1,111 @@
+package com.amir.mediatracker.search;
+
+import com.amir.mediatracker.config.SearchProperties;
+import com.amir.mediatracker.event.UserListMembershipChangedEvent;
+import com.amir.mediatracker.repository.UserMediaListRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.stream.LongStream;
+
+/**
+ * Bounded cache of the media item ids in each user list, answering inUserList for catalog search pages in memory.
+ * A list is loaded once, as a sorted long[], and is then kept up to date by {@link UserListMembershipChangedEvent}s
+ * after their transaction commits. The least recently used lists are evicted past the maximum size.
+ * Hit, miss and eviction metrics are published as cache.* meters with cache=userListMembership.
+ */
+@Component
+public class UserListMembershipCache {
+
+    public static final String CACHE_NAME = "userListMembership";
+
+    /**
+     * Immutable, sorted and distinct media item ids of one user list
+     */
+    public record Membership(long[] mediaItemIds) {
+
+        public boolean contains(long mediaItemId) {
+            return Arrays.binarySearch(mediaItemIds, mediaItemId) >= 0;
+        }
+
+        public int size() {
+            return mediaItemIds.length;
+        }
+
+        /**
+         * A copy with the given ids added and removed. Ids already added or missing are ignored,
+         * so a change that was already loaded from the database is not applied twice
+         */
+        Membership apply(Collection<Long> added, Collection<Long> removed) {
+            long[] removedIds = removed.stream().mapToLong(Long::longValue).sorted().toArray();
+            long[] ids = LongStream.concat(
+                            Arrays.stream(mediaItemIds),
+                            added.stream().mapToLong(Long::longValue))
+                    .filter(id -> Arrays.binarySearch(removedIds, id) < 0)
+                    .sorted()
+                    .distinct()
+                    .toArray();
+            return new Membership(ids);
+        }
+    }
+
+    private final SearchProperties searchProperties;
+    private final UserMediaListRepository userMediaListRepository;
+    private final Cache<Long, Membership> memberships;
+
+    public UserListMembershipCache(SearchProperties searchProperties,
+                                   UserMediaListRepository userMediaListRepository,
+                                   MeterRegistry meterRegistry) {
+        this.searchProperties = searchProperties;
+        this.userMediaListRepository = userMediaListRepository;
+        SearchProperties.MembershipCache config = searchProperties.getMembershipCache();
+        this.memberships = Caffeine.newBuilder()
+                .maximumSize(config.getMaxUsers())
+                .expireAfterWrite(config.getTtl())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, memberships, CACHE_NAME);
+    }
+
+    public boolean isEnabled() {
+        return searchProperties.getMembershipCache().isEnabled();
+    }
+
+    /**
+     * The media items in a user list, loaded from the database only if not cached
+     * @param userId The user whose list is read
+     * @return Membership
+     */
+    public Membership membership(Long userId) {
+        // Loaded under the cache lock of the user, so a change committed while loading
+        // waits for the load and is applied on top of it instead of being lost
+        return memberships.get(userId, this::load);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMembershipChanged(UserListMembershipChangedEvent event) {
+        memberships.asMap().computeIfPresent(event.userId(), (_, membership) ->
+                membership.apply(event.addedMediaItemIds(), event.removedMediaItemIds()));
+    }
+
+    /**
+     * Drop all cached lists, for example after lists were changed without publishing events
+     */
+    public void invalidateAll() {
+        memberships.invalidateAll();
+    }
+
+    private Membership load(Long userId) {
+        return new Membership(userMediaListRepository.findMediaItemIdsByUserId(userId).stream()
+                .mapToLong(Long::longValue)
+                .sorted()
+                .distinct()
+                .toArray());
+    }
+}
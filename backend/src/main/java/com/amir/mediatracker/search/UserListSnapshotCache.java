@@ -0,0 +1,280 @@
+package com.amir.mediatracker.search;
+
+import com.amir.mediatracker.config.SearchProperties;
+import com.amir.mediatracker.dto.Category;
+import com.amir.mediatracker.dto.SortDirection;
+import com.amir.mediatracker.dto.UserSearchMediaSortBy;
+import com.amir.mediatracker.event.MediaItemsChangedEvent;
+import com.amir.mediatracker.event.UserListChangedEvent;
+import com.amir.mediatracker.repository.UserMediaListViewRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Bounded cache of whole user lists, so a user paging through their list with different sorts and filters
+ * is answered in memory instead of querying the read model for every page and count.
+ * A list is loaded once from user_media_list_view as compact entries, and is then kept up to date
+ * by {@link UserListChangedEvent}s after their transaction commits. The changed entries are read outside the cache,
+ * and a change whose read may be older than the cached list is not applied: the list is dropped and loaded again instead.
+ * A change to the catalog drops all lists, as catalog changes are rare and finding the lists holding the items
+ * would mean scanning every list.
+ * Only ids are served from here: the page items are still hydrated from the database, so average ratings are always current.
+ * The least recently used lists are evicted past the maximum total number of entries.
+ * Hit, miss and eviction metrics are published as cache.* meters with cache=userListSnapshot.
+ */
+@Component
+public class UserListSnapshotCache {
+
+    public static final String CACHE_NAME = "userListSnapshot";
+
+    // Missing values sort as the largest ones, as in the database: last on ASC and first on DESC
+    static final int NO_YEAR = Integer.MAX_VALUE;
+    static final short NO_RATING = Short.MAX_VALUE;
+    static final byte FALSE = 0;
+    static final byte TRUE = 1;
+    static final byte NO_FLAG = 2;
+
+    /**
+     * One list entry. Genre and platform ids are sorted
+     */
+    public record Entry(long id, long mediaItemId, String name, String nameNormalized, Category category, int year,
+                        long[] genreIds, long[] platformIds, byte experienced, byte wishToReexperience, short rating) {
+
+        static Entry of(UserMediaListViewRepository.Entry row) {
+            long[] genreIds = row.genreIds().clone();
+            long[] platformIds = row.platformIds().clone();
+            Arrays.sort(genreIds);
+            Arrays.sort(platformIds);
+            return new Entry(row.id(), row.mediaItemId(), row.name(), row.name().toLowerCase(Locale.ROOT),
+                    row.category(), row.year() == null ? NO_YEAR : row.year(), genreIds, platformIds,
+                    flag(row.experienced()), flag(row.wishToReexperience()),
+                    row.rating() == null ? NO_RATING : row.rating());
+        }
+
+        private static byte flag(Boolean value) {
+            return value == null ? NO_FLAG : value ? TRUE : FALSE;
+        }
+
+        private static boolean containsAll(long[] sortedIds, Set<Long> ids) {
+            for (Long id : ids) {
+                if (Arrays.binarySearch(sortedIds, id) < 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        boolean matches(UserMediaListViewRepository.Filter filter, String nameQuery) {
+            return (nameQuery.isEmpty() || nameNormalized.contains(nameQuery))
+                    && (filter.categories() == null || filter.categories().isEmpty() || filter.categories().contains(category))
+                    && (filter.genreIds() == null || containsAll(genreIds, filter.genreIds()))
+                    && (filter.platformIds() == null || containsAll(platformIds, filter.platformIds()))
+                    && (!filter.wishToExperience() || experienced == FALSE || wishToReexperience == TRUE);
+        }
+    }
+
+    /**
+     * Immutable entries of one user list
+     */
+    public record Snapshot(List<Entry> entries, long version) {
+
+        /**
+         * A copy with the given entries replacing those with the same id, and the removed ids left out
+         * @param version Version of the read of the saved entries
+         */
+        Snapshot apply(Collection<Entry> saved, Collection<Long> removedIds, long version) {
+            Set<Long> replaced = new HashSet<>(removedIds);
+            saved.forEach(entry -> replaced.add(entry.id()));
+            return new Snapshot(Stream.concat(
+                            entries.stream().filter(entry -> !replaced.contains(entry.id())),
+                            saved.stream())
+                    .toList(), version);
+        }
+    }
+
+    /**
+     * Ids of one page, and the number of entries that matched the filter
+     */
+    public record Page(List<Long> ids, long totalCount) {}
+
+    private final SearchProperties searchProperties;
+    private final UserMediaListViewRepository userMediaListViewRepository;
+    private final Cache<Long, Snapshot> snapshots;
+    // Taken before each read from the database, so a snapshot knows how recent the data it holds is
+    private final AtomicLong readSequence = new AtomicLong();
+
+    public UserListSnapshotCache(SearchProperties searchProperties,
+                                 UserMediaListViewRepository userMediaListViewRepository,
+                                 MeterRegistry meterRegistry) {
+        this.searchProperties = searchProperties;
+        this.userMediaListViewRepository = userMediaListViewRepository;
+        SearchProperties.ListSnapshot config = searchProperties.getListSnapshot();
+        this.snapshots = Caffeine.newBuilder()
+                .maximumWeight(config.getMaxEntries())
+                .weigher((Long _, Snapshot snapshot) -> snapshot.entries().size() + 1)
+                .expireAfterAccess(config.getTtl())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, snapshots, CACHE_NAME);
+    }
+
+    public boolean isEnabled() {
+        return searchProperties.getListSnapshot().isEnabled();
+    }
+
+    /**
+     * A page of the list in (name, media item id) order, after the given name and media item id
+     * @param filter Filter
+     * @param cursorName Name the previous page ended with, or empty for the first page
+     * @param cursorId Media item id the previous page ended with
+     * @param limit Maximum number of ids
+     * @return Page
+     */
+    public Page findAfterName(UserMediaListViewRepository.Filter filter, String cursorName, long cursorId, int limit) {
+        Comparator<Entry> order = Comparator.comparing(Entry::name, CatalogSnapshot.NAME_ORDER)
+                .thenComparingLong(Entry::mediaItemId);
+        List<Entry> matching = matching(filter);
+        Stream<Entry> page = matching.stream().sorted(order);
+        if (cursorName != null && !cursorName.isEmpty()) {
+            Entry cursor = probe(cursorName, cursorId);
+            page = page.filter(entry -> order.compare(entry, cursor) > 0);
+        }
+        return new Page(page.limit(limit).map(Entry::id).toList(), matching.size());
+    }
+
+    /**
+     * A sorted page of the list. Ties are broken by list item id
+     * @param filter Filter
+     * @param sortBy The sort
+     * @param direction ASC or DESC
+     * @param after Optional keyset cursor of the previous page. The offset is ignored if it is given
+     * @param offset Number of entries to skip
+     * @param limit Maximum number of ids
+     * @return Page
+     */
+    public Page findSorted(UserMediaListViewRepository.Filter filter, UserSearchMediaSortBy sortBy,
+                           SortDirection direction, KeysetCursor after, long offset, int limit) {
+        Comparator<Entry> order = order(sortBy);
+        if (SortDirection.DESC.equals(direction)) {
+            order = order.reversed();
+        }
+        List<Entry> matching = matching(filter);
+        Stream<Entry> page = matching.stream().sorted(order);
+        if (after != null) {
+            Entry cursor = probe(sortBy, after);
+            Comparator<Entry> pageOrder = order;
+            page = page.filter(entry -> pageOrder.compare(entry, cursor) > 0);
+        } else {
+            page = page.skip(offset);
+        }
+        return new Page(page.limit(limit).map(Entry::id).toList(), matching.size());
+    }
+
+    /**
+     * The entries of a user list, loaded from the database only if not cached
+     */
+    Snapshot snapshot(Long userId) {
+        // Loaded under the cache lock of the user, so a change committed while loading
+        // waits for the load and is applied on top of it instead of being lost
+        return snapshots.get(userId, this::load);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserListChanged(UserListChangedEvent event) {
+        if (event.savedListItemIds().isEmpty() && event.removedListItemIds().isEmpty()) {
+            snapshots.invalidate(event.userId());
+            return;
+        }
+        long version = readSequence.incrementAndGet();
+        if (!snapshots.asMap().containsKey(event.userId())) {
+            // A load still running may have read the list before this change
+            snapshots.asMap().computeIfPresent(event.userId(),
+                    (_, snapshot) -> snapshot.version() < version ? null : snapshot);
+            return;
+        }
+        // Not reading under the cache lock of the user, to avoid holding it while the query runs.
+        // If the list was loaded or changed by a later read meanwhile, this read may hold older rows than the list
+        List<Entry> saved = event.savedListItemIds().isEmpty() ? List.of()
+                : userMediaListViewRepository.findEntriesByIds(event.savedListItemIds()).stream()
+                        .map(Entry::of)
+                        .toList();
+        snapshots.asMap().computeIfPresent(event.userId(), (_, snapshot) -> snapshot.version() < version
+                ? snapshot.apply(saved, event.removedListItemIds(), version)
+                : null);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMediaItemsChanged(MediaItemsChangedEvent event) {
+        if (!event.savedIds().isEmpty() || !event.deletedIds().isEmpty()) {
+            snapshots.invalidateAll();
+        }
+    }
+
+    /**
+     * Drop all cached lists, for example after lists were changed without publishing events
+     */
+    public void invalidateAll() {
+        snapshots.invalidateAll();
+    }
+
+    private List<Entry> matching(UserMediaListViewRepository.Filter filter) {
+        String nameQuery = filter.searchQuery() == null ? "" : filter.searchQuery().toLowerCase(Locale.ROOT);
+        return snapshot(filter.userId()).entries().stream()
+                .filter(entry -> entry.matches(filter, nameQuery))
+                .toList();
+    }
+
+    private Snapshot load(Long userId) {
+        long version = readSequence.incrementAndGet();
+        return new Snapshot(userMediaListViewRepository.findEntriesByUserId(userId).stream()
+                .map(Entry::of)
+                .toList(), version);
+    }
+
+    private static Comparator<Entry> order(UserSearchMediaSortBy sortBy) {
+        Comparator<Entry> byValue = switch (sortBy) {
+            case NAME -> Comparator.comparing(Entry::name, CatalogSnapshot.NAME_ORDER);
+            case YEAR -> Comparator.comparingInt(Entry::year);
+            case EXPERIENCED -> Comparator.comparingInt(Entry::experienced);
+            case REEXPERIENCE -> Comparator.comparingInt(Entry::wishToReexperience);
+            case RATING -> Comparator.comparingInt(Entry::rating);
+        };
+        return byValue.thenComparingLong(Entry::id);
+    }
+
+    /**
+     * An entry that sorts where the last entry of the previous page did
+     */
+    private static Entry probe(UserSearchMediaSortBy sortBy, KeysetCursor cursor) {
+        String value = cursor.value();
+        return switch (sortBy) {
+            case NAME -> probe(value == null ? "" : value, 0, cursor.id(), NO_YEAR, NO_FLAG, NO_FLAG, NO_RATING);
+            case YEAR -> probe("", 0, cursor.id(), value == null ? NO_YEAR : cursor.intValue(),
+                    NO_FLAG, NO_FLAG, NO_RATING);
+            case EXPERIENCED -> probe("", 0, cursor.id(), NO_YEAR, Entry.flag(cursor.booleanValue()),
+                    NO_FLAG, NO_RATING);
+            case REEXPERIENCE -> probe("", 0, cursor.id(), NO_YEAR, NO_FLAG,
+                    Entry.flag(cursor.booleanValue()), NO_RATING);
+            case RATING -> probe("", 0, cursor.id(), NO_YEAR, NO_FLAG, NO_FLAG,
+                    value == null ? NO_RATING : cursor.intValue().shortValue());
+        };
+    }
+
+    private static Entry probe(String name, long mediaItemId) {
+        return probe(name, mediaItemId, 0, NO_YEAR, NO_FLAG, NO_FLAG, NO_RATING);
+    }
+
+    private static Entry probe(String name, long mediaItemId, long id, int year,
+                               byte experienced, byte wishToReexperience, short rating) {
+        return new Entry(id, mediaItemId, name, name, null, year, new long[0], new long[0],
+                experienced, wishToReexperience, rating);
+    }
+}
@@ -1,6 +1,5 @@
 package com.amir.mediatracker.service;
 
-import com.amir.mediatracker.batch.dto.StepCount;
 import com.amir.mediatracker.batch.util.BatchUtil;
 import com.amir.mediatracker.dto.request.GenreRequest;
 import com.amir.mediatracker.dto.request.MediaItemRequest;
@@ -12,17 +11,22 @@ import com.amir.mediatracker.dto.response.PlatformResponse;
 import com.amir.mediatracker.entity.Genre;
 import com.amir.mediatracker.entity.MediaItem;
 import com.amir.mediatracker.entity.Platform;
+import com.amir.mediatracker.event.CatalogChangedEvent;
+import com.amir.mediatracker.event.MediaItemsChangedEvent;
 import com.amir.mediatracker.exception.ConflictException;
 import com.amir.mediatracker.exception.DuplicateResourceException;
 import com.amir.mediatracker.exception.ResourceNotFoundException;
 import com.amir.mediatracker.repository.GenreRepository;
 import com.amir.mediatracker.repository.MediaItemRepository;
 import com.amir.mediatracker.repository.PlatformRepository;
+import com.amir.mediatracker.repository.UserMediaListViewRepository;
+import com.amir.mediatracker.util.BitMaskUtil;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.batch.core.BatchStatus;
 import org.springframework.batch.core.JobExecution;
 import org.springframework.batch.core.explore.JobExplorer;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -40,8 +44,10 @@ public class AdminService {
     private final MediaItemRepository mediaItemRepository;
     private final GenreRepository genreRepository;
     private final PlatformRepository platformRepository;
+    private final UserMediaListViewRepository userMediaListViewRepository;
     private final JobExplorer jobExplorer;
     private final AsyncBatchService asyncBatchService;
+    private final ApplicationEventPublisher applicationEventPublisher;
 
     public List<GenreResponse> getAllGenres() {
         return genreRepository.findAll().stream()
@@ -64,6 +70,7 @@ public class AdminService {
         Genre genre = new Genre();
         genre.setName(request.getName());
         Genre saved = genreRepository.save(genre);
+        applicationEventPublisher.publishEvent(new CatalogChangedEvent("createGenre"));
         return mapGenreToResponse(saved);
     }
 
@@ -76,6 +83,7 @@ public class AdminService {
         Platform platform = new Platform();
         platform.setName(request.getName());
         Platform saved = platformRepository.save(platform);
+        applicationEventPublisher.publishEvent(new CatalogChangedEvent("createPlatform"));
         return mapPlatformToResponse(saved);
     }
 
@@ -92,7 +100,10 @@ public class AdminService {
         MediaItem item = new MediaItem();
         applyRequestToEntity(item, request);
 
-        return mapToResponse(mediaItemRepository.save(item));
+        MediaItem saved = mediaItemRepository.save(item);
+        applicationEventPublisher.publishEvent(new CatalogChangedEvent("createMediaItem"));
+        applicationEventPublisher.publishEvent(new MediaItemsChangedEvent(List.of(saved.getId()), List.of()));
+        return mapToResponse(saved);
     }
 
     @Transactional
@@ -106,7 +117,10 @@ public class AdminService {
         }
 
         applyRequestToEntity(item, request);
-        return mapToResponse(mediaItemRepository.save(item));
+        MediaItem saved = mediaItemRepository.save(item);
+        applicationEventPublisher.publishEvent(new CatalogChangedEvent("updateMediaItem"));
+        applicationEventPublisher.publishEvent(new MediaItemsChangedEvent(List.of(saved.getId()), List.of()));
+        return mapToResponse(saved);
     }
 
     @Transactional
@@ -114,7 +128,10 @@ public class AdminService {
         if (!mediaItemRepository.existsById(id)) {
             throw new ResourceNotFoundException("Media item not found");
         }
+        userMediaListViewRepository.deleteMediaItems(List.of(id));
         mediaItemRepository.deleteById(id);
+        applicationEventPublisher.publishEvent(new CatalogChangedEvent("deleteMediaItem"));
+        applicationEventPublisher.publishEvent(new MediaItemsChangedEvent(List.of(), List.of(id)));
     }
 
     /**
@@ -142,20 +159,7 @@ public class AdminService {
             );
         }
 
-        StepCount stepCount = BatchUtil.countStepProperties(execution);
-
-        return JobStatusResponse.builder()
-                .correlationId(correlationId)
-                .jobExecutionId(jobExecutionId)
-                .status(execution.getStatus().toString())
-                .startTime(execution.getStartTime())
-                .endTime(execution.getEndTime())
-                .readCount(stepCount.getReadCount())
-                .writeCount(stepCount.getWriteCount())
-                .skipCount(stepCount.getSkipCount())
-                .exitCode(execution.getExitStatus().getExitCode())
-                .exitMessage(execution.getExitStatus().getExitDescription())
-                .build();
+        return BatchUtil.toJobStatusResponse(correlationId, execution);
     }
 
     private MediaItemResponse mapToResponse(MediaItem item) {
@@ -197,6 +201,7 @@ public class AdminService {
 
         item.setGenres(resolveGenres(request.getGenreIds()));
         item.setPlatforms(resolvePlatforms(request.getPlatformIds()));
+        BitMaskUtil.updateMasks(item);
     }
 
     private Set<Genre> resolveGenres(Set<Long> ids) {
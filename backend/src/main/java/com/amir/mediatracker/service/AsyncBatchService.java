@@ -11,6 +11,7 @@ import org.springframework.stereotype.Service;
 
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Slf4j
 @Service
@@ -18,10 +19,21 @@ import java.util.concurrent.ConcurrentHashMap;
 public class AsyncBatchService {
 
     private final JobLauncher jobLauncher;
-    private final Job importMediaItemJob;
+    private final Job mediaItemImportJob;
+    private final Job userMediaListImportJob;
 
     private final Map<Long, Long> correlationToExecution =
             new ConcurrentHashMap<>();
+    private final AtomicLong lastCorrelationId = new AtomicLong();
+
+    /**
+     * A new correlationId: the current time in milliseconds, moved forward if it was already given out,
+     * so jobs started by several users at once do not share one
+     * @return correlationId
+     */
+    public long nextCorrelationId() {
+        return lastCorrelationId.updateAndGet(last -> Math.max(last + 1, System.currentTimeMillis()));
+    }
 
     /**
      * Asynchronously running import job.
@@ -31,19 +43,35 @@ public class AsyncBatchService {
      */
     @Async
     public void startImportJob(Long correlationId, JobParameters params) {
+        runJob(mediaItemImportJob, correlationId, params);
+    }
+
+    /**
+     * Asynchronously running import of entries into a single user list.
+     * Once jobExecutionId is generated, mapping it to correlationId.
+     * @param correlationId The key given to the client. Will be mapped to the jobExecutionId for future fetching
+     * @param params The parameters the job requires to work: the file path and the user id
+     */
+    @Async
+    public void startUserListImportJob(Long correlationId, JobParameters params) {
+        runJob(userMediaListImportJob, correlationId, params);
+    }
+
+    private void runJob(Job job, Long correlationId, JobParameters params) {
         try {
             JobExecution execution =
-                    jobLauncher.run(importMediaItemJob, params);
+                    jobLauncher.run(job, params);
 
             correlationToExecution.put(correlationId, execution.getId());
 
             log.info(
-                    "Started import job. correlationId={} jobExecutionId={}",
+                    "Started {}. correlationId={} jobExecutionId={}",
+                    job.getName(),
                     correlationId,
                     execution.getId()
             );
         } catch (Exception ex) {
-            log.error("Failed to start import job with correlationId={}", correlationId, ex);
+            log.error("Failed to start {} with correlationId={}", job.getName(), correlationId, ex);
         }
     }
 
@@ -0,0 +1,67 @@
+package com.amir.mediatracker.service;
+
+import com.amir.mediatracker.repository.UserActivityRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Write-behind buffer of users.last_active.
+ * List mutations only record the latest activity time of their user in memory, and the buffer is written
+ * in one batched update every flush interval (app.user-activity.flush-interval) and on shutdown.
+ * This keeps the users row out of every list transaction, so last_active is accurate to within the flush interval.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class LastActiveTracker {
+
+    private final UserActivityRepository userActivityRepository;
+    private final ConcurrentHashMap<Long, LocalDateTime> pending = new ConcurrentHashMap<>();
+
+    /**
+     * Record that a user was active now
+     * @param userId Id of the user
+     */
+    public void touch(Long userId) {
+        pending.merge(userId, LocalDateTime.now(), (current, next) -> next.isAfter(current) ? next : current);
+    }
+
+    /**
+     * Write the buffered activity times. A user that was active again while writing keeps
+     * the newer time for the next flush. On failure the times stay buffered and are retried
+     */
+    @Scheduled(fixedDelayString = "${app.user-activity.flush-interval:5s}")
+    public synchronized void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        Map<Long, LocalDateTime> batch = new HashMap<>(pending);
+        try {
+            int updated = userActivityRepository.updateLastActive(batch);
+            batch.forEach(pending::remove);
+            log.debug("Flushed last active of {} users, {} updated", batch.size(), updated);
+        } catch (RuntimeException e) {
+            log.warn("Failed to flush last active of {} users, retrying on the next flush", batch.size(), e);
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    /**
+     * @return Number of users with a buffered activity time
+     */
+    int pendingCount() {
+        return pending.size();
+    }
+}
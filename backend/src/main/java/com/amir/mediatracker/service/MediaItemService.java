@@ -1,29 +1,45 @@
 package com.amir.mediatracker.service;
 
+import com.amir.mediatracker.config.SearchProperties;
 import com.amir.mediatracker.dto.Category;
 import com.amir.mediatracker.dto.SearchMediaSortBy;
 import com.amir.mediatracker.dto.SortDirection;
-import com.amir.mediatracker.dto.response.GenreResponse;
+import com.amir.mediatracker.dto.response.MediaFacetedSearchResponse;
 import com.amir.mediatracker.dto.response.MediaItemResponse;
+import com.amir.mediatracker.dto.response.MediaNameSuggestionResponse;
 import com.amir.mediatracker.dto.response.MediaSearchResponse;
-import com.amir.mediatracker.dto.response.PlatformResponse;
 import com.amir.mediatracker.entity.Genre;
-import com.amir.mediatracker.entity.MediaItem;
 import com.amir.mediatracker.entity.Platform;
+import com.amir.mediatracker.repository.KeysetPageRepository;
+import com.amir.mediatracker.repository.MediaFacetRepository;
 import com.amir.mediatracker.repository.MediaItemRepository;
+import com.amir.mediatracker.repository.ProjectionRepository;
 import com.amir.mediatracker.repository.UserMediaListRepository;
+import com.amir.mediatracker.search.CatalogSearchEngine;
+import com.amir.mediatracker.search.CatalogSnapshot;
+import com.amir.mediatracker.search.KeysetCursor;
+import com.amir.mediatracker.search.KeysetPage;
+import com.amir.mediatracker.search.MediaFacets;
+import com.amir.mediatracker.search.MediaSearchIndex;
+import com.amir.mediatracker.search.NameSuggestionEngine;
+import com.amir.mediatracker.search.SearchCountCache;
+import com.amir.mediatracker.search.SearchResultCache;
+import com.amir.mediatracker.search.UserListMembershipCache;
+import com.amir.mediatracker.util.BitMaskUtil;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 
+import java.util.BitSet;
 import java.util.List;
+import java.util.Optional;
 import java.util.Set;
-import java.util.stream.Collectors;
 
 @Slf4j
 @Service
@@ -34,12 +50,23 @@ public class MediaItemService {
     private int maxLimit;
 
     private final MediaItemRepository mediaItemRepository;
+    private final ProjectionRepository projectionRepository;
     private final UserMediaListRepository userMediaListRepository;
+    private final CatalogSearchEngine catalogSearchEngine;
+    private final SearchCountCache searchCountCache;
+    private final SearchResultCache searchResultCache;
+    private final SearchProperties searchProperties;
+    private final MediaFacetRepository mediaFacetRepository;
+    private final NameSuggestionEngine nameSuggestionEngine;
+    private final KeysetPageRepository keysetPageRepository;
+    private final MediaSearchIndex mediaSearchIndex;
+    private final UserListMembershipCache userListMembershipCache;
 
     /**
      * Search media items with cursor pagination.
      * Supports filtering by name, category, genre, and platform.
      * For each media item, it also checks if the user has added it to their list.
+     * If the in-memory catalog engine is enabled and loaded, the search is answered from its snapshot.
      * @param userId The id of the user
      * @param query name search criteria. For example: "The Matri" might return the movie The Matrix
      * @param categories Optional filter for categories. For example: Return only MOVIES and SERIES
@@ -61,64 +88,177 @@ public class MediaItemService {
             int limit
     ) {
         limit = Math.min(Math.max(limit, 1), maxLimit); //avoid negative and overflow
-        Pageable pageable = PageRequest.of(0, limit + 1); // +1 to know if there are more items
 
         // Safe inputs
         Set<Long> safeGenres = (genreIds == null  || genreIds.isEmpty()) ? null : genreIds;
         Set<Long> safePlatforms = (platformIds == null  || platformIds.isEmpty()) ? null : platformIds;
         Set<Category> safeCategories = (categories == null || categories.isEmpty()) ? null : categories;
 
-        // Get the count first
+        Optional<CatalogSnapshot> snapshot = catalogSearchEngine.currentSnapshot();
+        if (snapshot.isPresent()) {
+            return searchCursorInMemory(snapshot.get(), userId, query, safeCategories,
+                    safeGenres, safePlatforms, cursorName, cursorId, limit);
+        }
+
+        int pageLimit = limit;
+        MediaSearchResponse response = searchResultCache.cursorPage(query, safeCategories, safeGenres, safePlatforms,
+                cursorName, cursorId, pageLimit, () -> searchCursorInDatabase(query, safeCategories,
+                        safeGenres, safePlatforms, cursorName, cursorId, pageLimit));
+        markInUserList(userId, response.getItems());
+        return response;
+    }
+
+    /**
+     * Search media items with cursor pagination, along with the total and facet counts of the search:
+     * number of results per category, genre and platform.
+     * Facets are counted with a single scan of the catalog, or a single pass over the in-memory snapshot.
+     * Category counts ignore the category filter, so the client can show how many items other categories would add
+     * @param userId The id of the user
+     * @param query name search criteria
+     * @param categories Optional filter for categories
+     * @param genreIds Optional filter for genres. Matching items must contain all of them
+     * @param platformIds Optional filter for platforms. Matching items must contain all of them
+     * @param cursorName Name of the last item of the previous page
+     * @param cursorId Id of the last item of the previous page
+     * @param limit Number of items to return
+     * @return MediaFacetedSearchResponse
+     */
+    public MediaFacetedSearchResponse searchMediaFaceted(
+            Long userId,
+            String query,
+            Set<Category> categories,
+            Set<Long> genreIds,
+            Set<Long> platformIds,
+            String cursorName,
+            Long cursorId,
+            int limit
+    ) {
+        limit = Math.min(Math.max(limit, 1), maxLimit); //avoid negative and overflow
+
+        // Safe inputs
+        Set<Long> safeGenres = (genreIds == null  || genreIds.isEmpty()) ? null : genreIds;
+        Set<Long> safePlatforms = (platformIds == null  || platformIds.isEmpty()) ? null : platformIds;
+        Set<Category> safeCategories = (categories == null || categories.isEmpty()) ? null : categories;
+
+        MediaFacets facets;
+        MediaSearchResponse page;
+        Optional<CatalogSnapshot> snapshot = catalogSearchEngine.currentSnapshot();
+        if (snapshot.isPresent()) {
+            facets = snapshot.get().facets(query, safeCategories, safeGenres, safePlatforms);
+            page = searchCursorInMemory(snapshot.get(), userId, query, safeCategories,
+                    safeGenres, safePlatforms, cursorName, cursorId, limit);
+        } else {
+            facets = mediaFacetRepository.findFacets(query, safeCategories, safeGenres, safePlatforms);
+            page = fetchCursorPage(query, safeCategories,
+                    safeGenres, safePlatforms, cursorName, cursorId, limit);
+            markInUserList(userId, page.getItems());
+        }
+
+        return MediaFacetedSearchResponse.builder()
+                .items(page.getItems())
+                .nextCursor(page.getNextCursor())
+                .hasMore(page.isHasMore())
+                .totalCount(facets.totalCount())
+                .categories(facets.categories())
+                .genres(facets.genres())
+                .platforms(facets.platforms())
+                .build();
+    }
+
+    /**
+     * Count and fetch a single page of a cursor search from the database, without the inUserList marks
+     */
+    private MediaSearchResponse searchCursorInDatabase(
+            String query,
+            Set<Category> categories,
+            Set<Long> genreIds,
+            Set<Long> platformIds,
+            String cursorName,
+            Long cursorId,
+            int limit
+    ) {
+        // Get the count first. Broad searches may be estimated, otherwise the count is cached
+        // per filters, so scrolling to the next page does not count again
+        boolean broadSearch = (query == null || query.isBlank()) && genreIds == null && platformIds == null;
+        Long estimatedCount = broadSearch ? estimateCount(categories) : null;
         long totalCount;
-        if (safeGenres == null && safePlatforms == null) {
-            totalCount = mediaItemRepository.countSimple(query, safeCategories);
+        if (estimatedCount != null) {
+            totalCount = estimatedCount;
         } else {
-            totalCount = mediaItemRepository.countWithFilters(
+            totalCount = countCatalog(query, categories, genreIds, platformIds);
+        }
+
+        MediaSearchResponse response = fetchCursorPage(query, categories,
+                genreIds, platformIds, cursorName, cursorId, limit);
+        response.setTotalCount(totalCount);
+        response.setTotalCountEstimated(estimatedCount != null);
+        return response;
+    }
+
+    /**
+     * Count the catalog search results. Cached per filters, so scrolling to the next page does not count again
+     */
+    private long countCatalog(String query, Set<Category> categories, Set<Long> genreIds, Set<Long> platformIds) {
+        return searchCountCache.catalogCount(query, categories, genreIds, platformIds, () -> {
+            if (genreIds == null && platformIds == null) {
+                return mediaItemRepository.countSimple(query, categories);
+            }
+            // Genres and platforms are matched by bitmask, only ids that do not fit the mask go through the link tables
+            Set<Long> overflowGenres = BitMaskUtil.overflowOf(genreIds);
+            Set<Long> overflowPlatforms = BitMaskUtil.overflowOf(platformIds);
+            return mediaItemRepository.countWithFilters(
                     query,
-                    safeCategories,
-                    safeGenres,
-                    safePlatforms,
-                    safeGenres == null ? 0 : safeGenres.size(),
-                    safePlatforms == null ? 0 : safePlatforms.size()
+                    categories,
+                    BitMaskUtil.maskOf(genreIds),
+                    BitMaskUtil.maskOf(platformIds),
+                    overflowGenres,
+                    overflowPlatforms,
+                    overflowGenres == null ? 0 : overflowGenres.size(),
+                    overflowPlatforms == null ? 0 : overflowPlatforms.size()
             );
-        }
+        });
+    }
+
+    /**
+     * Fetch a single page of a cursor search from the database, without the total count and the inUserList marks
+     */
+    private MediaSearchResponse fetchCursorPage(
+            String query,
+            Set<Category> categories,
+            Set<Long> genreIds,
+            Set<Long> platformIds,
+            String cursorName,
+            Long cursorId,
+            int limit
+    ) {
+        Pageable pageable = PageRequest.of(0, limit + 1); // +1 to know if there are more items
+        Set<Long> overflowGenres = BitMaskUtil.overflowOf(genreIds);
+        Set<Long> overflowPlatforms = BitMaskUtil.overflowOf(platformIds);
 
-        List<MediaItem> items = mediaItemRepository.searchWithCursorAndFilters(
+        List<Long> ids = mediaItemRepository.searchIdsWithCursorAndFilters(
                 query,
-                safeCategories,
-                safeGenres,
-                safePlatforms,
-                safeGenres == null ? 0 : safeGenres.size(),
-                safePlatforms == null ? 0 : safePlatforms.size(),
+                categories,
+                BitMaskUtil.maskOf(genreIds),
+                BitMaskUtil.maskOf(platformIds),
+                overflowGenres,
+                overflowPlatforms,
+                overflowGenres == null ? 0 : overflowGenres.size(),
+                overflowPlatforms == null ? 0 : overflowPlatforms.size(),
                 cursorName,
                 cursorId,
                 pageable
         );
 
-        boolean hasMore = items.size() > limit;
+        boolean hasMore = ids.size() > limit;
         if (hasMore) {
-            items = items.subList(0, limit);
+            ids = ids.subList(0, limit);
         }
 
-        // Check which items are in user's list
-        if (userId != null && !items.isEmpty()) {
-            List<Long> itemIds = items.stream().map(MediaItem::getId).toList();
-            Set<Long> userItemIds = userMediaListRepository
-                    .findByUserIdAndMediaItemIdIn(userId, itemIds)
-                    .stream()
-                    .map(uml -> uml.getMediaItem().getId())
-                    .collect(Collectors.toSet());
-
-            items.forEach(item -> item.setInUserList(userItemIds.contains(item.getId())));
-        }
-
-        List<MediaItemResponse> responses = items.stream()
-                .map(this::mapToResponse)
-                .toList();
+        List<MediaItemResponse> responses = loadInOrder(ids);
 
         MediaSearchResponse.Cursor nextCursor = null;
-        if (hasMore) {
-            MediaItem lastItem = items.getLast();
+        if (hasMore && !responses.isEmpty()) {
+            MediaItemResponse lastItem = responses.getLast();
             nextCursor = new MediaSearchResponse.Cursor(lastItem.getName(), lastItem.getId());
         }
 
@@ -126,10 +266,28 @@ public class MediaItemService {
                 .items(responses)
                 .nextCursor(nextCursor)
                 .hasMore(hasMore)
-                .totalCount(totalCount)
                 .build();
     }
 
+    /**
+     * Search media items, sorted by YEAR, AVG_RATING or NAME.
+     * Ties are broken by id in the sort direction, and items without a value come last on ASC and first on DESC.
+     * The first page may be requested by number. Following pages should be requested with the keyset cursor
+     * of the previous page, which reads from where that page ended instead of skipping rows with an OFFSET.
+     * RELEVANCE ranks items by how well their name matches the query, tolerating typos, and ignores the direction.
+     * It is served by {@link MediaSearchIndex} and read by page number only. If the index is disabled, NAME ASC is used instead
+     * @param userId The id of the user
+     * @param query name search criteria
+     * @param categories Optional filter for categories
+     * @param genreIds Optional filter for genres. Matching items must contain all of them
+     * @param platformIds Optional filter for platforms. Matching items must contain all of them
+     * @param page The page to return. Ignored if a cursor is given
+     * @param size The size of the page
+     * @param sortBy YEAR, AVG_RATING, NAME or RELEVANCE
+     * @param sortDirection ASC or DESC
+     * @param after Optional keyset cursor of the previous page, see {@link KeysetCursor}
+     * @return A page of MediaItemResponse
+     */
     public Page<MediaItemResponse> searchMediaItemsSorted(
             Long userId,
             String query,
@@ -139,14 +297,107 @@ public class MediaItemService {
             int page,
             int size,
             SearchMediaSortBy sortBy,
-            SortDirection sortDirection
+            SortDirection sortDirection,
+            String after
     ) {
         size = Math.min(Math.max(size, 1), maxLimit); //avoid negative and overflow
         // Safe inputs
         Set<Long> safeGenres = (genreIds == null  || genreIds.isEmpty()) ? null : genreIds;
         Set<Long> safePlatforms = (platformIds == null  || platformIds.isEmpty()) ? null : platformIds;
         Set<Category> safeCategories = (categories == null || categories.isEmpty()) ? null : categories;
+        KeysetCursor cursor = after == null ? null : KeysetCursor.decode(after, sortBy, sortDirection);
+
+        if (SearchMediaSortBy.RELEVANCE.equals(sortBy)) {
+            int pageNumber = cursor == null ? page : cursor.page();
+            if (!mediaSearchIndex.isAvailable()) {
+                return searchMediaItemsSorted(userId, query, categories, genreIds, platformIds,
+                        pageNumber, size, SearchMediaSortBy.NAME, SortDirection.ASC, null);
+            }
+            return searchByRelevance(userId, query, safeCategories, safeGenres, safePlatforms, pageNumber, size);
+        }
+
+        Optional<CatalogSnapshot> snapshot = catalogSearchEngine.currentSnapshot();
+        if (snapshot.isPresent()) {
+            return searchSortedInMemory(snapshot.get(), userId, query, safeCategories,
+                    safeGenres, safePlatforms, page, size, sortBy, sortDirection, cursor);
+        }
+
+        int pageSize = size;
+        int pageNumber = cursor == null ? page : cursor.page();
+        Page<MediaItemResponse> result = searchResultCache.sortedPage(query, safeCategories, safeGenres, safePlatforms,
+                pageNumber, pageSize, sortBy, sortDirection, after, () -> cursor == null
+                        ? searchSortedInDatabase(query, safeCategories, safeGenres, safePlatforms,
+                                page, pageSize, sortBy, sortDirection)
+                        : searchSortedAfterInDatabase(query, safeCategories, safeGenres, safePlatforms,
+                                pageSize, sortBy, sortDirection, cursor));
+        markInUserList(userId, result.getContent());
+        return result;
+    }
+
+    /**
+     * Fetch the page that follows a keyset cursor from the database, without the inUserList marks.
+     * The ids of the page are read from the (sortValue, id) index, and only those items are loaded.
+     * One id more than the page is read, to know whether another page follows
+     */
+    private Page<MediaItemResponse> searchSortedAfterInDatabase(
+            String query,
+            Set<Category> categories,
+            Set<Long> genreIds,
+            Set<Long> platformIds,
+            int size,
+            SearchMediaSortBy sortBy,
+            SortDirection sortDirection,
+            KeysetCursor cursor
+    ) {
+        List<Long> ids = keysetPageRepository.findCatalogIdsAfter(query, categories, genreIds, platformIds,
+                sortBy, sortDirection, cursor, size + 1);
+        boolean hasNext = ids.size() > size;
+        List<MediaItemResponse> content = loadInOrder(hasNext ? ids.subList(0, size) : ids);
 
+        long totalCount = countCatalog(query, categories, genreIds, platformIds);
+        return new KeysetPage<>(content, PageRequest.of(cursor.page(), size), totalCount, hasNext);
+    }
+
+    /**
+     * Fetch a page of ranked results: the ids are read from the search index, and only those items are loaded
+     */
+    private Page<MediaItemResponse> searchByRelevance(
+            Long userId,
+            String query,
+            Set<Category> categories,
+            Set<Long> genreIds,
+            Set<Long> platformIds,
+            int page,
+            int size
+    ) {
+        int offset = (int) Math.min((long) page * size, Integer.MAX_VALUE - size);
+        MediaSearchIndex.Hits hits = mediaSearchIndex.search(query, categories, genreIds, platformIds, offset, size);
+        List<MediaItemResponse> content = loadInOrder(hits.ids());
+        markInUserList(userId, content);
+        return new PageImpl<>(content, PageRequest.of(page, size), hits.totalHits());
+    }
+
+    /**
+     * Load the given media items with their genres and platforms, keeping the order of the ids.
+     * Rows are projected straight to responses, and ids of items that no longer exist are skipped
+     */
+    private List<MediaItemResponse> loadInOrder(List<Long> ids) {
+        return projectionRepository.findMediaItems(ids);
+    }
+
+    /**
+     * Fetch a single page of a sorted search from the database, without the inUserList marks
+     */
+    private Page<MediaItemResponse> searchSortedInDatabase(
+            String query,
+            Set<Category> categories,
+            Set<Long> genreIds,
+            Set<Long> platformIds,
+            int page,
+            int size,
+            SearchMediaSortBy sortBy,
+            SortDirection sortDirection
+    ) {
         // Build sort
         Sort.Direction direction = SortDirection.DESC.equals(sortDirection)
                 ? Sort.Direction.DESC
@@ -158,61 +409,155 @@ public class MediaItemService {
             default -> "name";
         };
 
-        Sort sort = Sort.by(direction, property).and(Sort.by(Sort.Direction.ASC, "id")); //allows order consistency
+        Sort sort = Sort.by(direction, property).and(Sort.by(direction, "id")); //allows order consistency, and continuing with a keyset cursor
         Pageable pageable = PageRequest.of(page, size, sort);
 
-        Page<MediaItem> itemsPage = mediaItemRepository.searchWithOffsetAndFilters(
+        // Genres and platforms are matched by bitmask, only ids that do not fit the mask go through the link tables
+        Set<Long> overflowGenres = BitMaskUtil.overflowOf(genreIds);
+        Set<Long> overflowPlatforms = BitMaskUtil.overflowOf(platformIds);
+        Page<Long> idsPage = mediaItemRepository.searchIdsWithOffsetAndFilters(
                 query,
-                safeCategories,
-                safeGenres,
-                safePlatforms,
-                safeGenres == null ? 0 : safeGenres.size(),
-                safePlatforms == null ? 0 : safePlatforms.size(),
+                categories,
+                BitMaskUtil.maskOf(genreIds),
+                BitMaskUtil.maskOf(platformIds),
+                overflowGenres,
+                overflowPlatforms,
+                overflowGenres == null ? 0 : overflowGenres.size(),
+                overflowPlatforms == null ? 0 : overflowPlatforms.size(),
                 pageable
         );
 
-        // Check which items are in user's list
-        if (userId != null && !itemsPage.isEmpty()) {
-            List<Long> itemIds = itemsPage.getContent().stream()
-                    .map(MediaItem::getId)
-                    .collect(Collectors.toList());
-            Set<Long> userItemIds = userMediaListRepository
-                    .findByUserIdAndMediaItemIdIn(userId, itemIds)
-                    .stream()
-                    .map(uml -> uml.getMediaItem().getId())
-                    .collect(Collectors.toSet());
-
-            itemsPage.getContent().forEach(item -> item.setInUserList(userItemIds.contains(item.getId())));
+        return new PageImpl<>(loadInOrder(idsPage.getContent()), pageable, idsPage.getTotalElements());
+    }
+
+    private MediaSearchResponse searchCursorInMemory(
+            CatalogSnapshot snapshot,
+            Long userId,
+            String query,
+            Set<Category> categories,
+            Set<Long> genreIds,
+            Set<Long> platformIds,
+            String cursorName,
+            Long cursorId,
+            int limit
+    ) {
+        BitSet matches = snapshot.match(query, categories, genreIds, platformIds);
+        List<Integer> positions = snapshot.pageAfter(matches, cursorName, cursorId, limit + 1);
+
+        boolean hasMore = positions.size() > limit;
+        if (hasMore) {
+            positions = positions.subList(0, limit);
         }
 
-        return itemsPage.map(this::mapToResponse);
-    }
-
-    private MediaItemResponse mapToResponse(MediaItem item) {
-        return MediaItemResponse.builder()
-                .id(item.getId())
-                .category(item.getCategory())
-                .name(item.getName())
-                .year(item.getYear())
-                .avgRating(item.getAvgRating())
-                .inUserList(item.getInUserList())
-                .genres(item.getGenres().stream()
-                        .map(g -> GenreResponse.builder()
-                                .id(g.getId())
-                                .name(g.getName())
-                                .build())
-                        .collect(Collectors.toSet()))
-                .platforms(item.getPlatforms().stream()
-                        .map(p -> PlatformResponse.builder()
-                                .id(p.getId())
-                                .name(p.getName())
-                                .build())
-                        .collect(Collectors.toSet()))
-                .createdAt(item.getCreatedAt())
-                .updatedAt(item.getUpdatedAt())
+        List<MediaItemResponse> responses = positions.stream()
+                .map(snapshot::toResponse)
+                .toList();
+        markInUserList(userId, responses);
+
+        MediaSearchResponse.Cursor nextCursor = null;
+        if (hasMore) {
+            int last = positions.getLast();
+            nextCursor = new MediaSearchResponse.Cursor(snapshot.nameAt(last), snapshot.idAt(last));
+        }
+
+        return MediaSearchResponse.builder()
+                .items(responses)
+                .nextCursor(nextCursor)
+                .hasMore(hasMore)
+                .totalCount(matches.cardinality())
                 .build();
     }
 
+    private Page<MediaItemResponse> searchSortedInMemory(
+            CatalogSnapshot snapshot,
+            Long userId,
+            String query,
+            Set<Category> categories,
+            Set<Long> genreIds,
+            Set<Long> platformIds,
+            int page,
+            int size,
+            SearchMediaSortBy sortBy,
+            SortDirection sortDirection,
+            KeysetCursor cursor
+    ) {
+        BitSet matches = snapshot.match(query, categories, genreIds, platformIds);
+        List<Integer> sorted = snapshot.sort(matches, sortBy, sortDirection, cursor);
+
+        int from = cursor == null ? (int) Math.min((long) page * size, sorted.size()) : 0;
+        int to = Math.min(from + size, sorted.size());
+        List<MediaItemResponse> content = sorted.subList(from, to).stream()
+                .map(snapshot::toResponse)
+                .toList();
+        markInUserList(userId, content);
+
+        if (cursor != null) {
+            return new KeysetPage<>(content, PageRequest.of(cursor.page(), size), matches.cardinality(),
+                    to < sorted.size());
+        }
+        return new PageImpl<>(content, PageRequest.of(page, size), matches.cardinality());
+    }
+
+    /**
+     * Estimate the number of catalog items in the given categories from the planner statistics,
+     * instead of counting all of them
+     * @param categories Optional filter for categories
+     * @return The estimate, or null if estimation is disabled or there are no statistics yet
+     */
+    private Long estimateCount(Set<Category> categories) {
+        if (!searchProperties.getCountCache().isEstimateBroadSearches()) {
+            return null;
+        }
+        Long totalRows = mediaItemRepository.estimateTotalRows();
+        if (totalRows == null || totalRows < 0) {
+            return null;
+        }
+        if (categories == null) {
+            return totalRows;
+        }
+        Double fraction = mediaItemRepository.estimateCategoryFraction(
+                categories.stream().map(Category::name).toList());
+        return fraction == null ? null : Math.round(totalRows * fraction);
+    }
+
+    /**
+     * Set inUserList on each response. Answered from the membership cache when enabled,
+     * otherwise by querying which of the page items are in the user list
+     */
+    private void markInUserList(Long userId, List<MediaItemResponse> responses) {
+        if (userId == null || responses.isEmpty()) {
+            return;
+        }
+        if (userListMembershipCache.isEnabled()) {
+            UserListMembershipCache.Membership membership = userListMembershipCache.membership(userId);
+            responses.forEach(response -> response.setInUserList(membership.contains(response.getId())));
+            return;
+        }
+        Set<Long> userItemIds = userMediaListRepository.findMediaItemIdsByUserIdAndMediaItemIdIn(userId,
+                responses.stream()
+                        .map(MediaItemResponse::getId)
+                        .toList());
+        responses.forEach(response -> response.setInUserList(userItemIds.contains(response.getId())));
+    }
+
+    /**
+     * Suggest media names for type-ahead. Served from memory, without querying the database
+     * @param prefix Case-insensitive prefix of the name or of any word in it. For example: "matr" might return The Matrix
+     * @param categories Optional filter for categories
+     * @param limit Maximum number of suggestions
+     * @return List of MediaNameSuggestionResponse
+     */
+    public List<MediaNameSuggestionResponse> suggestMediaNames(String prefix, Set<Category> categories, int limit) {
+        limit = Math.min(Math.max(limit, 1), maxLimit); //avoid negative and overflow
+        return nameSuggestionEngine.suggest(prefix, categories, limit).stream()
+                .map(entry -> MediaNameSuggestionResponse.builder()
+                        .id(entry.id())
+                        .name(entry.name())
+                        .category(entry.category())
+                        .build())
+                .toList();
+    }
+
     public List<Genre> getAvailableGenres(String query, Set<Category> categories) {
         Set<Category> safeCategories = (categories == null || categories.isEmpty()) ? null : categories;
         return mediaItemRepository.findDistinctGenresByFilters(query, safeCategories);
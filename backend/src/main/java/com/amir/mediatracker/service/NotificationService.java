@@ -1,10 +1,14 @@
 package com.amir.mediatracker.service;
 
+import com.amir.mediatracker.dto.projection.NotificationRow;
 import com.amir.mediatracker.dto.response.*;
 import com.amir.mediatracker.entity.*;
 import com.amir.mediatracker.exception.ResourceNotFoundException;
 import com.amir.mediatracker.repository.MediaItemRepository;
+import com.amir.mediatracker.repository.NotificationFanOutRepository;
 import com.amir.mediatracker.repository.NotificationRepository;
+import com.amir.mediatracker.repository.ProjectionRepository;
+import com.amir.mediatracker.repository.RaterActivityRepository;
 import com.amir.mediatracker.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -18,48 +22,82 @@ import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.Comparator;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class NotificationService {
 
+    /**
+     * The time and read flag of a notification or pulled entry, which unread notifications are counted by
+     */
+    private record ReadState(LocalDateTime createdAt, boolean isRead) {}
+
     @Value("${app.notification.fetch-limit}")
     private int fetchLimit;
 
+    @Value("${app.notification.fan-out-chunk-size}")
+    private int fanOutChunkSize;
+
+    @Value("${app.notification.pull-follower-threshold}")
+    private int pullFollowerThreshold;
+
     private final NotificationRepository notificationRepository;
+    private final NotificationFanOutRepository notificationFanOutRepository;
+    private final RaterActivityRepository raterActivityRepository;
     private final UserRepository userRepository;
     private final MediaItemRepository mediaItemRepository;
+    private final ProjectionRepository projectionRepository;
 
     /**
-     * Create a notification for a user.
-     * If already exists - ignore (probably a retry attempt)
-     * @param userId The id of the user that will see this notification
-     * @param message The message displayed as part of this notification
-     * @param mediaItemId The media item id for which this notification was created
-     * @param rating The rating That caused this notification
+     * Create a notification of a rating for every follower of the rater whose threshold the rating meets.
+     * Written with one statement per chunk of followers, taken by follower id range, whatever the number of followers.
+     * Followers who already have it are skipped (probably a retry attempt).
+     * If the rater has more followers than the pull threshold, the rating is logged once instead,
+     * and the followers pull it when they read their notifications
      * @param ratedByUserId The id of the user that rated the media item
+     * @param mediaItemId The media item id for which the notifications are created
+     * @param rating The rating that caused the notifications
+     * @param message The message displayed as part of the notifications
+     * @return Number of created notifications. 0 if the rating was logged for the followers to pull
      */
     @Transactional
-    public void createNotification(Long userId, String message,
-                                   Long mediaItemId, Short rating, Long ratedByUserId) {
+    public int notifyFollowers(Long ratedByUserId, Long mediaItemId, Short rating, String message) {
+        if (notificationFanOutRepository.countFollowers(ratedByUserId, pullFollowerThreshold + 1) > pullFollowerThreshold) {
+            boolean logged = raterActivityRepository.append(ratedByUserId, mediaItemId, rating, message);
+            log.info("Logged rating of user {} for its followers to pull (logged: {}): {}", ratedByUserId, logged, message);
+            return 0;
+        }
 
-        int rows = notificationRepository.insertIfNotExists(userId, ratedByUserId, mediaItemId, rating, message);
+        int inserted = 0;
+        long afterFollowerId = 0;
+        NotificationFanOutRepository.Chunk chunk;
+        do {
+            chunk = notificationFanOutRepository.insertForFollowers(
+                    ratedByUserId, mediaItemId, rating, message, afterFollowerId, fanOutChunkSize);
+            inserted += chunk.inserted();
+            if (chunk.lastFollowerId() != null) {
+                afterFollowerId = chunk.lastFollowerId();
+            }
+        } while (chunk.followers() == fanOutChunkSize);
 
-        if (rows == 0) {
-            log.debug("Notification already exists (idempotent skip)");
-            return;
-        }
-        log.info("Created notification for user {}: {}", userId, message);
+        log.info("Created {} notifications for followers of user {}: {}", inserted, ratedByUserId, message);
+        return inserted;
     }
 
     /**
      * Get notifications for a user, up to a default limit.
+     * The user's notifications are merged with the entries pulled from the activity log of followed raters.
      * Fetching notifications and then filtering unread, so to not fetch unread notification that are beyond the limit.
      * For example: limit is 10, and there are 20 notifications. All recent 10 notifications are read, and 10 are unread.
      * In this case, if onlyUnread is true, no notifications will be returned.
@@ -69,37 +107,51 @@ public class NotificationService {
      */
     public List<NotificationResponse> getNotifications(Long userId, boolean onlyUnread) {
 
-        List<Notification> notifications = notificationRepository.findByUserIdOrderByCreatedAtDesc(userId, Limit.of(fetchLimit));
+        List<NotificationResponse> notifications = projectionRepository.findLatestNotifications(userId, fetchLimit);
+        List<NotificationRow> pulled = raterActivityRepository.findLatestPulled(userId, fetchLimit);
+        if (!pulled.isEmpty()) {
+            notifications = Stream.concat(notifications.stream(), toResponses(pulled).stream())
+                    .sorted(Comparator.comparing(NotificationResponse::getCreatedAt,
+                            Comparator.nullsLast(Comparator.reverseOrder())))
+                    .limit(fetchLimit)
+                    .toList();
+        }
         if (onlyUnread) {
             notifications = notifications.stream()
                     .filter(n -> !n.getIsRead())
                     .toList();
         }
-
-        return notifications.stream()
-                .map(this::mapToResponse)
-                .toList();
+        return notifications;
     }
 
     /**
-     * Mark a notification as read
+     * Mark a notification as read. A pulled entry, listed with its own id, is marked as read for the user
      * @param userId The id of the user for whom to fetch notification
      * @param notificationId The id of the notification to fetch
      * @return The notification that was marked as read
      */
     @Transactional
     public NotificationResponse markAsRead(Long userId, Long notificationId) {
-        Notification notification = notificationRepository
-                .findByIdAndUserId(notificationId, userId)
-                .orElseThrow(() -> new ResourceNotFoundException("Notification not found"));
+        Optional<Notification> notification = notificationRepository.findByIdAndUserId(notificationId, userId);
+        if (notification.isPresent()) {
+            notification.get().setIsRead(true);
+            return mapToResponse(notification.get());
+        }
 
-        notification.setIsRead(true);
-        return mapToResponse(notification);
+        NotificationRow pulled = raterActivityRepository.findLatestPulled(userId, fetchLimit).stream()
+                .filter(row -> row.id().equals(notificationId))
+                .findFirst()
+                .orElseThrow(() -> new ResourceNotFoundException("Notification not found"));
+        raterActivityRepository.markAsRead(userId, notificationId);
+        NotificationResponse response = toResponses(List.of(pulled)).getFirst();
+        response.setIsRead(true);
+        return response;
     }
 
     /**
      * Mark all visible notifications as read.
-     * Since only latest notifications are visible (up to limit), only those are marked as read.
+     * Since only latest notifications are visible (up to limit), only those are marked as read,
+     * and so are the latest pulled entries.
      * @param userId The id of the user for whom to fetch notification
      */
     @Transactional
@@ -108,20 +160,45 @@ public class NotificationService {
                 .findByUserIdAndIsReadFalseOrderByCreatedAtDesc(userId, Limit.of(fetchLimit));
 
         notifications.forEach(n -> n.setIsRead(true));
+        raterActivityRepository.markLatestAsRead(userId, fetchLimit);
     }
 
     /**
-     * Fetch the count of all unread notifications, up to the default limit
+     * Fetch the count of all unread notifications, up to the default limit.
+     * Counted over the same merge of notifications and pulled entries as {@link #getNotifications}
      * @param userId The id of the user for whom to fetch notification
      * @return The count of unread notifications
      */
     public long getUnreadCount(Long userId) {
-        return notificationRepository.findByUserIdOrderByCreatedAtDesc(userId, Limit.of(fetchLimit))
-                .stream()
-                .filter(n -> !n.getIsRead())
+        List<Notification> notifications =
+                notificationRepository.findByUserIdOrderByCreatedAtDesc(userId, Limit.of(fetchLimit));
+        List<NotificationRow> pulled = raterActivityRepository.findLatestPulled(userId, fetchLimit);
+        if (pulled.isEmpty()) {
+            return notifications.stream()
+                    .filter(n -> !n.getIsRead())
+                    .count();
+        }
+        return Stream.concat(
+                        notifications.stream().map(n -> new ReadState(n.getCreatedAt(), n.getIsRead())),
+                        pulled.stream().map(row -> new ReadState(row.createdAt(), row.isRead())))
+                .sorted(Comparator.comparing(ReadState::createdAt, Comparator.nullsLast(Comparator.reverseOrder())))
+                .limit(fetchLimit)
+                .filter(state -> !state.isRead())
                 .count();
     }
 
+    private List<NotificationResponse> toResponses(List<NotificationRow> rows) {
+        Map<Long, MediaItemResponse> mediaItems = projectionRepository.findMediaItems(rows.stream()
+                        .map(NotificationRow::mediaItemId)
+                        .distinct()
+                        .toList())
+                .stream()
+                .collect(Collectors.toMap(MediaItemResponse::getId, Function.identity()));
+        return rows.stream()
+                .map(row -> row.toResponse(mediaItems.get(row.mediaItemId())))
+                .toList();
+    }
+
     private NotificationResponse mapToResponse(Notification notification) {
         return NotificationResponse.builder()
                 .id(notification.getId())
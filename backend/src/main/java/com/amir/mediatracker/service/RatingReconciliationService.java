@@ -0,0 +1,44 @@
+package com.amir.mediatracker.service;
+
+import com.amir.mediatracker.event.AverageRatingChangedEvent;
+import com.amir.mediatracker.repository.MediaItemRatingRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Recomputes the rating totals of media items from scratch.
+ * The rating consumer only applies the change each rating event carries, so totals can drift
+ * when an event is delivered twice, or when ratings go without an event, like those of a deleted user.
+ * Rating events still in the topic are counted by the recomputation, so the consumer skips them afterwards.
+ * Runs every app.ratings.reconcile-cron
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RatingReconciliationService {
+
+    private final MediaItemRatingRepository mediaItemRatingRepository;
+    private final ApplicationEventPublisher applicationEventPublisher;
+
+    /**
+     * Correct the rating totals and average of every media item that drifted
+     * @return Number of corrected media items
+     */
+    @Scheduled(cron = "${app.ratings.reconcile-cron:0 30 3 * * *}")
+    @Transactional
+    public int reconcile() {
+        List<MediaItemRatingRepository.RatingTotals> corrected = mediaItemRatingRepository.reconcileAll();
+        for (MediaItemRatingRepository.RatingTotals totals : corrected) {
+            applicationEventPublisher.publishEvent(
+                    new AverageRatingChangedEvent(totals.mediaItemId(), totals.avgRating()));
+        }
+        log.info("Reconciled rating totals, {} media items corrected", corrected.size());
+        return corrected.size();
+    }
+}
@@ -1,6 +1,7 @@
 package com.amir.mediatracker.service;
 
 import com.amir.mediatracker.aop.LogAround;
+import com.amir.mediatracker.event.RatingEventBatch;
 import com.amir.mediatracker.kafka.RatingProducer;
 import com.amir.mediatracker.kafka.event.RatingEvent;
 import lombok.RequiredArgsConstructor;
@@ -24,4 +25,13 @@ public class RatingService {
     public void handleRatingEvent(RatingEvent event) {
         ratingProducer.sendRatingEvent(event);
     }
+
+    /**
+     * Same as {@link #handleRatingEvent(RatingEvent)}, for the ratings of a bulk list update
+     * @param batch RatingEventBatch
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void handleRatingEventBatch(RatingEventBatch batch) {
+        ratingProducer.sendRatingEvents(batch.events());
+    }
 }
@@ -0,0 +1,92 @@
+package com.amir.mediatracker.service;
+
+import com.amir.mediatracker.dto.ListExportFormat;
+import com.amir.mediatracker.dto.projection.UserMediaListExportRow;
+import com.amir.mediatracker.repository.UserMediaListExportRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+/**
+ * Writes a whole user list in one response, reading it through a forward-only cursor,
+ * instead of the client paging through it max-limit items at a time
+ */
+@Service
+@RequiredArgsConstructor
+public class UserListExportService {
+
+    static final String CSV_HEADER = "media_item_id,category,name,year,genres,platforms,"
+            + "experienced,wish_to_reexperience,rating,comment,added_at,updated_at";
+
+    @Value("${app.user-list.export-fetch-size}")
+    private int fetchSize;
+
+    private final UserMediaListExportRepository userMediaListExportRepository;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Write every entry of a user list, in (name, media item id) order.
+     * Rows are written as they are read, so memory does not grow with the list.
+     * The writer is not flushed or closed
+     * @param userId The user whose list is exported
+     * @param format CSV, with a header line, or NDJSON, one JSON object per line
+     * @param writer The writer to write to
+     * @return Number of exported entries
+     * @throws IOException if writing fails
+     */
+    @Transactional(readOnly = true)
+    public long export(Long userId, ListExportFormat format, Writer writer) throws IOException {
+        ObjectWriter jsonWriter = objectMapper.writerFor(UserMediaListExportRow.class);
+        if (format == ListExportFormat.CSV) {
+            writer.write(CSV_HEADER);
+            writer.write('\n');
+        }
+        long count = 0;
+        try (Stream<UserMediaListExportRow> rows = userMediaListExportRepository.streamByUserId(userId, fetchSize)) {
+            Iterator<UserMediaListExportRow> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                UserMediaListExportRow row = iterator.next();
+                writer.write(format == ListExportFormat.CSV ? toCsv(row) : jsonWriter.writeValueAsString(row));
+                writer.write('\n');
+                count++;
+            }
+        }
+        return count;
+    }
+
+    static String toCsv(UserMediaListExportRow row) {
+        return String.join(",",
+                Objects.toString(row.mediaItemId(), ""),
+                row.category().name(),
+                csvField(row.name()),
+                Objects.toString(row.year(), ""),
+                csvField(String.join(",", row.genres())),
+                csvField(String.join(",", row.platforms())),
+                Objects.toString(row.experienced(), ""),
+                Objects.toString(row.wishToReexperience(), ""),
+                Objects.toString(row.rating(), ""),
+                csvField(row.comment()),
+                Objects.toString(row.addedAt(), ""),
+                Objects.toString(row.updatedAt(), ""));
+    }
+
+    /**
+     * A field quoted as in RFC 4180 when it holds a separator, a quote or a line break
+     */
+    static String csvField(String value) {
+        if (value == null) {
+            return "";
+        }
+        boolean quote = value.chars().anyMatch(c -> c == ',' || c == '"' || c == '\n' || c == '\r');
+        return quote ? '"' + value.replace("\"", "\"\"") + '"' : value;
+    }
+}
@@ -0,0 +1,85 @@
+package com.amir.mediatracker.service;
+
+import com.amir.mediatracker.batch.constant.JobParameterNames;
+import com.amir.mediatracker.batch.util.BatchUtil;
+import com.amir.mediatracker.dto.response.ImportStatusResponse;
+import com.amir.mediatracker.dto.response.JobStatusResponse;
+import com.amir.mediatracker.exception.ResourceNotFoundException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.JobParametersBuilder;
+import org.springframework.batch.core.explore.JobExplorer;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+/**
+ * Imports entries into a user list from a CSV file, through the userMediaListImportJob batch job.
+ * Progress is reported by correlationId, like the admin media item import
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class UserListImportService {
+
+    private final AsyncBatchService asyncBatchService;
+    private final FileStorageService fileStorageService;
+    private final JobExplorer jobExplorer;
+
+    /**
+     * Store the file and start importing it into the user list asynchronously
+     * @param userId The user whose list is imported into
+     * @param file The CSV file, with name, category, experienced, rating and comment columns
+     * @return correlationId and status
+     */
+    public ImportStatusResponse startImport(Long userId, MultipartFile file) {
+        String tempFilePath = fileStorageService.storeTempFile(file);
+
+        long correlationId = asyncBatchService.nextCorrelationId();
+
+        JobParameters params = new JobParametersBuilder()
+                .addString(JobParameterNames.FILE_PATH, tempFilePath)
+                .addLong(JobParameterNames.USER_ID, userId)
+                .toJobParameters();
+
+        asyncBatchService.startUserListImportJob(correlationId, params);
+
+        return ImportStatusResponse.builder()
+                .correlationId(correlationId)
+                .status(BatchStatus.STARTING.toString())
+                .build();
+    }
+
+    /**
+     * Retrieves the current status of an import, along with the amount of reads, writes and skips performed.
+     * Imports of other users are not found
+     * @param userId The user who started the import
+     * @param correlationId The key that maps to the jobExecutionId
+     * @return The complete job status
+     */
+    public JobStatusResponse getImportStatus(Long userId, Long correlationId) {
+
+        Long jobExecutionId = asyncBatchService.resolveJobExecutionId(correlationId);
+
+        //Assuming status was requested too fast, before jobExecutionId was generated and mapped
+        if (jobExecutionId == null) {
+            log.warn("getImportStatus() was called with correlationId={}, but no map to jobExecutionId was found", correlationId);
+            return JobStatusResponse.builder()
+                    .correlationId(correlationId)
+                    .status(BatchStatus.STARTING.toString())
+                    .build();
+        }
+
+        JobExecution execution = jobExplorer.getJobExecution(jobExecutionId);
+        if (execution == null
+                || !userId.equals(execution.getJobParameters().getLong(JobParameterNames.USER_ID))) {
+            throw new ResourceNotFoundException(
+                    "Import not found for correlationId " + correlationId
+            );
+        }
+
+        return BatchUtil.toJobStatusResponse(correlationId, execution);
+    }
+}
@@ -6,29 +6,45 @@ import com.amir.mediatracker.dto.UserSearchMediaSortBy;
 import com.amir.mediatracker.dto.request.UpdateMediaListRequest;
 import com.amir.mediatracker.dto.response.*;
 import com.amir.mediatracker.entity.*;
+import com.amir.mediatracker.event.RatingEventBatch;
+import com.amir.mediatracker.event.UserListChangedEvent;
+import com.amir.mediatracker.event.UserListMembershipChangedEvent;
+import com.amir.mediatracker.exception.BadRequestException;
 import com.amir.mediatracker.exception.DuplicateResourceException;
 import com.amir.mediatracker.exception.ForbiddenException;
 import com.amir.mediatracker.exception.ResourceNotFoundException;
 import com.amir.mediatracker.kafka.RatingProducer;
 import com.amir.mediatracker.kafka.event.RatingEvent;
+import com.amir.mediatracker.repository.KeysetPageRepository;
 import com.amir.mediatracker.repository.MediaItemRepository;
+import com.amir.mediatracker.repository.ProjectionRepository;
+import com.amir.mediatracker.repository.UserMediaListBulkRepository;
 import com.amir.mediatracker.repository.UserMediaListRepository;
+import com.amir.mediatracker.repository.UserMediaListViewRepository;
 import com.amir.mediatracker.repository.UserRepository;
+import com.amir.mediatracker.search.KeysetCursor;
+import com.amir.mediatracker.search.KeysetPage;
+import com.amir.mediatracker.search.SearchCountCache;
+import com.amir.mediatracker.search.UserListSnapshotCache;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.time.LocalDateTime;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -39,27 +55,35 @@ public class UserMediaListService {
     @Value("${app.search.max-limit}")
     private int maxLimit;
 
+    @Value("${app.user-list.bulk-max-items}")
+    private int bulkMaxItems;
+
     private final UserMediaListRepository userMediaListRepository;
     private final MediaItemRepository mediaItemRepository;
     private final UserRepository userRepository;
     private final ApplicationEventPublisher applicationEventPublisher;
+    private final SearchCountCache searchCountCache;
+    private final KeysetPageRepository keysetPageRepository;
+    private final ProjectionRepository projectionRepository;
+    private final UserMediaListViewRepository userMediaListViewRepository;
+    private final UserListSnapshotCache userListSnapshotCache;
+    private final UserMediaListBulkRepository userMediaListBulkRepository;
+    private final LastActiveTracker lastActiveTracker;
 
     /**
      * Update last_active field in user table.
-     * Should be called whenever a user performs an action on it's list
+     * Should be called whenever a user performs an action on it's list.
+     * Written behind by {@link LastActiveTracker}, outside the list transaction
      * @param userId Id of the user
      */
     private void updateLastActive(Long userId) {
-        User user = userRepository.findById(userId).orElse(null);
-        if (user != null) {
-            user.setLastActive(LocalDateTime.now());
-            userRepository.save(user);
-        }
+        lastActiveTracker.touch(userId);
     }
 
     /**
      * Retrieve a user list with cursor pagination.
      * Supports filtering by name, categories, genres, platforms and wishToExperience.
+     * Read from the in-memory copy of the list when {@link UserListSnapshotCache} is enabled
      * @param displayUserId The user for which to display the list. Must be visible if different from requestorUserId
      * @param requestorUserId The user who initiated the call
      * @param searchQuery name search criteria. For example: "The Matri" might return the movie The Matrix
@@ -72,6 +96,7 @@ public class UserMediaListService {
      * @param limit Number of items to return
      * @return UserMediaListSearchResponse
      */
+    @Transactional(readOnly = true)
     public UserMediaListSearchResponse getUserMediaListCursor(
             Long displayUserId,
             Long requestorUserId,
@@ -86,7 +111,6 @@ public class UserMediaListService {
     ) {
         limit = Math.min(Math.max(limit, 1), maxLimit); //avoid negative and overflow
         displayUserId = decideWhichUserToShow(displayUserId, requestorUserId);
-        Pageable pageable = PageRequest.of(0, limit + 1);
 
         // Safe inputs
         Set<Long> safeGenres = (genreIds == null  || genreIds.isEmpty()) ? null : genreIds;
@@ -96,49 +120,37 @@ public class UserMediaListService {
         String safeSearchQuery = searchQuery == null ? "" : searchQuery;
         String safeCursorName = cursorName == null ? "" : cursorName;
         Long safeCursorId = cursorId == null ? 0L : cursorId;
+        UserMediaListViewRepository.Filter filter = new UserMediaListViewRepository.Filter(displayUserId,
+                safeSearchQuery, safeCategories, safeGenres, safePlatforms, safeWishToExperience);
+
+        List<Long> ids;
+        long totalCount;
+        if (userListSnapshotCache.isEnabled()) {
+            UserListSnapshotCache.Page snapshotPage = userListSnapshotCache.findAfterName(
+                    filter, safeCursorName, safeCursorId, limit + 1);
+            ids = snapshotPage.ids();
+            totalCount = snapshotPage.totalCount();
+        } else {
+            // Get total count with filters. Cached until the list changes, so scrolling does not count again
+            totalCount = countUserList(filter);
+
+            // Fetch ids with cursor and filters (sorted by name by default)
+            ids = userMediaListViewRepository.findIdsAfterName(filter, safeCursorName, safeCursorId, limit + 1);
+        }
 
-        // Get total count with filters
-        long totalCount = userMediaListRepository.countByUserIdWithFilters(
-                displayUserId,
-                safeSearchQuery,
-                safeCategories,
-                safeGenres,
-                safePlatforms,
-                safeGenres == null ? 0 : safeGenres.size(),
-                safePlatforms == null ? 0 : safePlatforms.size(),
-                safeWishToExperience
-        );
-
-        // Fetch items with cursor and filters (sorted by name by default)
-        List<UserMediaList> items = userMediaListRepository.findByUserIdWithFilters(
-                displayUserId,
-                safeSearchQuery,
-                safeCategories,
-                safeGenres,
-                safePlatforms,
-                safeGenres == null ? 0 : safeGenres.size(),
-                safePlatforms == null ? 0 : safePlatforms.size(),
-                safeWishToExperience,
-                safeCursorName,
-                safeCursorId,
-                pageable
-        );
-
-        boolean hasMore = items.size() > limit;
+        boolean hasMore = ids.size() > limit;
         if (hasMore) {
-            items = items.subList(0, limit);
+            ids = ids.subList(0, limit);
         }
 
-        List<UserMediaListResponse> responses = items.stream()
-                .map(this::mapToResponse)
-                .collect(Collectors.toList());
+        List<UserMediaListResponse> responses = projectionRepository.findUserListItems(ids);
 
         UserMediaListSearchResponse.Cursor nextCursor = null;
-        if (hasMore && !items.isEmpty()) {
-            UserMediaList last = items.getLast();
+        if (hasMore && !responses.isEmpty()) {
+            MediaItemResponse last = responses.getLast().getMediaItem();
             nextCursor = new UserMediaListSearchResponse.Cursor(
-                    last.getMediaItem().getName(),
-                    last.getMediaItem().getId()
+                    last.getName(),
+                    last.getId()
             );
         }
 
@@ -152,7 +164,10 @@ public class UserMediaListService {
 
     /**
      * Retrieves a user list with sorting option.
-     * Supports paging
+     * Ties are broken by list item id in the sort direction, and items without a value come last on ASC and first on DESC.
+     * The first page may be requested by number. Following pages should be requested with the keyset cursor
+     * of the previous page, which reads from where that page ended instead of skipping rows with an OFFSET.
+     * Read from the in-memory copy of the list when {@link UserListSnapshotCache} is enabled
      * @param displayUserId The user for which to display the list. Must be visible if different from requestorUserId
      * @param requestorUserId The user who initiated the call
      * @param searchQuery name search criteria. For example: "The Matri" might return the movie The Matrix
@@ -160,12 +175,14 @@ public class UserMediaListService {
      * @param genreIds Optional filter for genres. For example: Return only items that contain exactly these genres: Action and Drama
      * @param platformIds Optional filter for platforms. For example: Return only items that contain exactly these platforms: Netflix and HBO Max
      * @param wishToExperience Optional filter to display only items that have not been experienced or are not checked with re-experience
-     * @param page The page to return
+     * @param page The page to return. Ignored if a cursor is given
      * @param size The size of the page
      * @param sortBy By which column to perform the sort - Name, Year, Experienced, Reexperience, Rating. Default is Name
      * @param sortDirection Whether the sort it ASC or DESC. Default is ASC
+     * @param after Optional keyset cursor of the previous page, see {@link KeysetCursor}
      * @return A page of UserMediaListResponse
      */
+    @Transactional(readOnly = true)
     public Page<UserMediaListResponse> getUserMediaListSorted(
             Long displayUserId,
             Long requestorUserId,
@@ -177,7 +194,8 @@ public class UserMediaListService {
             int page,
             int size,
             UserSearchMediaSortBy sortBy,
-            SortDirection sortDirection
+            SortDirection sortDirection,
+            String after
     ) {
         size = Math.min(Math.max(size, 1), maxLimit); //avoid negative and overflow
         displayUserId = decideWhichUserToShow(displayUserId, requestorUserId);
@@ -189,41 +207,55 @@ public class UserMediaListService {
         Set<Long> safePlatforms = (platformIds == null  || platformIds.isEmpty()) ? null : platformIds;
         boolean safeWishToExperience = wishToExperience != null && wishToExperience;
         UserSearchMediaSortBy safeSortBy = sortBy == null ? UserSearchMediaSortBy.NAME : sortBy;
+        SortDirection safeSortDirection = sortDirection == null ? SortDirection.ASC : sortDirection;
+        UserMediaListViewRepository.Filter filter = new UserMediaListViewRepository.Filter(displayUserId,
+                safeSearchQuery, safeCategories, safeGenres, safePlatforms, safeWishToExperience);
+
+        // Pages after a cursor read one id more than the page, to know whether another page follows
+        if (userListSnapshotCache.isEnabled()) {
+            if (after == null) {
+                UserListSnapshotCache.Page snapshotPage = userListSnapshotCache.findSorted(
+                        filter, safeSortBy, safeSortDirection, null, (long) page * size, size);
+                return new PageImpl<>(projectionRepository.findUserListItems(snapshotPage.ids()),
+                        PageRequest.of(page, size), snapshotPage.totalCount());
+            }
+            KeysetCursor cursor = KeysetCursor.decode(after, safeSortBy, safeSortDirection);
+            UserListSnapshotCache.Page snapshotPage = userListSnapshotCache.findSorted(
+                    filter, safeSortBy, safeSortDirection, cursor, 0, size + 1);
+            return keysetPage(snapshotPage.ids(), cursor, size, snapshotPage.totalCount());
+        }
 
-        // Build sort
-        Sort.Direction direction = SortDirection.DESC.equals(sortDirection)
-                ? Sort.Direction.DESC
-                : Sort.Direction.ASC;
-        Sort sort = buildSort(safeSortBy, direction);
-
-        // Fetch page with sorting
-        Pageable pageable = PageRequest.of(page, size, sort);
-        Page<UserMediaList> itemsPage = userMediaListRepository.findByUserIdWithFiltersSorted(
-                displayUserId,
-                safeSearchQuery,
-                safeCategories,
-                safeGenres,
-                safePlatforms,
-                safeGenres == null ? 0 : safeGenres.size(),
-                safePlatforms == null ? 0 : safePlatforms.size(),
-                safeWishToExperience,
-                pageable
-        );
+        if (after != null) {
+            KeysetCursor cursor = KeysetCursor.decode(after, safeSortBy, safeSortDirection);
+            List<Long> ids = keysetPageRepository.findUserListIdsAfter(displayUserId, safeSearchQuery, safeCategories,
+                    safeGenres, safePlatforms, safeWishToExperience, safeSortBy, safeSortDirection, cursor, size + 1);
+            return keysetPage(ids, cursor, size, countUserList(filter));
+        }
 
-        return itemsPage.map(this::mapToResponse);
+        // Fetch page ids with sorting
+        List<Long> ids = userMediaListViewRepository.findIdsSorted(filter, safeSortBy, safeSortDirection,
+                (long) page * size, size);
+        return new PageImpl<>(projectionRepository.findUserListItems(ids), PageRequest.of(page, size),
+                countUserList(filter));
     }
 
-    private Sort buildSort(UserSearchMediaSortBy sortBy, Sort.Direction direction) {
-
-        String property = switch (sortBy) {
-            case UserSearchMediaSortBy.YEAR -> "mediaItem.year";
-            case UserSearchMediaSortBy.EXPERIENCED -> "experienced";
-            case UserSearchMediaSortBy.REEXPERIENCE -> "wishToReexperience";
-            case UserSearchMediaSortBy.RATING -> "rating";
-            default -> "mediaItem.name";
-        };
+    /**
+     * The page of list items that follows a cursor, from ids read with one id more than the page
+     */
+    private Page<UserMediaListResponse> keysetPage(List<Long> ids, KeysetCursor cursor, int size, long totalCount) {
+        boolean hasNext = ids.size() > size;
+        return new KeysetPage<>(projectionRepository.findUserListItems(hasNext ? ids.subList(0, size) : ids),
+                PageRequest.of(cursor.page(), size), totalCount, hasNext);
+    }
 
-        return Sort.by(direction, property).and(Sort.by(Sort.Direction.ASC, "id")); //allows order consistency
+    /**
+     * Count the items of a user list that match the filters.
+     * Cached until the list changes, so scrolling does not count again
+     */
+    private long countUserList(UserMediaListViewRepository.Filter filter) {
+        return searchCountCache.userListCount(filter.userId(), filter.searchQuery(), filter.categories(),
+                filter.genreIds(), filter.platformIds(), filter.wishToExperience(),
+                () -> userMediaListViewRepository.count(filter));
     }
 
     /**
@@ -249,6 +281,10 @@ public class UserMediaListService {
         listItem.setWishToReexperience(false);
         try {
             UserMediaList saved = userMediaListRepository.save(listItem);
+            userMediaListViewRepository.upsertListItems(List.of(saved.getId()));
+            applicationEventPublisher.publishEvent(new UserListChangedEvent(userId, List.of(saved.getId()), List.of()));
+            applicationEventPublisher.publishEvent(
+                    new UserListMembershipChangedEvent(userId, List.of(mediaItemId), List.of()));
             return mapToResponse(saved);
         } catch (DataIntegrityViolationException e) {
             throw new DuplicateResourceException("Media item already in user list");
@@ -271,6 +307,24 @@ public class UserMediaListService {
                 .findByIdAndUserId(request.getId(), userId)
                 .orElseThrow(() -> new ResourceNotFoundException("Media list item not found"));
 
+        // If rating is being set, updated or withdrawn, trigger Kafka event
+        Short previousRating = listItem.getRating();
+        applyUpdate(listItem, request);
+        if (!Objects.equals(previousRating, listItem.getRating())) {
+            applicationEventPublisher.publishEvent(createRatingEvent(userId, listItem, previousRating));
+        }
+
+        UserMediaList saved = userMediaListRepository.save(listItem);
+        userMediaListViewRepository.updateListItem(saved.getId(),
+                saved.getExperienced(), saved.getWishToReexperience(), saved.getRating());
+        applicationEventPublisher.publishEvent(new UserListChangedEvent(userId, List.of(saved.getId()), List.of()));
+        return mapToResponse(saved);
+    }
+
+    /**
+     * Apply the non-null values of an update request to a list item
+     */
+    private void applyUpdate(UserMediaList listItem, UpdateMediaListRequest request) {
         if (request.getExperienced() != null) {
             listItem.setExperienced(request.getExperienced());
             if (Boolean.FALSE.equals(request.getExperienced())) {
@@ -290,16 +344,10 @@ public class UserMediaListService {
                 listItem.setWishToReexperience(request.getWishToReexperience());
             }
 
-            // If rating is being set/updated, trigger Kafka event
-            if (request.getRating() != null
-                    && !request.getRating().equals(listItem.getRating())) {
+            if (request.getRating() != null) {
                 listItem.setRating(request.getRating());
-                applicationEventPublisher.publishEvent(createRatingEvent(userId, listItem));
             }
         }
-
-        UserMediaList saved = userMediaListRepository.save(listItem);
-        return mapToResponse(saved);
     }
 
     @Transactional
@@ -309,7 +357,131 @@ public class UserMediaListService {
                 .findByIdAndUserId(listItemId, userId)
                 .orElseThrow(() -> new ResourceNotFoundException("Media list item not found"));
 
+        userMediaListViewRepository.deleteListItems(userId, List.of(listItemId));
         userMediaListRepository.delete(listItem);
+        applicationEventPublisher.publishEvent(new UserListChangedEvent(userId, List.of(), List.of(listItemId)));
+        applicationEventPublisher.publishEvent(
+                new UserListMembershipChangedEvent(userId, List.of(), List.of(listItem.getMediaItem().getId())));
+        if (listItem.getRating() != null) {
+            applicationEventPublisher.publishEvent(
+                    ratingWithdrawnEvent(userId, listItem.getMediaItem().getId(), listItem.getRating()));
+        }
+    }
+
+    /**
+     * Add many media items to a user list in one transaction and one insert.
+     * Items are saved with default values. Items already in the list are skipped
+     * @param userId Id of the user for which to attach the media items
+     * @param mediaItemIds The media item ids to add to user list
+     * @return The added items, in the order of mediaItemIds
+     */
+    @Transactional
+    public List<UserMediaListResponse> addMediaToListBulk(Long userId, List<Long> mediaItemIds) {
+        List<Long> distinctIds = distinctBulkIds(mediaItemIds);
+        updateLastActive(userId);
+        userRepository.findById(userId)
+                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
+        if (mediaItemRepository.countByIdIn(distinctIds) < distinctIds.size()) {
+            throw new ResourceNotFoundException("Media item not found");
+        }
+
+        Map<Long, Long> added = userMediaListBulkRepository.insertAll(userId, distinctIds).stream()
+                .collect(Collectors.toMap(UserMediaListBulkRepository.ListItemRef::mediaItemId,
+                        UserMediaListBulkRepository.ListItemRef::id));
+        if (added.isEmpty()) {
+            return List.of();
+        }
+
+        List<Long> addedIds = distinctIds.stream().filter(added::containsKey).map(added::get).toList();
+        userMediaListViewRepository.upsertListItems(addedIds);
+        applicationEventPublisher.publishEvent(new UserListChangedEvent(userId, addedIds, List.of()));
+        applicationEventPublisher.publishEvent(
+                new UserListMembershipChangedEvent(userId, added.keySet(), List.of()));
+        return projectionRepository.findUserListItems(addedIds);
+    }
+
+    /**
+     * Update many list items in one transaction, by the same rules as {@link #updateMediaListItem}.
+     * The updates are written as one JDBC batch, and the new ratings are sent to Kafka together once committed
+     * @param userId The user id for which the list belongs
+     * @param requests UpdateMediaListRequests, at most one per list item
+     * @return The updated items, in the order of requests
+     */
+    @Transactional
+    public List<UserMediaListResponse> updateMediaListItemsBulk(Long userId, List<UpdateMediaListRequest> requests) {
+        List<Long> ids = distinctBulkIds(requests.stream().map(UpdateMediaListRequest::getId).toList());
+        if (ids.size() < requests.size()) {
+            throw new BadRequestException("Each list item may only be updated once");
+        }
+        updateLastActive(userId);
+
+        Map<Long, UserMediaList> listItems = userMediaListRepository.findAllByIdInAndUserIdWithMediaItem(ids, userId)
+                .stream()
+                .collect(Collectors.toMap(UserMediaList::getId, Function.identity()));
+        if (listItems.size() < ids.size()) {
+            throw new ResourceNotFoundException("Media list item not found");
+        }
+
+        List<RatingEvent> ratingEvents = new ArrayList<>();
+        for (UpdateMediaListRequest request : requests) {
+            UserMediaList listItem = listItems.get(request.getId());
+            Short previousRating = listItem.getRating();
+            applyUpdate(listItem, request);
+            if (!Objects.equals(previousRating, listItem.getRating())) {
+                ratingEvents.add(createRatingEvent(userId, listItem, previousRating));
+            }
+        }
+
+        userMediaListRepository.saveAll(listItems.values());
+        userMediaListViewRepository.upsertListItems(ids);
+        if (!ratingEvents.isEmpty()) {
+            applicationEventPublisher.publishEvent(new RatingEventBatch(ratingEvents));
+        }
+        applicationEventPublisher.publishEvent(new UserListChangedEvent(userId, ids, List.of()));
+        return projectionRepository.findUserListItems(ids);
+    }
+
+    /**
+     * Remove many items from a user list in one transaction and one delete.
+     * Ids that are not in the list are skipped
+     * @param userId The user id for which the list belongs
+     * @param listItemIds Ids of the userMediaList entities
+     * @return Number of removed items
+     */
+    @Transactional
+    public int removeMediaFromListBulk(Long userId, List<Long> listItemIds) {
+        List<Long> distinctIds = distinctBulkIds(listItemIds);
+        updateLastActive(userId);
+
+        userMediaListViewRepository.deleteListItems(userId, distinctIds);
+        List<UserMediaListBulkRepository.ListItemRef> removed = userMediaListBulkRepository.deleteAll(userId, distinctIds);
+        if (!removed.isEmpty()) {
+            applicationEventPublisher.publishEvent(new UserListChangedEvent(userId, List.of(),
+                    removed.stream().map(UserMediaListBulkRepository.ListItemRef::id).toList()));
+            applicationEventPublisher.publishEvent(new UserListMembershipChangedEvent(userId, List.of(),
+                    removed.stream().map(UserMediaListBulkRepository.ListItemRef::mediaItemId).toList()));
+            List<RatingEvent> withdrawnRatings = removed.stream()
+                    .filter(ref -> ref.rating() != null)
+                    .map(ref -> ratingWithdrawnEvent(userId, ref.mediaItemId(), ref.rating()))
+                    .toList();
+            if (!withdrawnRatings.isEmpty()) {
+                applicationEventPublisher.publishEvent(new RatingEventBatch(withdrawnRatings));
+            }
+        }
+        return removed.size();
+    }
+
+    private List<Long> distinctBulkIds(List<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            throw new BadRequestException("At least one item is required");
+        }
+        if (ids.size() > bulkMaxItems) {
+            throw new BadRequestException("Cannot change more than " + bulkMaxItems + " items at once");
+        }
+        if (ids.stream().anyMatch(Objects::isNull)) {
+            throw new BadRequestException("Item id is required");
+        }
+        return ids.stream().distinct().toList();
     }
 
     private UserMediaListResponse mapToResponse(UserMediaList item) {
@@ -350,10 +522,12 @@ public class UserMediaListService {
     }
 
     public List<GenreResponse> getUserGenres(Long userId, String searchQuery, Set<Category> categories) {
-        String safeSearchQuery = searchQuery == null ? "" : searchQuery;
         Set<Category> safeCategories = (categories == null || categories.isEmpty()) ? null : categories;
+        if (searchQuery == null || searchQuery.isBlank()) {
+            return userMediaListViewRepository.findGenreFacets(userId, safeCategories);
+        }
         List<Genre> genres = userMediaListRepository.findDistinctGenresByUserId(
-                userId, safeSearchQuery, safeCategories
+                userId, searchQuery, safeCategories
         );
         return genres.stream()
                 .map(g -> GenreResponse.builder().id(g.getId()).name(g.getName()).build())
@@ -361,16 +535,50 @@ public class UserMediaListService {
     }
 
     public List<PlatformResponse> getUserPlatforms(Long userId, String searchQuery, Set<Category> categories) {
-        String safeSearchQuery = searchQuery == null ? "" : searchQuery;
         Set<Category> safeCategories = (categories == null || categories.isEmpty()) ? null : categories;
+        if (searchQuery == null || searchQuery.isBlank()) {
+            return userMediaListViewRepository.findPlatformFacets(userId, safeCategories);
+        }
         List<Platform> platforms = userMediaListRepository.findDistinctPlatformsByUserId(
-                userId, safeSearchQuery, safeCategories
+                userId, searchQuery, safeCategories
         );
         return platforms.stream()
                 .map(p -> PlatformResponse.builder().id(p.getId()).name(p.getName()).build())
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Statistics of a user list: counts by experienced and re-experience flags and by category,
+     * the ratings given and their distribution. Read from one row that list mutations keep up to date.
+     * If a user is not specified via displayUserId, the calling user's statistics are returned.
+     * If the user specified under displayUserId is not the calling user, a check for user visibility is performed
+     * @param displayUserId The user whose list statistics are shown
+     * @param requestorUserId The user who initiated the call
+     * @return UserListStatsResponse
+     */
+    @Transactional(readOnly = true)
+    public UserListStatsResponse getUserListStats(Long displayUserId, Long requestorUserId) {
+        Long userId = decideWhichUserToShow(displayUserId, requestorUserId);
+        UserMediaListViewRepository.Stats stats = userMediaListViewRepository.findStats(userId);
+
+        return UserListStatsResponse.builder()
+                .userId(userId)
+                .itemCount(stats.itemCount())
+                .experiencedCount(stats.experiencedCount())
+                .wishToReexperienceCount(stats.wishToReexperienceCount())
+                .ratedCount(stats.ratedCount())
+                .ratingSum(stats.ratingSum())
+                .averageRating(stats.ratedCount() == 0 ? null : (double) stats.ratingSum() / stats.ratedCount())
+                .ratingHistogram(Arrays.stream(stats.ratingHistogram()).boxed().toList())
+                .categories(Arrays.stream(Category.values())
+                        .map(category -> CategoryCountResponse.builder()
+                                .category(category)
+                                .count(stats.categoryCounts().getOrDefault(category, 0L))
+                                .build())
+                        .toList())
+                .build();
+    }
+
     private Long decideWhichUserToShow(Long displayUserId, Long requestorUserId) {
         if (displayUserId == null) {
             displayUserId = requestorUserId;
@@ -389,8 +597,9 @@ public class UserMediaListService {
      * Handles rating of a media item by sending a Kafka message
      * @param userId The id of the user who rated the item
      * @param listItem The list item that was rated
+     * @param previousRating The rating of the list item before, or null
      */
-    public RatingEvent createRatingEvent(Long userId, UserMediaList listItem) {
+    public RatingEvent createRatingEvent(Long userId, UserMediaList listItem, Short previousRating) {
 
         RatingEvent event = new RatingEvent();
         event.setUserId(userId);
@@ -398,7 +607,24 @@ public class UserMediaListService {
         event.setMediaItemId(listItem.getMediaItem().getId());
         event.setMediaItemName(listItem.getMediaItem().getName());
         event.setRating(listItem.getRating());
-        event.setTimestamp(LocalDateTime.now());
+        event.setPreviousRating(previousRating);
+        event.setTimestamp(Instant.now());
+
+        return event;
+    }
+
+    /**
+     * The rating event of a rated list item that was removed, so its rating is taken out of the average
+     * @param userId The id of the user who removed the item
+     * @param mediaItemId The media item of the removed list item
+     * @param previousRating The rating of the removed list item
+     */
+    private RatingEvent ratingWithdrawnEvent(Long userId, Long mediaItemId, Short previousRating) {
+        RatingEvent event = new RatingEvent();
+        event.setUserId(userId);
+        event.setMediaItemId(mediaItemId);
+        event.setPreviousRating(previousRating);
+        event.setTimestamp(Instant.now());
 
         return event;
     }
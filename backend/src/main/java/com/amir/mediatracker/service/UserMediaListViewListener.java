@@ -0,0 +1,35 @@
+package com.amir.mediatracker.service;
+
+import com.amir.mediatracker.event.MediaItemsChangedEvent;
+import com.amir.mediatracker.repository.UserMediaListViewRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Applies catalog changes to the user list read model.
+ * Runs before the commit of the transaction that changed the catalog, so lists never show
+ * a media item that differs from the catalog. Deleted items leave the read model by the foreign key cascade.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class UserMediaListViewListener {
+
+    private final UserMediaListViewRepository userMediaListViewRepository;
+
+    /**
+     * Copy the saved media items to the list entries of them
+     * @param event MediaItemsChangedEvent
+     */
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onMediaItemsChanged(MediaItemsChangedEvent event) {
+        if (event.savedIds() == null || event.savedIds().isEmpty()) {
+            return;
+        }
+        userMediaListViewRepository.refreshMediaItems(event.savedIds());
+        log.debug("Refreshed user list read model for {} media items", event.savedIds().size());
+    }
+}
@@ -0,0 +1,68 @@
+package com.amir.mediatracker.util;
+
+import com.amir.mediatracker.entity.Genre;
+import com.amir.mediatracker.entity.MediaItem;
+import com.amir.mediatracker.entity.Platform;
+import lombok.experimental.UtilityClass;
+
+import java.util.Collection;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Helpers for the genre_mask and platform_mask columns of media_items.
+ * Id n (1 to 64) is represented by bit n-1. Larger ids do not fit the mask,
+ * and are filtered by the slower link-table subquery instead.
+ */
+@UtilityClass
+public class BitMaskUtil {
+
+    public static final long MAX_MASKED_ID = Long.SIZE;
+
+    /**
+     * Recalculate the genre and platform masks of a media item.
+     * Must be called whenever genres or platforms of an item are replaced
+     * @param item The media item to update
+     */
+    public void updateMasks(MediaItem item) {
+        item.setGenreMask(item.getGenres() == null ? 0L
+                : maskOf(item.getGenres().stream().map(Genre::getId).toList()));
+        item.setPlatformMask(item.getPlatforms() == null ? 0L
+                : maskOf(item.getPlatforms().stream().map(Platform::getId).toList()));
+    }
+
+    /**
+     * @param ids Genre or platform ids. May be null
+     * @return A mask with the bits of all ids that fit in the mask
+     */
+    public long maskOf(Collection<Long> ids) {
+        long mask = 0L;
+        if (ids == null) {
+            return mask;
+        }
+        for (Long id : ids) {
+            if (fitsMask(id)) {
+                mask |= 1L << (id - 1);
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * @param ids Genre or platform ids. May be null
+     * @return The ids that can not be represented by the mask, or null if there are none
+     */
+    public Set<Long> overflowOf(Set<Long> ids) {
+        if (ids == null) {
+            return null;
+        }
+        Set<Long> overflow = ids.stream()
+                .filter(id -> !fitsMask(id))
+                .collect(Collectors.toSet());
+        return overflow.isEmpty() ? null : overflow;
+    }
+
+    private boolean fitsMask(Long id) {
+        return id != null && id >= 1 && id <= MAX_MASKED_ID;
+    }
+}
@@ -0,0 +1,6 @@
+-- Rating notifications are written to the followers of a rater in follower id ranges.
+-- Serves those range reads with the thresholds, and replaces the index on following_id alone.
+CREATE INDEX idx_user_follows_following_follower
+    ON user_follows(following_id, follower_id) INCLUDE (minimum_rating_threshold);
+
+DROP INDEX idx_user_follows_following;
@@ -0,0 +1,23 @@
+-- Ratings of users with more followers than the pull threshold. Instead of a notification per follower,
+-- each rating is written here once, and the followers read it along with their notifications.
+-- Ids are taken from the notifications sequence, so a pulled entry is listed with its own id, never shared with a notification.
+-- created_at is set by the database, like user_follows.created_at, which the followers' reads compare it with.
+CREATE TABLE rater_activity (
+    id BIGINT PRIMARY KEY DEFAULT nextval('notifications_id_seq'),
+    rated_by_user_id BIGINT NOT NULL REFERENCES users(id) ON DELETE CASCADE,
+    media_item_id BIGINT NOT NULL REFERENCES media_items(id) ON DELETE CASCADE,
+    rating SMALLINT NOT NULL,
+    message TEXT NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    UNIQUE(rated_by_user_id, media_item_id, rating)
+);
+
+CREATE INDEX idx_rater_activity_rater_created ON rater_activity(rated_by_user_id, created_at DESC);
+
+-- The pulled entries each follower marked as read. Entries are only written here when marked,
+-- so listing the notifications stays a read
+CREATE TABLE rater_activity_reads (
+    user_id BIGINT NOT NULL REFERENCES users(id) ON DELETE CASCADE,
+    activity_id BIGINT NOT NULL REFERENCES rater_activity(id) ON DELETE CASCADE,
+    PRIMARY KEY (user_id, activity_id)
+);
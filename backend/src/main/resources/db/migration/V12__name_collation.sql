@@ -0,0 +1,14 @@
+-- Media item names are ordered by code point, instead of by the locale of the database.
+-- Name pages and keyset cursors are also served from memory (the catalog snapshot and the user list snapshots),
+-- which order names by code point too, so both paths must order them the same way to continue each other's cursors.
+-- The lower-cased columns depend on name, so they are recreated, still lower-cased with the database locale.
+ALTER TABLE media_items DROP COLUMN name_normalized;
+ALTER TABLE media_items ALTER COLUMN name TYPE VARCHAR(255) COLLATE "C";
+ALTER TABLE media_items
+    ADD COLUMN name_normalized VARCHAR(255) GENERATED ALWAYS AS (LOWER(name COLLATE "default")) STORED;
+CREATE INDEX idx_media_items_name_trgm ON media_items USING GIN (name_normalized gin_trgm_ops);
+
+ALTER TABLE user_media_list_view DROP COLUMN name_normalized;
+ALTER TABLE user_media_list_view ALTER COLUMN name TYPE VARCHAR(255) COLLATE "C";
+ALTER TABLE user_media_list_view
+    ADD COLUMN name_normalized VARCHAR(255) GENERATED ALWAYS AS (LOWER(name COLLATE "default")) STORED;
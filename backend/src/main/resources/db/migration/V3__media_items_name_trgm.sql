@@ -0,0 +1,9 @@
+-- Trigram search over media item names.
+-- LOWER(name) LIKE '%q%' can't use a btree index, so substring search goes through
+-- a lower-cased generated column backed by a pg_trgm GIN index instead.
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+ALTER TABLE media_items
+    ADD COLUMN name_normalized VARCHAR(255) GENERATED ALWAYS AS (LOWER(name)) STORED;
+
+CREATE INDEX idx_media_items_name_trgm ON media_items USING GIN (name_normalized gin_trgm_ops);
@@ -0,0 +1,20 @@
+-- Per-item genre and platform bitmasks.
+-- Bit (id - 1) is set for every linked genre/platform whose id is between 1 and 64,
+-- so "must contain all of these" becomes (mask & wanted) = wanted instead of a GROUP BY ... HAVING subquery.
+-- Ids above 64 are not represented and are still filtered through the link tables.
+ALTER TABLE media_items ADD COLUMN genre_mask BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE media_items ADD COLUMN platform_mask BIGINT NOT NULL DEFAULT 0;
+
+UPDATE media_items m
+SET genre_mask = COALESCE((
+        SELECT bit_or(1::BIGINT << (mig.genre_id - 1)::INT)
+        FROM media_item_genres mig
+        WHERE mig.media_item_id = m.id
+          AND mig.genre_id BETWEEN 1 AND 64
+    ), 0),
+    platform_mask = COALESCE((
+        SELECT bit_or(1::BIGINT << (mip.platform_id - 1)::INT)
+        FROM media_item_platforms mip
+        WHERE mip.media_item_id = m.id
+          AND mip.platform_id BETWEEN 1 AND 64
+    ), 0);
@@ -0,0 +1,15 @@
+-- Composite (sortValue, id) indexes for keyset pagination of sorted searches.
+-- A page after the cursor (v, id) is read as the single index range (col, id) > (v, id),
+-- or < on DESC by scanning the same index backwards, so deep pages cost the same as the first one.
+-- The single column indexes they replace are a prefix of the new ones.
+CREATE INDEX idx_media_items_name_id ON media_items(name, id);
+CREATE INDEX idx_media_items_year_id ON media_items(year, id);
+CREATE INDEX idx_media_items_avg_rating_id ON media_items(avg_rating, id);
+DROP INDEX idx_media_items_name;
+DROP INDEX idx_media_items_year;
+
+-- User list sorts on its own columns, within a single user
+CREATE INDEX idx_user_media_list_user_experienced_id ON user_media_list(user_id, experienced, id);
+CREATE INDEX idx_user_media_list_user_reexperience_id ON user_media_list(user_id, wish_to_reexperience, id);
+CREATE INDEX idx_user_media_list_user_rating_id ON user_media_list(user_id, rating, id);
+DROP INDEX idx_user_media_user_rating;
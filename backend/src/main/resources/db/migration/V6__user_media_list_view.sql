@@ -0,0 +1,40 @@
+-- Denormalized read model of user lists: one row per list entry, holding the media item fields
+-- that lists are filtered and sorted by, and its genre and platform ids as arrays.
+-- User list pages and counts are read from this table alone, without joining media_items or the link tables.
+-- Rows are written by the application in the same transaction as the change they reflect,
+-- and are removed together with their list entry.
+CREATE TABLE user_media_list_view (
+    id BIGINT PRIMARY KEY REFERENCES user_media_list(id) ON DELETE CASCADE,
+    user_id BIGINT NOT NULL,
+    media_item_id BIGINT NOT NULL,
+    name VARCHAR(255) NOT NULL,
+    name_normalized VARCHAR(255) GENERATED ALWAYS AS (LOWER(name)) STORED,
+    category VARCHAR(20) NOT NULL,
+    year INTEGER,
+    genre_ids BIGINT[] NOT NULL DEFAULT '{}',
+    platform_ids BIGINT[] NOT NULL DEFAULT '{}',
+    experienced BOOLEAN,
+    wish_to_reexperience BOOLEAN,
+    rating SMALLINT
+);
+
+INSERT INTO user_media_list_view (id, user_id, media_item_id, name, category, year,
+                                  genre_ids, platform_ids, experienced, wish_to_reexperience, rating)
+SELECT uml.id, uml.user_id, m.id, m.name, m.category, m.year,
+       ARRAY(SELECT mig.genre_id FROM media_item_genres mig WHERE mig.media_item_id = m.id),
+       ARRAY(SELECT mip.platform_id FROM media_item_platforms mip WHERE mip.media_item_id = m.id),
+       uml.experienced, uml.wish_to_reexperience, uml.rating
+FROM user_media_list uml
+JOIN media_items m ON m.id = uml.media_item_id;
+
+-- Cursor pages and sorts, within a single user
+CREATE INDEX idx_user_media_list_view_user_name ON user_media_list_view(user_id, name, media_item_id);
+CREATE INDEX idx_user_media_list_view_user_year ON user_media_list_view(user_id, year, id);
+CREATE INDEX idx_user_media_list_view_user_experienced ON user_media_list_view(user_id, experienced, id);
+CREATE INDEX idx_user_media_list_view_user_reexperience ON user_media_list_view(user_id, wish_to_reexperience, id);
+CREATE INDEX idx_user_media_list_view_user_rating ON user_media_list_view(user_id, rating, id);
+-- Catalog changes are applied to every list entry of the changed media item
+CREATE INDEX idx_user_media_list_view_media ON user_media_list_view(media_item_id);
+-- "Must contain all of these" genre and platform filters
+CREATE INDEX idx_user_media_list_view_genres ON user_media_list_view USING GIN (genre_ids);
+CREATE INDEX idx_user_media_list_view_platforms ON user_media_list_view USING GIN (platform_ids);
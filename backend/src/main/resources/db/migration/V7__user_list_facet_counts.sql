@@ -0,0 +1,33 @@
+-- Number of entries in each user list per category and genre, and per category and platform.
+-- The genres and platforms of a list are read from here, in the number of facets, instead of joining the whole list.
+-- Rows are written by the application in the same transaction as the user_media_list_view change they reflect,
+-- Counts that reach zero are kept, and skipped by the reads.
+CREATE TABLE user_list_genre_counts (
+    user_id BIGINT NOT NULL REFERENCES users(id) ON DELETE CASCADE,
+    category VARCHAR(20) NOT NULL,
+    genre_id BIGINT NOT NULL REFERENCES genres(id) ON DELETE CASCADE,
+    item_count INTEGER NOT NULL,
+    PRIMARY KEY (user_id, category, genre_id)
+);
+
+CREATE TABLE user_list_platform_counts (
+    user_id BIGINT NOT NULL REFERENCES users(id) ON DELETE CASCADE,
+    category VARCHAR(20) NOT NULL,
+    platform_id BIGINT NOT NULL REFERENCES platforms(id) ON DELETE CASCADE,
+    item_count INTEGER NOT NULL,
+    PRIMARY KEY (user_id, category, platform_id)
+);
+
+INSERT INTO user_list_genre_counts (user_id, category, genre_id, item_count)
+SELECT v.user_id, v.category, g.genre_id, COUNT(*)
+FROM user_media_list_view v
+CROSS JOIN LATERAL UNNEST(v.genre_ids) AS g(genre_id)
+JOIN genres ON genres.id = g.genre_id
+GROUP BY v.user_id, v.category, g.genre_id;
+
+INSERT INTO user_list_platform_counts (user_id, category, platform_id, item_count)
+SELECT v.user_id, v.category, p.platform_id, COUNT(*)
+FROM user_media_list_view v
+CROSS JOIN LATERAL UNNEST(v.platform_ids) AS p(platform_id)
+JOIN platforms ON platforms.id = p.platform_id
+GROUP BY v.user_id, v.category, p.platform_id;
@@ -0,0 +1,35 @@
+-- One row of list statistics per user: counts by experienced and re-experience flags and by category,
+-- the sum of the ratings given and their histogram, where element i counts the ratings of i - 1.
+-- Profile statistics are read from here by primary key instead of aggregating the whole list.
+-- Rows are written by the application in the same transaction as the user_media_list_view change they reflect.
+CREATE TABLE user_list_stats (
+    user_id BIGINT PRIMARY KEY REFERENCES users(id) ON DELETE CASCADE,
+    item_count INTEGER NOT NULL,
+    experienced_count INTEGER NOT NULL,
+    wish_to_reexperience_count INTEGER NOT NULL,
+    rated_count INTEGER NOT NULL,
+    rating_sum BIGINT NOT NULL,
+    rating_histogram BIGINT[] NOT NULL,
+    movie_count INTEGER NOT NULL,
+    series_count INTEGER NOT NULL,
+    game_count INTEGER NOT NULL
+);
+
+INSERT INTO user_list_stats (user_id, item_count, experienced_count, wish_to_reexperience_count, rated_count,
+                             rating_sum, rating_histogram, movie_count, series_count, game_count)
+SELECT v.user_id,
+       COUNT(*),
+       COUNT(*) FILTER (WHERE v.experienced),
+       COUNT(*) FILTER (WHERE v.wish_to_reexperience),
+       COUNT(v.rating),
+       COALESCE(SUM(v.rating), 0),
+       ARRAY(SELECT COUNT(*) FILTER (WHERE r.rating = h.rating)
+             FROM generate_series(0, 10) AS h(rating)
+             LEFT JOIN user_media_list_view r ON r.user_id = v.user_id
+             GROUP BY h.rating
+             ORDER BY h.rating),
+       COUNT(*) FILTER (WHERE v.category = 'MOVIE'),
+       COUNT(*) FILTER (WHERE v.category = 'SERIES'),
+       COUNT(*) FILTER (WHERE v.category = 'GAME')
+FROM user_media_list_view v
+GROUP BY v.user_id;
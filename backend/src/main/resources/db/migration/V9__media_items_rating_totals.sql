@@ -0,0 +1,27 @@
+-- Running totals of the ratings of each media item, so a rating change updates the average in one statement
+-- by the difference between the old and new rating, instead of reading every rating of the item.
+-- The totals are recomputed from user_media_list by the rating reconciliation.
+ALTER TABLE media_items
+    ADD COLUMN rating_sum BIGINT NOT NULL DEFAULT 0,
+    ADD COLUMN rating_count INTEGER NOT NULL DEFAULT 0;
+
+UPDATE media_items m
+SET rating_sum = r.rating_sum,
+    rating_count = r.rating_count,
+    avg_rating = ROUND(CAST(r.rating_sum AS NUMERIC) / r.rating_count, 1)
+FROM (
+    SELECT uml.media_item_id, SUM(uml.rating) AS rating_sum, COUNT(uml.rating) AS rating_count
+    FROM user_media_list uml
+    WHERE uml.rating IS NOT NULL
+    GROUP BY uml.media_item_id
+) r
+WHERE r.media_item_id = m.id;
+
+-- Rating events already in the topic when the totals are computed are counted in them, and the events
+-- of the previous version carry no previous rating. The rating consumer skips events older than this time,
+-- so they are not counted twice. The rating reconciliation moves it forward each time it recomputes the totals
+CREATE TABLE rating_totals_cutoff (
+    counted_until TIMESTAMPTZ NOT NULL
+);
+
+INSERT INTO rating_totals_cutoff (counted_until) VALUES (now());
@@ -61,7 +61,8 @@ class MediaItemBatchIT extends AbstractIntegrationTest {
         assertThat(allItems).hasSize(3);
 
         // Assert - The Matrix
-        Optional<MediaItem> matrix = mediaItemRepository.findByNameAndCategory("The Matrix", Category.MOVIE);
+        Optional<MediaItem> matrix = mediaItemRepository.findByNameAndCategory("The Matrix", Category.MOVIE)
+                .map(item -> findMediaItemWithAssociations(item.getId()));
         assertThat(matrix).isPresent();
         assertThat(matrix.get().getYear()).isEqualTo(1999);
         assertThat(matrix.get().getGenres()).hasSize(2);
@@ -138,7 +139,8 @@ class MediaItemBatchIT extends AbstractIntegrationTest {
         assertThat(allItems).hasSize(1);
 
         // Assert - Item was updated with new data
-        Optional<MediaItem> matrix = mediaItemRepository.findByNameAndCategory("The Matrix", Category.MOVIE);
+        Optional<MediaItem> matrix = mediaItemRepository.findByNameAndCategory("The Matrix", Category.MOVIE)
+                .map(item -> findMediaItemWithAssociations(item.getId()));
         assertThat(matrix).isPresent();
         assertThat(matrix.get().getYear()).isEqualTo(1999); // Updated year
         assertThat(matrix.get().getGenres()).hasSize(2); // Updated genres
@@ -12,6 +12,7 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.batch.item.Chunk;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.util.List;
 
@@ -29,6 +30,9 @@ class MediaItemWriterTest {
     @Mock
     MediaItemRepository repository;
 
+    @Mock
+    ApplicationEventPublisher applicationEventPublisher;
+
     @InjectMocks
     MediaItemWriter writer;
 
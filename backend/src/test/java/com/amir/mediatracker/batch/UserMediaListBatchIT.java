@@ -0,0 +1,213 @@
+package com.amir.mediatracker.batch;
+
+import com.amir.mediatracker.config.AbstractIntegrationTest;
+import com.amir.mediatracker.entity.MediaItem;
+import com.amir.mediatracker.entity.UserMediaList;
+import com.amir.mediatracker.repository.UserMediaListViewRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.*;
+import org.springframework.batch.core.launch.JobLauncher;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.batch.core.BatchStatus.COMPLETED;
+
+class UserMediaListBatchIT extends AbstractIntegrationTest {
+
+    @Autowired
+    private JobLauncher jobLauncher;
+
+    @Autowired
+    private Job userMediaListImportJob;
+
+    @Test
+    void importJob_WithValidCsv_ShouldAddItemsToUserList() throws Exception {
+        // Arrange
+        MediaItem matrix = saveBasicMediaItem("The Matrix");
+        MediaItem heat = saveBasicMediaItem("Heat");
+        MediaItem alien = saveBasicMediaItem("Alien");
+
+        Path tempFile = createTempCsvFile("""
+                name,category,experienced,rating,comment
+                the matrix,MOVIE,true,9,"Great, really"
+                Heat,movie,,,
+                Alien,MOVIE,,7,
+                """);
+
+        // Act
+        JobExecution jobExecution = jobLauncher.run(userMediaListImportJob, jobParameters(tempFile));
+        waitForCompleted(jobExecution);
+
+        // Assert - Job completed successfully
+        assertThat(jobExecution.getStatus()).isEqualTo(COMPLETED);
+
+        // Assert - Items were added to the list and its read model
+        Map<Long, UserMediaListViewRepository.Entry> entries = listEntries();
+        assertThat(entries).containsOnlyKeys(matrix.getId(), heat.getId(), alien.getId());
+        assertThat(entries.get(matrix.getId()).rating()).isEqualTo((short) 9);
+        assertThat(entries.get(heat.getId()).experienced()).isFalse();
+        assertThat(entries.get(heat.getId()).rating()).isNull();
+        assertThat(entries.get(alien.getId()).experienced()).isTrue();
+        assertThat(entries.get(alien.getId()).rating()).isEqualTo((short) 7);
+        assertThat(userMediaListRepository.findAll())
+                .filteredOn(listItem -> listItem.getMediaItem().getId().equals(matrix.getId()))
+                .extracting(UserMediaList::getComment)
+                .containsExactly("Great, really");
+
+        // Cleanup
+        Files.deleteIfExists(tempFile);
+    }
+
+    @Test
+    void importJob_WithItemAlreadyInList_ShouldOverwriteIt() throws Exception {
+        // Arrange
+        MediaItem matrix = saveBasicMediaItem("The Matrix");
+        UserMediaList listItem = new UserMediaList();
+        listItem.setUser(user);
+        listItem.setMediaItem(matrix);
+        listItem.setExperienced(true);
+        listItem.setRating((short) 5);
+        listItem.setComment("Kept");
+        saveListItem(listItem);
+
+        Path tempFile = createTempCsvFile("""
+                name,category,experienced,rating,comment
+                The Matrix,MOVIE,true,10,
+                """);
+
+        // Act
+        JobExecution jobExecution = jobLauncher.run(userMediaListImportJob, jobParameters(tempFile));
+        waitForCompleted(jobExecution);
+
+        // Assert
+        assertThat(jobExecution.getStatus()).isEqualTo(COMPLETED);
+        assertThat(userMediaListRepository.findAll())
+                .singleElement()
+                .satisfies(saved -> {
+                    assertThat(saved.getId()).isEqualTo(listItem.getId());
+                    assertThat(saved.getRating()).isEqualTo((short) 10);
+                    assertThat(saved.getComment()).isEqualTo("Kept");
+                });
+        assertThat(listEntries().get(matrix.getId()).rating()).isEqualTo((short) 10);
+
+        // Cleanup
+        Files.deleteIfExists(tempFile);
+    }
+
+    @Test
+    void importJob_WithEmptyFields_ShouldKeepCurrentValues() throws Exception {
+        // Arrange
+        MediaItem matrix = saveBasicMediaItem("The Matrix");
+        UserMediaList listItem = new UserMediaList();
+        listItem.setUser(user);
+        listItem.setMediaItem(matrix);
+        listItem.setExperienced(true);
+        listItem.setRating((short) 5);
+        saveListItem(listItem);
+
+        Path tempFile = createTempCsvFile("""
+                name,category,experienced,rating,comment
+                The Matrix,MOVIE,,,
+                """);
+
+        // Act
+        JobExecution jobExecution = jobLauncher.run(userMediaListImportJob, jobParameters(tempFile));
+        waitForCompleted(jobExecution);
+
+        // Assert
+        assertThat(jobExecution.getStatus()).isEqualTo(COMPLETED);
+        assertThat(listEntries().get(matrix.getId()).experienced()).isTrue();
+        assertThat(listEntries().get(matrix.getId()).rating()).isEqualTo((short) 5);
+
+        // Cleanup
+        Files.deleteIfExists(tempFile);
+    }
+
+    @Test
+    void importJob_WithExportedCsv_ShouldReadColumnsByHeaderName() throws Exception {
+        // Arrange
+        MediaItem matrix = saveBasicMediaItem("The Matrix");
+        MediaItem heat = saveBasicMediaItem("Heat");
+
+        Path tempFile = createTempCsvFile("""
+                media_item_id,category,name,year,genres,platforms,experienced,wish_to_reexperience,rating,comment,added_at,updated_at
+                %d,MOVIE,The Matrix,1999,"Action,Sci-Fi",Netflix,true,true,9,"Great, really",2026-01-01T10:00,2026-01-02T10:00
+                %d,MOVIE,Heat,,Action,,false,false,,,2026-01-01T10:00,2026-01-01T10:00
+                """.formatted(matrix.getId(), heat.getId()));
+
+        // Act
+        JobExecution jobExecution = jobLauncher.run(userMediaListImportJob, jobParameters(tempFile));
+        waitForCompleted(jobExecution);
+
+        // Assert
+        assertThat(jobExecution.getStatus()).isEqualTo(COMPLETED);
+        Map<Long, UserMediaListViewRepository.Entry> entries = listEntries();
+        assertThat(entries).containsOnlyKeys(matrix.getId(), heat.getId());
+        assertThat(entries.get(matrix.getId()).rating()).isEqualTo((short) 9);
+        assertThat(entries.get(heat.getId()).experienced()).isFalse();
+
+        // Cleanup
+        Files.deleteIfExists(tempFile);
+    }
+
+    @Test
+    void importJob_WithUnknownAndInvalidRows_ShouldSkipThem() throws Exception {
+        // Arrange
+        MediaItem matrix = saveBasicMediaItem("The Matrix");
+
+        Path tempFile = createTempCsvFile("""
+                name,category,experienced,rating,comment
+                The Matrix,MOVIE,true,8,
+                Not In Catalog,MOVIE,true,8,
+                The Matrix,GAME,true,8,
+                Heat,BOOK,true,8,
+                """);
+
+        // Act
+        JobExecution jobExecution = jobLauncher.run(userMediaListImportJob, jobParameters(tempFile));
+        waitForCompleted(jobExecution);
+
+        // Assert - Job completed (with skips)
+        assertThat(jobExecution.getStatus()).isEqualTo(COMPLETED);
+        assertThat(listEntries()).containsOnlyKeys(matrix.getId());
+        assertThat(jobExecution.getStepExecutions())
+                .flatExtracting((Function<? super StepExecution, ?>) StepExecution::getSkipCount)
+                .containsExactly(3L);
+
+        // Cleanup
+        Files.deleteIfExists(tempFile);
+    }
+
+    private JobParameters jobParameters(Path file) {
+        return new JobParametersBuilder()
+                .addString("filePath", file.toString())
+                .addLong("userId", user.getId())
+                .toJobParameters();
+    }
+
+    private Map<Long, UserMediaListViewRepository.Entry> listEntries() {
+        return userMediaListViewRepository.findEntriesByUserId(user.getId()).stream()
+                .collect(Collectors.toMap(UserMediaListViewRepository.Entry::mediaItemId, Function.identity()));
+    }
+
+    private Path createTempCsvFile(String content) throws IOException {
+        Path tempFile = Files.createTempFile("test_user_list_", ".csv");
+        Files.writeString(tempFile, content);
+        return tempFile;
+    }
+
+    private void waitForCompleted(JobExecution jobExecution) throws InterruptedException {
+        int currentLoop = 0;
+        int maxLoop = 20;
+        while (!jobExecution.getStatus().equals(COMPLETED) && currentLoop++ < maxLoop) {
+            Thread.sleep(50);
+        }
+    }
+}
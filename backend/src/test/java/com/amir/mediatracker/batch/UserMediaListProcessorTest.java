@@ -0,0 +1,78 @@
+package com.amir.mediatracker.batch;
+
+import com.amir.mediatracker.batch.exception.SkippableItemException;
+import com.amir.mediatracker.batch.model.UserMediaListCSV;
+import com.amir.mediatracker.batch.model.UserMediaListImportItem;
+import com.amir.mediatracker.batch.processor.UserMediaListProcessor;
+import com.amir.mediatracker.dto.Category;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserMediaListProcessorTest {
+
+    private final UserMediaListProcessor processor = new UserMediaListProcessor();
+
+    @Test
+    void shouldProcessValidCsv() {
+        UserMediaListImportItem item = processor.process(
+                new UserMediaListCSV(" Inception ", "movie", "true", "9", "Great"));
+
+        assertEquals("Inception", item.name());
+        assertEquals(Category.MOVIE, item.category());
+        assertTrue(item.experienced());
+        assertEquals((short) 9, item.rating());
+        assertEquals("Great", item.comment());
+    }
+
+    @Test
+    void shouldTreatRatedItemAsExperienced_whenExperiencedIsEmpty() {
+        UserMediaListImportItem item = processor.process(
+                new UserMediaListCSV("Inception", "MOVIE", "", "7", ""));
+
+        assertTrue(item.experienced());
+        assertNull(item.comment());
+    }
+
+    @Test
+    void shouldLeaveExperiencedUnset_whenExperiencedAndRatingAreEmpty() {
+        UserMediaListImportItem item = processor.process(
+                new UserMediaListCSV("Inception", "MOVIE", "", "", ""));
+
+        assertNull(item.experienced());
+        assertNull(item.rating());
+    }
+
+    @Test
+    void shouldThrow_whenRatedButNotExperienced() {
+        assertThatThrownBy(() -> processor.process(
+                new UserMediaListCSV("Inception", "MOVIE", "false", "7", "")))
+                .isInstanceOf(SkippableItemException.class)
+                .hasMessageContaining("Only experienced items can be rated");
+    }
+
+    @Test
+    void shouldThrow_whenRatingOutOfRange() {
+        assertThatThrownBy(() -> processor.process(
+                new UserMediaListCSV("Inception", "MOVIE", "true", "11", "")))
+                .isInstanceOf(SkippableItemException.class)
+                .hasMessageContaining("Rating out of range");
+    }
+
+    @Test
+    void shouldThrow_whenCategoryIsInvalid() {
+        assertThatThrownBy(() -> processor.process(
+                new UserMediaListCSV("Inception", "BOOK", "true", "", "")))
+                .isInstanceOf(SkippableItemException.class)
+                .hasMessageContaining("Invalid category");
+    }
+
+    @Test
+    void shouldThrow_whenCommentIsTooLong() {
+        assertThatThrownBy(() -> processor.process(
+                new UserMediaListCSV("Inception", "MOVIE", "true", "", "a".repeat(101))))
+                .isInstanceOf(SkippableItemException.class)
+                .hasMessageContaining("Comment is longer");
+    }
+}
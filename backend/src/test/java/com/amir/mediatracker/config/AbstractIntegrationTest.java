@@ -6,12 +6,17 @@ import com.amir.mediatracker.entity.Genre;
 import com.amir.mediatracker.entity.MediaItem;
 import com.amir.mediatracker.entity.Platform;
 import com.amir.mediatracker.entity.User;
+import com.amir.mediatracker.entity.UserMediaList;
+import com.amir.mediatracker.event.CatalogChangedEvent;
 import com.amir.mediatracker.kafka.RatingConsumer;
 import com.amir.mediatracker.repository.*;
+import com.amir.mediatracker.search.CatalogGeneration;
+import com.amir.mediatracker.search.UserListMembershipCache;
 import com.amir.mediatracker.security.JwtTokenProvider;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.hibernate.Hibernate;
 import org.junit.jupiter.api.BeforeEach;
 import org.springframework.batch.test.context.SpringBatchTest;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -25,9 +30,11 @@ import org.springframework.test.context.DynamicPropertySource;
 import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.testcontainers.containers.PostgreSQLContainer;
 
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Set;
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
@@ -96,13 +103,21 @@ public abstract class AbstractIntegrationTest {
     @Autowired
     protected MediaItemRepository mediaItemRepository;
     @Autowired
+    protected TransactionTemplate transactionTemplate;
+    @Autowired
     protected UserMediaListRepository userMediaListRepository;
     @Autowired
+    protected UserMediaListViewRepository userMediaListViewRepository;
+    @Autowired
     protected UserSearchRepository userSearchRepository;
     @Autowired
     protected ObjectMapper objectMapper;
     @Autowired
     protected KafkaTemplate<Long, Object> kafkaTemplate;
+    @Autowired
+    protected CatalogGeneration catalogGeneration;
+    @Autowired
+    protected UserListMembershipCache userListMembershipCache;
 
 
     protected final User admin = TestJwtUtil.initAdmin();
@@ -118,6 +133,9 @@ public abstract class AbstractIntegrationTest {
         userMediaListRepository.deleteAll();
         userFollowRepository.deleteAll();
         userRepository.deleteAll();
+        // Data is saved and deleted through the repositories, so cached searches and counts are dropped here
+        catalogGeneration.onCatalogChanged(new CatalogChangedEvent("test"));
+        userListMembershipCache.invalidateAll();
 
         userRepository.save(admin);
         userRepository.save(user);
@@ -166,6 +184,19 @@ public abstract class AbstractIntegrationTest {
         return userRepository.save(user);
     }
 
+    /**
+     * Genres and platforms are lazy, so they can not be read from items returned by mediaItemRepository
+     * outside a transaction. This loads them along with the item
+     */
+    protected MediaItem findMediaItemWithAssociations(Long id) {
+        return transactionTemplate.execute(_ -> {
+            MediaItem item = mediaItemRepository.findById(id).orElseThrow();
+            Hibernate.initialize(item.getGenres());
+            Hibernate.initialize(item.getPlatforms());
+            return item;
+        });
+    }
+
     protected MediaItem saveBasicMediaItem(String name) {
         return mediaItemRepository.save(MediaItem.builder()
                         .name(name)
@@ -175,6 +206,15 @@ public abstract class AbstractIntegrationTest {
                 .build());
     }
 
+    /**
+     * Lists are read from their read model, so list items saved directly must be written to it as well
+     */
+    protected UserMediaList saveListItem(UserMediaList listItem) {
+        UserMediaList saved = userMediaListRepository.save(listItem);
+        userMediaListViewRepository.upsertListItems(List.of(saved.getId()));
+        return saved;
+    }
+
     protected Genre saveBasicGenre(String name) {
         Genre genre = genreRepository.findByNameIgnoreCase(name).orElse(null);
 
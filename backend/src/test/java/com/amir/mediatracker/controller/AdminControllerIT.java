@@ -92,7 +92,7 @@ class AdminControllerIT extends AbstractIntegrationTest {
                         .header("Authorization", "Bearer " + adminToken))
                 .andExpect(status().isOk());
 
-        MediaItem mediaItem = mediaItemRepository.findById(Long.valueOf(id)).get();
+        MediaItem mediaItem = findMediaItemWithAssociations(Long.valueOf(id));
         assertEquals(1, mediaItem.getGenres().size());
         assertTrue(mediaItem.getGenres().stream().map(Genre::getName).toList().contains("someOtherGenre"));
         assertEquals(1, mediaItem.getPlatforms().size());
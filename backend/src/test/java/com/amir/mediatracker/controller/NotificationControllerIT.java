@@ -1,8 +1,19 @@
 package com.amir.mediatracker.controller;
 
 import com.amir.mediatracker.config.AbstractIntegrationTest;
+import com.amir.mediatracker.entity.MediaItem;
 import com.amir.mediatracker.entity.Notification;
+import com.amir.mediatracker.entity.User;
+import com.amir.mediatracker.entity.UserFollow;
+import com.amir.mediatracker.service.NotificationService;
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MvcResult;
 
 import static org.assertj.core.api.AssertionsForInterfaceTypes.assertThat;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -13,6 +24,11 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 
 class NotificationControllerIT extends AbstractIntegrationTest {
 
+    @Autowired
+    private NotificationService notificationService;
+    @Value("${app.notification.pull-follower-threshold}")
+    private int pullFollowerThreshold;
+
     @Test
     void getUnreadCount_returnsLimit() throws Exception {
         createNotification("test", false); //older than limit
@@ -155,6 +171,66 @@ class NotificationControllerIT extends AbstractIntegrationTest {
                 .andExpect(jsonPath("$[1].message").value("test2"));
     }
 
+    @Test
+    void ratingsOfRaterAbovePullThreshold_arePulledAndMarkedAsRead() throws Exception {
+        // Two followers are above the pull threshold
+        ReflectionTestUtils.setField(AopTestUtils.getUltimateTargetObject(notificationService), "pullFollowerThreshold", 1);
+        User rater = saveUser("rater");
+        follow(user, rater, (short) 8);
+        follow(saveUser("otherFollower"), rater, (short) 5);
+        MediaItem mediaItem = saveBasicMediaItem("someItem");
+        MediaItem otherMediaItem = saveBasicMediaItem("someOtherItem");
+
+        notificationService.notifyFollowers(rater.getId(), mediaItem.getId(), (short) 9, "rater rated 9");
+        notificationService.notifyFollowers(rater.getId(), otherMediaItem.getId(), (short) 7, "rater rated 7"); //below threshold
+        assertThat(notificationRepository.findAll()).isEmpty();
+
+        MvcResult result = mockMvc.perform(get("/notifications")
+                        .header("Authorization", "Bearer " + userToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].message").value("rater rated 9"))
+                .andExpect(jsonPath("$[0].isRead").value(false))
+                .andExpect(jsonPath("$[0].mediaItem.id").value(mediaItem.getId()))
+                .andExpect(jsonPath("$[0].ratedByUser.username").value("rater"))
+                .andReturn();
+        assertThat(notificationRepository.findAll()).isEmpty(); //listing writes nothing
+        mockMvc.perform(get("/notifications/unread-count")
+                        .header("Authorization", "Bearer " + userToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.unreadCount").value(1));
+
+        Integer id = JsonPath.read(result.getResponse().getContentAsString(), "$[0].id");
+        mockMvc.perform(put("/notifications/{id}/read", id)
+                        .header("Authorization", "Bearer " + userToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.isRead").value(true));
+
+        mockMvc.perform(get("/notifications")
+                        .header("Authorization", "Bearer " + userToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].isRead").value(true));
+        mockMvc.perform(get("/notifications/unread-count")
+                        .header("Authorization", "Bearer " + userToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.unreadCount").value(0));
+    }
+
+    @AfterEach
+    void restorePullFollowerThreshold() {
+        ReflectionTestUtils.setField(AopTestUtils.getUltimateTargetObject(notificationService), "pullFollowerThreshold",
+                pullFollowerThreshold);
+    }
+
+    private void follow(User follower, User following, short minimumRatingThreshold) {
+        UserFollow uf = new UserFollow();
+        uf.setFollower(follower);
+        uf.setFollowing(following);
+        uf.setMinimumRatingThreshold(minimumRatingThreshold);
+        userFollowRepository.save(uf);
+    }
+
     private Notification createNotification(String message, boolean isRead) {
         Notification n = new Notification();
         n.setMessage(message);
@@ -0,0 +1,101 @@
+package com.amir.mediatracker.controller;
+
+import com.amir.mediatracker.config.AbstractIntegrationTest;
+import com.amir.mediatracker.entity.MediaItem;
+import com.amir.mediatracker.entity.User;
+import com.amir.mediatracker.entity.UserMediaList;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class UserListControllerIT extends AbstractIntegrationTest {
+
+    @Test
+    void exportList_csv_shouldWriteWholeListInNameOrder() throws Exception {
+        saveUserListItem(user, saveBasicMediaItem("Matrix"), (short) 9, "Best \"ever\", really");
+        saveUserListItem(user, saveBasicMediaItem("Alien"), null, null);
+        saveUserListItem(user, saveBasicMediaItem("Heat"), (short) 7, null);
+        saveUserListItem(admin, saveBasicMediaItem("Other user's item"), null, null);
+
+        String csv = mockMvc.perform(get("/users/me/list/export")
+                        .header("Authorization", "Bearer " + userToken))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Disposition", "attachment; filename=\"media-list.csv\""))
+                .andReturn().getResponse().getContentAsString();
+
+        List<String> lines = csv.lines().toList();
+        assertThat(lines).hasSize(4);
+        assertThat(lines.get(0)).startsWith("media_item_id,category,name,year,genres,platforms");
+        assertThat(lines.get(1)).contains(",MOVIE,Alien,,Action,Netflix,false,false,,,");
+        assertThat(lines.get(2)).contains(",MOVIE,Heat,,Action,Netflix,false,false,7,,");
+        assertThat(lines.get(3)).contains(",MOVIE,Matrix,,Action,Netflix,false,false,9,\"Best \"\"ever\"\", really\",");
+    }
+
+    @Test
+    void exportList_ndjson_shouldWriteOneObjectPerLine() throws Exception {
+        MediaItem item = saveBasicMediaItem("Matrix");
+        saveUserListItem(user, item, (short) 9, "Great");
+        saveUserListItem(user, saveBasicMediaItem("Alien"), null, null);
+
+        String ndjson = mockMvc.perform(get("/users/me/list/export")
+                        .param("format", "NDJSON")
+                        .header("Authorization", "Bearer " + userToken))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", "application/x-ndjson;charset=UTF-8"))
+                .andReturn().getResponse().getContentAsString();
+
+        List<String> lines = ndjson.lines().toList();
+        assertThat(lines).hasSize(2);
+        JsonNode matrix = objectMapper.readTree(lines.get(1));
+        assertThat(matrix.get("mediaItemId").asLong()).isEqualTo(item.getId());
+        assertThat(matrix.get("name").asText()).isEqualTo("Matrix");
+        assertThat(matrix.get("genres").get(0).asText()).isEqualTo("Action");
+        assertThat(matrix.get("platforms").get(0).asText()).isEqualTo("Netflix");
+        assertThat(matrix.get("rating").asInt()).isEqualTo(9);
+        assertThat(matrix.get("comment").asText()).isEqualTo("Great");
+    }
+
+    @Test
+    void exportList_shouldWriteOnlyHeader_whenListIsEmpty() throws Exception {
+        String csv = mockMvc.perform(get("/users/me/list/export")
+                        .header("Authorization", "Bearer " + userToken))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        assertThat(csv.lines().toList()).hasSize(1);
+    }
+
+    @Test
+    void exportList_shouldReturn401_withoutToken() throws Exception {
+        mockMvc.perform(get("/users/me/list/export"))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void importList_shouldReturn400_whenFileIsNotCsv() throws Exception {
+        MockMultipartFile file = new MockMultipartFile(
+                "file", "list.txt", "text/plain", "name,category,experienced,rating,comment\n".getBytes());
+
+        mockMvc.perform(multipart("/users/me/list/import")
+                        .file(file)
+                        .header("Authorization", "Bearer " + userToken))
+                .andExpect(status().isBadRequest());
+    }
+
+    private void saveUserListItem(User owner, MediaItem item, Short rating, String comment) {
+        UserMediaList listItem = new UserMediaList();
+        listItem.setUser(owner);
+        listItem.setMediaItem(item);
+        listItem.setRating(rating);
+        listItem.setComment(comment);
+        saveListItem(listItem);
+    }
+}
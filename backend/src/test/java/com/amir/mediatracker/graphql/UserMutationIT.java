@@ -4,6 +4,8 @@ import com.amir.mediatracker.config.AbstractIntegrationTest;
 import com.amir.mediatracker.dto.response.UserFollowResponse;
 import com.amir.mediatracker.dto.response.UserMediaListResponse;
 import com.amir.mediatracker.entity.*;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
 import org.junit.jupiter.api.Test;
 import org.springframework.data.domain.Limit;
 
@@ -20,6 +22,9 @@ public class UserMutationIT extends AbstractIntegrationTest {
     private final String FOLLOW_USER_JSON_START = "\"followUser\":";
     private final String UNFOLLOW_USER_JSON_START = "\"unfollowUser\":";
     private final String UPDATE_FOLLOW_THRESHOLD_JSON_START = "\"updateFollowThreshold\":";
+    private final String ADD_MEDIA_TO_LIST_BULK_JSON_START = "\"addMediaToListBulk\":";
+    private final String UPDATE_MEDIA_LIST_ITEMS_BULK_JSON_START = "\"updateMediaListItemsBulk\":";
+    private final String REMOVE_MEDIA_FROM_LIST_BULK_JSON_START = "\"removeMediaFromListBulk\":";
 
     @Test
     void updateThreshold_success() throws Exception {
@@ -175,7 +180,7 @@ public class UserMutationIT extends AbstractIntegrationTest {
     @Test
     void updateMediaList_SuccessfulKafkaFlow() throws Exception {
         MediaItem mediaItem = saveBasicMediaItem("SomeItem");
-        UserMediaList uml = userMediaListRepository.save(UserMediaList.builder()
+        UserMediaList uml = saveListItem(UserMediaList.builder()
                 .user(user)
                 .mediaItem(mediaItem)
                 .build());
@@ -244,7 +249,7 @@ public class UserMutationIT extends AbstractIntegrationTest {
     @Test
     void removeMediaFromList_success() throws Exception {
         MediaItem mediaItem = saveBasicMediaItem("SomeItem");
-        UserMediaList uml = userMediaListRepository.save(UserMediaList.builder()
+        UserMediaList uml = saveListItem(UserMediaList.builder()
                         .user(user)
                         .mediaItem(mediaItem)
                 .build());
@@ -339,4 +344,128 @@ public class UserMutationIT extends AbstractIntegrationTest {
         assertEquals(mediaItem.getId(), uml.getMediaItem().getId());
         assertFalse(response.getExperienced());
     }
+
+    @Test
+    void addMediaToListBulk_skipsItemsAlreadyInList() throws Exception {
+        MediaItem first = saveBasicMediaItem("First");
+        MediaItem second = saveBasicMediaItem("Second");
+        saveListItem(UserMediaList.builder().user(user).mediaItem(first).build());
+
+        String resultJson = graphql("""
+                {
+                  "query": "mutation AddMediaToListBulk($mediaItemIds: [ID!]!) { addMediaToListBulk(mediaItemIds: $mediaItemIds) { id mediaItem { name } experienced } }",
+                  "variables": {
+                    "mediaItemIds": [%d, %d]
+                  }
+                }
+                """.formatted(first.getId(), second.getId())
+        );
+
+        List<UserMediaListResponse> response = mockMvcJsonToObject(resultJson, ADD_MEDIA_TO_LIST_BULK_JSON_START,
+                new TypeReference<List<UserMediaListResponse>>() {});
+
+        assertEquals(1, response.size());
+        assertEquals("Second", response.getFirst().getMediaItem().getName());
+        assertFalse(response.getFirst().getExperienced());
+        assertEquals(2, userMediaListRepository.count());
+    }
+
+    @Test
+    void updateMediaListItemsBulk_success() throws Exception {
+        UserMediaList first = saveListItem(UserMediaList.builder()
+                .user(user).mediaItem(saveBasicMediaItem("First")).build());
+        UserMediaList second = saveListItem(UserMediaList.builder()
+                .user(user).mediaItem(saveBasicMediaItem("Second")).build());
+
+        String resultJson = graphql("""
+                {
+                  "query": "mutation UpdateMediaListItemsBulk($requests: [UpdateMediaListRequest!]!) { updateMediaListItemsBulk(requests: $requests) { id rating comment } }",
+                  "variables": {
+                    "requests": [
+                      { "id": %d, "experienced": true, "rating": 7 },
+                      { "id": %d, "comment": "later" }
+                    ]
+                  }
+                }
+                """.formatted(first.getId(), second.getId())
+        );
+
+        List<UserMediaListResponse> response = mockMvcJsonToObject(resultJson, UPDATE_MEDIA_LIST_ITEMS_BULK_JSON_START,
+                new TypeReference<List<UserMediaListResponse>>() {});
+
+        assertEquals(List.of(first.getId(), second.getId()), response.stream().map(UserMediaListResponse::getId).toList());
+        assertEquals((short) 7, userMediaListRepository.findById(first.getId()).orElseThrow().getRating());
+        assertEquals("later", userMediaListRepository.findById(second.getId()).orElseThrow().getComment());
+    }
+
+    @Test
+    void removeMediaFromListBulk_returnsRemovedCount() throws Exception {
+        UserMediaList uml = saveListItem(UserMediaList.builder()
+                .user(user).mediaItem(saveBasicMediaItem("SomeItem")).build());
+
+        String resultJson = graphql("""
+                {
+                  "query": "mutation RemoveMediaFromListBulk($ids: [ID!]!) { removeMediaFromListBulk(ids: $ids) }",
+                  "variables": {
+                    "ids": [%d, 9999]
+                  }
+                }
+                """.formatted(uml.getId())
+        );
+
+        Integer response = mockMvcJsonToObject(resultJson, REMOVE_MEDIA_FROM_LIST_BULK_JSON_START, Integer.class);
+
+        assertEquals(1, response);
+        assertFalse(userMediaListRepository.existsById(uml.getId()));
+    }
+
+    @Test
+    void listMutations_shouldBeReflectedInUserListStats() throws Exception {
+        UserMediaList first = saveListItem(UserMediaList.builder()
+                .user(user).mediaItem(saveBasicMediaItem("First")).build());
+        UserMediaList second = saveListItem(UserMediaList.builder()
+                .user(user).mediaItem(saveBasicMediaItem("Second")).build());
+        UserMediaList third = saveListItem(UserMediaList.builder()
+                .user(user).mediaItem(saveBasicMediaItem("Third")).build());
+
+        graphql("""
+                {
+                  "query": "mutation UpdateMediaListItemsBulk($requests: [UpdateMediaListRequest!]!) { updateMediaListItemsBulk(requests: $requests) { id } }",
+                  "variables": {
+                    "requests": [
+                      { "id": %d, "experienced": true, "rating": 7 },
+                      { "id": %d, "experienced": true, "wishToReexperience": true, "rating": 10 }
+                    ]
+                  }
+                }
+                """.formatted(first.getId(), second.getId())
+        );
+        graphql("""
+                {
+                  "query": "mutation RemoveMediaFromList($id: ID!) { removeMediaFromList(id: $id) }",
+                  "variables": { "id": %d }
+                }
+                """.formatted(third.getId())
+        );
+
+        String resultJson = graphql("""
+                {
+                  "query": "{ userListStats { itemCount experiencedCount wishToReexperienceCount ratedCount ratingSum averageRating ratingHistogram categories { category count } } }"
+                }
+                """
+        );
+
+        JsonNode stats = objectMapper.readTree(resultJson).path("data").path("userListStats");
+        assertEquals(2, stats.path("itemCount").asInt());
+        assertEquals(2, stats.path("experiencedCount").asInt());
+        assertEquals(1, stats.path("wishToReexperienceCount").asInt());
+        assertEquals(2, stats.path("ratedCount").asInt());
+        assertEquals(17, stats.path("ratingSum").asInt());
+        assertEquals(8.5, stats.path("averageRating").asDouble());
+        assertEquals(1, stats.path("ratingHistogram").get(7).asInt());
+        assertEquals(1, stats.path("ratingHistogram").get(10).asInt());
+        assertEquals(0, stats.path("ratingHistogram").get(0).asInt());
+        assertEquals("MOVIE", stats.path("categories").get(0).path("category").asText());
+        assertEquals(2, stats.path("categories").get(0).path("count").asInt());
+    }
 }
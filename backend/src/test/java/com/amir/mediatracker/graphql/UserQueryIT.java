@@ -3,6 +3,10 @@ package com.amir.mediatracker.graphql;
 import com.amir.mediatracker.config.AbstractIntegrationTest;
 import com.amir.mediatracker.dto.Category;
 import com.amir.mediatracker.dto.Role;
+import com.amir.mediatracker.dto.response.CategoryCountResponse;
+import com.amir.mediatracker.dto.response.FacetCountResponse;
+import com.amir.mediatracker.dto.response.MediaFacetedSearchResponse;
+import com.amir.mediatracker.dto.response.MediaItemResponse;
 import com.amir.mediatracker.dto.response.MediaSearchResponse;
 import com.amir.mediatracker.dto.response.UserFollowResponse;
 import com.amir.mediatracker.dto.response.UserMediaListSearchResponse;
@@ -10,21 +14,28 @@ import com.amir.mediatracker.dto.response.UserResponse;
 import com.amir.mediatracker.entity.*;
 import com.amir.mediatracker.graphql.dto.result.MediaPageResult;
 import com.amir.mediatracker.graphql.dto.result.UserMediaListPageResult;
+import com.amir.mediatracker.repository.MediaItemRatingRepository;
 import com.fasterxml.jackson.core.type.TypeReference;
 import org.apache.commons.collections.CollectionUtils;
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Set;
 
+import static org.assertj.core.api.Assertions.tuple;
 import static org.assertj.core.api.AssertionsForInterfaceTypes.assertThat;
 import static org.junit.jupiter.api.Assertions.*;
 
 public class UserQueryIT extends AbstractIntegrationTest {
 
+    @Autowired
+    private MediaItemRatingRepository mediaItemRatingRepository;
+
     private final String SEARCH_MEDIA_ITEMS_JSON_START = "\"searchMediaItems\":";
+    private final String SEARCH_MEDIA_FACETED_JSON_START = "\"searchMediaFaceted\":";
     private final String SEARCH_MEDIA_ITEMS_SORTED_JSON_START = "\"searchMediaItemsSorted\":";
     private final String USER_MEDIA_LIST_CURSOR_JSON_START = "\"userMediaListCursor\":";
     private final String USER_MEDIA_LIST_SORTED_JSON_START = "\"userMediaListSorted\":";
@@ -194,22 +205,22 @@ public class UserQueryIT extends AbstractIntegrationTest {
         listItem1.setUser(user);
         listItem1.setExperienced(true);
         listItem1.setMediaItem(item1);
-        userMediaListRepository.save(listItem1);
+        saveListItem(listItem1);
         UserMediaList listItem2 = new UserMediaList();
         listItem2.setUser(user);
         listItem2.setExperienced(false);
         listItem2.setMediaItem(item2);
-        userMediaListRepository.save(listItem2);
+        saveListItem(listItem2);
         UserMediaList listItem3 = new UserMediaList();
         listItem3.setUser(user);
         listItem3.setExperienced(false);
         listItem3.setMediaItem(item3);
-        userMediaListRepository.save(listItem3);
+        saveListItem(listItem3);
         UserMediaList listItem4 = new UserMediaList();
         listItem4.setUser(user);
         listItem1.setExperienced(true);
         listItem4.setMediaItem(item4);
-        userMediaListRepository.save(listItem4);
+        saveListItem(listItem4);
 
         String resultJson = graphql("""
                 {
@@ -254,11 +265,11 @@ public class UserQueryIT extends AbstractIntegrationTest {
         UserMediaList listItem1 = new UserMediaList();
         listItem1.setUser(user);
         listItem1.setMediaItem(item1);
-        userMediaListRepository.save(listItem1);
+        saveListItem(listItem1);
         UserMediaList listItem2 = new UserMediaList();
         listItem2.setUser(user);
         listItem2.setMediaItem(item2);
-        userMediaListRepository.save(listItem2);
+        saveListItem(listItem2);
 
         String resultJson = graphql("""
                 {
@@ -310,11 +321,11 @@ public class UserQueryIT extends AbstractIntegrationTest {
         UserMediaList listItem1 = new UserMediaList();
         listItem1.setUser(user);
         listItem1.setMediaItem(item1);
-        userMediaListRepository.save(listItem1);
+        saveListItem(listItem1);
         UserMediaList listItem2 = new UserMediaList();
         listItem2.setUser(user);
         listItem2.setMediaItem(item2);
-        userMediaListRepository.save(listItem2);
+        saveListItem(listItem2);
 
         String resultJson = graphql("""
                 {
@@ -372,15 +383,15 @@ public class UserQueryIT extends AbstractIntegrationTest {
         UserMediaList listItem1 = new UserMediaList();
         listItem1.setUser(user);
         listItem1.setMediaItem(item1);
-        userMediaListRepository.save(listItem1);
+        saveListItem(listItem1);
         UserMediaList listItem2 = new UserMediaList();
         listItem2.setUser(user);
         listItem2.setMediaItem(item2);
-        userMediaListRepository.save(listItem2);
+        saveListItem(listItem2);
         UserMediaList listItem3 = new UserMediaList();
         listItem3.setUser(user);
         listItem3.setMediaItem(item3);
-        userMediaListRepository.save(listItem3);
+        saveListItem(listItem3);
 
         String resultJson = graphql("""
                 {
@@ -419,11 +430,11 @@ public class UserQueryIT extends AbstractIntegrationTest {
         UserMediaList listItem1 = new UserMediaList();
         listItem1.setUser(user);
         listItem1.setMediaItem(item1);
-        userMediaListRepository.save(listItem1);
+        saveListItem(listItem1);
         UserMediaList listItem2 = new UserMediaList();
         listItem2.setUser(user);
         listItem2.setMediaItem(item2);
-        userMediaListRepository.save(listItem2);
+        saveListItem(listItem2);
 
         String resultJson = graphql("""
                 {
@@ -474,11 +485,11 @@ public class UserQueryIT extends AbstractIntegrationTest {
         UserMediaList listItem1 = new UserMediaList();
         listItem1.setUser(user);
         listItem1.setMediaItem(item1);
-        userMediaListRepository.save(listItem1);
+        saveListItem(listItem1);
         UserMediaList listItem2 = new UserMediaList();
         listItem2.setUser(user);
         listItem2.setMediaItem(item2);
-        userMediaListRepository.save(listItem2);
+        saveListItem(listItem2);
 
         String resultJson = graphql("""
                 {
@@ -576,6 +587,48 @@ public class UserQueryIT extends AbstractIntegrationTest {
         assertEquals(b.getId(), response.getContent().get(1).getId());
     }
 
+    @Test
+    void searchMediaItemsSorted_withCursor_shouldContinueAfterPreviousPage() throws Exception {
+        MediaItem a = mediaItemRepository.save(MediaItem.builder()
+                .name("Amelie").year(2001).category(Category.MOVIE).build());
+        MediaItem b = mediaItemRepository.save(MediaItem.builder()
+                .name("Fight Club").year(1999).category(Category.MOVIE).build());
+        MediaItem c = mediaItemRepository.save(MediaItem.builder()
+                .name("Untitled").category(Category.MOVIE).build());
+
+        String query = """
+                {
+                  "query": "query Search($input: SearchMediaSortedInput!) { searchMediaItemsSorted(input: $input) { content { id } number hasMore nextCursor } }",
+                  "variables": {
+                    "input": {
+                        "query": "",
+                        "sortBy": "YEAR",
+                        "sortDirection": "DESC",
+                        "size": 2,
+                        "after": %s
+                    }
+                  }
+                }
+                """;
+
+        MediaPageResult firstPage = mockMvcJsonToObject(graphql(query.formatted("null")),
+                SEARCH_MEDIA_ITEMS_SORTED_JSON_START,
+                MediaPageResult.class);
+
+        assertThat(firstPage.getContent()).extracting(MediaItemResponse::getId).containsExactly(c.getId(), a.getId());
+        assertTrue(firstPage.isHasMore());
+        assertNotNull(firstPage.getNextCursor());
+
+        MediaPageResult secondPage = mockMvcJsonToObject(graphql(query.formatted("\"" + firstPage.getNextCursor() + "\"")),
+                SEARCH_MEDIA_ITEMS_SORTED_JSON_START,
+                MediaPageResult.class);
+
+        assertThat(secondPage.getContent()).extracting(MediaItemResponse::getId).containsExactly(b.getId());
+        assertEquals(1, secondPage.getNumber());
+        assertFalse(secondPage.isHasMore());
+        assertNull(secondPage.getNextCursor());
+    }
+
     @Test
     void searchMediaItemsSorted_filtersByCategoryAndGenreAndPlatformAndSortByAvgRating() throws Exception {
         Genre g1 = genreRepository.save(new Genre(null, "Action", LocalDateTime.now()));
@@ -588,45 +641,45 @@ public class UserQueryIT extends AbstractIntegrationTest {
         m1.setName("Interstellar");
         m1.setGenres(Set.of(g1));
         m1.setPlatforms(Set.of(p1));
-        m1.setAvgRating(BigDecimal.valueOf(8.8));
         m1.setCategory(Category.MOVIE);
         mediaItemRepository.save(m1);
+        setAverageRating(m1, "8.8");
 
         //should not return
         MediaItem m3 = new MediaItem();
         m3.setName("Wicked");
         m3.setGenres(Set.of(g2));
         m3.setPlatforms(Set.of(p1));
-        m3.setAvgRating(BigDecimal.valueOf(8.1));
         m3.setCategory(Category.MOVIE);
         mediaItemRepository.save(m3);
+        setAverageRating(m3, "8.1");
 
         //should not return
         MediaItem m4 = new MediaItem();
         m4.setName("Alien");
         m4.setGenres(Set.of(g1));
         m4.setPlatforms(Set.of(p2));
-        m4.setAvgRating(BigDecimal.valueOf(8.6));
         m4.setCategory(Category.MOVIE);
         mediaItemRepository.save(m4);
+        setAverageRating(m4, "8.6");
 
         //should not return
         MediaItem m5 = new MediaItem();
         m5.setName("Ratchet & Clank: Rift Apart");
         m5.setGenres(Set.of(g1));
         m5.setPlatforms(Set.of(p2));
-        m5.setAvgRating(BigDecimal.valueOf(10));
         m5.setCategory(Category.GAME);
         mediaItemRepository.save(m5);
+        setAverageRating(m5, "10");
 
         //should return
         MediaItem m2 = new MediaItem();
         m2.setName("Avengers");
         m2.setGenres(Set.of(g1));
         m2.setPlatforms(Set.of(p1));
-        m2.setAvgRating(BigDecimal.valueOf(8.5));
         m2.setCategory(Category.MOVIE);
         mediaItemRepository.save(m2);
+        setAverageRating(m2, "8.5");
 
         String resultJson = graphql("""
                 {
@@ -747,6 +800,65 @@ public class UserQueryIT extends AbstractIntegrationTest {
         assertEquals("Marvel's Avengers", response.getContent().get(1).getName());
     }
 
+    @Test
+    void searchMediaFaceted_shouldReturnPageAndFacetCounts() throws Exception {
+        Genre action = genreRepository.save(new Genre(null, "Action", null));
+        Genre drama = genreRepository.save(new Genre(null, "Drama", null));
+        Platform netflix = platformRepository.save(new Platform(null, "Netflix", null));
+
+        mediaItemRepository.save(MediaItem.builder()
+                .name("Matrix")
+                .category(Category.MOVIE)
+                .genres(Set.of(action, drama))
+                .platforms(Set.of(netflix))
+                .build());
+
+        mediaItemRepository.save(MediaItem.builder()
+                .name("Matrix Reloaded")
+                .category(Category.MOVIE)
+                .genres(Set.of(action))
+                .platforms(Set.of(netflix))
+                .build());
+
+        //not counted in total and genres, only in categories
+        mediaItemRepository.save(MediaItem.builder()
+                .name("Matrix Path of Neo")
+                .category(Category.GAME)
+                .genres(Set.of(action))
+                .platforms(Set.of())
+                .build());
+
+        String resultJson = graphql("""
+                {
+                  "query": "query Search($input: SearchMediaInput!) { searchMediaFaceted(input: $input) { items { name } hasMore totalCount categories { category count } genres { id name count } platforms { id name count } } }",
+                  "variables": {
+                    "input": {
+                      "query": "matrix",
+                      "categories": ["MOVIE"],
+                      "limit": 1
+                    }
+                  }
+                }
+                """);
+
+        MediaFacetedSearchResponse response = mockMvcJsonToObject(resultJson,
+                SEARCH_MEDIA_FACETED_JSON_START,
+                MediaFacetedSearchResponse.class);
+
+        assertEquals(1, response.getItems().size());
+        assertTrue(response.isHasMore());
+        assertEquals(2, response.getTotalCount());
+        assertThat(response.getCategories())
+                .extracting(CategoryCountResponse::getCategory, CategoryCountResponse::getCount)
+                .containsExactly(tuple(Category.MOVIE, 2L), tuple(Category.GAME, 1L));
+        assertThat(response.getGenres())
+                .extracting(FacetCountResponse::getName, FacetCountResponse::getCount)
+                .containsExactly(tuple("Action", 2L), tuple("Drama", 1L));
+        assertThat(response.getPlatforms())
+                .extracting(FacetCountResponse::getName, FacetCountResponse::getCount)
+                .containsExactly(tuple("Netflix", 2L));
+    }
+
     @Test
     void searchMediaItems_shouldReturnResultsWithCursor_whileMaxLimitReached() throws Exception {
         Genre action = genreRepository.save(new Genre(null, "Action", null));
@@ -862,7 +974,7 @@ public class UserQueryIT extends AbstractIntegrationTest {
         UserMediaList listItem = new UserMediaList();
         listItem.setUser(user);
         listItem.setMediaItem(item1);
-        userMediaListRepository.save(listItem);
+        saveListItem(listItem);
 
         String resultJson = graphql("""
                 {
@@ -889,4 +1001,12 @@ public class UserQueryIT extends AbstractIntegrationTest {
         assertTrue(response.getItems().getFirst().getInUserList());
         assertEquals(1, response.getTotalCount());
     }
+
+    /**
+     * Give a media item the average rating of 10 ratings summing to 10 times it
+     */
+    private void setAverageRating(MediaItem mediaItem, String avgRating) {
+        long ratingSum = new BigDecimal(avgRating).multiply(BigDecimal.TEN).longValueExact();
+        mediaItemRatingRepository.applyDelta(mediaItem.getId(), ratingSum, 10);
+    }
 }
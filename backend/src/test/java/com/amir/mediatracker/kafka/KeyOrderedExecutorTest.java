@@ -0,0 +1,70 @@
+package com.amir.mediatracker.kafka;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class KeyOrderedExecutorTest {
+
+    @Test
+    void submit_shouldRunTasksOfSameKeyInOrder_evenAfterFailure() {
+        List<Integer> order = new CopyOnWriteArrayList<>();
+        try (KeyOrderedExecutor<Long> executor = new KeyOrderedExecutor<>(4)) {
+            for (int i = 0; i < 50; i++) {
+                int value = i;
+                executor.submit(1L, () -> {
+                    order.add(value);
+                    if (value == 10) {
+                        throw new IllegalStateException("failed");
+                    }
+                });
+            }
+            executor.submit(1L, () -> order.add(50)).join();
+        }
+
+        assertThat(order).hasSize(51).isSorted();
+    }
+
+    @Test
+    void submit_shouldRunTasksOfDifferentKeysInParallel() throws Exception {
+        CountDownLatch bothStarted = new CountDownLatch(2);
+        Runnable task = () -> {
+            bothStarted.countDown();
+            try {
+                // Completes only if the task of the other key runs at the same time
+                assertTrue(bothStarted.await(5, TimeUnit.SECONDS));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+
+        try (KeyOrderedExecutor<Long> executor = new KeyOrderedExecutor<>(2)) {
+            CompletableFuture<Void> first = executor.submit(1L, task);
+            CompletableFuture<Void> second = executor.submit(2L, task);
+            CompletableFuture.allOf(first, second).get(5, TimeUnit.SECONDS);
+
+            assertEquals(0, bothStarted.getCount());
+        }
+    }
+
+    @Test
+    void close_shouldRunTasksQueuedBehindTheirKey() {
+        List<Integer> done = new CopyOnWriteArrayList<>();
+        KeyOrderedExecutor<Long> executor = new KeyOrderedExecutor<>(1);
+        for (int i = 0; i < 20; i++) {
+            int value = i;
+            executor.submit(1L, () -> done.add(value));
+        }
+        executor.close();
+
+        assertThat(done).hasSize(20).isSorted();
+    }
+}
@@ -4,11 +4,14 @@ import com.amir.mediatracker.config.AbstractIntegrationTest;
 import com.amir.mediatracker.entity.*;
 import com.amir.mediatracker.kafka.event.RatingEvent;
 import com.amir.mediatracker.service.NotificationService;
+import com.amir.mediatracker.service.RatingReconciliationService;
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Limit;
 import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
 
 import java.math.BigDecimal;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
@@ -24,6 +27,8 @@ public class RatingConsumerIT extends AbstractIntegrationTest {
     protected RatingConsumer ratingConsumer;
     @MockitoSpyBean
     protected NotificationService notificationService;
+    @Autowired
+    private RatingReconciliationService ratingReconciliationService;
 
     @Test
     void whenRatingEventSent_shouldRetryUntilDlt() {
@@ -37,7 +42,7 @@ public class RatingConsumerIT extends AbstractIntegrationTest {
         userFollowRepository.save(uf);
 
         doThrow(new RuntimeException("Database connection failed"))
-                .when(notificationService).createNotification(anyLong(), anyString(), anyLong(), anyShort(), anyLong());
+                .when(notificationService).notifyFollowers(anyLong(), anyLong(), anyShort(), anyString());
 
         // Act
         sendRatingEvent(mediaItem, (short) 10);
@@ -69,7 +74,7 @@ public class RatingConsumerIT extends AbstractIntegrationTest {
         doThrow(new RuntimeException("Database connection failed"))
                 .doThrow(new RuntimeException("Database connection failed"))
                 .doCallRealMethod()
-                .when(notificationService).createNotification(anyLong(), anyString(), anyLong(), anyShort(), anyLong());
+                .when(notificationService).notifyFollowers(anyLong(), anyLong(), anyShort(), anyString());
 
         // Act
         sendRatingEvent(mediaItem, (short) 10);
@@ -157,9 +162,11 @@ public class RatingConsumerIT extends AbstractIntegrationTest {
                 (short) 10,
                 (short) 10
         ), mediaItem); //avg -> (2+10+10)/3 = 7.3
+        ratingReconciliationService.reconcile();
+        assertEquals(BigDecimal.valueOf(7.3), mediaItemRepository.findById(mediaItem.getId()).get().getAvgRating());
 
         // Act
-        sendRatingEvent(mediaItem, null);
+        sendRatingEvent(mediaItem, (short) 5, (short) 2); //avg -> (5+10+10)/3 = 8.3
 
         // Wait & Assert
         await()
@@ -167,10 +174,62 @@ public class RatingConsumerIT extends AbstractIntegrationTest {
                 .pollInterval(100, TimeUnit.MILLISECONDS)
                 .untilAsserted(() -> {
                     MediaItem m = mediaItemRepository.findById(mediaItem.getId()).get();
-                    assertEquals(BigDecimal.valueOf(7.3), m.getAvgRating());
+                    assertEquals(BigDecimal.valueOf(8.3), m.getAvgRating());
                 });
     }
 
+    @Test
+    void whenRatingEventIsOlderThanTheReconciliation_itIsNotCountedTwice() {
+        //Arrange
+        MediaItem mediaItem = saveBasicMediaItem("someItem");
+        saveMockUserRating(List.of((short) 4, (short) 8), mediaItem); //avg -> 6.0
+        Instant ratedAt = Instant.now();
+        ratingReconciliationService.reconcile();
+
+        // Act
+        RatingEvent event = ratingEvent(mediaItem, (short) 8, null); //already counted by the reconciliation
+        event.setTimestamp(ratedAt);
+        sendKafkaMessage(event);
+        sendRatingEvent(mediaItem, (short) 5, (short) 4); //avg -> (5+8)/2 = 6.5
+
+        // Wait & Assert
+        await()
+                .atMost(5, TimeUnit.SECONDS)
+                .pollInterval(100, TimeUnit.MILLISECONDS)
+                .untilAsserted(() -> {
+                    verify(ratingConsumer, times(2)).consumeRatingEvent(any(RatingEvent.class));
+                    MediaItem m = mediaItemRepository.findById(mediaItem.getId()).get();
+                    assertEquals(new BigDecimal("6.5"), m.getAvgRating());
+                });
+    }
+
+    @Test
+    void whenRatingWithdrawn_avgRatingExcludesIt_andNoNotificationIsSent() {
+        //Arrange
+        MediaItem mediaItem = saveBasicMediaItem("someItem");
+        saveMockUserRating(List.of((short) 4, (short) 8), mediaItem); //avg -> 6.0
+        ratingReconciliationService.reconcile();
+        User follower = saveUser("follower");
+        UserFollow uf = new UserFollow();
+        uf.setFollower(follower);
+        uf.setFollowing(user);
+        uf.setMinimumRatingThreshold((short) 1);
+        userFollowRepository.save(uf);
+
+        // Act
+        sendRatingEvent(mediaItem, null, (short) 4); //avg -> 8.0
+
+        // Wait & Assert
+        await()
+                .atMost(5, TimeUnit.SECONDS)
+                .pollInterval(100, TimeUnit.MILLISECONDS)
+                .untilAsserted(() -> {
+                    MediaItem m = mediaItemRepository.findById(mediaItem.getId()).get();
+                    assertEquals(new BigDecimal("8.0"), m.getAvgRating());
+                });
+        assertThat(notificationRepository.findByUserIdOrderByCreatedAtDesc(follower.getId(), Limit.of(1))).isEmpty();
+    }
+
     private void saveMockUserRating(List<Short> ratings, MediaItem mediaItem) {
         List<UserMediaList> userMediaLists = new ArrayList<>();
         for (int i = 0 ; i < ratings.size() ; ++i) {
@@ -185,13 +244,21 @@ public class RatingConsumerIT extends AbstractIntegrationTest {
     }
 
     private void sendRatingEvent(MediaItem mediaItem, Short rating) {
+        sendRatingEvent(mediaItem, rating, null);
+    }
+
+    private void sendRatingEvent(MediaItem mediaItem, Short rating, Short previousRating) {
+        sendKafkaMessage(ratingEvent(mediaItem, rating, previousRating));
+    }
+
+    private RatingEvent ratingEvent(MediaItem mediaItem, Short rating, Short previousRating) {
         RatingEvent event = new RatingEvent();
         event.setUserId(user.getId());
         event.setMediaItemId(mediaItem.getId());
         event.setRating(rating);
+        event.setPreviousRating(previousRating);
         event.setUsername(user.getUsername());
         event.setMediaItemName(mediaItem.getName());
-
-        sendKafkaMessage(event);
+        return event;
     }
 }
@@ -0,0 +1,83 @@
+package com.amir.mediatracker.kafka;
+
+import com.amir.mediatracker.event.AverageRatingChangedEvent;
+import com.amir.mediatracker.kafka.event.RatingEvent;
+import com.amir.mediatracker.repository.MediaItemRatingRepository;
+import com.amir.mediatracker.service.NotificationService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RatingEventProcessorTest {
+
+    @Mock
+    private NotificationService notificationService;
+    @Mock
+    private MediaItemRatingRepository mediaItemRatingRepository;
+    @Mock
+    private ApplicationEventPublisher applicationEventPublisher;
+
+    @InjectMocks
+    private RatingEventProcessor ratingEventProcessor;
+
+    @Test
+    void applyRatingChanges_shouldUpdateEachMediaItemOnceWithSummedChanges() {
+        when(mediaItemRatingRepository.applyDelta(eq(10L), anyLong(), anyLong()))
+                .thenReturn(Optional.of(new MediaItemRatingRepository.RatingTotals(10L, 15, 2, new BigDecimal("7.5"))));
+
+        int updated = ratingEventProcessor.applyRatingChanges(List.of(
+                event(1L, 10L, (short) 8, null),
+                event(2L, 10L, (short) 6, null),
+                event(1L, 10L, (short) 9, (short) 8),
+                event(3L, 20L, (short) 5, (short) 5)));
+
+        assertEquals(1, updated);
+        verify(mediaItemRatingRepository).applyDelta(10L, 15, 2);
+        verify(mediaItemRatingRepository, never()).applyDelta(eq(20L), anyLong(), anyLong());
+        verify(applicationEventPublisher).publishEvent(new AverageRatingChangedEvent(10L, new BigDecimal("7.5")));
+    }
+
+    @Test
+    void applyRatingChanges_shouldSkipEventsFromBeforeTheTotalsWereComputed() {
+        Instant countedUntil = Instant.now().minus(1, ChronoUnit.HOURS);
+        when(mediaItemRatingRepository.findCountedUntil()).thenReturn(Optional.of(countedUntil));
+        when(mediaItemRatingRepository.applyDelta(10L, 8, 1))
+                .thenReturn(Optional.of(new MediaItemRatingRepository.RatingTotals(10L, 16, 2, new BigDecimal("8.0"))));
+
+        RatingEvent old = event(1L, 10L, (short) 9, null);
+        old.setTimestamp(countedUntil.minus(1, ChronoUnit.MINUTES));
+        int updated = ratingEventProcessor.applyRatingChanges(List.of(old, event(2L, 10L, (short) 8, null)));
+
+        assertEquals(1, updated);
+        verify(mediaItemRatingRepository).applyDelta(10L, 8, 1);
+    }
+
+    @Test
+    void notifyFollowers_shouldFanOutEachRating_andSkipWithdrawnRatings() {
+        ratingEventProcessor.notifyFollowers(List.of(
+                event(1L, 10L, (short) 8, null),
+                event(1L, 30L, null, (short) 9)));
+
+        verify(notificationService).notifyFollowers(1L, 10L, (short) 8, "user1 rated 'item10' with 8 stars");
+        verifyNoMoreInteractions(notificationService);
+    }
+
+    private RatingEvent event(Long userId, Long mediaItemId, Short rating, Short previousRating) {
+        return new RatingEvent(userId, "user" + userId, mediaItemId, "item" + mediaItemId, rating, previousRating,
+                Instant.now());
+    }
+}
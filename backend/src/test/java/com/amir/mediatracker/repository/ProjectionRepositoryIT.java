@@ -0,0 +1,94 @@
+package com.amir.mediatracker.repository;
+
+import com.amir.mediatracker.config.AbstractIntegrationTest;
+import com.amir.mediatracker.dto.response.MediaItemResponse;
+import com.amir.mediatracker.dto.response.NotificationResponse;
+import com.amir.mediatracker.dto.response.UserMediaListResponse;
+import com.amir.mediatracker.entity.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ProjectionRepositoryIT extends AbstractIntegrationTest {
+
+    @Autowired
+    private ProjectionRepository projectionRepository;
+
+    private MediaItem matrix;
+    private MediaItem avatar;
+
+    @BeforeEach
+    void setUp() {
+        notificationRepository.deleteAll();
+        Genre action = saveBasicGenre("Action");
+        Platform netflix = saveBasicPlatform("Netflix");
+
+        matrix = saveBasicMediaItem("The Matrix");
+        matrix.setGenres(Set.of(action));
+        matrix.setPlatforms(Set.of(netflix));
+        matrix = mediaItemRepository.save(matrix);
+        avatar = saveBasicMediaItem("Avatar");
+    }
+
+    @Test
+    void findMediaItems_shouldKeepIdOrderAndSkipMissingIds() {
+        List<MediaItemResponse> items = projectionRepository.findMediaItems(
+                List.of(avatar.getId(), -1L, matrix.getId()));
+
+        assertThat(items).extracting(MediaItemResponse::getName).containsExactly("Avatar", "The Matrix");
+        assertThat(items.getFirst().getGenres()).isEmpty();
+        assertThat(items.getLast().getGenres()).extracting("name").containsExactly("Action");
+        assertThat(items.getLast().getPlatforms()).extracting("name").containsExactly("Netflix");
+    }
+
+    @Test
+    void findUserListItems_shouldMapListFieldsAndMediaItem() {
+        UserMediaList listItem = new UserMediaList();
+        listItem.setUser(user);
+        listItem.setMediaItem(matrix);
+        listItem.setExperienced(true);
+        listItem.setRating((short) 9);
+        listItem.setComment("classic");
+        listItem = saveListItem(listItem);
+
+        List<UserMediaListResponse> items = projectionRepository.findUserListItems(List.of(listItem.getId()));
+
+        assertThat(items).hasSize(1);
+        UserMediaListResponse response = items.getFirst();
+        assertThat(response.getExperienced()).isTrue();
+        assertThat(response.getRating()).isEqualTo((short) 9);
+        assertThat(response.getComment()).isEqualTo("classic");
+        assertThat(response.getMediaItem().getName()).isEqualTo("The Matrix");
+        assertThat(response.getMediaItem().getGenres()).hasSize(1);
+    }
+
+    @Test
+    void findLatestNotifications_shouldMapRaterAndApplyLimit() {
+        User rater = saveUser("rater");
+        saveNotification(matrix, rater, (short) 8);
+        saveNotification(avatar, rater, (short) 6);
+
+        List<NotificationResponse> notifications = projectionRepository.findLatestNotifications(user.getId(), 1);
+
+        assertThat(notifications).hasSize(1);
+        NotificationResponse latest = notifications.getFirst();
+        assertThat(latest.getMediaItem().getName()).isEqualTo("Avatar");
+        assertThat(latest.getRatedByUser().getUsername()).isEqualTo("rater");
+        assertThat(latest.getIsRead()).isFalse();
+    }
+
+    private void saveNotification(MediaItem mediaItem, User ratedBy, short rating) {
+        Notification notification = new Notification();
+        notification.setUser(user);
+        notification.setMediaItem(mediaItem);
+        notification.setRatedByUser(ratedBy);
+        notification.setRating(rating);
+        notification.setMessage("rated");
+        notificationRepository.save(notification);
+    }
+}
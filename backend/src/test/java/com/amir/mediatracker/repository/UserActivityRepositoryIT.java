@@ -0,0 +1,30 @@
+package com.amir.mediatracker.repository;
+
+import com.amir.mediatracker.config.AbstractIntegrationTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class UserActivityRepositoryIT extends AbstractIntegrationTest {
+
+    @Autowired
+    private UserActivityRepository userActivityRepository;
+
+    @Test
+    void updateLastActive_shouldOnlyMoveTimesForward() {
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+        LocalDateTime later = now.plusMinutes(5);
+
+        int updated = userActivityRepository.updateLastActive(Map.of(user.getId(), later, admin.getId(), now));
+        int stale = userActivityRepository.updateLastActive(Map.of(user.getId(), now));
+
+        assertThat(updated).isEqualTo(2);
+        assertThat(stale).isZero();
+        assertThat(userRepository.findById(user.getId()).orElseThrow().getLastActive()).isEqualTo(later);
+    }
+}
@@ -0,0 +1,133 @@
+package com.amir.mediatracker.repository;
+
+import com.amir.mediatracker.config.AbstractIntegrationTest;
+import com.amir.mediatracker.dto.Category;
+import com.amir.mediatracker.dto.SortDirection;
+import com.amir.mediatracker.dto.UserSearchMediaSortBy;
+import com.amir.mediatracker.dto.request.MediaItemRequest;
+import com.amir.mediatracker.dto.response.GenreResponse;
+import com.amir.mediatracker.dto.response.PlatformResponse;
+import com.amir.mediatracker.entity.*;
+import com.amir.mediatracker.service.AdminService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class UserMediaListViewRepositoryIT extends AbstractIntegrationTest {
+
+    @Autowired
+    private AdminService adminService;
+
+    private Genre action;
+    private Genre drama;
+    private Platform netflix;
+    private MediaItem matrix;
+    private MediaItem avatar;
+    private UserMediaList matrixItem;
+    private UserMediaList avatarItem;
+
+    @BeforeEach
+    void setUp() {
+        action = saveBasicGenre("Action");
+        drama = saveBasicGenre("Drama");
+        netflix = saveBasicPlatform("Netflix");
+
+        matrix = mediaItemRepository.save(MediaItem.builder()
+                .name("The Matrix").category(Category.MOVIE).year(1999)
+                .genres(Set.of(action, drama)).platforms(Set.of(netflix)).build());
+        avatar = mediaItemRepository.save(MediaItem.builder()
+                .name("Avatar").category(Category.MOVIE).year(2009)
+                .genres(Set.of(action)).platforms(Set.of(netflix)).build());
+
+        matrixItem = saveListItem(UserMediaList.builder().user(user).mediaItem(matrix)
+                .experienced(true).wishToReexperience(false).rating((short) 9).build());
+        avatarItem = saveListItem(UserMediaList.builder().user(user).mediaItem(avatar)
+                .experienced(false).wishToReexperience(false).build());
+    }
+
+    @Test
+    void findIdsAfterName_shouldFollowNameOrderAndCursor() {
+        UserMediaListViewRepository.Filter all = filter("", null, false);
+
+        assertThat(userMediaListViewRepository.findIdsAfterName(all, "", 0L, 10))
+                .containsExactly(avatarItem.getId(), matrixItem.getId());
+        assertThat(userMediaListViewRepository.findIdsAfterName(all, "Avatar", avatar.getId(), 10))
+                .containsExactly(matrixItem.getId());
+    }
+
+    @Test
+    void filters_shouldMatchItemsContainingAllGenresAndNamePart() {
+        assertThat(userMediaListViewRepository.count(filter("", Set.of(action.getId(), drama.getId()), false)))
+                .isEqualTo(1);
+        assertThat(userMediaListViewRepository.count(filter("matri", null, false))).isEqualTo(1);
+        assertThat(userMediaListViewRepository.count(filter("", null, true))).isEqualTo(1);
+    }
+
+    @Test
+    void findIdsSorted_shouldSortByRatingWithNullsLastOnAsc() {
+        assertThat(userMediaListViewRepository.findIdsSorted(filter("", null, false),
+                UserSearchMediaSortBy.RATING, SortDirection.ASC, 0, 10))
+                .containsExactly(matrixItem.getId(), avatarItem.getId());
+    }
+
+    @Test
+    void updateMediaItem_shouldBeReflectedInListOnCommit() {
+        MediaItemRequest request = new MediaItemRequest();
+        request.setCategory(Category.MOVIE);
+        request.setName("Avatar: The Way of Water");
+        request.setYear(2022);
+        request.setGenreIds(Set.of(drama.getId()));
+        request.setPlatformIds(Set.of(netflix.getId()));
+        adminService.updateMediaItem(avatar.getId(), request);
+
+        assertThat(userMediaListViewRepository.count(filter("way of water", Set.of(drama.getId()), false)))
+                .isEqualTo(1);
+        assertThat(userMediaListViewRepository.findIdsSorted(filter("", null, false),
+                UserSearchMediaSortBy.YEAR, SortDirection.DESC, 0, 10))
+                .containsExactly(avatarItem.getId(), matrixItem.getId());
+    }
+
+    @Test
+    void delete_shouldBeReflectedInList() {
+        userMediaListRepository.deleteById(avatarItem.getId());
+
+        assertThat(userMediaListViewRepository.findIdsSorted(filter("", null, false),
+                UserSearchMediaSortBy.NAME, SortDirection.ASC, 0, 10))
+                .containsExactly(matrixItem.getId());
+    }
+
+    @Test
+    void facets_shouldFollowListAndCatalogChanges() {
+        assertThat(userMediaListViewRepository.findGenreFacets(user.getId(), null))
+                .extracting(GenreResponse::getName).containsExactly("Action", "Drama");
+        assertThat(userMediaListViewRepository.findPlatformFacets(user.getId(), Set.of(Category.MOVIE)))
+                .extracting(PlatformResponse::getName).containsExactly("Netflix");
+        assertThat(userMediaListViewRepository.findPlatformFacets(user.getId(), Set.of(Category.GAME))).isEmpty();
+
+        MediaItemRequest request = new MediaItemRequest();
+        request.setCategory(Category.MOVIE);
+        request.setName("Avatar");
+        request.setYear(2009);
+        request.setGenreIds(Set.of(drama.getId()));
+        request.setPlatformIds(Set.of(netflix.getId()));
+        adminService.updateMediaItem(avatar.getId(), request);
+        userMediaListViewRepository.deleteListItems(user.getId(), List.of(matrixItem.getId()));
+
+        assertThat(userMediaListViewRepository.findGenreFacets(user.getId(), null))
+                .extracting(GenreResponse::getName).containsExactly("Drama");
+
+        adminService.deleteMediaItem(avatar.getId());
+
+        assertThat(userMediaListViewRepository.findGenreFacets(user.getId(), null)).isEmpty();
+        assertThat(userMediaListViewRepository.findPlatformFacets(user.getId(), null)).isEmpty();
+    }
+
+    private UserMediaListViewRepository.Filter filter(String searchQuery, Set<Long> genreIds, boolean wishToExperience) {
+        return new UserMediaListViewRepository.Filter(user.getId(), searchQuery, null, genreIds, null, wishToExperience);
+    }
+}
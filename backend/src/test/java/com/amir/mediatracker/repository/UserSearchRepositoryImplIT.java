@@ -498,7 +498,7 @@ public class UserSearchRepositoryImplIT extends AbstractIntegrationTest {
         uml.setUser(user);
         uml.setMediaItem(mediaItem);
         uml.setRating(rating);
-        userMediaListRepository.save(uml);
+        saveListItem(uml);
     }
 
     private void follow(User follower, User following) {
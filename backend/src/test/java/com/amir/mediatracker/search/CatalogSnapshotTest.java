@@ -0,0 +1,154 @@
+package com.amir.mediatracker.search;
+
+import com.amir.mediatracker.dto.Category;
+import com.amir.mediatracker.dto.SearchMediaSortBy;
+import com.amir.mediatracker.dto.SortDirection;
+import com.amir.mediatracker.dto.response.CategoryCountResponse;
+import com.amir.mediatracker.dto.response.FacetCountResponse;
+import com.amir.mediatracker.dto.response.MediaItemResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+class CatalogSnapshotTest {
+
+    private static final long ACTION = 1L;
+    private static final long DRAMA = 2L;
+    private static final long NETFLIX = 10L;
+    private static final long HBO = 11L;
+
+    private CatalogSnapshot snapshot;
+
+    @BeforeEach
+    void setUp() {
+        snapshot = CatalogSnapshot.of(
+                List.of(
+                        entry(3L, Category.MOVIE, "The Matrix Reloaded", 2003, "7.2", Set.of(ACTION), Set.of(NETFLIX)),
+                        entry(1L, Category.MOVIE, "The Matrix", 1999, "8.7", Set.of(ACTION, DRAMA), Set.of(NETFLIX, HBO)),
+                        entry(2L, Category.SERIES, "Breaking Bad", 2008, null, Set.of(DRAMA), Set.of(NETFLIX)),
+                        entry(4L, Category.GAME, "Matrix Path of Neo", null, "6.0", Set.of(ACTION), Set.of())
+                ),
+                Map.of(ACTION, "Action", DRAMA, "Drama"),
+                Map.of(NETFLIX, "Netflix", HBO, "HBO")
+        );
+    }
+
+    @Test
+    void match_nameIsCaseInsensitiveSubstring() {
+        BitSet matches = snapshot.match("matrix", null, null, null);
+
+        assertThat(ids(snapshot.pageAfter(matches, null, null, 10))).containsExactly(4L, 1L, 3L);
+    }
+
+    @Test
+    void match_categoriesAreOr() {
+        BitSet matches = snapshot.match("", Set.of(Category.SERIES, Category.GAME), null, null);
+
+        assertThat(ids(snapshot.pageAfter(matches, null, null, 10))).containsExactlyInAnyOrder(2L, 4L);
+    }
+
+    @Test
+    void match_genresAndPlatformsMustAllBePresent() {
+        assertThat(snapshot.match("", null, Set.of(ACTION, DRAMA), null).cardinality()).isEqualTo(1);
+        assertThat(snapshot.match("", null, Set.of(ACTION), Set.of(NETFLIX)).cardinality()).isEqualTo(2);
+        assertThat(snapshot.match("", null, Set.of(ACTION), Set.of(NETFLIX, HBO)).cardinality()).isEqualTo(1);
+    }
+
+    @Test
+    void match_unknownGenre_returnsNothing() {
+        assertThat(snapshot.match("", null, Set.of(99L), null).isEmpty()).isTrue();
+    }
+
+    @Test
+    void pageAfter_continuesAfterCursor() {
+        BitSet matches = snapshot.match("", null, null, null);
+
+        List<Integer> firstPage = snapshot.pageAfter(matches, null, null, 2);
+        int last = firstPage.getLast();
+        List<Integer> secondPage = snapshot.pageAfter(matches, snapshot.nameAt(last), snapshot.idAt(last), 2);
+
+        assertThat(ids(firstPage)).containsExactly(2L, 4L);
+        assertThat(ids(secondPage)).containsExactly(1L, 3L);
+    }
+
+    @Test
+    void nameOrder_comparesByCodePoint() {
+        String supplementary = new String(Character.toChars(0x1F600));
+        String privateUse = String.valueOf((char) 0xE000);
+
+        assertThat(CatalogSnapshot.NAME_ORDER.compare(supplementary, privateUse)).isPositive();
+        assertThat(CatalogSnapshot.NAME_ORDER.compare("ab", "abc")).isNegative();
+        assertThat(CatalogSnapshot.NAME_ORDER.compare("abc", "abc")).isZero();
+    }
+
+    @Test
+    void sort_nullsLastOnAscAndFirstOnDesc() {
+        BitSet matches = snapshot.match("", null, null, null);
+
+        assertThat(ids(snapshot.sort(matches, SearchMediaSortBy.AVG_RATING, SortDirection.ASC)))
+                .containsExactly(4L, 3L, 1L, 2L);
+        assertThat(ids(snapshot.sort(matches, SearchMediaSortBy.YEAR, SortDirection.DESC)))
+                .containsExactly(4L, 2L, 3L, 1L);
+    }
+
+    @Test
+    void sortAfterCursor_continuesInSameOrderAcrossNullValues() {
+        BitSet matches = snapshot.match("", null, null, null);
+        List<Integer> all = snapshot.sort(matches, SearchMediaSortBy.YEAR, SortDirection.DESC);
+
+        int first = all.getFirst(); // item 4, without a year
+        KeysetCursor afterNull = new KeysetCursor("YEAR", SortDirection.DESC, 1, snapshot.idAt(first), null);
+        KeysetCursor afterYear = new KeysetCursor("YEAR", SortDirection.DESC, 1, 2L, "2008");
+
+        assertThat(ids(snapshot.sort(matches, SearchMediaSortBy.YEAR, SortDirection.DESC, afterNull)))
+                .containsExactly(2L, 3L, 1L);
+        assertThat(ids(snapshot.sort(matches, SearchMediaSortBy.YEAR, SortDirection.DESC, afterYear)))
+                .containsExactly(3L, 1L);
+    }
+
+    @Test
+    void facets_countGenresAndPlatformsOfResultAndCategoriesIgnoringCategoryFilter() {
+        MediaFacets facets = snapshot.facets("matrix", Set.of(Category.MOVIE), null, null);
+
+        assertThat(facets.totalCount()).isEqualTo(2);
+        assertThat(facets.categories())
+                .extracting(CategoryCountResponse::getCategory, CategoryCountResponse::getCount)
+                .containsExactly(tuple(Category.MOVIE, 2L), tuple(Category.GAME, 1L));
+        assertThat(facets.genres())
+                .extracting(FacetCountResponse::getName, FacetCountResponse::getCount)
+                .containsExactly(tuple("Action", 2L), tuple("Drama", 1L));
+        assertThat(facets.platforms())
+                .extracting(FacetCountResponse::getName, FacetCountResponse::getCount)
+                .containsExactly(tuple("Netflix", 2L), tuple("HBO", 1L));
+    }
+
+    @Test
+    void updateAverageRating_isVisibleInResponse() {
+        snapshot.updateAverageRating(2L, new BigDecimal("9.0"));
+
+        BitSet matches = snapshot.match("Breaking", null, null, null);
+        MediaItemResponse response = snapshot.toResponse(matches.nextSetBit(0));
+
+        assertThat(response.getAvgRating()).isEqualByComparingTo("9.0");
+        assertThat(response.getGenres()).extracting("name").containsExactly("Drama");
+    }
+
+    private List<Long> ids(List<Integer> positions) {
+        return positions.stream().map(snapshot::idAt).toList();
+    }
+
+    private static CatalogSnapshot.Entry entry(Long id, Category category, String name, Integer year,
+                                               String avgRating, Set<Long> genres, Set<Long> platforms) {
+        return new CatalogSnapshot.Entry(id, category, name, year,
+                avgRating == null ? null : new BigDecimal(avgRating),
+                null, null, genres, platforms);
+    }
+}
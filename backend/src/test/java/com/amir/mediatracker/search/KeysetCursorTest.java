@@ -0,0 +1,68 @@
+package com.amir.mediatracker.search;
+
+import com.amir.mediatracker.dto.SearchMediaSortBy;
+import com.amir.mediatracker.dto.SortDirection;
+import com.amir.mediatracker.dto.UserSearchMediaSortBy;
+import com.amir.mediatracker.dto.response.MediaItemResponse;
+import com.amir.mediatracker.dto.response.UserMediaListResponse;
+import com.amir.mediatracker.exception.BadRequestException;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class KeysetCursorTest {
+
+    @Test
+    void encodeDecode_shouldKeepValueIdAndPage() {
+        String token = KeysetCursor.after(SearchMediaSortBy.AVG_RATING, SortDirection.DESC, 4,
+                MediaItemResponse.builder().id(42L).avgRating(new BigDecimal("8.5")).build()).encode();
+
+        KeysetCursor cursor = KeysetCursor.decode(token, SearchMediaSortBy.AVG_RATING, SortDirection.DESC);
+
+        assertThat(cursor.decimalValue()).isEqualByComparingTo("8.5");
+        assertThat(cursor.id()).isEqualTo(42L);
+        assertThat(cursor.page()).isEqualTo(4);
+    }
+
+    @Test
+    void encodeDecode_nameWithSeparatorLikeCharacters_shouldBeKeptAsIs() {
+        String token = KeysetCursor.after(SearchMediaSortBy.NAME, SortDirection.ASC, 1,
+                MediaItemResponse.builder().id(1L).name("Mission: Impossible - Fallout =-").build()).encode();
+
+        assertThat(KeysetCursor.decode(token, SearchMediaSortBy.NAME, SortDirection.ASC).value())
+                .isEqualTo("Mission: Impossible - Fallout =-");
+    }
+
+    @Test
+    void encodeDecode_missingValue_shouldDecodeAsNull() {
+        String token = KeysetCursor.after(UserSearchMediaSortBy.RATING, SortDirection.ASC, 1,
+                UserMediaListResponse.builder().id(3L).build()).encode();
+
+        KeysetCursor cursor = KeysetCursor.decode(token, UserSearchMediaSortBy.RATING, SortDirection.ASC);
+
+        assertThat(cursor.value()).isNull();
+        assertThat(cursor.intValue()).isNull();
+    }
+
+    @Test
+    void decode_differentSortOrDirection_shouldThrowBadRequest() {
+        String token = KeysetCursor.after(SearchMediaSortBy.YEAR, SortDirection.ASC, 1,
+                MediaItemResponse.builder().id(1L).year(1999).build()).encode();
+
+        assertThatThrownBy(() -> KeysetCursor.decode(token, SearchMediaSortBy.NAME, SortDirection.ASC))
+                .isInstanceOf(BadRequestException.class);
+        assertThatThrownBy(() -> KeysetCursor.decode(token, SearchMediaSortBy.YEAR, SortDirection.DESC))
+                .isInstanceOf(BadRequestException.class);
+    }
+
+    @Test
+    void decode_malformedToken_shouldThrowBadRequest() {
+        assertThatThrownBy(() -> KeysetCursor.decode("not a cursor!", SearchMediaSortBy.YEAR, SortDirection.ASC))
+                .isInstanceOf(BadRequestException.class);
+        assertThatThrownBy(() -> KeysetCursor.decode("WUVBUg", SearchMediaSortBy.YEAR, SortDirection.ASC))
+                .isInstanceOf(BadRequestException.class);
+    }
+}
@@ -0,0 +1,108 @@
+package com.amir.mediatracker.search;
+
+import com.amir.mediatracker.config.SearchProperties;
+import com.amir.mediatracker.dto.Category;
+import com.amir.mediatracker.repository.CatalogSnapshotRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class MediaSearchIndexTest {
+
+    private static final long CRIME = 1L;
+    private static final long DRAMA = 2L;
+    private static final long NETFLIX = 10L;
+
+    @TempDir
+    Path indexPath;
+
+    private CatalogSnapshotRepository catalogSnapshotRepository;
+    private MediaSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        SearchProperties searchProperties = new SearchProperties();
+        searchProperties.getLucene().setEnabled(true);
+        searchProperties.getLucene().setIndexPath(indexPath.toString());
+
+        catalogSnapshotRepository = mock(CatalogSnapshotRepository.class);
+        when(catalogSnapshotRepository.loadEntries(null)).thenReturn(List.of(
+                entry(1L, Category.MOVIE, "The Godfather", 1972, Set.of(CRIME, DRAMA), Set.of(NETFLIX)),
+                entry(2L, Category.MOVIE, "The Godfather Part II", 1974, Set.of(CRIME, DRAMA), Set.of()),
+                entry(3L, Category.SERIES, "The Sopranos", 1999, Set.of(CRIME), Set.of(NETFLIX)),
+                entry(4L, Category.MOVIE, "Father of the Bride", 1991, Set.of(), Set.of())
+        ));
+
+        index = new MediaSearchIndex(searchProperties, catalogSnapshotRepository);
+        index.open();
+    }
+
+    @AfterEach
+    void tearDown() {
+        index.close();
+    }
+
+    @Test
+    void search_misspelledName_shouldFindAndRankClosestFirst() {
+        MediaSearchIndex.Hits hits = index.search("godfater", null, null, null, 0, 10);
+
+        assertThat(hits.ids()).containsExactly(1L, 2L);
+        assertThat(hits.totalHits()).isEqualTo(2);
+    }
+
+    @Test
+    void search_prefixAndYear_shouldMatch() {
+        assertThat(index.search("sopr", null, null, null, 0, 10).ids()).containsExactly(3L);
+        assertThat(index.search("godfather 1974", null, null, null, 0, 10).ids()).containsExactly(2L);
+    }
+
+    @Test
+    void search_filters_shouldRestrictResults() {
+        assertThat(index.search("the", Set.of(Category.SERIES, Category.GAME), null, null, 0, 10).ids())
+                .containsExactly(3L);
+        assertThat(index.search("", null, Set.of(CRIME, DRAMA), Set.of(NETFLIX), 0, 10).ids())
+                .containsExactly(1L);
+    }
+
+    @Test
+    void search_blankQuery_shouldPageByName() {
+        MediaSearchIndex.Hits hits = index.search(" ", null, null, null, 1, 2);
+
+        assertThat(hits.ids()).containsExactly(1L, 2L);
+        assertThat(hits.totalHits()).isEqualTo(4);
+    }
+
+    @Test
+    void update_shouldReplaceAndDeleteDocuments() {
+        index.update(List.of(entry(4L, Category.MOVIE, "The Godfather Part III", 1990, Set.of(), Set.of())),
+                List.of(2L));
+
+        assertThat(index.search("godfather part", null, null, null, 0, 10).ids()).containsExactly(4L);
+        assertThat(index.search("bride", null, null, null, 0, 10).ids()).isEmpty();
+    }
+
+    @Test
+    void open_existingIndex_shouldNotRebuild() {
+        index.close();
+        index.open();
+
+        assertThat(index.search("sopranos", null, null, null, 0, 10).ids()).containsExactly(3L);
+        verify(catalogSnapshotRepository, times(1)).loadEntries(null);
+    }
+
+    private CatalogSnapshot.Entry entry(Long id, Category category, String name, Integer year,
+                                        Set<Long> genreIds, Set<Long> platformIds) {
+        return new CatalogSnapshot.Entry(id, category, name, year, null, null, null, genreIds, platformIds);
+    }
+}
@@ -0,0 +1,69 @@
+package com.amir.mediatracker.search;
+
+import com.amir.mediatracker.dto.Category;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NameSuggestionIndexTest {
+
+    private NameSuggestionIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = NameSuggestionIndex.of(List.of(
+                new NameSuggestionIndex.Entry(1L, "The Matrix", Category.MOVIE),
+                new NameSuggestionIndex.Entry(2L, "Matrix Path of Neo", Category.GAME),
+                new NameSuggestionIndex.Entry(3L, "Mad Max", Category.MOVIE),
+                new NameSuggestionIndex.Entry(4L, "Breaking Bad", Category.SERIES),
+                new NameSuggestionIndex.Entry(5L, "The Matrix Reloaded", Category.MOVIE)
+        ));
+    }
+
+    @Test
+    void find_matchesWholeNameIgnoringCaseWithinCategory() {
+        assertThat(index.find("the MATRIX", Category.MOVIE).id()).isEqualTo(1L);
+        assertThat(index.find("The Matrix", Category.GAME)).isNull();
+        assertThat(index.find("The Matri", Category.MOVIE)).isNull();
+    }
+
+    @Test
+    void suggest_nameStartsComeBeforeWordStarts() {
+        assertThat(names(index.suggest("MATR", null, 10)))
+                .containsExactly("Matrix Path of Neo", "The Matrix", "The Matrix Reloaded");
+    }
+
+    @Test
+    void suggest_filtersByCategory() {
+        assertThat(names(index.suggest("ma", Set.of(Category.MOVIE), 10)))
+                .containsExactly("Mad Max", "The Matrix", "The Matrix Reloaded");
+    }
+
+    @Test
+    void suggest_respectsLimit() {
+        assertThat(names(index.suggest("ma", null, 2)))
+                .containsExactly("Mad Max", "Matrix Path of Neo");
+    }
+
+    @Test
+    void suggest_itemMatchingTwiceIsReturnedOnce() {
+        NameSuggestionIndex repeated = NameSuggestionIndex.of(List.of(
+                new NameSuggestionIndex.Entry(1L, "Bad Bad Bad", Category.SERIES)));
+
+        assertThat(repeated.suggest("bad", null, 10)).hasSize(1);
+    }
+
+    @Test
+    void suggest_noMatchOrBlankPrefix_returnsNothing() {
+        assertThat(index.suggest("xyz", null, 10)).isEmpty();
+        assertThat(index.suggest(" ", null, 10)).isEmpty();
+    }
+
+    private List<String> names(List<NameSuggestionIndex.Entry> entries) {
+        return entries.stream().map(NameSuggestionIndex.Entry::name).toList();
+    }
+}
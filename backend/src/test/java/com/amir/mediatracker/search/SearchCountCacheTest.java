@@ -0,0 +1,92 @@
+package com.amir.mediatracker.search;
+
+import com.amir.mediatracker.config.SearchProperties;
+import com.amir.mediatracker.dto.Category;
+import com.amir.mediatracker.event.CatalogChangedEvent;
+import com.amir.mediatracker.event.UserListChangedEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SearchCountCacheTest {
+
+    private SearchProperties searchProperties;
+    private CatalogGeneration catalogGeneration;
+    private SearchCountCache cache;
+    private AtomicInteger calls;
+    private LongSupplier counter;
+
+    @BeforeEach
+    void setUp() {
+        searchProperties = new SearchProperties();
+        catalogGeneration = new CatalogGeneration();
+        cache = new SearchCountCache(searchProperties, catalogGeneration);
+        calls = new AtomicInteger();
+        counter = () -> {
+            calls.incrementAndGet();
+            return 42L;
+        };
+    }
+
+    @Test
+    void catalogCount_sameFilters_shouldCountOnce() {
+        long first = cache.catalogCount("Matrix", Set.of(Category.MOVIE), Set.of(1L, 2L), null, counter);
+        long second = cache.catalogCount("matrix", new HashSet<>(List.of(Category.MOVIE)),
+                new HashSet<>(List.of(2L, 1L)), Set.of(), counter);
+
+        assertThat(first).isEqualTo(42L);
+        assertThat(second).isEqualTo(42L);
+        assertThat(calls).hasValue(1);
+    }
+
+    @Test
+    void catalogCount_differentFilters_shouldCountAgain() {
+        cache.catalogCount("Matrix", null, null, null, counter);
+        cache.catalogCount("Matrix", Set.of(Category.GAME), null, null, counter);
+
+        assertThat(calls).hasValue(2);
+    }
+
+    @Test
+    void catalogChanged_shouldInvalidateCatalogAndUserListCounts() {
+        cache.catalogCount("Matrix", null, null, null, counter);
+        cache.userListCount(1L, "", null, null, null, false, counter);
+
+        catalogGeneration.onCatalogChanged(new CatalogChangedEvent("test"));
+        cache.catalogCount("Matrix", null, null, null, counter);
+        cache.userListCount(1L, "", null, null, null, false, counter);
+
+        assertThat(calls).hasValue(4);
+    }
+
+    @Test
+    void userListChanged_shouldInvalidateOnlyThatUser() {
+        cache.userListCount(1L, "", null, null, null, false, counter);
+        cache.userListCount(2L, "", null, null, null, false, counter);
+        cache.catalogCount("", null, null, null, counter);
+
+        cache.onUserListChanged(new UserListChangedEvent(1L));
+        cache.userListCount(1L, "", null, null, null, false, counter);
+        cache.userListCount(2L, "", null, null, null, false, counter);
+        cache.catalogCount("", null, null, null, counter);
+
+        assertThat(calls).hasValue(4);
+    }
+
+    @Test
+    void disabled_shouldAlwaysCount() {
+        searchProperties.getCountCache().setEnabled(false);
+
+        cache.catalogCount("Matrix", null, null, null, counter);
+        cache.catalogCount("Matrix", null, null, null, counter);
+
+        assertThat(calls).hasValue(2);
+    }
+}
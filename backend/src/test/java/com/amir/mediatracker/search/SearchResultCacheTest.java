@@ -0,0 +1,148 @@
+package com.amir.mediatracker.search;
+
+import com.amir.mediatracker.config.SearchProperties;
+import com.amir.mediatracker.dto.Category;
+import com.amir.mediatracker.dto.SearchMediaSortBy;
+import com.amir.mediatracker.dto.SortDirection;
+import com.amir.mediatracker.dto.response.MediaItemResponse;
+import com.amir.mediatracker.dto.response.MediaSearchResponse;
+import com.amir.mediatracker.event.AverageRatingChangedEvent;
+import com.amir.mediatracker.event.CatalogChangedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SearchResultCacheTest {
+
+    private SearchProperties searchProperties;
+    private CatalogGeneration catalogGeneration;
+    private SimpleMeterRegistry meterRegistry;
+    private SearchResultCache cache;
+    private AtomicInteger calls;
+
+    @BeforeEach
+    void setUp() {
+        searchProperties = new SearchProperties();
+        catalogGeneration = new CatalogGeneration();
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new SearchResultCache(searchProperties, catalogGeneration, meterRegistry);
+        calls = new AtomicInteger();
+    }
+
+    @Test
+    void cursorPage_sameInput_shouldLoadOnce() {
+        cache.cursorPage("Matrix", Set.of(Category.MOVIE), Set.of(1L), null, null, null, 20, cursorLoader());
+        MediaSearchResponse second = cache.cursorPage("matrix", Set.of(Category.MOVIE), Set.of(1L), Set.of(),
+                null, null, 20, cursorLoader());
+
+        assertThat(calls).hasValue(1);
+        assertThat(second.getItems()).extracting(MediaItemResponse::getName).containsExactly("The Matrix");
+        assertThat(meterRegistry.get("cache.gets").tag("result", "hit").functionCounter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void cursorPage_differentCursor_shouldLoadAgain() {
+        cache.cursorPage("Matrix", null, null, null, null, null, 20, cursorLoader());
+        cache.cursorPage("Matrix", null, null, null, "the matrix", 1L, 20, cursorLoader());
+
+        assertThat(calls).hasValue(2);
+    }
+
+    @Test
+    void catalogChanged_shouldLoadAgain() {
+        cache.cursorPage("Matrix", null, null, null, null, null, 20, cursorLoader());
+
+        catalogGeneration.onCatalogChanged(new CatalogChangedEvent("test"));
+        cache.cursorPage("Matrix", null, null, null, null, null, 20, cursorLoader());
+
+        assertThat(calls).hasValue(2);
+    }
+
+    @Test
+    void ratingChanged_shouldLoadAgain_asCachedItemsCarryTheirAverageRating() {
+        cache.cursorPage("Matrix", null, null, null, null, null, 20, cursorLoader());
+        sortedPage(SearchMediaSortBy.AVG_RATING);
+        sortedPage(SearchMediaSortBy.NAME);
+
+        catalogGeneration.onAverageRatingChanged(new AverageRatingChangedEvent(1L, BigDecimal.TEN));
+        cache.cursorPage("Matrix", null, null, null, null, null, 20, cursorLoader());
+        sortedPage(SearchMediaSortBy.AVG_RATING);
+        sortedPage(SearchMediaSortBy.NAME);
+
+        assertThat(calls).hasValue(6);
+    }
+
+    @Test
+    void returnedItems_shouldNotShareMarksBetweenCallers() {
+        MediaSearchResponse first = cache.cursorPage("", null, null, null, null, null, 20, cursorLoader());
+        first.getItems().getFirst().setInUserList(true);
+
+        MediaSearchResponse second = cache.cursorPage("", null, null, null, null, null, 20, cursorLoader());
+
+        assertThat(second.getItems().getFirst().getInUserList()).isFalse();
+    }
+
+    @Test
+    void sortedPageAfterCursor_shouldKeepWhetherAnotherPageFollows() {
+        Supplier<Page<MediaItemResponse>> loader = () -> {
+            calls.incrementAndGet();
+            return new KeysetPage<>(List.of(item()), PageRequest.of(3, 1), 2, true);
+        };
+
+        cache.sortedPage("", null, null, null, 0, 1, SearchMediaSortBy.YEAR, SortDirection.ASC, "cursor", loader);
+        Page<MediaItemResponse> cached = cache.sortedPage("", null, null, null, 0, 1,
+                SearchMediaSortBy.YEAR, SortDirection.ASC, "cursor", loader);
+
+        assertThat(calls).hasValue(1);
+        assertThat(cached.hasNext()).isTrue();
+        assertThat(cached.getTotalElements()).isEqualTo(2);
+    }
+
+    @Test
+    void disabled_shouldAlwaysLoad() {
+        searchProperties.getResultCache().setEnabled(false);
+
+        cache.cursorPage("Matrix", null, null, null, null, null, 20, cursorLoader());
+        cache.cursorPage("Matrix", null, null, null, null, null, 20, cursorLoader());
+
+        assertThat(calls).hasValue(2);
+    }
+
+    private Supplier<MediaSearchResponse> cursorLoader() {
+        return () -> {
+            calls.incrementAndGet();
+            return MediaSearchResponse.builder()
+                    .items(List.of(item()))
+                    .hasMore(false)
+                    .totalCount(1L)
+                    .build();
+        };
+    }
+
+    private Page<MediaItemResponse> sortedPage(SearchMediaSortBy sortBy) {
+        return cache.sortedPage("", null, null, null, 0, 20, sortBy, SortDirection.DESC, null, () -> {
+            calls.incrementAndGet();
+            return new PageImpl<>(List.of(item()), PageRequest.of(0, 20), 1);
+        });
+    }
+
+    private MediaItemResponse item() {
+        return MediaItemResponse.builder()
+                .id(1L)
+                .category(Category.MOVIE)
+                .name("The Matrix")
+                .inUserList(false)
+                .build();
+    }
+}
@@ -0,0 +1,67 @@
+package com.amir.mediatracker.search;
+
+import com.amir.mediatracker.config.SearchProperties;
+import com.amir.mediatracker.event.UserListMembershipChangedEvent;
+import com.amir.mediatracker.repository.UserMediaListRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class UserListMembershipCacheTest {
+
+    private UserMediaListRepository userMediaListRepository;
+    private UserListMembershipCache cache;
+
+    @BeforeEach
+    void setUp() {
+        userMediaListRepository = mock(UserMediaListRepository.class);
+        when(userMediaListRepository.findMediaItemIdsByUserId(1L)).thenReturn(List.of(30L, 10L, 20L));
+        cache = new UserListMembershipCache(new SearchProperties(), userMediaListRepository, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void membership_shouldLoadOnceAndAnswerFromMemory() {
+        UserListMembershipCache.Membership membership = cache.membership(1L);
+
+        assertThat(membership.contains(10L)).isTrue();
+        assertThat(membership.contains(30L)).isTrue();
+        assertThat(membership.contains(15L)).isFalse();
+        assertThat(cache.membership(1L)).isSameAs(membership);
+        verify(userMediaListRepository, times(1)).findMediaItemIdsByUserId(1L);
+    }
+
+    @Test
+    void onMembershipChanged_shouldApplyAddedAndRemovedItems() {
+        cache.membership(1L);
+
+        cache.onMembershipChanged(new UserListMembershipChangedEvent(1L, List.of(15L, 10L), List.of(20L, 99L)));
+
+        UserListMembershipCache.Membership membership = cache.membership(1L);
+        assertThat(membership.mediaItemIds()).containsExactly(10L, 15L, 30L);
+        verify(userMediaListRepository, times(1)).findMediaItemIdsByUserId(1L);
+    }
+
+    @Test
+    void onMembershipChanged_notCachedUser_shouldLoadFreshLater() {
+        cache.onMembershipChanged(new UserListMembershipChangedEvent(1L, List.of(15L), List.of()));
+
+        assertThat(cache.membership(1L).contains(15L)).isFalse();
+    }
+
+    @Test
+    void invalidateAll_shouldReloadFromDatabase() {
+        cache.membership(1L);
+        cache.invalidateAll();
+        cache.membership(1L);
+
+        verify(userMediaListRepository, times(2)).findMediaItemIdsByUserId(1L);
+    }
+}
@@ -0,0 +1,125 @@
+package com.amir.mediatracker.search;
+
+import com.amir.mediatracker.config.SearchProperties;
+import com.amir.mediatracker.dto.Category;
+import com.amir.mediatracker.dto.SortDirection;
+import com.amir.mediatracker.dto.UserSearchMediaSortBy;
+import com.amir.mediatracker.dto.response.MediaItemResponse;
+import com.amir.mediatracker.dto.response.UserMediaListResponse;
+import com.amir.mediatracker.event.MediaItemsChangedEvent;
+import com.amir.mediatracker.event.UserListChangedEvent;
+import com.amir.mediatracker.repository.UserMediaListViewRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class UserListSnapshotCacheTest {
+
+    private UserMediaListViewRepository userMediaListViewRepository;
+    private UserListSnapshotCache cache;
+
+    @BeforeEach
+    void setUp() {
+        userMediaListViewRepository = mock(UserMediaListViewRepository.class);
+        when(userMediaListViewRepository.findEntriesByUserId(1L)).thenReturn(List.of(
+                entry(1L, 10L, "The Matrix", 1999, new long[]{2L, 1L}, true, false, (short) 9),
+                entry(2L, 20L, "Avatar", 2009, new long[]{1L}, false, false, null),
+                entry(3L, 30L, "Inception", null, new long[]{2L}, true, true, (short) 7)));
+        cache = new UserListSnapshotCache(new SearchProperties(), userMediaListViewRepository, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void findAfterName_shouldPageByNameAndCountAllMatches() {
+        UserListSnapshotCache.Page first = cache.findAfterName(filter("", null, false), "", 0L, 2);
+        UserListSnapshotCache.Page next = cache.findAfterName(filter("", null, false), "Inception", 30L, 2);
+
+        assertThat(first.ids()).containsExactly(2L, 3L);
+        assertThat(first.totalCount()).isEqualTo(3);
+        assertThat(next.ids()).containsExactly(1L);
+        verify(userMediaListViewRepository, times(1)).findEntriesByUserId(1L);
+    }
+
+    @Test
+    void findSorted_shouldFilterAndPutMissingValuesLastOnAsc() {
+        UserListSnapshotCache.Page byYear = cache.findSorted(filter("", null, false),
+                UserSearchMediaSortBy.YEAR, SortDirection.ASC, null, 0, 10);
+        UserListSnapshotCache.Page byRatingDesc = cache.findSorted(filter("", null, false),
+                UserSearchMediaSortBy.RATING, SortDirection.DESC, null, 1, 10);
+        UserListSnapshotCache.Page withBothGenres = cache.findSorted(filter("", Set.of(1L, 2L), false),
+                UserSearchMediaSortBy.NAME, SortDirection.ASC, null, 0, 10);
+        UserListSnapshotCache.Page wished = cache.findSorted(filter("", null, true),
+                UserSearchMediaSortBy.NAME, SortDirection.ASC, null, 0, 10);
+
+        assertThat(byYear.ids()).containsExactly(1L, 2L, 3L);
+        assertThat(byRatingDesc.ids()).containsExactly(1L, 3L);
+        assertThat(withBothGenres.ids()).containsExactly(1L);
+        assertThat(wished.ids()).containsExactly(2L, 3L);
+    }
+
+    @Test
+    void findSorted_withCursor_shouldContinueAfterLastRow() {
+        KeysetCursor after = KeysetCursor.after(UserSearchMediaSortBy.RATING, SortDirection.ASC, 1,
+                UserMediaListResponse.builder()
+                        .id(3L)
+                        .rating((short) 7)
+                        .mediaItem(MediaItemResponse.builder().name("Inception").build())
+                        .build());
+
+        UserListSnapshotCache.Page page = cache.findSorted(filter("", null, false),
+                UserSearchMediaSortBy.RATING, SortDirection.ASC, after, 0, 10);
+
+        assertThat(page.ids()).containsExactly(1L, 2L);
+    }
+
+    @Test
+    void onUserListChanged_shouldApplySavedAndRemovedEntries() {
+        cache.findAfterName(filter("", null, false), "", 0L, 10);
+        when(userMediaListViewRepository.findEntriesByIds(List.of(4L)))
+                .thenReturn(List.of(entry(4L, 40L, "Alien", 1979, new long[0], false, false, null)));
+
+        cache.onUserListChanged(new UserListChangedEvent(1L, List.of(4L), List.of(1L)));
+
+        assertThat(cache.findAfterName(filter("", null, false), "", 0L, 10).ids()).containsExactly(4L, 2L, 3L);
+        verify(userMediaListViewRepository, times(1)).findEntriesByUserId(1L);
+    }
+
+    @Test
+    void onMediaItemsChanged_shouldDropAllLists() {
+        cache.findAfterName(filter("", null, false), "", 0L, 10);
+
+        cache.onMediaItemsChanged(new MediaItemsChangedEvent(List.of(), List.of()));
+        cache.findAfterName(filter("", null, false), "", 0L, 10);
+        cache.onMediaItemsChanged(new MediaItemsChangedEvent(List.of(99L), List.of()));
+        cache.findAfterName(filter("", null, false), "", 0L, 10);
+
+        verify(userMediaListViewRepository, times(2)).findEntriesByUserId(1L);
+    }
+
+    @Test
+    void onUserListChanged_shouldNotReadEntriesOfListsNotCached() {
+        cache.onUserListChanged(new UserListChangedEvent(1L, List.of(4L), List.of()));
+
+        verify(userMediaListViewRepository, never()).findEntriesByIds(any());
+    }
+
+    private UserMediaListViewRepository.Filter filter(String searchQuery, Set<Long> genreIds, boolean wishToExperience) {
+        return new UserMediaListViewRepository.Filter(1L, searchQuery, null, genreIds, null, wishToExperience);
+    }
+
+    private UserMediaListViewRepository.Entry entry(Long id, Long mediaItemId, String name, Integer year, long[] genreIds,
+                                                    Boolean experienced, Boolean wishToReexperience, Short rating) {
+        return new UserMediaListViewRepository.Entry(id, mediaItemId, name, Category.MOVIE, year, genreIds, new long[0],
+                experienced, wishToReexperience, rating);
+    }
+}
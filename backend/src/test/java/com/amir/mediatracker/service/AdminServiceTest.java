@@ -16,6 +16,7 @@ import com.amir.mediatracker.exception.ResourceNotFoundException;
 import com.amir.mediatracker.repository.GenreRepository;
 import com.amir.mediatracker.repository.MediaItemRepository;
 import com.amir.mediatracker.repository.PlatformRepository;
+import com.amir.mediatracker.repository.UserMediaListViewRepository;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
@@ -25,6 +26,7 @@ import org.springframework.batch.core.BatchStatus;
 import org.springframework.batch.core.ExitStatus;
 import org.springframework.batch.core.JobExecution;
 import org.springframework.batch.core.explore.JobExplorer;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.time.LocalDateTime;
 import java.util.Collections;
@@ -52,6 +54,10 @@ public class AdminServiceTest {
     private PlatformRepository platformRepository;
     @Mock
     private MediaItemRepository mediaItemRepository;
+    @Mock
+    private UserMediaListViewRepository userMediaListViewRepository;
+    @Mock
+    private ApplicationEventPublisher applicationEventPublisher;
 
     @InjectMocks
     private AdminService adminService;
@@ -61,7 +67,8 @@ public class AdminServiceTest {
         //Arrange
         when(mediaItemRepository.existsById(any())).thenReturn(true);
         //Act & Assert
-        assertThatNoException().isThrownBy(() -> adminService.deleteMediaItem(any()));
+        assertThatNoException().isThrownBy(() -> adminService.deleteMediaItem(1L));
+        verify(userMediaListViewRepository).deleteMediaItems(List.of(1L));
     }
 
     @Test
@@ -86,6 +93,7 @@ public class AdminServiceTest {
         when(platformRepository.findAllById(any()))
                 .thenReturn(List.of(new Platform(), new Platform()));
         MediaItem mediaItem = new MediaItem();
+        mediaItem.setId(1L);
         mediaItem.setGenres(Set.of(new Genre(1L, "Action", LocalDateTime.now())));
         mediaItem.setPlatforms(Set.of(new Platform(1L, "Netflix", LocalDateTime.now())));
         mediaItem.setYear(2022);
@@ -171,6 +179,7 @@ public class AdminServiceTest {
         when(platformRepository.findAllById(any()))
                 .thenReturn(List.of(new Platform(), new Platform()));
         MediaItem mediaItem = new MediaItem();
+        mediaItem.setId(1L);
         mediaItem.setGenres(Set.of(new Genre(1L, "Action", LocalDateTime.now())));
         mediaItem.setPlatforms(Set.of(new Platform(1L, "Netflix", LocalDateTime.now())));
         when(mediaItemRepository.save(any())).thenReturn(mediaItem);
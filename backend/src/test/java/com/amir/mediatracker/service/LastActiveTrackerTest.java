@@ -0,0 +1,62 @@
+package com.amir.mediatracker.service;
+
+import com.amir.mediatracker.repository.UserActivityRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LastActiveTrackerTest {
+
+    @Mock
+    private UserActivityRepository userActivityRepository;
+
+    @InjectMocks
+    private LastActiveTracker lastActiveTracker;
+
+    @Test
+    void flush_shouldWriteLatestTimeOfEachUserInOneUpdate() {
+        lastActiveTracker.touch(1L);
+        lastActiveTracker.touch(2L);
+        lastActiveTracker.touch(1L);
+
+        lastActiveTracker.flush();
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Map<Long, LocalDateTime>> captor = ArgumentCaptor.forClass(Map.class);
+        verify(userActivityRepository, times(1)).updateLastActive(captor.capture());
+        assertThat(captor.getValue()).containsOnlyKeys(1L, 2L);
+        assertThat(lastActiveTracker.pendingCount()).isZero();
+    }
+
+    @Test
+    void flush_nothingBuffered_shouldNotQuery() {
+        lastActiveTracker.flush();
+
+        verifyNoInteractions(userActivityRepository);
+    }
+
+    @Test
+    void flush_failure_shouldKeepTimesForNextFlush() {
+        lastActiveTracker.touch(1L);
+        when(userActivityRepository.updateLastActive(anyMap()))
+                .thenThrow(new IllegalStateException("down"))
+                .thenReturn(1);
+
+        lastActiveTracker.flush();
+        assertThat(lastActiveTracker.pendingCount()).isEqualTo(1);
+
+        lastActiveTracker.flush();
+        assertThat(lastActiveTracker.pendingCount()).isZero();
+    }
+}
@@ -1,36 +1,59 @@
 package com.amir.mediatracker.service;
 
+import com.amir.mediatracker.config.SearchProperties;
 import com.amir.mediatracker.dto.Category;
 import com.amir.mediatracker.dto.SearchMediaSortBy;
 import com.amir.mediatracker.dto.SortDirection;
+import com.amir.mediatracker.dto.response.FacetCountResponse;
+import com.amir.mediatracker.dto.response.GenreResponse;
+import com.amir.mediatracker.dto.response.MediaFacetedSearchResponse;
 import com.amir.mediatracker.dto.response.MediaItemResponse;
 import com.amir.mediatracker.dto.response.MediaSearchResponse;
-import com.amir.mediatracker.entity.Genre;
-import com.amir.mediatracker.entity.MediaItem;
-import com.amir.mediatracker.entity.Platform;
-import com.amir.mediatracker.entity.UserMediaList;
+import com.amir.mediatracker.dto.response.PlatformResponse;
+import com.amir.mediatracker.repository.KeysetPageRepository;
+import com.amir.mediatracker.repository.MediaFacetRepository;
 import com.amir.mediatracker.repository.MediaItemRepository;
+import com.amir.mediatracker.repository.ProjectionRepository;
 import com.amir.mediatracker.repository.UserMediaListRepository;
+import com.amir.mediatracker.search.CatalogGeneration;
+import com.amir.mediatracker.search.CatalogSearchEngine;
+import com.amir.mediatracker.search.CatalogSnapshot;
+import com.amir.mediatracker.search.KeysetCursor;
+import com.amir.mediatracker.search.MediaFacets;
+import com.amir.mediatracker.search.MediaSearchIndex;
+import com.amir.mediatracker.search.SearchCountCache;
+import com.amir.mediatracker.search.SearchResultCache;
+import com.amir.mediatracker.search.UserListMembershipCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.test.util.ReflectionTestUtils;
 
-import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 
 import static org.assertj.core.api.AssertionsForInterfaceTypes.assertThat;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -42,51 +65,78 @@ class MediaItemServiceTest {
     @Mock
     private MediaItemRepository mediaItemRepository;
 
+    @Mock
+    private ProjectionRepository projectionRepository;
+
     @Mock
     private UserMediaListRepository userMediaListRepository;
 
-    private MediaItem item1;
-    private MediaItem item2;
+    @Mock
+    private CatalogSearchEngine catalogSearchEngine;
+
+    @Mock
+    private MediaFacetRepository mediaFacetRepository;
+
+    @Mock
+    private KeysetPageRepository keysetPageRepository;
+
+    @Mock
+    private MediaSearchIndex mediaSearchIndex;
+
+    @Mock
+    private UserListMembershipCache userListMembershipCache;
+
+    @Spy
+    private SearchProperties searchProperties = new SearchProperties();
+
+    @Spy
+    private SearchCountCache searchCountCache = new SearchCountCache(new SearchProperties(), new CatalogGeneration());
+
+    @Spy
+    private SearchResultCache searchResultCache =
+            new SearchResultCache(new SearchProperties(), new CatalogGeneration(), new SimpleMeterRegistry());
+
+    private MediaItemResponse item1;
+    private MediaItemResponse item2;
 
     @BeforeEach
     void setUp() {
         ReflectionTestUtils.setField(mediaItemService, "maxLimit", 10);
-        item1 = MediaItem.builder()
+        item1 = MediaItemResponse.builder()
                 .id(1L)
                 .name("Matrix")
                 .category(Category.MOVIE)
-                .genres(Set.of(new Genre(1L, "Action", LocalDateTime.now())))
-                .platforms(Set.of(new Platform(1L, "Netflix", LocalDateTime.now())))
+                .genres(Set.of(GenreResponse.builder().id(1L).name("Action").build()))
+                .platforms(Set.of(PlatformResponse.builder().id(1L).name("Netflix").build()))
                 .build();
 
-        item2 = MediaItem.builder()
+        item2 = MediaItemResponse.builder()
                 .id(2L)
                 .name("Matrix Reloaded")
                 .category(Category.MOVIE)
-                .genres(Set.of(new Genre(1L, "Action", LocalDateTime.now())))
-                .platforms(Set.of(new Platform(1L, "Netflix", LocalDateTime.now())))
+                .genres(Set.of(GenreResponse.builder().id(1L).name("Action").build()))
+                .platforms(Set.of(PlatformResponse.builder().id(1L).name("Netflix").build()))
                 .build();
+
+        Map<Long, MediaItemResponse> itemsById = Map.of(1L, item1, 2L, item2);
+        lenient().when(projectionRepository.findMediaItems(anyCollection()))
+                .thenAnswer(invocation -> invocation.<Collection<Long>>getArgument(0).stream()
+                        .map(itemsById::get)
+                        .toList());
     }
 
     @Test
     void searchMediaItemsSorted_marksItemsInUserList() {
-        MediaItem item1 = new MediaItem(); item1.setId(1L);
-        MediaItem item2 = new MediaItem(); item2.setId(2L);
-
-        when(mediaItemRepository.searchWithOffsetAndFilters(any(), any(), any(), any(), anyLong(), anyLong(), any()))
-                .thenReturn(new PageImpl<>(List.of(item1, item2)));
+        when(mediaItemRepository.searchIdsWithOffsetAndFilters(any(), any(), anyLong(), anyLong(), any(), any(), anyLong(), anyLong(), any()))
+                .thenReturn(new PageImpl<>(List.of(1L, 2L)));
 
-        UserMediaList uml = new UserMediaList();
-        MediaItem mi = new MediaItem(); mi.setId(1L);
-        uml.setMediaItem(mi);
-
-        when(userMediaListRepository.findByUserIdAndMediaItemIdIn(eq(1L), any()))
-                .thenReturn(List.of(uml));
+        when(userMediaListRepository.findMediaItemIdsByUserIdAndMediaItemIdIn(eq(1L), any()))
+                .thenReturn(Set.of(1L));
 
         Page<MediaItemResponse> result =
                 mediaItemService.searchMediaItemsSorted(
                         1L, null, null, null, null,
-                        0, 10, SearchMediaSortBy.NAME, SortDirection.ASC
+                        0, 10, SearchMediaSortBy.NAME, SortDirection.ASC, null
                 );
 
         assertTrue(result.getContent().stream()
@@ -98,20 +148,84 @@ class MediaItemServiceTest {
                 .findFirst().get().getInUserList());
     }
 
+    @Test
+    void searchMediaItemsSorted_membershipCacheEnabled_shouldMarkFromMemory() {
+        when(mediaItemRepository.searchIdsWithOffsetAndFilters(any(), any(), anyLong(), anyLong(), any(), any(), anyLong(), anyLong(), any()))
+                .thenReturn(new PageImpl<>(List.of(1L, 2L)));
+        when(userListMembershipCache.isEnabled()).thenReturn(true);
+        when(userListMembershipCache.membership(1L))
+                .thenReturn(new UserListMembershipCache.Membership(new long[]{2L, 5L}));
+
+        Page<MediaItemResponse> result = mediaItemService.searchMediaItemsSorted(
+                1L, null, null, null, null, 0, 10, SearchMediaSortBy.NAME, SortDirection.ASC, null);
+
+        assertThat(result.getContent()).extracting(MediaItemResponse::getInUserList).containsExactly(false, true);
+        verifyNoInteractions(userMediaListRepository);
+    }
+
+    @Test
+    void searchMediaItemsSorted_withCursor_shouldReadPageAfterCursor() {
+        String after = KeysetCursor.after(SearchMediaSortBy.YEAR, SortDirection.ASC, 3,
+                MediaItemResponse.builder().id(7L).year(1999).build()).encode();
+
+        when(keysetPageRepository.findCatalogIdsAfter(any(), any(), any(), any(),
+                eq(SearchMediaSortBy.YEAR), eq(SortDirection.ASC), any(), eq(3)))
+                .thenReturn(List.of(2L, 1L, 4L));
+        when(mediaItemRepository.countSimple(any(), any())).thenReturn(5L);
+
+        Page<MediaItemResponse> result = mediaItemService.searchMediaItemsSorted(
+                null, "", null, null, null, 0, 2, SearchMediaSortBy.YEAR, SortDirection.ASC, after);
+
+        assertThat(result.getContent()).extracting(MediaItemResponse::getId).containsExactly(2L, 1L);
+        assertThat(result.getNumber()).isEqualTo(3);
+        assertThat(result.getTotalElements()).isEqualTo(5);
+        assertThat(result.hasNext()).isTrue(); // from the extra id, though the total ends before page 3
+        verify(mediaItemRepository, never()).searchIdsWithOffsetAndFilters(
+                any(), any(), anyLong(), anyLong(), any(), any(), anyLong(), anyLong(), any());
+    }
+
+    @Test
+    void searchMediaItemsSorted_byRelevance_shouldKeepIndexRanking() {
+        when(mediaSearchIndex.isAvailable()).thenReturn(true);
+        when(mediaSearchIndex.search("matrx", null, null, null, 2, 2))
+                .thenReturn(new MediaSearchIndex.Hits(List.of(2L, 1L), 5));
+
+        Page<MediaItemResponse> result = mediaItemService.searchMediaItemsSorted(
+                null, "matrx", null, null, null, 1, 2, SearchMediaSortBy.RELEVANCE, SortDirection.ASC, null);
+
+        assertThat(result.getContent()).extracting(MediaItemResponse::getId).containsExactly(2L, 1L);
+        assertThat(result.getTotalElements()).isEqualTo(5);
+        verify(mediaItemRepository, never()).searchIdsWithOffsetAndFilters(
+                any(), any(), anyLong(), anyLong(), any(), any(), anyLong(), anyLong(), any());
+    }
+
+    @Test
+    void searchMediaItemsSorted_byRelevanceWithoutIndex_shouldSortByName() {
+        when(mediaItemRepository.searchIdsWithOffsetAndFilters(any(), any(), anyLong(), anyLong(), any(), any(), anyLong(), anyLong(), any()))
+                .thenReturn(new PageImpl<>(List.of(1L)));
+
+        mediaItemService.searchMediaItemsSorted(
+                null, "matrix", null, null, null, 0, 2, SearchMediaSortBy.RELEVANCE, SortDirection.DESC, null);
+
+        verify(mediaItemRepository).searchIdsWithOffsetAndFilters(any(), any(), anyLong(), anyLong(), any(), any(), anyLong(), anyLong(),
+                eq(PageRequest.of(0, 2, Sort.by(Sort.Direction.ASC, "name", "id"))));
+        verify(mediaSearchIndex, never()).search(any(), any(), any(), any(), anyInt(), anyInt());
+    }
+
     @Test
     void searchMediaItemsCursor_simpleSearch_shouldReturnItemsAndNoCursor() {
         when(mediaItemRepository.countSimple(any(), any()))
                 .thenReturn(2L);
 
-        when(mediaItemRepository.searchWithCursorAndFilters(
-                any(), any(), any(), any(),
+        when(mediaItemRepository.searchIdsWithCursorAndFilters(
+                any(), any(), anyLong(), anyLong(), any(), any(),
                 anyLong(), anyLong(),
                 any(), any(),
                 any(Pageable.class)
-        )).thenReturn(List.of(item1, item2));
+        )).thenReturn(List.of(1L, 2L));
 
-        when(userMediaListRepository.findByUserIdAndMediaItemIdIn(any(), any()))
-                .thenReturn(List.of());
+        when(userMediaListRepository.findMediaItemIdsByUserIdAndMediaItemIdIn(any(), any()))
+                .thenReturn(Set.of());
 
         MediaSearchResponse response = mediaItemService.searchMediaItemsCursor(
                 1L,
@@ -135,15 +249,15 @@ class MediaItemServiceTest {
         when(mediaItemRepository.countSimple(any(), any()))
                 .thenReturn(2L);
 
-        when(mediaItemRepository.searchWithCursorAndFilters(
-                any(), any(), any(), any(),
+        when(mediaItemRepository.searchIdsWithCursorAndFilters(
+                any(), any(), anyLong(), anyLong(), any(), any(),
                 anyLong(), anyLong(),
                 any(), any(),
                 any(Pageable.class)
-        )).thenReturn(List.of(item1, item2)); // limit=1 → returns 2
+        )).thenReturn(List.of(1L, 2L)); // limit=1 → returns 2
 
-        when(userMediaListRepository.findByUserIdAndMediaItemIdIn(any(), any()))
-                .thenReturn(List.of());
+        when(userMediaListRepository.findMediaItemIdsByUserIdAndMediaItemIdIn(any(), any()))
+                .thenReturn(Set.of());
 
         MediaSearchResponse response = mediaItemService.searchMediaItemsCursor(
                 1L,
@@ -167,19 +281,17 @@ class MediaItemServiceTest {
         when(mediaItemRepository.countSimple(any(), any()))
                 .thenReturn(2L);
 
-        when(mediaItemRepository.searchWithCursorAndFilters(
-                any(), any(), any(), any(),
+        when(mediaItemRepository.searchIdsWithCursorAndFilters(
+                any(), any(), anyLong(), anyLong(), any(), any(),
                 anyLong(), anyLong(),
                 any(), any(),
                 any(Pageable.class)
-        )).thenReturn(List.of(item1, item2));
+        )).thenReturn(List.of(1L, 2L));
 
-        UserMediaList uml = new UserMediaList();
-        uml.setMediaItem(item1);
 
-        when(userMediaListRepository.findByUserIdAndMediaItemIdIn(
+        when(userMediaListRepository.findMediaItemIdsByUserIdAndMediaItemIdIn(
                 eq(1L), any()
-        )).thenReturn(List.of(uml));
+        )).thenReturn(Set.of(1L));
 
         MediaSearchResponse response = mediaItemService.searchMediaItemsCursor(
                 1L,
@@ -200,16 +312,16 @@ class MediaItemServiceTest {
     @Test
     void searchMediaItemsCursor_withGenreOnlyFilter_shouldUseCountWithFilters() {
         when(mediaItemRepository.countWithFilters(
-                any(), any(), any(), any(),
+                any(), any(), anyLong(), anyLong(), any(), any(),
                 anyLong(), anyLong()
         )).thenReturn(1L);
 
-        when(mediaItemRepository.searchWithCursorAndFilters(
-                any(), any(), any(), any(),
+        when(mediaItemRepository.searchIdsWithCursorAndFilters(
+                any(), any(), anyLong(), anyLong(), any(), any(),
                 anyLong(), anyLong(),
                 any(), any(),
                 any(Pageable.class)
-        )).thenReturn(List.of(item1));
+        )).thenReturn(List.of(1L));
 
         MediaSearchResponse response = mediaItemService.searchMediaItemsCursor(
                 1L,
@@ -229,16 +341,16 @@ class MediaItemServiceTest {
     @Test
     void searchMediaItemsCursor_withPlatformOnlyFilter_shouldUseCountWithFilters() {
         when(mediaItemRepository.countWithFilters(
-                any(), any(), any(), any(),
+                any(), any(), anyLong(), anyLong(), any(), any(),
                 anyLong(), anyLong()
         )).thenReturn(1L);
 
-        when(mediaItemRepository.searchWithCursorAndFilters(
-                any(), any(), any(), any(),
+        when(mediaItemRepository.searchIdsWithCursorAndFilters(
+                any(), any(), anyLong(), anyLong(), any(), any(),
                 anyLong(), anyLong(),
                 any(), any(),
                 any(Pageable.class)
-        )).thenReturn(List.of(item1));
+        )).thenReturn(List.of(1L));
 
         MediaSearchResponse response = mediaItemService.searchMediaItemsCursor(
                 1L,
@@ -258,16 +370,16 @@ class MediaItemServiceTest {
     @Test
     void searchMediaItemsCursor_withGenreAndPlatformFilters_shouldUseCountWithFilters() {
         when(mediaItemRepository.countWithFilters(
-                any(), any(), any(), any(),
+                any(), any(), anyLong(), anyLong(), any(), any(),
                 anyLong(), anyLong()
         )).thenReturn(1L);
 
-        when(mediaItemRepository.searchWithCursorAndFilters(
-                any(), any(), any(), any(),
+        when(mediaItemRepository.searchIdsWithCursorAndFilters(
+                any(), any(), anyLong(), anyLong(), any(), any(),
                 anyLong(), anyLong(),
                 any(), any(),
                 any(Pageable.class)
-        )).thenReturn(List.of(item1));
+        )).thenReturn(List.of(1L));
 
         MediaSearchResponse response = mediaItemService.searchMediaItemsCursor(
                 1L,
@@ -283,5 +395,88 @@ class MediaItemServiceTest {
         assertThat(response.getItems()).hasSize(1);
         assertThat(response.getTotalCount()).isEqualTo(1);
     }
-}
 
+    @Test
+    void searchMediaItemsCursor_whenSnapshotLoaded_shouldNotQueryCatalog() {
+        CatalogSnapshot snapshot = CatalogSnapshot.of(
+                List.of(new CatalogSnapshot.Entry(1L, Category.MOVIE, "Matrix", 1999, null, null, null,
+                        Set.of(1L), Set.of(1L))),
+                Map.of(1L, "Action"),
+                Map.of(1L, "Netflix"));
+        when(catalogSearchEngine.currentSnapshot()).thenReturn(Optional.of(snapshot));
+        when(userMediaListRepository.findMediaItemIdsByUserIdAndMediaItemIdIn(eq(1L), any()))
+                .thenReturn(Set.of());
+
+        MediaSearchResponse response = mediaItemService.searchMediaItemsCursor(
+                1L, "matr", null, Set.of(1L), null, null, null, 10);
+
+        assertThat(response.getItems()).extracting(MediaItemResponse::getName).containsExactly("Matrix");
+        assertThat(response.getTotalCount()).isEqualTo(1);
+        verifyNoInteractions(mediaItemRepository);
+    }
+
+    @Test
+    void searchMediaItemsCursor_nextPage_shouldReuseCachedCount() {
+        when(mediaItemRepository.countSimple(any(), any()))
+                .thenReturn(2L);
+
+        when(mediaItemRepository.searchIdsWithCursorAndFilters(
+                any(), any(), anyLong(), anyLong(), any(), any(),
+                anyLong(), anyLong(),
+                any(), any(),
+                any(Pageable.class)
+        )).thenReturn(List.of(1L, 2L));
+
+        MediaSearchResponse first = mediaItemService.searchMediaItemsCursor(
+                null, "Matrix", null, null, null, null, null, 1);
+        MediaSearchResponse second = mediaItemService.searchMediaItemsCursor(
+                null, "matrix", null, null, null, "Matrix", 1L, 1);
+
+        assertThat(first.getTotalCount()).isEqualTo(2);
+        assertThat(second.getTotalCount()).isEqualTo(2);
+        verify(mediaItemRepository, times(1)).countSimple(any(), any());
+    }
+
+    @Test
+    void searchMediaItemsCursor_broadSearchWithEstimates_shouldUsePlannerStatistics() {
+        searchProperties.getCountCache().setEstimateBroadSearches(true);
+        when(mediaItemRepository.estimateTotalRows()).thenReturn(1000L);
+        when(mediaItemRepository.estimateCategoryFraction(List.of("MOVIE"))).thenReturn(0.25);
+        when(mediaItemRepository.searchIdsWithCursorAndFilters(
+                any(), any(), anyLong(), anyLong(), any(), any(),
+                anyLong(), anyLong(),
+                any(), any(),
+                any(Pageable.class)
+        )).thenReturn(List.of(1L));
+
+        MediaSearchResponse response = mediaItemService.searchMediaItemsCursor(
+                null, null, Set.of(Category.MOVIE), null, null, null, null, 10);
+
+        assertThat(response.getTotalCount()).isEqualTo(250);
+        assertTrue(response.isTotalCountEstimated());
+        verify(mediaItemRepository, never()).countSimple(any(), any());
+    }
+
+    @Test
+    void searchMediaFaceted_shouldUseFacetTotalInsteadOfCounting() {
+        MediaFacets facets = new MediaFacets(5L, List.of(),
+                List.of(FacetCountResponse.builder().id(1L).name("Action").count(5L).build()),
+                List.of());
+        when(mediaFacetRepository.findFacets("Matrix", null, null, null)).thenReturn(facets);
+        when(mediaItemRepository.searchIdsWithCursorAndFilters(
+                any(), any(), anyLong(), anyLong(), any(), any(),
+                anyLong(), anyLong(),
+                any(), any(),
+                any(Pageable.class)
+        )).thenReturn(List.of(1L, 2L));
+
+        MediaFacetedSearchResponse response = mediaItemService.searchMediaFaceted(
+                null, "Matrix", null, null, null, null, null, 1);
+
+        assertThat(response.getItems()).extracting(MediaItemResponse::getName).containsExactly("Matrix");
+        assertTrue(response.isHasMore());
+        assertThat(response.getTotalCount()).isEqualTo(5);
+        assertThat(response.getGenres()).extracting(FacetCountResponse::getName).containsExactly("Action");
+        verify(mediaItemRepository, never()).countSimple(any(), any());
+    }
+}
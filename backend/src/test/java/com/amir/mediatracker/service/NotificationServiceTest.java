@@ -1,10 +1,15 @@
 package com.amir.mediatracker.service;
 
+import com.amir.mediatracker.dto.Role;
+import com.amir.mediatracker.dto.projection.NotificationRow;
 import com.amir.mediatracker.dto.response.NotificationResponse;
 import com.amir.mediatracker.entity.Notification;
 import com.amir.mediatracker.exception.ResourceNotFoundException;
 import com.amir.mediatracker.repository.MediaItemRepository;
+import com.amir.mediatracker.repository.NotificationFanOutRepository;
 import com.amir.mediatracker.repository.NotificationRepository;
+import com.amir.mediatracker.repository.ProjectionRepository;
+import com.amir.mediatracker.repository.RaterActivityRepository;
 import com.amir.mediatracker.repository.UserRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -22,6 +27,9 @@ import java.util.Optional;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -30,18 +38,95 @@ class NotificationServiceTest {
     @Mock
     private NotificationRepository notificationRepository;
 
+    @Mock
+    private NotificationFanOutRepository notificationFanOutRepository;
+
+    @Mock
+    private RaterActivityRepository raterActivityRepository;
+
     @Mock
     private UserRepository userRepository;
 
     @Mock
     private MediaItemRepository mediaItemRepository;
 
+    @Mock
+    private ProjectionRepository projectionRepository;
+
     @InjectMocks
     private NotificationService notificationService;
 
     @BeforeEach
     void setup() {
         ReflectionTestUtils.setField(notificationService, "fetchLimit", 10);
+        ReflectionTestUtils.setField(notificationService, "fanOutChunkSize", 2);
+        ReflectionTestUtils.setField(notificationService, "pullFollowerThreshold", 3);
+    }
+
+    @Test
+    void notifyFollowers_continuesAfterLastFollowerUntilChunkIsNotFull() {
+        when(notificationFanOutRepository.insertForFollowers(1L, 10L, (short) 8, "msg", 0L, 2))
+                .thenReturn(new NotificationFanOutRepository.Chunk(2, 7L, 2));
+        when(notificationFanOutRepository.insertForFollowers(1L, 10L, (short) 8, "msg", 7L, 2))
+                .thenReturn(new NotificationFanOutRepository.Chunk(1, 9L, 0));
+
+        int inserted = notificationService.notifyFollowers(1L, 10L, (short) 8, "msg");
+
+        assertThat(inserted).isEqualTo(2);
+        verify(notificationFanOutRepository, times(2))
+                .insertForFollowers(anyLong(), anyLong(), anyShort(), anyString(), anyLong(), anyInt());
+    }
+
+    @Test
+    void notifyFollowers_logsRatingOnce_whenFollowersExceedPullThreshold() {
+        when(notificationFanOutRepository.countFollowers(1L, 4)).thenReturn(4);
+
+        int inserted = notificationService.notifyFollowers(1L, 10L, (short) 8, "msg");
+
+        assertThat(inserted).isZero();
+        verify(raterActivityRepository).append(1L, 10L, (short) 8, "msg");
+        verify(notificationFanOutRepository, never())
+                .insertForFollowers(anyLong(), anyLong(), anyShort(), anyString(), anyLong(), anyInt());
+    }
+
+    @Test
+    void getNotifications_mergesPulledEntriesByTime_withoutWriting() {
+        Long userId = 1L;
+        LocalDateTime now = LocalDateTime.now();
+
+        when(projectionRepository.findLatestNotifications(userId, 10)).thenReturn(List.of(
+                notificationResponse(1L, true, now.minusMinutes(1)),
+                notificationResponse(2L, false, now.minusMinutes(3))));
+        when(raterActivityRepository.findLatestPulled(userId, 10))
+                .thenReturn(List.of(pulledRow(3L, now.minusMinutes(2))));
+
+        List<NotificationResponse> result = notificationService.getNotifications(userId, false);
+
+        assertThat(result)
+                .extracting(NotificationResponse::getId)
+                .containsExactly(1L, 3L, 2L);
+        assertThat(result.get(1).getIsRead()).isFalse();
+        assertThat(result.get(1).getRatedByUser().getUsername()).isEqualTo("rater");
+        verify(raterActivityRepository, never()).markLatestAsRead(anyLong(), anyInt());
+        verify(raterActivityRepository, never()).markAsRead(anyLong(), anyLong());
+    }
+
+    @Test
+    void getUnreadCount_countsPulledEntriesWithinLimit() {
+        Long userId = 1L;
+        LocalDateTime now = LocalDateTime.now();
+        ReflectionTestUtils.setField(notificationService, "fetchLimit", 2);
+
+        when(notificationRepository.findByUserIdOrderByCreatedAtDesc(eq(userId), any(Limit.class)))
+                .thenReturn(List.of(
+                        notification(1L, true, now.minusMinutes(1)),
+                        notification(2L, false, now.minusMinutes(3))));
+        when(raterActivityRepository.findLatestPulled(userId, 2))
+                .thenReturn(List.of(pulledRow(3L, now.minusMinutes(2))));
+
+        long count = notificationService.getUnreadCount(userId);
+
+        assertThat(count).isEqualTo(1);
     }
 
     @Test
@@ -75,6 +160,7 @@ class NotificationServiceTest {
 
         notificationService.markAllAsRead(userId);
 
+        verify(raterActivityRepository).markLatestAsRead(userId, 10);
         assertThat(n1.getIsRead()).isTrue();
         assertThat(n2.getIsRead()).isTrue();
     }
@@ -90,6 +176,21 @@ class NotificationServiceTest {
                 .isInstanceOf(ResourceNotFoundException.class);
     }
 
+    @Test
+    void markAsRead_marksPulledEntryAsRead() {
+        Long userId = 1L;
+
+        when(notificationRepository.findByIdAndUserId(3L, userId)).thenReturn(Optional.empty());
+        when(raterActivityRepository.findLatestPulled(userId, 10))
+                .thenReturn(List.of(pulledRow(3L, LocalDateTime.now())));
+
+        NotificationResponse response = notificationService.markAsRead(userId, 3L);
+
+        verify(raterActivityRepository).markAsRead(userId, 3L);
+        assertThat(response.getId()).isEqualTo(3L);
+        assertThat(response.getIsRead()).isTrue();
+    }
+
     @Test
     void markAsRead_marksNotificationAsRead() {
         Long userId = 1L;
@@ -110,14 +211,14 @@ class NotificationServiceTest {
     void getNotifications_returnsNone_whenOnlyUnreadTrue() {
         Long userId = 1L;
 
-        List<Notification> notifications = List.of(
-                notification(1L, true, LocalDateTime.now()),
-                notification(2L, true, LocalDateTime.now().minusMinutes(1)),
-                notification(3L, true, LocalDateTime.now().minusMinutes(2)),
-                notification(4L, true, LocalDateTime.now().minusMinutes(3))
+        List<NotificationResponse> notifications = List.of(
+                notificationResponse(1L, true),
+                notificationResponse(2L, true),
+                notificationResponse(3L, true),
+                notificationResponse(4L, true)
         );
 
-        when(notificationRepository.findByUserIdOrderByCreatedAtDesc(eq(userId), any(Limit.class)))
+        when(projectionRepository.findLatestNotifications(userId, 10))
                 .thenReturn(notifications);
 
         List<NotificationResponse> result =
@@ -130,14 +231,14 @@ class NotificationServiceTest {
     void getNotifications_returnsOnlyUnread_whenOnlyUnreadTrue() {
         Long userId = 1L;
 
-        List<Notification> notifications = List.of(
-                notification(1L, true, LocalDateTime.now()),
-                notification(2L, false, LocalDateTime.now().minusMinutes(1)),
-                notification(3L, true, LocalDateTime.now().minusMinutes(2)),
-                notification(4L, false, LocalDateTime.now().minusMinutes(3))
+        List<NotificationResponse> notifications = List.of(
+                notificationResponse(1L, true),
+                notificationResponse(2L, false),
+                notificationResponse(3L, true),
+                notificationResponse(4L, false)
         );
 
-        when(notificationRepository.findByUserIdOrderByCreatedAtDesc(eq(userId), any(Limit.class)))
+        when(projectionRepository.findLatestNotifications(userId, 10))
                 .thenReturn(notifications);
 
         List<NotificationResponse> result =
@@ -152,12 +253,12 @@ class NotificationServiceTest {
     void getNotifications_returnsAllWithinLimit_whenOnlyUnreadFalse() {
         Long userId = 1L;
 
-        List<Notification> notifications = List.of(
-                notification(1L, false, LocalDateTime.now()),
-                notification(2L, true, LocalDateTime.now().minusMinutes(1))
+        List<NotificationResponse> notifications = List.of(
+                notificationResponse(1L, false),
+                notificationResponse(2L, true)
         );
 
-        when(notificationRepository.findByUserIdOrderByCreatedAtDesc(eq(userId), any(Limit.class)))
+        when(projectionRepository.findLatestNotifications(userId, 10))
                 .thenReturn(notifications);
 
         List<NotificationResponse> result =
@@ -167,6 +268,28 @@ class NotificationServiceTest {
     }
 
 
+    private NotificationResponse notificationResponse(Long id, boolean isRead) {
+        return NotificationResponse.builder()
+                .id(id)
+                .isRead(isRead)
+                .message("msg-" + id)
+                .build();
+    }
+
+    private NotificationResponse notificationResponse(Long id, boolean isRead, LocalDateTime createdAt) {
+        return NotificationResponse.builder()
+                .id(id)
+                .isRead(isRead)
+                .message("msg-" + id)
+                .createdAt(createdAt)
+                .build();
+    }
+
+    private NotificationRow pulledRow(Long id, LocalDateTime createdAt) {
+        return new NotificationRow(id, "msg-" + id, 10L, (short) 9, 5L, "rater", "rater@test.com",
+                Role.USER, false, createdAt);
+    }
+
     private Notification notification(Long id, boolean isRead, LocalDateTime createdAt) {
         Notification n = new Notification();
         n.setId(id);
@@ -0,0 +1,143 @@
+package com.amir.mediatracker.service;
+
+import com.amir.mediatracker.config.AbstractIntegrationTest;
+import com.amir.mediatracker.dto.Category;
+import com.amir.mediatracker.dto.SearchMediaSortBy;
+import com.amir.mediatracker.dto.SortDirection;
+import com.amir.mediatracker.dto.UserSearchMediaSortBy;
+import com.amir.mediatracker.dto.response.MediaItemResponse;
+import com.amir.mediatracker.entity.*;
+import com.amir.mediatracker.event.CatalogChangedEvent;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Reading a page through the services must run the same number of statements whatever its size:
+ * the page rows first, then one query per association
+ */
+public class PageReadStatementsIT extends AbstractIntegrationTest {
+
+    private static final int ITEMS = 12;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private MediaItemService mediaItemService;
+    @Autowired
+    private UserMediaListService userMediaListService;
+    @Autowired
+    private NotificationService notificationService;
+
+    private Statistics statistics;
+    private final List<MediaItem> items = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        notificationRepository.deleteAll();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+
+        Set<Genre> genres = Set.of(saveBasicGenre("Action"), saveBasicGenre("Drama"));
+        Set<Platform> platforms = Set.of(saveBasicPlatform("Netflix"), saveBasicPlatform("HBO"));
+        items.clear();
+        for (int i = 0; i < ITEMS; i++) {
+            items.add(mediaItemRepository.save(MediaItem.builder()
+                    .name("Item " + (char) ('A' + i))
+                    .category(Category.MOVIE)
+                    .genres(genres)
+                    .platforms(platforms)
+                    .build()));
+        }
+    }
+
+    @Test
+    void searchMediaItemsSorted_statementsDoNotGrowWithPageSize() {
+        long small = statementsFor(() -> mediaItemService.searchMediaItemsSorted(user.getId(), "item",
+                null, null, null, 0, 2, SearchMediaSortBy.NAME, SortDirection.ASC, null));
+        long large = statementsFor(() -> mediaItemService.searchMediaItemsSorted(user.getId(), "item",
+                null, null, null, 0, ITEMS, SearchMediaSortBy.NAME, SortDirection.ASC, null));
+
+        assertThat(large).isEqualTo(small);
+        assertThat(large).isLessThanOrEqualTo(6); // ids, count, items, genres, platforms, inUserList marks
+    }
+
+    @Test
+    void searchMediaItemsCursor_statementsDoNotGrowWithPageSize() {
+        long small = statementsFor(() -> mediaItemService.searchMediaItemsCursor(user.getId(), "item",
+                null, null, null, null, null, 2));
+        long large = statementsFor(() -> mediaItemService.searchMediaItemsCursor(user.getId(), "item",
+                null, null, null, null, null, ITEMS));
+
+        assertThat(large).isEqualTo(small);
+    }
+
+    @Test
+    void searchMediaItemsSorted_hydratedItemsKeepTheirGenresAndPlatforms() {
+        List<MediaItemResponse> content = mediaItemService.searchMediaItemsSorted(user.getId(), "item",
+                null, null, null, 0, ITEMS, SearchMediaSortBy.NAME, SortDirection.ASC, null).getContent();
+
+        assertThat(content).hasSize(ITEMS);
+        assertThat(content).allSatisfy(item -> {
+            assertThat(item.getGenres()).hasSize(2);
+            assertThat(item.getPlatforms()).hasSize(2);
+        });
+    }
+
+    @Test
+    void userMediaListSorted_statementsDoNotGrowWithPageSize() {
+        for (MediaItem item : items) {
+            UserMediaList listItem = new UserMediaList();
+            listItem.setUser(user);
+            listItem.setMediaItem(item);
+            saveListItem(listItem);
+        }
+
+        long small = statementsFor(() -> userMediaListService.getUserMediaListSorted(null, user.getId(), "",
+                null, null, null, false, 0, 2, UserSearchMediaSortBy.NAME, SortDirection.ASC, null));
+        long large = statementsFor(() -> userMediaListService.getUserMediaListSorted(null, user.getId(), "",
+                null, null, null, false, 0, ITEMS, UserSearchMediaSortBy.NAME, SortDirection.ASC, null));
+
+        assertThat(large).isEqualTo(small);
+    }
+
+    @Test
+    void getNotifications_statementsDoNotGrowWithNotificationCount() {
+        saveNotifications(items.subList(0, 2));
+        long few = statementsFor(() -> notificationService.getNotifications(user.getId(), false));
+
+        saveNotifications(items.subList(2, ITEMS));
+        long many = statementsFor(() -> notificationService.getNotifications(user.getId(), false));
+
+        assertThat(many).isEqualTo(few);
+    }
+
+    private long statementsFor(Runnable read) {
+        catalogGeneration.onCatalogChanged(new CatalogChangedEvent("test")); // skip cached pages and counts
+        statistics.clear();
+        read.run();
+        return statistics.getPrepareStatementCount();
+    }
+
+    private void saveNotifications(List<MediaItem> mediaItems) {
+        for (MediaItem mediaItem : mediaItems) {
+            User ratedBy = saveUser("rater" + mediaItem.getId());
+            Notification notification = new Notification();
+            notification.setUser(user);
+            notification.setMediaItem(mediaItem);
+            notification.setRatedByUser(ratedBy);
+            notification.setRating((short) 8);
+            notification.setMessage("rated");
+            notificationRepository.save(notification);
+        }
+    }
+}
@@ -1,20 +1,33 @@
 package com.amir.mediatracker.service;
 
+import com.amir.mediatracker.config.SearchProperties;
 import com.amir.mediatracker.dto.Category;
 import com.amir.mediatracker.dto.SortDirection;
 import com.amir.mediatracker.dto.UserSearchMediaSortBy;
 import com.amir.mediatracker.dto.request.UpdateMediaListRequest;
+import com.amir.mediatracker.dto.response.MediaItemResponse;
 import com.amir.mediatracker.dto.response.UserMediaListResponse;
 import com.amir.mediatracker.dto.response.UserMediaListSearchResponse;
 import com.amir.mediatracker.entity.*;
+import com.amir.mediatracker.event.RatingEventBatch;
+import com.amir.mediatracker.event.UserListChangedEvent;
+import com.amir.mediatracker.event.UserListMembershipChangedEvent;
+import com.amir.mediatracker.exception.BadRequestException;
 import com.amir.mediatracker.exception.DuplicateResourceException;
 import com.amir.mediatracker.exception.ForbiddenException;
 import com.amir.mediatracker.exception.ResourceNotFoundException;
 import com.amir.mediatracker.kafka.event.RatingEvent;
+import com.amir.mediatracker.repository.KeysetPageRepository;
 import com.amir.mediatracker.repository.MediaItemRepository;
+import com.amir.mediatracker.repository.ProjectionRepository;
+import com.amir.mediatracker.repository.UserMediaListBulkRepository;
 import com.amir.mediatracker.repository.UserMediaListRepository;
+import com.amir.mediatracker.repository.UserMediaListViewRepository;
 import com.amir.mediatracker.repository.UserRepository;
-import org.assertj.core.api.Assertions;
+import com.amir.mediatracker.search.CatalogGeneration;
+import com.amir.mediatracker.search.KeysetCursor;
+import com.amir.mediatracker.search.SearchCountCache;
+import com.amir.mediatracker.search.UserListSnapshotCache;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -22,6 +35,7 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.DataIntegrityViolationException;
@@ -31,9 +45,10 @@ import org.springframework.test.util.ReflectionTestUtils;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
-import java.util.stream.IntStream;
+import java.util.stream.LongStream;
 
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.assertj.core.api.AssertionsForInterfaceTypes.assertThat;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -43,8 +58,6 @@ import static org.mockito.Mockito.*;
 class UserMediaListServiceTest {
 
 
-    @Captor
-    ArgumentCaptor<Pageable> pageableCaptor;
     @Captor
     ArgumentCaptor<UserMediaList> umlCaptor;
 
@@ -56,6 +69,21 @@ class UserMediaListServiceTest {
     private MediaItemRepository mediaItemRepository;
     @Mock
     ApplicationEventPublisher eventPublisher;
+    @Mock
+    private KeysetPageRepository keysetPageRepository;
+
+    @Mock
+    private ProjectionRepository projectionRepository;
+    @Mock
+    private UserMediaListViewRepository userMediaListViewRepository;
+    @Mock
+    private UserListSnapshotCache userListSnapshotCache;
+    @Mock
+    private UserMediaListBulkRepository userMediaListBulkRepository;
+    @Mock
+    private LastActiveTracker lastActiveTracker;
+    @Spy
+    SearchCountCache searchCountCache = new SearchCountCache(new SearchProperties(), new CatalogGeneration());
 
     @InjectMocks
     private UserMediaListService userMediaListService;
@@ -63,11 +91,13 @@ class UserMediaListServiceTest {
     @BeforeEach
     void setup() {
         ReflectionTestUtils.setField(userMediaListService, "maxLimit", 50);
+        ReflectionTestUtils.setField(userMediaListService, "bulkMaxItems", 3);
     }
 
     @Test
     void updateMediaListItem_VerifyFieldsWhenExperiencedIsFalse() {
         UserMediaList uml = UserMediaList.builder()
+                .id(1L)
                 .mediaItem(new MediaItem())
                 .user(new User())
                 .experienced(true)
@@ -99,6 +129,7 @@ class UserMediaListServiceTest {
     @Test
     void updateMediaListItem_VerifyFieldsWhenNotNull() {
         UserMediaList uml = UserMediaList.builder()
+                .id(1L)
                 .mediaItem(new MediaItem())
                 .user(new User())
                 .experienced(null)
@@ -125,11 +156,13 @@ class UserMediaListServiceTest {
         assertTrue(uml.getWishToReexperience());
         assertFalse(uml.getComment().isBlank());
         assertEquals((short) 10, uml.getRating());
+        verify(userMediaListViewRepository).updateListItem(uml.getId(), true, true, (short) 10);
     }
 
     @Test
     void updateMediaListItem_throwResourceNotFound() {
         UserMediaList uml = UserMediaList.builder()
+                .id(1L)
                 .mediaItem(new MediaItem())
                 .user(new User())
                 .experienced(true)
@@ -148,6 +181,7 @@ class UserMediaListServiceTest {
     @Test
     void updateMediaListItem_publishRatingEvent_whenRatingWasDifferent() {
         UserMediaList uml = UserMediaList.builder()
+                .id(1L)
                 .mediaItem(new MediaItem())
                 .user(new User())
                 .experienced(true)
@@ -170,6 +204,7 @@ class UserMediaListServiceTest {
     @Test
     void updateMediaListItem_publishRatingEvent_whenRatingWasNull() {
         UserMediaList uml = UserMediaList.builder()
+                .id(1L)
                 .mediaItem(new MediaItem())
                 .user(new User())
                 .experienced(true)
@@ -192,6 +227,7 @@ class UserMediaListServiceTest {
     @Test
     void updateMediaListItem_doesNotPublishEvent_whenRatingIsDifferentButExperiencedIsFalse() {
         UserMediaList uml = UserMediaList.builder()
+                .id(1L)
                 .mediaItem(new MediaItem())
                 .user(new User())
                 .experienced(false)
@@ -208,12 +244,13 @@ class UserMediaListServiceTest {
 
         userMediaListService.updateMediaListItem(10L, request);
 
-        verify(eventPublisher, never()).publishEvent(any());
+        verify(eventPublisher, never()).publishEvent(any(RatingEvent.class));
     }
 
     @Test
     void updateMediaListItem_doesNotPublishEvent_whenRatingIsNull() {
         UserMediaList uml = UserMediaList.builder()
+                .id(1L)
                 .mediaItem(new MediaItem())
                 .user(new User())
                 .experienced(true)
@@ -230,12 +267,13 @@ class UserMediaListServiceTest {
 
         userMediaListService.updateMediaListItem(10L, request);
 
-        verify(eventPublisher, never()).publishEvent(any());
+        verify(eventPublisher, never()).publishEvent(any(RatingEvent.class));
     }
 
     @Test
     void updateMediaListItem_doesNotPublishEvent_whenRatingIsSame() {
         UserMediaList uml = UserMediaList.builder()
+                .id(1L)
                 .mediaItem(new MediaItem())
                 .user(new User())
                 .experienced(true)
@@ -252,7 +290,7 @@ class UserMediaListServiceTest {
 
         userMediaListService.updateMediaListItem(10L, request);
 
-        verify(eventPublisher, never()).publishEvent(any());
+        verify(eventPublisher, never()).publishEvent(any(RatingEvent.class));
     }
 
     @Test
@@ -270,13 +308,119 @@ class UserMediaListServiceTest {
     void removeMediaFromList_success() {
         UserMediaList uml = mockUserMediaList();
         uml.setId(100L);
+        uml.getMediaItem().setId(10L);
 
         when(userMediaListRepository.findByIdAndUserId(100L, 1L))
                 .thenReturn(Optional.of(uml));
 
         userMediaListService.removeMediaFromList(1L, 100L);
 
+        verify(userMediaListViewRepository).deleteListItems(1L, List.of(100L));
         verify(userMediaListRepository).delete(uml);
+        verify(eventPublisher).publishEvent(new UserListMembershipChangedEvent(1L, List.of(), List.of(10L)));
+    }
+
+    @Test
+    void addMediaToListBulk_shouldInsertOnceAndSkipItemsAlreadyInList() {
+        when(userRepository.findById(1L)).thenReturn(Optional.of(User.builder().id(1L).build()));
+        when(mediaItemRepository.countByIdIn(List.of(10L, 20L, 30L))).thenReturn(3L); // 20 is already in the list
+        when(userMediaListBulkRepository.insertAll(1L, List.of(10L, 20L, 30L))).thenReturn(List.of(
+                new UserMediaListBulkRepository.ListItemRef(300L, 30L, null),
+                new UserMediaListBulkRepository.ListItemRef(100L, 10L, null)));
+        when(projectionRepository.findUserListItems(List.of(100L, 300L)))
+                .thenReturn(List.of(listItemResponse(100L, "Avatar"), listItemResponse(300L, "Matrix")));
+
+        List<UserMediaListResponse> added = userMediaListService.addMediaToListBulk(1L, List.of(10L, 20L, 30L));
+
+        assertThat(added).extracting(UserMediaListResponse::getId).containsExactly(100L, 300L);
+        verify(userMediaListViewRepository).upsertListItems(List.of(100L, 300L));
+        verify(eventPublisher).publishEvent(new UserListChangedEvent(1L, List.of(100L, 300L), List.of()));
+    }
+
+    @Test
+    void addMediaToListBulk_missingMediaItem_shouldThrowNotFound() {
+        when(userRepository.findById(1L)).thenReturn(Optional.of(User.builder().id(1L).build()));
+        when(mediaItemRepository.countByIdIn(List.of(10L, 20L))).thenReturn(1L);
+
+        assertThatThrownBy(() -> userMediaListService.addMediaToListBulk(1L, List.of(10L, 20L)))
+                .isInstanceOf(ResourceNotFoundException.class);
+        verifyNoInteractions(userMediaListBulkRepository);
+    }
+
+    @Test
+    void addMediaToListBulk_tooManyItems_shouldThrowBadRequest() {
+        assertThatThrownBy(() -> userMediaListService.addMediaToListBulk(1L, List.of(1L, 2L, 3L, 4L)))
+                .isInstanceOf(BadRequestException.class);
+        verifyNoInteractions(userRepository, userMediaListBulkRepository);
+    }
+
+    @Test
+    void updateMediaListItemsBulk_shouldApplyRulesAndPublishRatingChangesTogether() {
+        UserMediaList rated = mockUserMediaList();
+        rated.setId(100L);
+        rated.setUser(User.builder().id(1L).username("user").build());
+        rated.setExperienced(true);
+        UserMediaList unrated = mockUserMediaList();
+        unrated.setId(200L);
+        unrated.setUser(User.builder().id(1L).username("user").build());
+        unrated.setExperienced(true);
+        unrated.setRating((short) 5);
+        when(userMediaListRepository.findAllByIdInAndUserIdWithMediaItem(List.of(100L, 200L), 1L))
+                .thenReturn(List.of(rated, unrated));
+
+        UpdateMediaListRequest rate = new UpdateMediaListRequest();
+        rate.setId(100L);
+        rate.setRating((short) 8);
+        UpdateMediaListRequest unexperience = new UpdateMediaListRequest();
+        unexperience.setId(200L);
+        unexperience.setExperienced(false);
+
+        userMediaListService.updateMediaListItemsBulk(1L, List.of(rate, unexperience));
+
+        assertEquals((short) 8, rated.getRating());
+        assertNull(unrated.getRating());
+        ArgumentCaptor<Object> eventCaptor = ArgumentCaptor.forClass(Object.class);
+        verify(eventPublisher, atLeastOnce()).publishEvent(eventCaptor.capture());
+        assertThat(eventCaptor.getAllValues()).filteredOn(RatingEventBatch.class::isInstance)
+                .singleElement()
+                .satisfies(batch -> assertThat(((RatingEventBatch) batch).events())
+                        .extracting(RatingEvent::getRating, RatingEvent::getPreviousRating)
+                        .containsExactly(tuple((short) 8, null), tuple(null, (short) 5)));
+        verify(userMediaListViewRepository).upsertListItems(List.of(100L, 200L));
+        verify(eventPublisher, never()).publishEvent(any(RatingEvent.class));
+    }
+
+    @Test
+    void updateMediaListItemsBulk_sameItemTwice_shouldThrowBadRequest() {
+        UpdateMediaListRequest request = new UpdateMediaListRequest();
+        request.setId(100L);
+
+        assertThatThrownBy(() -> userMediaListService.updateMediaListItemsBulk(1L, List.of(request, request)))
+                .isInstanceOf(BadRequestException.class);
+    }
+
+    @Test
+    void updateMediaListItemsBulk_itemOfAnotherList_shouldThrowNotFound() {
+        UpdateMediaListRequest request = new UpdateMediaListRequest();
+        request.setId(100L);
+        when(userMediaListRepository.findAllByIdInAndUserIdWithMediaItem(List.of(100L), 1L)).thenReturn(List.of());
+
+        assertThatThrownBy(() -> userMediaListService.updateMediaListItemsBulk(1L, List.of(request)))
+                .isInstanceOf(ResourceNotFoundException.class);
+        verify(userMediaListRepository, never()).saveAll(any());
+    }
+
+    @Test
+    void removeMediaFromListBulk_shouldDeleteOnceAndPublishRemovedItems() {
+        when(userMediaListBulkRepository.deleteAll(1L, List.of(100L, 200L)))
+                .thenReturn(List.of(new UserMediaListBulkRepository.ListItemRef(100L, 10L, null)));
+
+        int removed = userMediaListService.removeMediaFromListBulk(1L, List.of(100L, 200L));
+
+        assertEquals(1, removed);
+        verify(userMediaListViewRepository).deleteListItems(1L, List.of(100L, 200L));
+        verify(eventPublisher).publishEvent(new UserListChangedEvent(1L, List.of(), List.of(100L)));
+        verify(eventPublisher).publishEvent(new UserListMembershipChangedEvent(1L, List.of(), List.of(10L)));
     }
 
 
@@ -346,6 +490,8 @@ class UserMediaListServiceTest {
         assertThat(response.getId()).isEqualTo(100L);
         assertThat(response.getMediaItem().getId()).isEqualTo(10L);
         assertThat(response.getExperienced()).isFalse();
+        verify(eventPublisher).publishEvent(new UserListMembershipChangedEvent(1L, List.of(10L), List.of()));
+        verify(userMediaListViewRepository).upsertListItems(List.of(100L));
     }
 
 
@@ -353,164 +499,76 @@ class UserMediaListServiceTest {
     void getUserMediaListSorted_shouldUseGivenValuesFromRequest() {
         // Arrange
         Long userId = 1L;
-
-        MediaItem m1 = MediaItem.builder()
-                .name("Avatar")
-                .genres(Set.of(new Genre()))
-                .platforms(Set.of(new Platform())).build();
-        MediaItem m2 = MediaItem.builder()
-                .name("Matrix")
-                .genres(Set.of(new Genre()))
-                .platforms(Set.of(new Platform())).build();
-
-        UserMediaList uml1 = UserMediaList.builder().id(2L).mediaItem(m1).build();
-        UserMediaList uml2 = UserMediaList.builder().id(1L).mediaItem(m2).build();
-
-        Page<UserMediaList> page = new PageImpl<>(
-                List.of(uml1, uml2),
-                PageRequest.of(0, 20),
-                2
-        );
-
-        // Act
-        when(userMediaListRepository.findByUserIdWithFiltersSorted(
-                eq(userId), anyString(), any(), any(), any(),
-                anyLong(), anyLong(), eq(true), any()
-        )).thenReturn(page);
-
         Set<Category> categories = Set.of(Category.MOVIE, Category.SERIES);
         Set<Long> genres = Set.of(1L);
         Set<Long> platforms = Set.of(1L, 2L, 3L);
-        userMediaListService.getUserMediaListSorted(
+        UserMediaListViewRepository.Filter filter = new UserMediaListViewRepository.Filter(
+                userId, "Interstellar", categories, genres, platforms, true);
+
+        when(userMediaListViewRepository.findIdsSorted(filter, UserSearchMediaSortBy.YEAR, SortDirection.ASC, 20L, 20))
+                .thenReturn(List.of(2L, 1L));
+        when(userMediaListViewRepository.count(filter)).thenReturn(22L);
+
+        // Act
+        Page<UserMediaListResponse> result = userMediaListService.getUserMediaListSorted(
                         userId, userId,
                         "Interstellar", categories, genres, platforms,
-                        true, 0, 20,
-                        UserSearchMediaSortBy.YEAR, SortDirection.ASC
+                        true, 1, 20,
+                        UserSearchMediaSortBy.YEAR, SortDirection.ASC, null
                 );
 
         // Verify
-        verify(userMediaListRepository).findByUserIdWithFiltersSorted(
-                eq(userId),
-                eq("Interstellar"),
-                eq(categories),
-                eq(genres),
-                eq(platforms),
-                eq(1L),
-                eq(3L),
-                eq(true),
-                pageableCaptor.capture()
-        );
-
-        Assertions.assertThat(pageableCaptor.getValue().getSort()
-                .getOrderFor("mediaItem.year").getDirection()).isEqualTo(Sort.Direction.ASC);
+        verify(userMediaListViewRepository).findIdsSorted(filter, UserSearchMediaSortBy.YEAR, SortDirection.ASC, 20L, 20);
+        assertThat(result.getNumber()).isEqualTo(1);
+        assertThat(result.getTotalElements()).isEqualTo(22);
     }
 
     @Test
     void getUserMediaListSorted_shouldUseDefaultsWhenEmptyOrFalse() {
         // Arrange
         Long userId = 1L;
+        UserMediaListViewRepository.Filter filter = new UserMediaListViewRepository.Filter(
+                userId, "", null, null, null, false);
 
-        MediaItem m1 = MediaItem.builder()
-                .name("Avatar")
-                .genres(Set.of(new Genre()))
-                .platforms(Set.of(new Platform())).build();
-        MediaItem m2 = MediaItem.builder()
-                .name("Matrix")
-                .genres(Set.of(new Genre()))
-                .platforms(Set.of(new Platform())).build();
-
-        UserMediaList uml1 = UserMediaList.builder().id(2L).mediaItem(m1).build();
-        UserMediaList uml2 = UserMediaList.builder().id(1L).mediaItem(m2).build();
-
-        Page<UserMediaList> page = new PageImpl<>(
-                List.of(uml1, uml2),
-                PageRequest.of(0, 20),
-                2
-        );
+        when(userMediaListViewRepository.findIdsSorted(filter, UserSearchMediaSortBy.EXPERIENCED, SortDirection.DESC, 0L, 20))
+                .thenReturn(List.of(2L, 1L));
 
         // Act
-        when(userMediaListRepository.findByUserIdWithFiltersSorted(
-                eq(userId), anyString(), any(), any(), any(),
-                anyLong(), anyLong(), eq(false), any()
-        )).thenReturn(page);
-
         userMediaListService.getUserMediaListSorted(
                         userId, userId,
                         "", Set.of(), Set.of(), Set.of(),
                         false, 0, 20,
-                        UserSearchMediaSortBy.EXPERIENCED, SortDirection.DESC
+                        UserSearchMediaSortBy.EXPERIENCED, SortDirection.DESC, null
                 );
 
         // Verify
-        verify(userMediaListRepository).findByUserIdWithFiltersSorted(
-                eq(userId),
-                eq(""),
-                eq(null),
-                eq(null),
-                eq(null),
-                eq(0L),
-                eq(0L),
-                eq(false),
-                pageableCaptor.capture()
-        );
-
-        Assertions.assertThat(pageableCaptor.getValue().getSort()
-                .getOrderFor("experienced").getDirection()).isEqualTo(Sort.Direction.DESC);
+        verify(userMediaListViewRepository).findIdsSorted(filter, UserSearchMediaSortBy.EXPERIENCED, SortDirection.DESC, 0L, 20);
+        verify(userMediaListViewRepository).count(filter);
     }
 
     @Test
     void getUserMediaListSorted_shouldUseDefaultsWhenRequestAreNull() {
         // Arrange
         Long userId = 1L;
+        UserMediaListViewRepository.Filter filter = new UserMediaListViewRepository.Filter(
+                userId, "", null, null, null, false);
 
-        MediaItem m1 = MediaItem.builder()
-                .name("Avatar")
-                .genres(Set.of(new Genre()))
-                .platforms(Set.of(new Platform())).build();
-        MediaItem m2 = MediaItem.builder()
-                .name("Matrix")
-                .genres(Set.of(new Genre()))
-                .platforms(Set.of(new Platform())).build();
-
-        UserMediaList uml1 = UserMediaList.builder().id(2L).mediaItem(m1).build();
-        UserMediaList uml2 = UserMediaList.builder().id(1L).mediaItem(m2).build();
-
-        Page<UserMediaList> page = new PageImpl<>(
-                List.of(uml1, uml2),
-                PageRequest.of(0, 20),
-                2
-        );
+        when(userMediaListViewRepository.findIdsSorted(filter, UserSearchMediaSortBy.NAME, SortDirection.ASC, 0L, 20))
+                .thenReturn(List.of(2L, 1L));
+        when(userMediaListViewRepository.count(filter)).thenReturn(2L);
+        when(projectionRepository.findUserListItems(List.of(2L, 1L)))
+                .thenReturn(List.of(listItemResponse(2L, "Avatar"), listItemResponse(1L, "Matrix")));
 
         // Act
-        when(userMediaListRepository.findByUserIdWithFiltersSorted(
-                eq(userId), anyString(), any(), any(), any(),
-                anyLong(), anyLong(), eq(false), any()
-        )).thenReturn(page);
-
         Page<UserMediaListResponse> result =
                 userMediaListService.getUserMediaListSorted(
                         userId, userId,
                         null, null, null, null,
                         null, 0, 20,
-                        null, null
+                        null, null, null
                 );
 
         // Verify
-        verify(userMediaListRepository).findByUserIdWithFiltersSorted(
-                eq(userId),
-                eq(""),
-                eq(null),
-                eq(null),
-                eq(null),
-                eq(0L),
-                eq(0L),
-                eq(false),
-                pageableCaptor.capture()
-        );
-
-        Assertions.assertThat(pageableCaptor.getValue().getSort()
-                .getOrderFor("mediaItem.name").getDirection()).isEqualTo(Sort.Direction.ASC);
-
         assertThat(result.getTotalElements()).isEqualTo(2);
         assertThat(result.getContent())
                 .extracting(r -> r.getMediaItem().getName())
@@ -543,15 +601,12 @@ class UserMediaListServiceTest {
 
     @Test
     void getUserMediaListCursor_appliesWishToExperienceFilter() {
-        when(userMediaListRepository.countByUserIdWithFilters(
-                any(), any(), any(), any(), any(), anyLong(), anyLong(), eq(true)))
+        when(userMediaListViewRepository.count(argThat(UserMediaListViewRepository.Filter::wishToExperience)))
                 .thenReturn(2L);
 
-        when(userMediaListRepository.findByUserIdWithFilters(
-                any(), any(), any(), any(), any(),
-                anyLong(), anyLong(), eq(true),
-                any(), anyLong(), any()))
-                .thenReturn(List.of(mockUserMediaList()));
+        when(userMediaListViewRepository.findIdsAfterName(
+                argThat(UserMediaListViewRepository.Filter::wishToExperience), eq(""), eq(0L), eq(21)))
+                .thenReturn(List.of(1L));
 
         UserMediaListSearchResponse response =
                 userMediaListService.getUserMediaListCursor(
@@ -564,14 +619,12 @@ class UserMediaListServiceTest {
 
     @Test
     void getUserMediaListCursor_respectsCursorNameAndId() {
-        when(userMediaListRepository.countByUserIdWithFilters(any(), any(), any(), any(), any(), anyLong(), anyLong(), anyBoolean()))
-                .thenReturn(1L);
+        when(userMediaListViewRepository.count(any())).thenReturn(1L);
 
-        when(userMediaListRepository.findByUserIdWithFilters(
-                any(), any(), any(), any(), any(),
-                anyLong(), anyLong(), anyBoolean(),
-                eq("Matrix"), eq(10L), any()))
-                .thenReturn(List.of(mockUserMediaList()));
+        when(userMediaListViewRepository.findIdsAfterName(any(), eq("Matrix"), eq(10L), anyInt()))
+                .thenReturn(List.of(1L));
+        when(projectionRepository.findUserListItems(List.of(1L)))
+                .thenReturn(List.of(listItemResponse(1L, "The Matrix Reloaded")));
 
         UserMediaListSearchResponse response =
                 userMediaListService.getUserMediaListCursor(
@@ -584,11 +637,7 @@ class UserMediaListServiceTest {
 
     @Test
     void getUserMediaListCursor_clampsLimitToRange() {
-        when(userMediaListRepository.countByUserIdWithFilters(any(), any(), any(), any(), any(), anyLong(), anyLong(), anyBoolean()))
-                .thenReturn(0L);
-
-        when(userMediaListRepository.findByUserIdWithFilters(any(), any(), any(), any(), any(), anyLong(), anyLong(),
-                anyBoolean(), any(), anyLong(), any()))
+        when(userMediaListViewRepository.findIdsAfterName(any(), any(), anyLong(), anyInt()))
                 .thenReturn(List.of());
 
         userMediaListService.getUserMediaListCursor(null, 1L, null, null, null, null,
@@ -597,28 +646,25 @@ class UserMediaListServiceTest {
         userMediaListService.getUserMediaListCursor(null, 1L, null, null, null, null,
                 false, null, null, 10_000);
 
-        verify(userMediaListRepository, times(2))
-                .findByUserIdWithFilters(any(), any(), any(), any(), any(), anyLong(), anyLong(),
-                        anyBoolean(), any(), anyLong(), argThat(p -> p.getPageSize() <= 51));
+        verify(userMediaListViewRepository, times(2))
+                .findIdsAfterName(any(), any(), anyLong(), intThat(limit -> limit >= 2 && limit <= 51));
     }
 
     @Test
     void getUserMediaListCursor_returnsItems_withDefaultLimit_andHasMore() {
         Long userId = 1L;
 
-        List<UserMediaList> items = IntStream.range(0, 21)
-                .mapToObj(i -> mockUserMediaList())
-                .toList();
+        List<Long> ids = LongStream.range(0, 21).boxed().toList();
 
-        when(userMediaListRepository.countByUserIdWithFilters(
-                eq(userId), any(), any(), any(), any(), anyLong(), anyLong(), eq(false)))
+        when(userMediaListViewRepository.count(argThat(f -> userId.equals(f.userId()) && !f.wishToExperience())))
                 .thenReturn(100L);
 
-        when(userMediaListRepository.findByUserIdWithFilters(
-                eq(userId), any(), any(), any(), any(),
-                anyLong(), anyLong(), eq(false),
-                any(), anyLong(), any()))
-                .thenReturn(items);
+        when(userMediaListViewRepository.findIdsAfterName(argThat(f -> userId.equals(f.userId())), any(), anyLong(), eq(21)))
+                .thenReturn(ids);
+        when(projectionRepository.findUserListItems(anyList()))
+                .thenAnswer(invocation -> invocation.<List<Long>>getArgument(0).stream()
+                        .map(id -> listItemResponse(id, "Item " + id))
+                        .toList());
 
         UserMediaListSearchResponse response =
                 userMediaListService.getUserMediaListCursor(
@@ -631,6 +677,95 @@ class UserMediaListServiceTest {
         assertThat(response.getNextCursor()).isNotNull();
     }
 
+    @Test
+    void getUserMediaListSorted_withCursor_shouldReadPageAfterCursorInIdOrder() {
+        Long userId = 1L;
+        String after = KeysetCursor.after(UserSearchMediaSortBy.RATING, SortDirection.DESC, 2,
+                UserMediaListResponse.builder()
+                        .id(5L)
+                        .rating((short) 7)
+                        .mediaItem(MediaItemResponse.builder().name("Avatar").build())
+                        .build()).encode();
+
+        when(keysetPageRepository.findUserListIdsAfter(eq(userId), eq(""), eq(null), eq(null), eq(null), eq(false),
+                eq(UserSearchMediaSortBy.RATING), eq(SortDirection.DESC), any(), eq(21)))
+                .thenReturn(List.of(3L, 1L));
+        when(projectionRepository.findUserListItems(List.of(3L, 1L)))
+                .thenReturn(List.of(listItemResponse(3L, "Avatar"), listItemResponse(1L, "Matrix")));
+        when(userMediaListViewRepository.count(argThat(f -> userId.equals(f.userId()))))
+                .thenReturn(100L);
+
+        Page<UserMediaListResponse> result = userMediaListService.getUserMediaListSorted(
+                userId, userId, null, null, null, null, null, 0, 20,
+                UserSearchMediaSortBy.RATING, SortDirection.DESC, after);
+
+        ArgumentCaptor<KeysetCursor> cursorCaptor = ArgumentCaptor.forClass(KeysetCursor.class);
+        verify(keysetPageRepository).findUserListIdsAfter(any(), any(), any(), any(), any(), anyBoolean(),
+                any(), any(), cursorCaptor.capture(), anyInt());
+        assertThat(cursorCaptor.getValue().id()).isEqualTo(5L);
+        assertThat(cursorCaptor.getValue().intValue()).isEqualTo(7);
+        assertThat(result.getContent()).extracting(UserMediaListResponse::getId).containsExactly(3L, 1L);
+        assertThat(result.getNumber()).isEqualTo(2);
+        assertThat(result.getTotalElements()).isEqualTo(100);
+        assertThat(result.hasNext()).isFalse(); // no extra id, though the total goes on
+        verify(userMediaListViewRepository, never()).findIdsSorted(any(), any(), any(), anyLong(), anyInt());
+    }
+
+    @Test
+    void getUserMediaListSorted_snapshotEnabled_shouldReadPageFromMemory() {
+        Long userId = 1L;
+        UserMediaListViewRepository.Filter filter = new UserMediaListViewRepository.Filter(
+                userId, "", null, null, null, false);
+        when(userListSnapshotCache.isEnabled()).thenReturn(true);
+        when(userListSnapshotCache.findSorted(filter, UserSearchMediaSortBy.RATING, SortDirection.DESC, null, 20L, 20))
+                .thenReturn(new UserListSnapshotCache.Page(List.of(3L, 1L), 42));
+        when(projectionRepository.findUserListItems(List.of(3L, 1L)))
+                .thenReturn(List.of(listItemResponse(3L, "Avatar"), listItemResponse(1L, "Matrix")));
+
+        Page<UserMediaListResponse> result = userMediaListService.getUserMediaListSorted(
+                userId, userId, null, null, null, null, null, 1, 20,
+                UserSearchMediaSortBy.RATING, SortDirection.DESC, null);
+
+        assertThat(result.getContent()).extracting(UserMediaListResponse::getId).containsExactly(3L, 1L);
+        assertThat(result.getTotalElements()).isEqualTo(42);
+        verifyNoInteractions(userMediaListViewRepository, keysetPageRepository);
+    }
+
+    @Test
+    void getUserMediaListCursor_snapshotEnabled_shouldReadPageFromMemory() {
+        when(userListSnapshotCache.isEnabled()).thenReturn(true);
+        when(userListSnapshotCache.findAfterName(any(), eq("Matrix"), eq(10L), eq(21)))
+                .thenReturn(new UserListSnapshotCache.Page(List.of(1L), 5));
+        when(projectionRepository.findUserListItems(List.of(1L)))
+                .thenReturn(List.of(listItemResponse(1L, "The Matrix Reloaded")));
+
+        UserMediaListSearchResponse response = userMediaListService.getUserMediaListCursor(
+                null, 1L, null, null, null, null, false, "Matrix", 10L, 20);
+
+        assertThat(response.getItems()).hasSize(1);
+        assertThat(response.getTotalCount()).isEqualTo(5);
+        verifyNoInteractions(userMediaListViewRepository);
+    }
+
+    @Test
+    void getUserMediaListSorted_withCursorOfAnotherSort_shouldThrowBadRequest() {
+        String after = KeysetCursor.after(UserSearchMediaSortBy.RATING, SortDirection.DESC, 1,
+                UserMediaListResponse.builder().id(5L).build()).encode();
+
+        assertThatThrownBy(() -> userMediaListService.getUserMediaListSorted(
+                1L, 1L, null, null, null, null, null, 0, 20,
+                UserSearchMediaSortBy.YEAR, SortDirection.DESC, after))
+                .isInstanceOf(BadRequestException.class);
+        verifyNoInteractions(keysetPageRepository);
+    }
+
+    private UserMediaListResponse listItemResponse(Long id, String name) {
+        return UserMediaListResponse.builder()
+                .id(id)
+                .mediaItem(MediaItemResponse.builder().id(id + 100).name(name).build())
+                .build();
+    }
+
     private UserMediaList mockUserMediaList() {
         UserMediaList uml = new UserMediaList();
         uml.setMediaItem(new MediaItem());
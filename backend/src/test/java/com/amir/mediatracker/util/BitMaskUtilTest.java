@@ -0,0 +1,59 @@
+package com.amir.mediatracker.util;
+
+import com.amir.mediatracker.entity.Genre;
+import com.amir.mediatracker.entity.MediaItem;
+import com.amir.mediatracker.entity.Platform;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class BitMaskUtilTest {
+
+    @Test
+    public void maskOf_withNullOrEmpty_returnsZero() {
+        assertEquals(0L, BitMaskUtil.maskOf(null));
+        assertEquals(0L, BitMaskUtil.maskOf(List.of()));
+    }
+
+    @Test
+    public void maskOf_setsBitPerId() {
+        //Act
+        long mask = BitMaskUtil.maskOf(List.of(1L, 3L, 64L));
+        //Assert
+        assertEquals(1L | (1L << 2) | Long.MIN_VALUE, mask);
+    }
+
+    @Test
+    public void maskOf_ignoresIdsOutsideMask() {
+        assertEquals(1L << 1, BitMaskUtil.maskOf(List.of(0L, 2L, 65L, 1000L)));
+    }
+
+    @Test
+    public void overflowOf_returnsOnlyIdsOutsideMask() {
+        assertNull(BitMaskUtil.overflowOf(null));
+        assertNull(BitMaskUtil.overflowOf(Set.of(1L, 64L)));
+        assertEquals(Set.of(65L, 100L), BitMaskUtil.overflowOf(Set.of(1L, 65L, 100L)));
+    }
+
+    @Test
+    public void updateMasks_setsMasksFromGenresAndPlatforms() {
+        //Arrange
+        MediaItem item = MediaItem.builder()
+                .genres(Set.of(new Genre(2L, "Action", LocalDateTime.now()), new Genre(70L, "Drama", LocalDateTime.now())))
+                .build();
+        //Act
+        BitMaskUtil.updateMasks(item);
+        //Assert
+        assertEquals(1L << 1, item.getGenreMask());
+        assertEquals(0L, item.getPlatformMask());
+
+        item.setPlatforms(Set.of(new Platform(1L, "Netflix", LocalDateTime.now())));
+        BitMaskUtil.updateMasks(item);
+        assertEquals(1L, item.getPlatformMask());
+    }
+}